@@ -3,7 +3,10 @@ package org.jaudiotagger.audio;
 import org.jaudiotagger.audio.dsf.Dsf;
 import org.jaudiotagger.audio.exceptions.*;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataPicture;
+import org.jaudiotagger.audio.generic.AudioDataDigest;
 import org.jaudiotagger.audio.generic.Permissions;
+import org.jaudiotagger.audio.ogg.OggAudioHeader;
+import org.jaudiotagger.audio.ogg.util.OggAudioDataDigest;
 import org.jaudiotagger.audio.real.RealTag;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.Tag;
@@ -22,9 +25,11 @@ import org.jaudiotagger.tag.wav.WavTag;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.logging.Logger;
 
@@ -184,6 +189,35 @@ public class AudioFile
         return audioHeader;
     }
 
+    /**
+     * Calculate hash of the audio data only, excluding any metadata, so two files containing the same audio have the
+     * same hash even if their tags are different
+     *
+     * The audio data is the data between {@link AudioHeader#getAudioDataStartPosition()} and
+     * {@link AudioHeader#getAudioDataEndPosition()}, or the end of the file if no end position is known. For Ogg
+     * only the data of the audio pages is used, as the page headers are renumbered when the tag changes size.
+     *
+     * @param algorithm such as MD5, SHA-1 or SHA-256
+     * @return hash value
+     * @throws CannotReadException if the location of the audio data is not known for this format
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     */
+    public byte[] getAudioDataHash(String algorithm) throws CannotReadException, IOException, NoSuchAlgorithmException
+    {
+        Long start = audioHeader.getAudioDataStartPosition();
+        if (start == null)
+        {
+            throw new CannotReadException(ErrorMessage.AUDIO_DATA_LOCATION_UNKNOWN.getMsg(file));
+        }
+        Long end = audioHeader.getAudioDataEndPosition();
+        if (audioHeader instanceof OggAudioHeader)
+        {
+            return OggAudioDataDigest.digest(file.toPath(), start, end != null ? end : Long.MAX_VALUE, algorithm);
+        }
+        return AudioDataDigest.digest(file.toPath(), start, end != null ? end : Long.MAX_VALUE, algorithm);
+    }
+
     /**
      * <p>Returns the tag contained in this AudioFile, the <code>Tag</code> contains any useful meta-data, like
      * artist, album, title, etc. If the file does not contain any tag the null is returned. Some audio formats do
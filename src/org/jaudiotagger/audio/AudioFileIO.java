@@ -44,8 +44,12 @@ import org.jaudiotagger.tag.TagException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -192,6 +196,38 @@ public class AudioFileIO
       return getDefaultAudioFileIO().readFile(f);
   }
 
+    /**
+     * Calculate the hash of the audio data of each file, the files are read and hashed in parallel
+     *
+     * Files that cannot be read, or whose audio data location is not known, are logged and are not included in the
+     * results.
+     *
+     * @param files
+     * @param algorithm such as MD5, SHA-1 or SHA-256
+     * @return hash of the audio data for each file that could be hashed
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @see AudioFile#getAudioDataHash(String)
+     */
+    public static Map<File, byte[]> getAudioDataHashes(Collection<File> files, final String algorithm) throws NoSuchAlgorithmException
+    {
+        //Check the algorithm first rather than failing for every file
+        MessageDigest.getInstance(algorithm);
+
+        final Map<File, byte[]> hashes = new ConcurrentHashMap<File, byte[]>();
+        files.parallelStream().forEach(file ->
+        {
+            try
+            {
+                hashes.put(file, read(file).getAudioDataHash(algorithm));
+            }
+            catch (Exception e)
+            {
+                logger.warning(file + ":Unable to calculate audio data hash:" + e.getMessage());
+            }
+        });
+        return hashes;
+    }
+
     /**
      *
      * Write the tag contained in the audioFile in the actual file on the disk.
@@ -461,19 +497,7 @@ public class AudioFileIO
      */
     public void writeFile(AudioFile f, String targetPath) throws CannotWriteException
     {
-    	String ext = f.getExt();
-
-        if (targetPath != null && !targetPath.isEmpty())
-        {
-            final File destination = new File(targetPath + "." + ext);
-                try
-                {
-                    Utils.copyThrowsOnException(f.getFile(), destination);
-                    f.setFile(destination);
-                } catch (IOException e) {
-                    throw new CannotWriteException("Error While Copying" + e.getMessage());
-                }
-        }
+        String ext = f.getExt();
 
         AudioFileWriter afw = writers.get(ext);
         if (afw == null)
@@ -481,7 +505,14 @@ public class AudioFileIO
             throw new CannotWriteException(ErrorMessage.NO_WRITER_FOR_THIS_FORMAT.getMsg(ext));
         }
 
-        afw.write(f);
+        if (targetPath != null && !targetPath.isEmpty())
+        {
+            afw.writeAs(f, new File(targetPath + "." + ext));
+        }
+        else
+        {
+            afw.write(f);
+        }
     }
 
 }
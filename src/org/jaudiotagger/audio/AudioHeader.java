@@ -43,7 +43,7 @@ public interface AudioHeader
      *
      * @return the location in the file where the audio samples start
      *
-     * TODO currently only used by Wav/Aiff/Flac/Mp4
+     * TODO currently only used by Wav/Aiff/Flac/Mp4/Mp3/Ogg
      */
     public Long getAudioDataStartPosition();
 
@@ -52,7 +52,7 @@ public interface AudioHeader
      *
      * @return the location in the file where the audio samples end
      *
-     * TODO currently only used by Wav/Aiff/Flac/Mp4
+     * TODO currently only used by Wav/Aiff/Flac/Mp4/Mp3/Ogg
      */
     public Long getAudioDataEndPosition();
 
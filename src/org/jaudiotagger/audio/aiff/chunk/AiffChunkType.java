@@ -1,7 +1,6 @@
 package org.jaudiotagger.audio.aiff.chunk;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.jaudiotagger.audio.iff.ChunkIdIndex;
 
 /**
  * Chunk types mark each {@link org.jaudiotagger.audio.iff.ChunkHeader}. They are <em>always</em> 4 ASCII chars long.
@@ -23,7 +22,6 @@ public enum AiffChunkType
     CORRUPT_TAG_LATE("D3 \u0000"),
     CORRUPT_TAG_EARLY("\u0000ID3");
 
-    private static final Map<String, AiffChunkType> CODE_TYPE_MAP = new HashMap<String, AiffChunkType>();
     private String code;
 
     /**
@@ -34,19 +32,17 @@ public enum AiffChunkType
         this.code=code;
     }
 
+    private static final ChunkIdIndex<AiffChunkType> CODE_TYPE_INDEX = new ChunkIdIndex<AiffChunkType>(values(), AiffChunkType::getCode);
+
     /**
      * Get {@link AiffChunkType} for code (e.g. "SSND").
      *
      * @param code chunk id
      * @return chunk type or {@code null} if not registered
      */
-    public synchronized static AiffChunkType get(final String code) {
-        if (CODE_TYPE_MAP.isEmpty()) {
-            for (final AiffChunkType type : values()) {
-                CODE_TYPE_MAP.put(type.getCode(), type);
-            }
-        }
-        return CODE_TYPE_MAP.get(code);
+    public static AiffChunkType get(final String code)
+    {
+        return CODE_TYPE_INDEX.get(code);
     }
 
     /**
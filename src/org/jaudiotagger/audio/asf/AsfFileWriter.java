@@ -24,13 +24,18 @@ import org.jaudiotagger.audio.asf.data.ChunkContainer;
 import org.jaudiotagger.audio.asf.data.MetadataContainer;
 import org.jaudiotagger.audio.asf.io.*;
 import org.jaudiotagger.audio.asf.util.TagConverter;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.asf.AsfTag;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,6 +57,18 @@ public class AsfFileWriter extends AudioFileWriter
         writeTag(null, new AsfTag(true), raf, tempRaf);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * A modified copy of the complete file is always created, so it can be created as the destination.
+     */
+    @Override
+    protected boolean writeTagToNewFile(AudioFile audioFile, Tag tag, Path source, Path destination) throws CannotReadException, CannotWriteException, IOException
+    {
+        writeTagUsingDestinationAsTempFile(audioFile, tag, source, destination);
+        return true;
+    }
+
     private boolean[] searchExistence(final ChunkContainer container, final MetadataContainer[] metaContainers)
     {
         assert container != null;
@@ -69,6 +86,22 @@ public class AsfFileWriter extends AudioFileWriter
      */
     @Override
     protected void writeTag(AudioFile audioFile, final Tag tag, final RandomAccessFile raf, final RandomAccessFile rafTemp) throws CannotWriteException, IOException
+    {
+        writeTag(tag, raf, new RandomAccessFileOutputStream(rafTemp));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBuffer writeTagToMemory(AudioFile audioFile, Tag tag, RandomAccessFile raf) throws CannotWriteException, IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream((int) raf.length());
+        writeTag(tag, raf, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private void writeTag(final Tag tag, final RandomAccessFile raf, final OutputStream out) throws IOException
     {
         /*
          * Since this implementation should not change the structure of the ASF
@@ -138,7 +171,7 @@ public class AsfFileWriter extends AudioFileWriter
         {
             headerModifier.add(new AsfExtHeaderModifier(extHeaderModifier));
         }
-        new AsfStreamer().createModifiedCopy(new RandomAccessFileInputstream(raf), new RandomAccessFileOutputStream(rafTemp), headerModifier);
+        new AsfStreamer().createModifiedCopy(new RandomAccessFileInputstream(raf), out, headerModifier);
     }
 
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package org.jaudiotagger.audio.dff;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.jaudiotagger.audio.iff.ChunkIdIndex;
 
 /**
  * Chunk types mark each {@link org.jaudiotagger.audio.iff.ChunkHeader}. They are <em>always</em> 4 ASCII chars long.
@@ -24,7 +23,6 @@ public enum DffChunkType
     ID3("ID3 "),
     DATA("data"),;
 
-    private static final Map<String, DffChunkType> CODE_TYPE_MAP = new HashMap<String, DffChunkType>();
     private String code;
 
     /**
@@ -35,22 +33,17 @@ public enum DffChunkType
         this.code = code;
     }
 
+    private static final ChunkIdIndex<DffChunkType> CODE_TYPE_INDEX = new ChunkIdIndex<DffChunkType>(values(), DffChunkType::getCode);
+
     /**
      * Get {@link org.jaudiotagger.audio.dsf.DsfChunkType} for code (e.g. "SSND").
      *
      * @param code chunk id
      * @return chunk type or {@code null} if not registered
      */
-    public synchronized static DffChunkType get(final String code)
+    public static DffChunkType get(final String code)
     {
-        if (CODE_TYPE_MAP.isEmpty())
-        {
-            for (final DffChunkType type : values())
-            {
-                CODE_TYPE_MAP.put(type.getCode(), type);
-            }
-        }
-        return CODE_TYPE_MAP.get(code);
+        return CODE_TYPE_INDEX.get(code);
     }
 
     /**
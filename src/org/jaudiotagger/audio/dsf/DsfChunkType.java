@@ -1,7 +1,6 @@
 package org.jaudiotagger.audio.dsf;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.jaudiotagger.audio.iff.ChunkIdIndex;
 
 /**
  * Chunk types mark each {@link org.jaudiotagger.audio.iff.ChunkHeader}. They are <em>always</em> 4 ASCII chars long.
@@ -16,7 +15,6 @@ public enum DsfChunkType
     ID3("ID3"),
     ;
 
-    private static final Map<String, DsfChunkType> CODE_TYPE_MAP = new HashMap<String, DsfChunkType>();
     private String code;
 
     /**
@@ -27,19 +25,17 @@ public enum DsfChunkType
         this.code=code;
     }
 
+    private static final ChunkIdIndex<DsfChunkType> CODE_TYPE_INDEX = new ChunkIdIndex<DsfChunkType>(values(), DsfChunkType::getCode);
+
     /**
      * Get {@link org.jaudiotagger.audio.dsf.DsfChunkType} for code (e.g. "SSND").
      *
      * @param code chunk id
      * @return chunk type or {@code null} if not registered
      */
-    public synchronized static DsfChunkType get(final String code) {
-        if (CODE_TYPE_MAP.isEmpty()) {
-            for (final DsfChunkType type : values()) {
-                CODE_TYPE_MAP.put(type.getCode(), type);
-            }
-        }
-        return CODE_TYPE_MAP.get(code);
+    public static DsfChunkType get(final String code)
+    {
+        return CODE_TYPE_INDEX.get(code);
     }
 
     /**
@@ -1,10 +1,16 @@
 package org.jaudiotagger.audio.flac;
 
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 
+import java.util.Collections;
+import java.util.List;
+
 public class FlacAudioHeader extends GenericAudioHeader
 {
     private String md5;
+    private List<MetadataBlockHeader> metadataBlockHeaders = Collections.emptyList();
+    private FlacSeekTable seekTable;
 
     public String getMd5()
     {
@@ -15,4 +21,42 @@ public class FlacAudioHeader extends GenericAudioHeader
     {
         this.md5 = md5;
     }
+
+    /**
+     * @return headers of the metadata blocks in the order they were found in the file, each header records where
+     * it starts in the file
+     */
+    public List<MetadataBlockHeader> getMetadataBlockHeaders()
+    {
+        return metadataBlockHeaders;
+    }
+
+    public void setMetadataBlockHeaders(List<MetadataBlockHeader> metadataBlockHeaders)
+    {
+        this.metadataBlockHeaders = Collections.unmodifiableList(metadataBlockHeaders);
+    }
+
+    /**
+     * @return seek points from the SEEKTABLE block, or null if the file does not have one
+     */
+    public FlacSeekTable getSeekTable()
+    {
+        return seekTable;
+    }
+
+    public void setSeekTable(FlacSeekTable seekTable)
+    {
+        this.seekTable = seekTable;
+    }
+
+    /**
+     * @param sampleNumber
+     * @return position in file of the frame to start decoding from in order to reach sampleNumber, this is the
+     * start of the audio if there is no seek table
+     */
+    public long getSeekPosition(long sampleNumber)
+    {
+        long offset = seekTable != null ? seekTable.getFrameOffsetForSample(sampleNumber) : 0;
+        return getAudioDataStartPosition() + offset;
+    }
 }
@@ -18,13 +18,23 @@
  */
 package org.jaudiotagger.audio.flac;
 
+import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataPicture;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataStreamInfo;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
 import org.jaudiotagger.audio.generic.AudioFileReader2;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.vorbiscomment.VorbisCommentTag;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
 
 /**
  * Read encoding and tag info for Flac file (open source lossless encoding)
@@ -35,6 +45,66 @@ public class FlacFileReader extends AudioFileReader2
     private FlacInfoReader ir = new FlacInfoReader();
     private FlacTagReader tr = new FlacTagReader();
 
+    /**
+     * Both the audio info and the tag are held in the metadata blocks so walk them just once, recording the
+     * position of each block in the audio header
+     */
+    @Override
+    protected AudioFile read(File f, Path path) throws CannotReadException, IOException
+    {
+        try (FileChannel fc = FileChannel.open(path))
+        {
+            FlacStreamReader flacStream = new FlacStreamReader(fc, path.toString() + " ");
+            flacStream.findStream();
+
+            MetadataBlockDataStreamInfo mbdsi = null;
+            FlacSeekTable seekTable = null;
+            VorbisCommentTag tag = null;
+            List<MetadataBlockDataPicture> images = new ArrayList<MetadataBlockDataPicture>();
+            List<MetadataBlockHeader> headers = new ArrayList<MetadataBlockHeader>();
+
+            boolean isLastBlock = false;
+            while (!isLastBlock)
+            {
+                MetadataBlockHeader mbh = MetadataBlockHeader.readHeader(fc);
+                headers.add(mbh);
+                if (logger.isLoggable(Level.CONFIG))
+                {
+                    logger.config(path + " Reading MetadataBlockHeader:" + mbh.toString());
+                }
+
+                long dataStart = fc.position();
+                switch (mbh.getBlockType())
+                {
+                    case STREAMINFO:
+                        mbdsi = ir.readStreamInfo(path, mbh, fc);
+                        break;
+
+                    case VORBIS_COMMENT:
+                        tag = tr.readVorbisComment(path, mbh, fc);
+                        break;
+
+                    case PICTURE:
+                        tr.readPicture(path, mbh, fc, images);
+                        break;
+
+                    case SEEKTABLE:
+                        seekTable = ir.readSeekTable(mbh, fc);
+                        break;
+
+                    default:
+                        break;
+                }
+                fc.position(dataStart + mbh.getDataLength());
+                isLastBlock = mbh.isLastBlock();
+            }
+
+            FlacAudioHeader info = ir.createAudioHeader(path, mbdsi, headers, fc.position(), fc.size());
+            info.setSeekTable(seekTable);
+            return new AudioFile(f, info, tr.createTag(tag, images));
+        }
+    }
+
     protected GenericAudioHeader  getEncodingInfo(Path path) throws CannotReadException, IOException
     {
         return ir.read(path);
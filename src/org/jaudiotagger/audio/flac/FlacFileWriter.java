@@ -18,6 +18,7 @@
  */
 package org.jaudiotagger.audio.flac;
 
+import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter2;
 import org.jaudiotagger.tag.Tag;
@@ -45,6 +46,27 @@ public class FlacFileWriter extends AudioFileWriter2
         tw.delete(tag, file);
     }
 
+    /**
+     * Add a seek table to the file, or refresh the existing one, so that players can seek without having to search
+     * through the audio. The seek points are found by scanning the frame headers, the audio is not decoded.
+     *
+     * @param file
+     * @param secondsBetweenSeekPoints
+     * @return the seek table written
+     * @throws CannotWriteException
+     */
+    public FlacSeekTable writeSeekTable(Path file, int secondsBetweenSeekPoints) throws CannotWriteException
+    {
+        return tw.writeSeekTable(file, secondsBetweenSeekPoints);
+    }
+
+    @Override
+    protected boolean writeTagToNewFile(AudioFile audioFile, Tag tag, Path source, Path destination) throws CannotWriteException
+    {
+        tw.write(tag, source, destination);
+        return true;
+    }
+
 
 }
 
@@ -21,6 +21,7 @@ package org.jaudiotagger.audio.flac;
 import org.jaudiotagger.audio.SupportedFileFormat;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.flac.metadatablock.BlockType;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataSeekTable;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataStreamInfo;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
 import org.jaudiotagger.audio.generic.Utils;
@@ -29,6 +30,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -50,6 +54,8 @@ public class FlacInfoReader
             flacStream.findStream();
 
             MetadataBlockDataStreamInfo mbdsi = null;
+            FlacSeekTable seekTable = null;
+            List<MetadataBlockHeader> headers = new ArrayList<MetadataBlockHeader>();
             boolean isLastBlock = false;
 
             //Search for StreamInfo Block, but even after we found it we still have to continue through all
@@ -58,52 +64,104 @@ public class FlacInfoReader
             while (isLastBlock==false)
             {
                 MetadataBlockHeader mbh = MetadataBlockHeader.readHeader(fc);
-                logger.info(path.toString() + " "  + mbh.toString());
+                headers.add(mbh);
+                if (logger.isLoggable(Level.CONFIG))
+                {
+                    logger.config(path.toString() + " " + mbh.toString());
+                }
+                long dataStart = fc.position();
                 if (mbh.getBlockType() == BlockType.STREAMINFO)
                 {
-                    //See #253:MetadataBlockDataStreamInfo exception when bytes length is 0
-                    if(mbh.getDataLength()==0)
-                    {
-                        throw new CannotReadException(path + ":FLAC StreamInfo has zeo data length");
-                    }
-
-                    mbdsi = new MetadataBlockDataStreamInfo(mbh, fc);
-                    if (!mbdsi.isValid())
-                    {
-                        throw new CannotReadException(path + ":FLAC StreamInfo not valid");
-                    }
+                    mbdsi = readStreamInfo(path, mbh, fc);
                 }
-                else
+                else if (mbh.getBlockType() == BlockType.SEEKTABLE)
                 {
-                    fc.position(fc.position() + mbh.getDataLength());
+                    seekTable = readSeekTable(mbh, fc);
                 }
+                fc.position(dataStart + mbh.getDataLength());
                 isLastBlock = mbh.isLastBlock();
             }
 
             //Audio continues from this point to end of file (normally - TODO might need to allow for an ID3v1 tag at file end ?)
-            long streamStart = fc.position();
+            FlacAudioHeader info = createAudioHeader(path, mbdsi, headers, fc.position(), fc.size());
+            info.setSeekTable(seekTable);
+            return info;
+        }
+    }
 
-            if (mbdsi == null)
-            {
-                throw new CannotReadException(path + ":Unable to find Flac StreamInfo");
-            }
+    /**
+     * Read the seek points of the SeekTable block, fc is positioned at the start of the data
+     *
+     * @param mbh
+     * @param fc
+     * @return
+     * @throws IOException
+     */
+    FlacSeekTable readSeekTable(MetadataBlockHeader mbh, FileChannel fc) throws IOException
+    {
+        return FlacSeekTable.read(new MetadataBlockDataSeekTable(mbh, fc).getBytes());
+    }
 
-            FlacAudioHeader info = new FlacAudioHeader();
-            info.setNoOfSamples(mbdsi.getNoOfSamples());
-            info.setPreciseLength(mbdsi.getPreciseLength());
-            info.setChannelNumber(mbdsi.getNoOfChannels());
-            info.setSamplingRate(mbdsi.getSamplingRate());
-            info.setBitsPerSample(mbdsi.getBitsPerSample());
-            info.setEncodingType(mbdsi.getEncodingType());
-            info.setFormat(SupportedFileFormat.FLAC.getDisplayName());
-            info.setLossless(true);
-            info.setMd5(mbdsi.getMD5Signature());
-            info.setAudioDataLength(fc.size() - streamStart);
-            info.setAudioDataStartPosition(streamStart);
-            info.setAudioDataEndPosition(fc.size());
-            info.setBitRate(computeBitrate(info.getAudioDataLength(), mbdsi.getPreciseLength()));
-            return info;
+    /**
+     * Read the StreamInfo block data, fc is positioned at the start of the data
+     *
+     * @param path
+     * @param mbh
+     * @param fc
+     * @return
+     * @throws CannotReadException if StreamInfo is not valid
+     * @throws IOException
+     */
+    MetadataBlockDataStreamInfo readStreamInfo(Path path, MetadataBlockHeader mbh, FileChannel fc) throws CannotReadException, IOException
+    {
+        //See #253:MetadataBlockDataStreamInfo exception when bytes length is 0
+        if(mbh.getDataLength()==0)
+        {
+            throw new CannotReadException(path + ":FLAC StreamInfo has zeo data length");
         }
+
+        MetadataBlockDataStreamInfo mbdsi = new MetadataBlockDataStreamInfo(mbh, fc);
+        if (!mbdsi.isValid())
+        {
+            throw new CannotReadException(path + ":FLAC StreamInfo not valid");
+        }
+        return mbdsi;
+    }
+
+    /**
+     * Create audio header once all the metadata blocks have been read
+     *
+     * @param path
+     * @param mbdsi StreamInfo, or null if none was found
+     * @param headers headers of all the metadata blocks in file order
+     * @param streamStart start of the audio frames, immediately after the last metadata block
+     * @param fileSize
+     * @return
+     * @throws CannotReadException if there was no StreamInfo
+     */
+    FlacAudioHeader createAudioHeader(Path path, MetadataBlockDataStreamInfo mbdsi, List<MetadataBlockHeader> headers, long streamStart, long fileSize) throws CannotReadException
+    {
+        if (mbdsi == null)
+        {
+            throw new CannotReadException(path + ":Unable to find Flac StreamInfo");
+        }
+
+        FlacAudioHeader info = new FlacAudioHeader();
+        info.setNoOfSamples(mbdsi.getNoOfSamples());
+        info.setPreciseLength(mbdsi.getPreciseLength());
+        info.setChannelNumber(mbdsi.getNoOfChannels());
+        info.setSamplingRate(mbdsi.getSamplingRate());
+        info.setBitsPerSample(mbdsi.getBitsPerSample());
+        info.setEncodingType(mbdsi.getEncodingType());
+        info.setFormat(SupportedFileFormat.FLAC.getDisplayName());
+        info.setLossless(true);
+        info.setMd5(mbdsi.getMD5Signature());
+        info.setAudioDataLength(fileSize - streamStart);
+        info.setAudioDataStartPosition(streamStart);
+        info.setAudioDataEndPosition(fileSize);
+        info.setBitRate(computeBitrate(info.getAudioDataLength(), mbdsi.getPreciseLength()));
+        info.setMetadataBlockHeaders(headers);
+        return info;
     }
 
     private int computeBitrate(long size, float length )
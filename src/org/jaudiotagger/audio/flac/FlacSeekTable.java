@@ -0,0 +1,171 @@
+package org.jaudiotagger.audio.flac;
+
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataSeekTable;
+import org.jaudiotagger.logging.ErrorMessage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The seek points of a Flac SEEKTABLE held in primitive arrays, ordered by sample number
+ *
+ * Each seek point gives the sample number of the first sample in a frame, the offset of that frame from the first
+ * frame of the audio and the number of samples in the frame. Placeholder points are not held.
+ *
+ * A player wanting sample n starts decoding at the frame given by {@link #getFrameOffsetForSample(long)} and
+ * decodes forward from there, rather than having to search the audio for the right frame.
+ */
+public class FlacSeekTable
+{
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.flac");
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] sampleNumbers = new long[INITIAL_CAPACITY];
+    private long[] frameOffsets  = new long[INITIAL_CAPACITY];
+    private int[]  frameSamples  = new int[INITIAL_CAPACITY];
+    private int    count;
+
+    /**
+     * Create an empty seek table, seek points can then be added in sample number order
+     */
+    public FlacSeekTable()
+    {
+
+    }
+
+    /**
+     * Read seek points from the data of a SEEKTABLE block, seek points that are not in ascending sample number order
+     * are not valid and are skipped
+     *
+     * @param data
+     * @return
+     */
+    public static FlacSeekTable read(ByteBuffer data)
+    {
+        FlacSeekTable seekTable = new FlacSeekTable();
+        for (int pos = data.position(); pos + MetadataBlockDataSeekTable.SEEK_POINT_LENGTH <= data.limit(); pos += MetadataBlockDataSeekTable.SEEK_POINT_LENGTH)
+        {
+            long sampleNumber = data.getLong(pos);
+
+            //Placeholders are always at the end
+            if (sampleNumber == MetadataBlockDataSeekTable.PLACEHOLDER_SAMPLE_NUMBER)
+            {
+                break;
+            }
+
+            if (seekTable.count > 0 && sampleNumber <= seekTable.sampleNumbers[seekTable.count - 1])
+            {
+                logger.warning(ErrorMessage.FLAC_SEEK_POINT_OUT_OF_ORDER.getMsg(sampleNumber));
+                continue;
+            }
+            seekTable.add(sampleNumber, data.getLong(pos + 8), data.getShort(pos + 16) & 0xFFFF);
+        }
+        return seekTable;
+    }
+
+    /**
+     * Add seek point, must have a higher sample number than those already added
+     *
+     * @param sampleNumber first sample in frame
+     * @param frameOffset offset of frame header from the first frame header
+     * @param noOfSamples number of samples in frame
+     */
+    public void add(long sampleNumber, long frameOffset, int noOfSamples)
+    {
+        if (count > 0 && sampleNumber <= sampleNumbers[count - 1])
+        {
+            throw new IllegalArgumentException("Seek points must be added in ascending sample number order:" + sampleNumber);
+        }
+        if (count == sampleNumbers.length)
+        {
+            int newCapacity = count * 2;
+            sampleNumbers = Arrays.copyOf(sampleNumbers, newCapacity);
+            frameOffsets  = Arrays.copyOf(frameOffsets, newCapacity);
+            frameSamples  = Arrays.copyOf(frameSamples, newCapacity);
+        }
+        sampleNumbers[count] = sampleNumber;
+        frameOffsets[count]  = frameOffset;
+        frameSamples[count]  = noOfSamples;
+        count++;
+    }
+
+    /**
+     * @return number of seek points
+     */
+    public int getNoOfSeekPoints()
+    {
+        return count;
+    }
+
+    public long getSampleNumber(int index)
+    {
+        return sampleNumbers[index];
+    }
+
+    public long getFrameOffset(int index)
+    {
+        return frameOffsets[index];
+    }
+
+    public int getNoOfSamples(int index)
+    {
+        return frameSamples[index];
+    }
+
+    /**
+     * @param sampleNumber
+     * @return index of the seek point with the highest sample number not after sampleNumber, or -1 if there is none
+     */
+    public int indexOf(long sampleNumber)
+    {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sampleNumbers[mid] <= sampleNumber)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param sampleNumber
+     * @return offset from the first frame of the frame to start decoding from in order to reach sampleNumber, 0 if
+     * there is no seek point before it
+     */
+    public long getFrameOffsetForSample(long sampleNumber)
+    {
+        int index = indexOf(sampleNumber);
+        return index == -1 ? 0 : frameOffsets[index];
+    }
+
+    /**
+     * @return seek points as the data of a SEEKTABLE block
+     */
+    public MetadataBlockDataSeekTable toMetadataBlockData()
+    {
+        ByteBuffer data = ByteBuffer.allocate(count * MetadataBlockDataSeekTable.SEEK_POINT_LENGTH);
+        for (int i = 0; i < count; i++)
+        {
+            data.putLong(sampleNumbers[i]);
+            data.putLong(frameOffsets[i]);
+            data.putShort((short) frameSamples[i]);
+        }
+        data.flip();
+        return new MetadataBlockDataSeekTable(data);
+    }
+
+    public String toString()
+    {
+        return "SeekTable:noOfSeekPoints:" + count;
+    }
+}
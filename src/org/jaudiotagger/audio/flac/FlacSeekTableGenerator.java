@@ -0,0 +1,353 @@
+package org.jaudiotagger.audio.flac;
+
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataStreamInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+
+/**
+ * Create a seek table by scanning the audio for frame headers, the audio itself is not decoded
+ *
+ * Each frame starts with a header beginning with a 14 bit sync code, this is followed by the block size, sample rate,
+ * channel and sample size codes, then the frame number (fixed block size streams) or sample number (variable block
+ * size streams) as a UTF-8 style variable length number, optional extended block size and sample rate and finally
+ * a CRC-8 of the header. A candidate header is only accepted if its CRC is correct and its sample number follows on
+ * from the previous frame, so sync codes occurring within the audio data are not mistaken for frames.
+ *
+ * Once a frame has been found the search for the next one can start the minimum frame size (from StreamInfo) further
+ * on, or just after its header if the minimum frame size is not known. If a frame is missed, for example because the
+ * minimum frame size is wrong, a later frame is accepted once the frame following it has also been found, so the
+ * scan resynchronises rather than stopping.
+ */
+public class FlacSeekTableGenerator
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.flac");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //Longest possible frame header, 4 fixed bytes, 7 byte sample number, 2 byte block size, 2 byte sample rate and crc
+    private static final int MAX_FRAME_HEADER_LENGTH = 16;
+
+    private static final int SYNC_BYTE = 0xFF;
+    private static final int SYNC_MASK = 0xFE;
+    private static final int SYNC_SECOND_BYTE = 0xF8;
+
+    private static final int[] CRC8_TABLE = new int[256];
+    static
+    {
+        for (int i = 0; i < 256; i++)
+        {
+            int crc = i;
+            for (int j = 0; j < 8; j++)
+            {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) : (crc << 1);
+            }
+            CRC8_TABLE[i] = crc & 0xFF;
+        }
+    }
+
+    private final FileChannel fc;
+    private final MetadataBlockDataStreamInfo streamInfo;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long bufferStart;
+
+    //Values decoded from the last frame header
+    private long frameSampleNumber;
+    private int frameBlockSize;
+    private int frameHeaderLength;
+
+    private FlacSeekTableGenerator(FileChannel fc, MetadataBlockDataStreamInfo streamInfo)
+    {
+        this.fc = fc;
+        this.streamInfo = streamInfo;
+    }
+
+    /**
+     * Generate seek table for the audio starting at audioStart and continuing to the end of the file
+     *
+     * @param fc
+     * @param audioStart position of the first frame
+     * @param streamInfo
+     * @param samplesBetweenSeekPoints
+     * @return seek table with a seek point for the frame containing each multiple of samplesBetweenSeekPoints
+     * @throws IOException
+     */
+    public static FlacSeekTable generate(FileChannel fc, long audioStart, MetadataBlockDataStreamInfo streamInfo, long samplesBetweenSeekPoints) throws IOException
+    {
+        return new FlacSeekTableGenerator(fc, streamInfo).scan(audioStart, samplesBetweenSeekPoints);
+    }
+
+    private FlacSeekTable scan(long audioStart, long samplesBetweenSeekPoints) throws IOException
+    {
+        FlacSeekTable seekTable = new FlacSeekTable();
+        long end = fc.size();
+        long nextSeekSample = 0;
+        long expectedSampleNumber = -1;
+        long pos = audioStart;
+        int noOfFrames = 0;
+        bufferStart = -1;
+
+        while (pos < end - 2)
+        {
+            if (!fill(pos))
+            {
+                break;
+            }
+            int index = (int) (pos - bufferStart);
+            if (isFrameHeader(index) && (expectedSampleNumber == -1 || frameSampleNumber == expectedSampleNumber || isResync(pos, end, expectedSampleNumber)))
+            {
+                noOfFrames++;
+                if (frameSampleNumber >= nextSeekSample)
+                {
+                    seekTable.add(frameSampleNumber, pos - audioStart, frameBlockSize);
+                    while (nextSeekSample <= frameSampleNumber)
+                    {
+                        nextSeekSample += samplesBetweenSeekPoints;
+                    }
+                }
+                expectedSampleNumber = frameSampleNumber + frameBlockSize;
+                if (streamInfo.getNoOfSamples() > 0 && expectedSampleNumber >= streamInfo.getNoOfSamples())
+                {
+                    break;
+                }
+                //A frame cannot be shorter than its header, the minimum frame size is 0 if not known
+                pos += Math.max(streamInfo.getMinFrameSize(), frameHeaderLength);
+            }
+            else
+            {
+                pos++;
+            }
+        }
+        logger.config("Scanned " + noOfFrames + " frames, created " + seekTable);
+        return seekTable;
+    }
+
+    /**
+     * The frame header just decoded does not have the expected sample number, check whether frames have been missed
+     *
+     * @param pos position of the frame header
+     * @param end end of the audio
+     * @param expectedSampleNumber
+     * @return true if the frame is later than expected and is followed by the next frame, or is the last frame of the
+     * stream
+     * @throws IOException
+     */
+    private boolean isResync(long pos, long end, long expectedSampleNumber) throws IOException
+    {
+        if (frameSampleNumber < expectedSampleNumber)
+        {
+            return false;
+        }
+
+        long sampleNumber = frameSampleNumber;
+        int blockSize = frameBlockSize;
+        int headerLength = frameHeaderLength;
+        long nextSampleNumber = sampleNumber + blockSize;
+
+        boolean isFollowed = streamInfo.getNoOfSamples() > 0 && nextSampleNumber == streamInfo.getNoOfSamples();
+        long limit = Math.min(end - 2, pos + getMaxFrameSize());
+        for (long next = pos + headerLength; !isFollowed && next < limit && fill(next); next++)
+        {
+            isFollowed = isFrameHeader((int) (next - bufferStart)) && frameSampleNumber == nextSampleNumber;
+        }
+        if (isFollowed)
+        {
+            logger.warning("Missed frames for samples " + expectedSampleNumber + " to " + sampleNumber + ", resynchronised at:" + pos);
+        }
+
+        //Restore the frame being checked, buffer is refilled by the caller if required
+        fill(pos);
+        frameSampleNumber = sampleNumber;
+        frameBlockSize = blockSize;
+        frameHeaderLength = headerLength;
+        return isFollowed;
+    }
+
+    /**
+     * @return maximum frame size from StreamInfo, or if not known the size of an unencoded frame
+     */
+    private int getMaxFrameSize()
+    {
+        if (streamInfo.getMaxFrameSize() > 0)
+        {
+            return streamInfo.getMaxFrameSize();
+        }
+        //Side channel of a stereo frame has an extra bit per sample, each subframe has a header of up to 2 bytes and
+        //the frame ends with CRC-16
+        int channels = streamInfo.getNoOfChannels();
+        return MAX_FRAME_HEADER_LENGTH + (streamInfo.getMaxBlockSize() * channels * (streamInfo.getBitsPerSample() + 1) + 7) / 8 + channels * 2 + 2;
+    }
+
+    /**
+     * Make sure buffer holds data from pos, with enough following it for a frame header unless at end of file
+     *
+     * @param pos
+     * @return false if there is no data
+     * @throws IOException
+     */
+    private boolean fill(long pos) throws IOException
+    {
+        if (bufferStart != -1 && pos >= bufferStart && pos + MAX_FRAME_HEADER_LENGTH <= bufferStart + buffer.limit())
+        {
+            return true;
+        }
+        buffer.clear();
+        while (buffer.hasRemaining())
+        {
+            if (fc.read(buffer, pos + buffer.position()) < 0)
+            {
+                break;
+            }
+        }
+        buffer.flip();
+        bufferStart = pos;
+        return buffer.limit() > 2;
+    }
+
+    private int get(int index)
+    {
+        return index < buffer.limit() ? buffer.get(index) & 0xFF : -1;
+    }
+
+    /**
+     * Decode frame header at index within buffer
+     *
+     * @param index
+     * @return true if valid frame header, frameSampleNumber, frameBlockSize and frameHeaderLength are then set
+     */
+    private boolean isFrameHeader(int index)
+    {
+        if (get(index) != SYNC_BYTE || (get(index + 1) & SYNC_MASK) != SYNC_SECOND_BYTE)
+        {
+            return false;
+        }
+        boolean isVariableBlockSize = (get(index + 1) & 0x01) == 1;
+
+        int codes = get(index + 2);
+        int blockSizeCode = codes >>> 4;
+        int sampleRateCode = codes & 0x0F;
+        if (codes < 0 || blockSizeCode == 0 || sampleRateCode == 0x0F)
+        {
+            return false;
+        }
+
+        int channelAndSize = get(index + 3);
+        if (channelAndSize < 0 || (channelAndSize >>> 4) > 10 || ((channelAndSize >>> 1) & 0x07) == 3 || (channelAndSize & 0x01) != 0)
+        {
+            return false;
+        }
+
+        //Frame or sample number, coded as UTF-8
+        int pos = index + 4;
+        int first = get(pos++);
+        if (first < 0)
+        {
+            return false;
+        }
+        long number;
+        int extraBytes;
+        if ((first & 0x80) == 0)
+        {
+            number = first;
+            extraBytes = 0;
+        }
+        else if ((first & 0xE0) == 0xC0)
+        {
+            number = first & 0x1F;
+            extraBytes = 1;
+        }
+        else if ((first & 0xF0) == 0xE0)
+        {
+            number = first & 0x0F;
+            extraBytes = 2;
+        }
+        else if ((first & 0xF8) == 0xF0)
+        {
+            number = first & 0x07;
+            extraBytes = 3;
+        }
+        else if ((first & 0xFC) == 0xF8)
+        {
+            number = first & 0x03;
+            extraBytes = 4;
+        }
+        else if ((first & 0xFE) == 0xFC)
+        {
+            number = first & 0x01;
+            extraBytes = 5;
+        }
+        else if (first == 0xFE && isVariableBlockSize)
+        {
+            number = 0;
+            extraBytes = 6;
+        }
+        else
+        {
+            return false;
+        }
+        for (int i = 0; i < extraBytes; i++)
+        {
+            int next = get(pos++);
+            if (next < 0 || (next & 0xC0) != 0x80)
+            {
+                return false;
+            }
+            number = (number << 6) | (next & 0x3F);
+        }
+
+        int blockSize;
+        if (blockSizeCode == 1)
+        {
+            blockSize = 192;
+        }
+        else if (blockSizeCode <= 5)
+        {
+            blockSize = 576 << (blockSizeCode - 2);
+        }
+        else if (blockSizeCode == 6)
+        {
+            blockSize = get(pos++) + 1;
+        }
+        else if (blockSizeCode == 7)
+        {
+            blockSize = ((get(pos++) << 8) | get(pos++)) + 1;
+        }
+        else
+        {
+            blockSize = 256 << (blockSizeCode - 8);
+        }
+
+        if (sampleRateCode == 12)
+        {
+            pos += 1;
+        }
+        else if (sampleRateCode == 13 || sampleRateCode == 14)
+        {
+            pos += 2;
+        }
+
+        //CRC-8 of everything before it
+        int crc = 0;
+        for (int i = index; i < pos; i++)
+        {
+            int next = get(i);
+            if (next < 0)
+            {
+                return false;
+            }
+            crc = CRC8_TABLE[crc ^ next];
+        }
+        if (crc != get(pos))
+        {
+            return false;
+        }
+
+        frameBlockSize = blockSize;
+        frameHeaderLength = pos + 1 - index;
+        frameSampleNumber = isVariableBlockSize ? number : number * streamInfo.getMaxBlockSize();
+        return true;
+    }
+}
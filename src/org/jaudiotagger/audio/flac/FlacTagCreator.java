@@ -45,29 +45,67 @@ public class FlacTagCreator extends AbstractTagCreator
     private static final VorbisCommentCreator creator = new VorbisCommentCreator();
 
     /**
-     * Convert Metadata
+     * Convert just the VorbisComment
      *
      * @param tag
-     * @param isLastBlock
-     * @return
+     * @return the VorbisComment block data, without the block header
      * @throws UnsupportedEncodingException
      */
-    public ByteBuffer convertMetadata(Tag tag, boolean isLastBlock) throws UnsupportedEncodingException
+    public ByteBuffer convertVorbisComment(FlacTag tag) throws UnsupportedEncodingException
     {
+        return creator.convertMetadata(tag.getVorbisCommentTag());
+    }
 
-
+    /**
+     * @param tag
+     * @return the number of bytes {@link #convertMetadata(Tag, boolean)} creates for this tag, worked out without
+     * creating them
+     * @throws UnsupportedEncodingException
+     */
+    public int getMetadataLength(Tag tag) throws UnsupportedEncodingException
+    {
         FlacTag flacTag = (FlacTag) tag;
 
-        int tagLength = 0;
-        ByteBuffer vorbiscomment = null;
+        int tagLength = getImagesLength(flacTag);
         if (flacTag.getVorbisCommentTag() != null)
         {
-            vorbiscomment = creator.convertMetadata(flacTag.getVorbisCommentTag());
-            tagLength = vorbiscomment.capacity() + MetadataBlockHeader.HEADER_LENGTH;
+            tagLength += creator.getLength(flacTag.getVorbisCommentTag()) + MetadataBlockHeader.HEADER_LENGTH;
         }
+        return tagLength;
+    }
+
+    /**
+     * @param flacTag
+     * @return length of the picture blocks including their headers
+     */
+    private int getImagesLength(FlacTag flacTag)
+    {
+        int imagesLength = 0;
         for (MetadataBlockDataPicture image : flacTag.getImages())
         {
-            tagLength += image.getBytes().limit() + MetadataBlockHeader.HEADER_LENGTH;
+            imagesLength += image.getLength() + MetadataBlockHeader.HEADER_LENGTH;
+        }
+        return imagesLength;
+    }
+
+    /**
+     * Convert Metadata
+     *
+     * @param tag
+     * @param isLastBlock
+     * @return
+     * @throws UnsupportedEncodingException
+     */
+    public ByteBuffer convertMetadata(Tag tag, boolean isLastBlock) throws UnsupportedEncodingException
+    {
+        FlacTag flacTag = (FlacTag) tag;
+
+        int vorbisCommentLength = 0;
+        int tagLength = getImagesLength(flacTag);
+        if (flacTag.getVorbisCommentTag() != null)
+        {
+            vorbisCommentLength = creator.getLength(flacTag.getVorbisCommentTag());
+            tagLength += vorbisCommentLength + MetadataBlockHeader.HEADER_LENGTH;
         }
         logger.config("Convert flac tag:taglength:" + tagLength);
 
@@ -79,14 +117,14 @@ public class FlacTagCreator extends AbstractTagCreator
         {
             if (isLastBlock || (flacTag.getImages().size() > 0))
             {
-                vorbisHeader = new MetadataBlockHeader(false, BlockType.VORBIS_COMMENT, vorbiscomment.capacity());
+                vorbisHeader = new MetadataBlockHeader(false, BlockType.VORBIS_COMMENT, vorbisCommentLength);
             }
             else
             {
-                vorbisHeader = new MetadataBlockHeader(true, BlockType.VORBIS_COMMENT, vorbiscomment.capacity());
+                vorbisHeader = new MetadataBlockHeader(true, BlockType.VORBIS_COMMENT, vorbisCommentLength);
             }
             buf.put(vorbisHeader.getBytes());
-            buf.put(vorbiscomment);
+            creator.write(flacTag.getVorbisCommentTag(), buf);
         }
 
         //Images
@@ -88,26 +88,11 @@ public class FlacTagReader
                     {
                         //We got a vorbiscomment comment block, parse it
                         case VORBIS_COMMENT:
-                            ByteBuffer commentHeaderRawPacket = ByteBuffer.allocate(mbh.getDataLength());
-                            fc.read(commentHeaderRawPacket);
-                            tag = vorbisCommentReader.read(commentHeaderRawPacket.array(), false, path);
+                            tag = readVorbisComment(path, mbh, fc);
                             break;
 
                         case PICTURE:
-                            try
-                            {
-                                MetadataBlockDataPicture mbdp = new MetadataBlockDataPicture(mbh, fc);
-                                images.add(mbdp);
-                            }
-                            catch (IOException ioe)
-                            {
-                                logger.warning(path + "Unable to read picture metablock, ignoring:" + ioe.getMessage());
-                            }
-                            catch (InvalidFrameException ive)
-                            {
-                                logger.warning(path + "Unable to read picture metablock, ignoring" + ive.getMessage());
-                            }
-
+                            readPicture(path, mbh, fc, images);
                             break;
 
 
@@ -137,15 +122,68 @@ public class FlacTagReader
             }
             logger.config("Audio should start at:"+ Hex.asHex(fc.position()));
 
-            //Note there may not be either a tag or any images, no problem this is valid however to make it easier we
-            //just initialize Flac with an empty VorbisTag
-            if (tag == null)
-            {
-                tag = VorbisCommentTag.createNewTag();
-            }
-            FlacTag flacTag = new FlacTag(tag, images);
-            return flacTag;
+            return createTag(tag, images);
+        }
+    }
+
+    /**
+     * Read the VorbisComment block data, fc is positioned at the start of the data
+     *
+     * @param path
+     * @param mbh
+     * @param fc
+     * @return
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    VorbisCommentTag readVorbisComment(Path path, MetadataBlockHeader mbh, FileChannel fc) throws CannotReadException, IOException
+    {
+        ByteBuffer commentHeaderRawPacket = ByteBuffer.allocate(mbh.getDataLength());
+        fc.read(commentHeaderRawPacket);
+        commentHeaderRawPacket.flip();
+        return vorbisCommentReader.read(commentHeaderRawPacket, false, path);
+    }
+
+    /**
+     * Read the Picture block data and add to images, fc is positioned at the start of the data. Invalid pictures
+     * are logged and ignored.
+     *
+     * @param path
+     * @param mbh
+     * @param fc
+     * @param images
+     */
+    void readPicture(Path path, MetadataBlockHeader mbh, FileChannel fc, List<MetadataBlockDataPicture> images)
+    {
+        try
+        {
+            MetadataBlockDataPicture mbdp = new MetadataBlockDataPicture(mbh, fc);
+            images.add(mbdp);
+        }
+        catch (IOException ioe)
+        {
+            logger.warning(path + "Unable to read picture metablock, ignoring:" + ioe.getMessage());
+        }
+        catch (InvalidFrameException ive)
+        {
+            logger.warning(path + "Unable to read picture metablock, ignoring" + ive.getMessage());
+        }
+    }
+
+    /**
+     * @param tag VorbisComment, or null if none was found
+     * @param images
+     * @return
+     */
+    FlacTag createTag(VorbisCommentTag tag, List<MetadataBlockDataPicture> images)
+    {
+        //Note there may not be either a tag or any images, no problem this is valid however to make it easier we
+        //just initialize Flac with an empty VorbisTag
+        if (tag == null)
+        {
+            tag = VorbisCommentTag.createNewTag();
         }
+        return new FlacTag(tag, images);
     }
 }
 
@@ -22,6 +22,7 @@ import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.exceptions.NoWritePermissionsException;
 import org.jaudiotagger.audio.flac.metadatablock.*;
+import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.flac.FlacTag;
 import org.jaudiotagger.utils.ShiftData;
@@ -51,6 +52,10 @@ import java.util.logging.Logger;
  *  CUESHEET
  *  APPLICATION
  *  PADDING
+ *
+ * However if only the VORBIS_COMMENT has changed and it still fits within the space of the existing VORBIS_COMMENT
+ * and any PADDING immediately after it, just those blocks are rewritten at their existing position in the file and
+ * all other blocks are left as they are, without ever being read into memory.
  */
 public class FlacTagWriter
 {
@@ -58,6 +63,9 @@ public class FlacTagWriter
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.flac");
     private FlacTagCreator tc = new FlacTagCreator();
 
+    //Size of chunks used when comparing existing pictures with those in the tag
+    private static final int COMPARE_CHUNK_SIZE = 8192;
+
     /**
      *
      * Remove VORBIS_COMMENT or PICTURE blocks from file
@@ -192,124 +200,436 @@ public class FlacTagWriter
         logger.config(file + " Writing tag");
         try (FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ))
         {
-            MetadataBlockInfo blockInfo = new MetadataBlockInfo();
+            FlacStreamReader flacStream = new FlacStreamReader(fc, file.toString() + " ");
+            if (writeVorbisCommentInPlace((FlacTag) tag, fc, flacStream, file))
+            {
+                return;
+            }
 
             //Read existing data
+            MetadataBlockInfo blockInfo = readMetadataBlocks(fc, flacStream);
+            writeAllMetadata(tag, file, fc, blockInfo, flacStream, blockInfo.computeAvailableRoom());
+        }
+        catch (AccessDeniedException ade)
+        {
+            logger.log(Level.SEVERE, ade.getMessage(), ade);
+            throw new NoWritePermissionsException(file + ":" + ade.getMessage());
+        }
+        catch (IOException ioe)
+        {
+            logger.log(Level.SEVERE, ioe.getMessage(), ioe);
+            throw new CannotWriteException(file + ":" + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Add a SEEKTABLE to the file, replacing any existing one, all the other metadata is kept
+     *
+     * The seek table is generated by scanning the frame headers of the audio.
+     *
+     * @param file
+     * @param secondsBetweenSeekPoints
+     * @return the seek table written
+     * @throws CannotWriteException
+     */
+    public FlacSeekTable writeSeekTable(Path file, int secondsBetweenSeekPoints) throws CannotWriteException
+    {
+        logger.config(file + " Writing seektable");
+        Tag tag;
+        try
+        {
+            tag = new FlacTagReader().read(file);
+        }
+        catch (CannotReadException | IOException e)
+        {
+            throw new CannotWriteException(file + ":" + e.getMessage());
+        }
+
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
             FlacStreamReader flacStream = new FlacStreamReader(fc, file.toString() + " ");
+            MetadataBlockInfo blockInfo = readMetadataBlocks(fc, flacStream);
+            if (blockInfo.streamInfoBlock == null)
+            {
+                throw new CannotWriteException(file + ":Unable to find Flac StreamInfo");
+            }
+
+            MetadataBlockDataStreamInfo streamInfo = (MetadataBlockDataStreamInfo) blockInfo.streamInfoBlock.getData();
+            long samplesBetweenSeekPoints = (long) secondsBetweenSeekPoints * streamInfo.getSamplingRate();
+            FlacSeekTable seekTable = FlacSeekTableGenerator.generate(fc, fc.position(), streamInfo, samplesBetweenSeekPoints);
+
+            MetadataBlockDataSeekTable seekTableData = seekTable.toMetadataBlockData();
+            //Space used by the existing seek table can be reused
+            int availableRoom = blockInfo.computeAvailableRoom();
+            blockInfo.metadataBlockSeekTable.clear();
+            blockInfo.metadataBlockSeekTable.add(new MetadataBlock(new MetadataBlockHeader(false, BlockType.SEEKTABLE, seekTableData.getLength()), seekTableData));
+            writeAllMetadata(tag, file, fc, blockInfo, flacStream, availableRoom);
+            return seekTable;
+        }
+        catch (AccessDeniedException ade)
+        {
+            logger.log(Level.SEVERE, ade.getMessage(), ade);
+            throw new NoWritePermissionsException(file + ":" + ade.getMessage());
+        }
+        catch (IOException ioe)
+        {
+            logger.log(Level.SEVERE, ioe.getMessage(), ioe);
+            throw new CannotWriteException(file + ":" + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Write the tag and other metadata blocks, shifting the audio if there is not enough room
+     *
+     * @param tag
+     * @param file
+     * @param fc
+     * @param blockInfo
+     * @param flacStream
+     * @param availableRoom number of bytes in the existing file available before audio data
+     * @throws IOException
+     */
+    private void writeAllMetadata(Tag tag, Path file, FileChannel fc, MetadataBlockInfo blockInfo, FlacStreamReader flacStream, int availableRoom) throws IOException
+    {
+        //Minimum Size of the New tag data without padding
+        int newTagSize = tc.getMetadataLength(tag);
+
+        //Other blocks required size
+        int otherBlocksRequiredSize = blockInfo.computeNeededRoom();
+
+        //Number of bytes required for new tagdata and other metadata blocks
+        int neededRoom = newTagSize + otherBlocksRequiredSize;
+
+        //Go to start of Flac within file
+        fc.position(flacStream.getStartOfFlacInFile());
+
+        //There is enough room to fit the tag without moving the audio just need to
+        //adjust padding accordingly need to allow space for padding header if padding required
+        logger.config(file + ":Writing tag available bytes:" + availableRoom + ":needed bytes:" + neededRoom);
+        if ((availableRoom == neededRoom) || (availableRoom > neededRoom + MetadataBlockHeader.HEADER_LENGTH))
+        {
+            logger.config(file + ":Room to Rewrite");
+            writeAllNonAudioData(tag, fc, blockInfo, flacStream, availableRoom - neededRoom);
+        }
+        //Need to move audio
+        else
+        {
+            logger.config(file + ":Audio must be shifted "+ "NewTagSize:" + newTagSize + ":AvailableRoom:" + availableRoom + ":MinimumAdditionalRoomRequired:"+(neededRoom - availableRoom));
+            //As we are having to move both anyway may as well put in the default padding
+            insertUsingChunks(file, tag, fc, blockInfo, flacStream, neededRoom + FlacTagCreator.DEFAULT_PADDING, availableRoom);
+        }
+    }
+
+    /**
+     * Find the flac stream and read the existing metadata blocks, leaving fc positioned at the start of the audio
+     *
+     * @param fc
+     * @param flacStream
+     * @return details of the existing blocks
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    private MetadataBlockInfo readMetadataBlocks(FileChannel fc, FlacStreamReader flacStream) throws CannotWriteException, IOException
+    {
+        MetadataBlockInfo blockInfo = new MetadataBlockInfo();
+        try
+        {
+            flacStream.findStream();
+        }
+        catch (CannotReadException cre)
+        {
+            throw new CannotWriteException(cre.getMessage());
+        }
+
+        boolean isLastBlock = false;
+        while (!isLastBlock)
+        {
             try
             {
-                flacStream.findStream();
+                MetadataBlockHeader mbh = MetadataBlockHeader.readHeader(fc);
+                if (mbh.getBlockType() != null)
+                {
+                    switch (mbh.getBlockType())
+                    {
+                        case STREAMINFO:
+                        {
+                            blockInfo.streamInfoBlock = new MetadataBlock(mbh, new MetadataBlockDataStreamInfo(mbh, fc));
+                            break;
+                        }
+
+                        case VORBIS_COMMENT:
+                        case PADDING:
+                        case PICTURE:
+                        {
+                            //All these will be replaced by the new metadata so we just treat as padding in order
+                            //to determine how much space is already allocated in the file
+                            fc.position(fc.position() + mbh.getDataLength());
+                            MetadataBlockData mbd = new MetadataBlockDataPadding(mbh.getDataLength());
+                            blockInfo.metadataBlockPadding.add(new MetadataBlock(mbh, mbd));
+                            break;
+                        }
+
+                        case APPLICATION:
+                        {
+                            MetadataBlockData mbd = new MetadataBlockDataApplication(mbh, fc);
+                            blockInfo.metadataBlockApplication.add(new MetadataBlock(mbh, mbd));
+                            break;
+                        }
+
+                        case SEEKTABLE:
+                        {
+                            MetadataBlockData mbd = new MetadataBlockDataSeekTable(mbh, fc);
+                            blockInfo.metadataBlockSeekTable.add(new MetadataBlock(mbh, mbd));
+                            break;
+                        }
+
+                        case CUESHEET:
+                        {
+                            MetadataBlockData mbd = new MetadataBlockDataCueSheet(mbh, fc);
+                            blockInfo.metadataBlockCueSheet.add(new MetadataBlock(mbh, mbd));
+                            break;
+                        }
+
+                        default:
+                        {
+                            //TODO What are the consequences of doing this ?
+                            fc.position(fc.position() + mbh.getDataLength());
+                            break;
+                        }
+                    }
+                }
+                isLastBlock = mbh.isLastBlock();
             }
             catch (CannotReadException cre)
             {
                 throw new CannotWriteException(cre.getMessage());
             }
+        }
+        return blockInfo;
+    }
 
+    /**
+     * Find the flac stream and read just the headers of the existing metadata blocks, recording where each block
+     * starts, leaving fc positioned at the start of the audio
+     *
+     * @param fc
+     * @param flacStream
+     * @return headers in file order
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    private List<MetadataBlockHeader> readMetadataBlockHeaders(FileChannel fc, FlacStreamReader flacStream) throws CannotWriteException, IOException
+    {
+        List<MetadataBlockHeader> headers = new ArrayList<MetadataBlockHeader>();
+        try
+        {
+            flacStream.findStream();
             boolean isLastBlock = false;
             while (!isLastBlock)
             {
-                try
+                MetadataBlockHeader mbh = MetadataBlockHeader.readHeader(fc);
+                headers.add(mbh);
+                fc.position(fc.position() + mbh.getDataLength());
+                isLastBlock = mbh.isLastBlock();
+            }
+        }
+        catch (CannotReadException cre)
+        {
+            throw new CannotWriteException(cre.getMessage());
+        }
+        return headers;
+    }
+
+    /**
+     * If the pictures are unchanged and the new VorbisComment fits in the space taken by the existing VorbisComment
+     * and any padding block immediately following it, rewrite just those blocks at their existing offset.
+     *
+     * @param tag
+     * @param fc
+     * @param flacStream
+     * @param file
+     * @return true if the tag has been written, false if all the metadata has to be rewritten instead
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    private boolean writeVorbisCommentInPlace(FlacTag tag, FileChannel fc, FlacStreamReader flacStream, Path file) throws CannotWriteException, IOException
+    {
+        if (tag.getVorbisCommentTag() == null)
+        {
+            return false;
+        }
+
+        List<MetadataBlockHeader> headers = readMetadataBlockHeaders(fc, flacStream);
+        List<MetadataBlockHeader> pictureHeaders = new ArrayList<MetadataBlockHeader>();
+        int commentIndex = -1;
+        for (int i = 0; i < headers.size(); i++)
+        {
+            if (headers.get(i).getBlockType() == BlockType.VORBIS_COMMENT)
+            {
+                //Should only be one, if not let the full rewrite sort it out
+                if (commentIndex != -1)
+                {
+                    return false;
+                }
+                commentIndex = i;
+            }
+            else if (headers.get(i).getBlockType() == BlockType.PICTURE)
+            {
+                pictureHeaders.add(headers.get(i));
+            }
+        }
+
+        if (commentIndex == -1 || !isPicturesUnchanged(fc, pictureHeaders, tag.getImages()))
+        {
+            return false;
+        }
+
+        //Existing comment and padding immediately after it, if any
+        MetadataBlockHeader commentHeader = headers.get(commentIndex);
+        MetadataBlockHeader paddingHeader = null;
+        if (commentIndex + 1 < headers.size() && headers.get(commentIndex + 1).getBlockType() == BlockType.PADDING)
+        {
+            paddingHeader = headers.get(commentIndex + 1);
+        }
+        int availableRoom = commentHeader.getDataLength();
+        boolean isLastBlock = commentHeader.isLastBlock();
+        if (paddingHeader != null)
+        {
+            availableRoom += MetadataBlockHeader.HEADER_LENGTH + paddingHeader.getDataLength();
+            isLastBlock = paddingHeader.isLastBlock();
+        }
+
+        ByteBuffer vorbisComment = tc.convertVorbisComment(tag);
+        int neededRoom = vorbisComment.limit();
+        int padding = availableRoom - neededRoom;
+        if (padding != 0 && padding < MetadataBlockHeader.HEADER_LENGTH)
+        {
+            return false;
+        }
+
+        logger.config(file + ":Writing VorbisComment in place available bytes:" + availableRoom + ":needed bytes:" + neededRoom);
+        fc.position(commentHeader.getStartByte());
+        fc.write(ByteBuffer.wrap(new MetadataBlockHeader(isLastBlock && padding == 0, BlockType.VORBIS_COMMENT, neededRoom).getBytes()));
+        fc.write(vorbisComment);
+        if (padding > 0)
+        {
+            int paddingDataSize = padding - MetadataBlockHeader.HEADER_LENGTH;
+            fc.write(ByteBuffer.wrap(new MetadataBlockHeader(isLastBlock, BlockType.PADDING, paddingDataSize).getBytes()));
+            fc.write(new MetadataBlockDataPadding(paddingDataSize).getBytes());
+        }
+        return true;
+    }
+
+    /**
+     * Compare the existing picture blocks with the pictures to be written, reading the existing blocks a chunk at a
+     * time so they are never held in memory
+     *
+     * @param fc
+     * @param pictureHeaders headers of existing picture blocks
+     * @param images pictures to be written
+     * @return true if they are the same
+     * @throws IOException
+     */
+    private boolean isPicturesUnchanged(FileChannel fc, List<MetadataBlockHeader> pictureHeaders, List<MetadataBlockDataPicture> images) throws IOException
+    {
+        if (pictureHeaders.size() != images.size())
+        {
+            return false;
+        }
+
+        ByteBuffer chunk = null;
+        for (int i = 0; i < images.size(); i++)
+        {
+            MetadataBlockHeader header = pictureHeaders.get(i);
+            ByteBuffer image = images.get(i).getBytes();
+            if (image.limit() != header.getDataLength())
+            {
+                return false;
+            }
+
+            if (chunk == null)
+            {
+                chunk = ByteBuffer.allocate(COMPARE_CHUNK_SIZE);
+            }
+            long filePos = header.getStartByte() + MetadataBlockHeader.HEADER_LENGTH;
+            while (image.hasRemaining())
+            {
+                chunk.clear();
+                chunk.limit(Math.min(chunk.capacity(), image.remaining()));
+                while (chunk.hasRemaining())
                 {
-                    MetadataBlockHeader mbh = MetadataBlockHeader.readHeader(fc);
-                    if (mbh.getBlockType() != null)
+                    int bytesRead = fc.read(chunk, filePos + chunk.position());
+                    if (bytesRead < 0)
                     {
-                        switch (mbh.getBlockType())
-                        {
-                            case STREAMINFO:
-                            {
-                                blockInfo.streamInfoBlock = new MetadataBlock(mbh, new MetadataBlockDataStreamInfo(mbh, fc));
-                                break;
-                            }
-
-                            case VORBIS_COMMENT:
-                            case PADDING:
-                            case PICTURE:
-                            {
-                                //All these will be replaced by the new metadata so we just treat as padding in order
-                                //to determine how much space is already allocated in the file
-                                fc.position(fc.position() + mbh.getDataLength());
-                                MetadataBlockData mbd = new MetadataBlockDataPadding(mbh.getDataLength());
-                                blockInfo.metadataBlockPadding.add(new MetadataBlock(mbh, mbd));
-                                break;
-                            }
-
-                            case APPLICATION:
-                            {
-                                MetadataBlockData mbd = new MetadataBlockDataApplication(mbh, fc);
-                                blockInfo.metadataBlockApplication.add(new MetadataBlock(mbh, mbd));
-                                break;
-                            }
-
-                            case SEEKTABLE:
-                            {
-                                MetadataBlockData mbd = new MetadataBlockDataSeekTable(mbh, fc);
-                                blockInfo.metadataBlockSeekTable.add(new MetadataBlock(mbh, mbd));
-                                break;
-                            }
-
-                            case CUESHEET:
-                            {
-                                MetadataBlockData mbd = new MetadataBlockDataCueSheet(mbh, fc);
-                                blockInfo.metadataBlockCueSheet.add(new MetadataBlock(mbh, mbd));
-                                break;
-                            }
-
-                            default:
-                            {
-                                //TODO What are the consequences of doing this ?
-                                fc.position(fc.position() + mbh.getDataLength());
-                                break;
-                            }
-                        }
+                        return false;
                     }
-                    isLastBlock = mbh.isLastBlock();
                 }
-                catch (CannotReadException cre)
+                filePos += chunk.limit();
+                chunk.flip();
+
+                ByteBuffer imageChunk = image.slice();
+                imageChunk.limit(chunk.limit());
+                if (!chunk.equals(imageChunk))
                 {
-                    throw new CannotWriteException(cre.getMessage());
+                    return false;
                 }
+                image.position(image.position() + chunk.limit());
             }
+        }
+        return true;
+    }
 
-            //Number of bytes in the existing file available before audio data
-            int availableRoom = blockInfo.computeAvailableRoom();
-
-            //Minimum Size of the New tag data without padding
-            int newTagSize = tc.convertMetadata(tag).limit();
-
-            //Other blocks required size
-            int otherBlocksRequiredSize = blockInfo.computeNeededRoom();
-
-            //Number of bytes required for new tagdata and other metadata blocks
-            int neededRoom = newTagSize + otherBlocksRequiredSize;
+    /**
+     * Write a copy of source with the new tag to destination, source is not modified.
+     *
+     * The new metadata is written once followed by a straight copy of the audio so unlike writing to a copy of the
+     * file the audio never has to be shifted.
+     *
+     * @param tag
+     * @param source
+     * @param destination
+     * @throws CannotWriteException
+     */
+    public void write(Tag tag, Path source, Path destination) throws CannotWriteException
+    {
+        logger.config(source + " Writing tag to:" + destination);
+        try (FileChannel fc = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel destinationFc = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
+            FlacStreamReader flacStream = new FlacStreamReader(fc, source.toString() + " ");
+            MetadataBlockInfo blockInfo = readMetadataBlocks(fc, flacStream);
 
-            //Go to start of Flac within file
-            fc.position(flacStream.getStartOfFlacInFile());
+            int availableRoom = blockInfo.computeAvailableRoom();
+            int neededRoom = tc.getMetadataLength(tag) + blockInfo.computeNeededRoom();
+            long audioStart = fc.position();
 
-            //There is enough room to fit the tag without moving the audio just need to
-            //adjust padding accordingly need to allow space for padding header if padding required
-            logger.config(file + ":Writing tag available bytes:" + availableRoom + ":needed bytes:" + neededRoom);
+            //Keep the existing space if it fits so the audio starts at the same offset as in source, otherwise same
+            //padding as if the audio had been shifted
+            int padding;
             if ((availableRoom == neededRoom) || (availableRoom > neededRoom + MetadataBlockHeader.HEADER_LENGTH))
             {
-                logger.config(file + ":Room to Rewrite");
-                writeAllNonAudioData(tag, fc, blockInfo, flacStream, availableRoom - neededRoom);
+                padding = availableRoom - neededRoom;
             }
-            //Need to move audio
             else
             {
-                logger.config(file + ":Audio must be shifted "+ "NewTagSize:" + newTagSize + ":AvailableRoom:" + availableRoom + ":MinimumAdditionalRoomRequired:"+(neededRoom - availableRoom));
-                //As we are having to move both anyway may as well put in the default padding
-                insertUsingChunks(file, tag, fc, blockInfo, flacStream, neededRoom + FlacTagCreator.DEFAULT_PADDING, availableRoom);
+                padding = FlacTagCreator.DEFAULT_PADDING;
             }
+            logger.config(destination + ":Writing tag available bytes:" + availableRoom + ":needed bytes:" + neededRoom + ":padding:" + padding);
+
+            //Anything before the Flac stream (i.e Id3 tag) and the Flac Header
+            Utils.transferFully(fc, 0, flacStream.getStartOfFlacInFile() + FlacStreamReader.FLAC_STREAM_IDENTIFIER_LENGTH, destinationFc);
+            writeAllNonAudioData(tag, destinationFc, blockInfo, flacStream, padding);
+            Utils.transferFully(fc, audioStart, fc.size() - audioStart, destinationFc);
         }
         catch (AccessDeniedException ade)
         {
             logger.log(Level.SEVERE, ade.getMessage(), ade);
-            throw new NoWritePermissionsException(file + ":" + ade.getMessage());
+            throw new NoWritePermissionsException(destination + ":" + ade.getMessage());
         }
         catch (IOException ioe)
         {
             logger.log(Level.SEVERE, ioe.getMessage(), ioe);
-            throw new CannotWriteException(file + ":" + ioe.getMessage());
+            throw new CannotWriteException(destination + ":" + ioe.getMessage());
         }
     }
 
@@ -7,7 +7,10 @@ import org.jaudiotagger.tag.TagField;
 import org.jaudiotagger.tag.reference.PictureTypes;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
@@ -110,6 +113,66 @@ public class MetadataBlockDataPicture implements MetadataBlockData, TagField
         logger.config("Read image:" + this.toString());
     }
 
+    /**
+     * Read picture from a stream, the image data is read directly into its own array so that no other copy of the
+     * image is required.
+     *
+     * @param in
+     * @param maxLength the maximum number of bytes the stream could contain, so an invalid picture size is rejected
+     *                  before allocating the image
+     * @throws IOException
+     * @throws InvalidFrameException
+     */
+    private void initFromStream(InputStream in, int maxLength) throws IOException, InvalidFrameException
+    {
+        DataInputStream data = new DataInputStream(in);
+        try
+        {
+            //Picture Type
+            pictureType = data.readInt();
+            if (pictureType >= PictureTypes.getInstanceOf().getSize())
+            {
+                throw new InvalidFrameException("PictureType was:" + pictureType + "but the maximum allowed is " + (PictureTypes.getInstanceOf().getSize() - 1));
+            }
+
+            //MimeType
+            mimeTypeSize = data.readInt();
+            if (mimeTypeSize < 0 || mimeTypeSize > maxLength)
+            {
+                throw new InvalidFrameException("PictureType mimeType size was invalid:" + mimeTypeSize);
+            }
+            mimeType = getString(data, mimeTypeSize, StandardCharsets.ISO_8859_1.name());
+
+            //Description
+            descriptionSize = data.readInt();
+            if (descriptionSize < 0 || descriptionSize > maxLength)
+            {
+                throw new InvalidFrameException("PictureType descriptionSize size was invalid:" + descriptionSize);
+            }
+            description = getString(data, descriptionSize, StandardCharsets.UTF_8.name());
+
+            width = data.readInt();
+            height = data.readInt();
+            colourDepth = data.readInt();
+            indexedColouredCount = data.readInt();
+            lengthOfPictureInBytes = data.readInt();
+
+            //ImageData, the eight int fields and the two strings have already been read
+            long remaining = (long) maxLength - (8 * 4 + mimeTypeSize + descriptionSize);
+            if (lengthOfPictureInBytes < 0 || lengthOfPictureInBytes > remaining)
+            {
+                throw new InvalidFrameException("PictureType Size was:" + lengthOfPictureInBytes + " but remaining bytes size " + remaining);
+            }
+            imageData = new byte[lengthOfPictureInBytes];
+            data.readFully(imageData);
+        }
+        catch (EOFException eofe)
+        {
+            throw new InvalidFrameException("PictureType data ended before the picture was fully read");
+        }
+        logger.config("Read image:" + this.toString());
+    }
+
     /**
      * Initialize MetaBlockDataPicture from byteBuffer
      *
@@ -122,6 +185,19 @@ public class MetadataBlockDataPicture implements MetadataBlockData, TagField
         initFromByteBuffer(rawdata);
     }
 
+    /**
+     * Initialize MetaBlockDataPicture from a stream, such as a base64 decoding stream
+     *
+     * @param in
+     * @param maxLength the maximum number of bytes that could be read from the stream
+     * @throws IOException
+     * @throws InvalidFrameException
+     */
+    public MetadataBlockDataPicture(InputStream in, int maxLength) throws IOException, InvalidFrameException
+    {
+        initFromStream(in, maxLength);
+    }
+
     /**
      * Construct picture block by reading from file, the header informs us how many bytes we should be reading from
      *
@@ -184,6 +260,13 @@ public class MetadataBlockDataPicture implements MetadataBlockData, TagField
         return new String(tempbuffer, charset);
     }
 
+    private String getString(DataInputStream data, int length, String charset) throws IOException
+    {
+        byte[] tempbuffer = new byte[length];
+        data.readFully(tempbuffer);
+        return new String(tempbuffer, charset);
+    }
+
     public ByteBuffer getBytes()
     {
         try
@@ -211,7 +294,8 @@ public class MetadataBlockDataPicture implements MetadataBlockData, TagField
 
     public int getLength()
     {
-        return getBytes().limit();
+        //picture type, mime type length, description length, width, height, colour depth, indexed colour count, image length
+        return 8 * 4 + mimeType.length() + Utils.getUtf8Length(description) + imageData.length;
     }
 
     public int getPictureType()
@@ -45,8 +45,23 @@ import java.nio.channels.FileChannel;
  */
 public class MetadataBlockDataSeekTable implements MetadataBlockData
 {
+    public static final int SEEK_POINT_LENGTH = 18;
+
+    //Sample number used by placeholder points
+    public static final long PLACEHOLDER_SAMPLE_NUMBER = 0xFFFFFFFFFFFFFFFFL;
+
     private ByteBuffer data;
 
+    /**
+     * Construct from seek points ready for writing to file
+     *
+     * @param data
+     */
+    public MetadataBlockDataSeekTable(ByteBuffer data)
+    {
+        this.data = data;
+    }
+
     public MetadataBlockDataSeekTable(MetadataBlockHeader header, FileChannel fc) throws IOException
     {
         data = ByteBuffer.allocate(header.getDataLength());
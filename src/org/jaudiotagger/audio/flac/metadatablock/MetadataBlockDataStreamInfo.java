@@ -172,6 +172,38 @@ public class MetadataBlockDataStreamInfo  implements MetadataBlockData
         return noOfSamples;
     }
 
+    /**
+     * @return minimum block size (in samples) used in the stream
+     */
+    public int getMinBlockSize()
+    {
+        return minBlockSize;
+    }
+
+    /**
+     * @return maximum block size (in samples) used in the stream
+     */
+    public int getMaxBlockSize()
+    {
+        return maxBlockSize;
+    }
+
+    /**
+     * @return minimum frame size (in bytes) used in the stream, 0 if not known
+     */
+    public int getMinFrameSize()
+    {
+        return minFrameSize;
+    }
+
+    /**
+     * @return maximum frame size (in bytes) used in the stream, 0 if not known
+     */
+    public int getMaxFrameSize()
+    {
+        return maxFrameSize;
+    }
+
     public String getMD5Signature()
     {
         return md5;
@@ -135,6 +135,14 @@ public class MetadataBlockHeader
         return i & 0xFF;
     }
 
+    /**
+     * @return position of the header in the file, only known if header was read from file
+     */
+    public long getStartByte()
+    {
+        return startByte;
+    }
+
     public int getDataLength()
     {
         return dataLength;
@@ -0,0 +1,111 @@
+package org.jaudiotagger.audio.generic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Logger;
+
+/**
+ * Calculate a digest of just the audio data of a file, so that files containing the same audio have the same digest
+ * regardless of their metadata
+ *
+ * The data is read from the channel straight into a direct buffer that is passed to the MessageDigest, so it is
+ * never copied onto the heap. Each thread has its own buffer so that many files can be hashed in parallel without
+ * allocating a new buffer for each file.
+ */
+public class AudioDataDigest
+{
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.generic");
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>()
+    {
+        @Override
+        protected ByteBuffer initialValue()
+        {
+            return ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * @param file
+     * @param start position of first byte of audio
+     * @param end position after the last byte of audio
+     * @param algorithm such as MD5, SHA-1 or SHA-256
+     * @return the digest of the audio data
+     * @throws NoSuchAlgorithmException
+     * @throws IOException
+     */
+    public static byte[] digest(Path file, long start, long end, String algorithm) throws NoSuchAlgorithmException, IOException
+    {
+        return digest(file, start, end, algorithm, BUFFER.get());
+    }
+
+    /**
+     * @param file
+     * @param start position of first byte of audio
+     * @param end position after the last byte of audio
+     * @param algorithm such as MD5, SHA-1 or SHA-256
+     * @param bufferSize size of buffer to read the file with
+     * @return the digest of the audio data
+     * @throws NoSuchAlgorithmException
+     * @throws IOException
+     */
+    public static byte[] digest(Path file, long start, long end, String algorithm, int bufferSize) throws NoSuchAlgorithmException, IOException
+    {
+        return digest(file, start, end, algorithm, ByteBuffer.allocateDirect(bufferSize));
+    }
+
+    private static byte[] digest(Path file, long start, long end, String algorithm, ByteBuffer buffer) throws NoSuchAlgorithmException, IOException
+    {
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            end = Math.min(end, fc.size());
+            update(digest, fc, start, end, buffer);
+        }
+        logger.finest(file + ":Calculated " + algorithm + " of audio from:" + start + ":to:" + end);
+        return digest.digest();
+    }
+
+    /**
+     * Add a range of the file to the digest, for formats where the audio data is interleaved with other data that
+     * must be excluded
+     *
+     * @param digest
+     * @param fc
+     * @param start position of first byte to add
+     * @param end position after the last byte to add
+     * @throws IOException
+     */
+    public static void update(MessageDigest digest, FileChannel fc, long start, long end) throws IOException
+    {
+        update(digest, fc, start, end, BUFFER.get());
+    }
+
+    private static void update(MessageDigest digest, FileChannel fc, long start, long end, ByteBuffer buffer) throws IOException
+    {
+        long pos = start;
+        while (pos < end)
+        {
+            buffer.clear();
+            if (end - pos < buffer.capacity())
+            {
+                buffer.limit((int) (end - pos));
+            }
+            int read = fc.read(buffer, pos);
+            if (read < 0)
+            {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            pos += read;
+        }
+    }
+}
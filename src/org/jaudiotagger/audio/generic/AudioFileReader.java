@@ -75,6 +75,25 @@ public abstract class AudioFileReader
       */
     protected abstract Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException;
 
+    /**
+     * Read encoding information and tag once the file has been checked as readable
+     *
+     * Formats that can read both from a single pass over the file can override this.
+     *
+     * @param f
+     * @param raf positioned at the start of the file
+     * @return
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    protected AudioFile read(File f, RandomAccessFile raf) throws CannotReadException, IOException
+    {
+        GenericAudioHeader info = getEncodingInfo(raf);
+        raf.seek(0);
+        Tag tag = getTag(raf);
+        return new AudioFile(f, info, tag);
+    }
+
     /*
       * Reads the given file, and return an AudioFile object containing the Tag
       * and the encoding infos present in the file. If the file has no tag, an
@@ -113,12 +132,7 @@ public abstract class AudioFileReader
         {
             raf = new RandomAccessFile(f, "r");
             raf.seek(0);
-
-            GenericAudioHeader info = getEncodingInfo(raf);
-            raf.seek(0);
-            Tag tag = getTag(raf);
-            return new AudioFile(f, info, tag);
-
+            return read(f, raf);
         }
         catch (CannotReadException cre)
         {
@@ -57,6 +57,22 @@ public abstract class AudioFileReader2 extends AudioFileReader
             throw new CannotReadException(ErrorMessage.GENERAL_READ_FAILED_FILE_TOO_SMALL.getMsg(path));
         }
 
+        return read(f, path);
+    }
+
+    /**
+     * Read encoding information and tag once the file has been checked as readable
+     *
+     * Formats that can read both from a single pass over the file can override this.
+     *
+     * @param f
+     * @param path
+     * @return
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    protected AudioFile read(File f, Path path) throws CannotReadException, IOException
+    {
         GenericAudioHeader info = getEncodingInfo(path);
         Tag tag = getTag(path);
         return new AudioFile(f, info, tag);
@@ -28,6 +28,7 @@ import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagOptionSingleton;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.Files;
@@ -289,8 +290,9 @@ public abstract class AudioFileWriter
      * @param af The file we want to process
      * @throws CannotWriteException if anything went wrong
      */
-    // TODO Creates temp file in same folder as the original file, this is safe
-    // but would impose a performance overhead if the original file is on a networked drive
+    // Creates temp file in same folder as the original file, this is safe but would impose a performance overhead
+    // if the original file is on a networked drive, so small files can be written in memory instead
+    // see TagOptionSingleton.setInMemoryWriteMaximumFileSize()
     @SuppressWarnings("unused")
 	public void write(AudioFile af) throws CannotWriteException
     {
@@ -306,6 +308,11 @@ public abstract class AudioFileWriter
             return;
         }
 
+        if (af.getFile().length() <= TagOptionSingleton.getInstance().getInMemoryWriteMaximumFileSize() && writeInMemory(af))
+        {
+            return;
+        }
+
         RandomAccessFile raf = null;
         RandomAccessFile rafTemp = null;
         File newFile;
@@ -482,6 +489,179 @@ public abstract class AudioFileWriter
         }
     }
 
+    /**
+     * Create the new file in memory and then write it over the original file, so the only file system operations
+     * are opening the file and setting its new length.
+     *
+     * @param af
+     * @return false if this format cannot write in memory, in which case the original file has not been modified
+     * @throws CannotWriteException
+     */
+    private boolean writeInMemory(AudioFile af) throws CannotWriteException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(af.getFile(), WRITE_MODE))
+        {
+            ByteBuffer newFile = writeTagToMemory(af, af.getTag(), raf);
+            if (newFile == null)
+            {
+                return false;
+            }
+            if (this.modificationListener != null)
+            {
+                this.modificationListener.fileWillBeModified(af, false);
+            }
+
+            logger.config("Writing " + newFile.remaining() + " bytes from memory to:" + af.getFile().getName());
+            FileChannel fc = raf.getChannel();
+            fc.position(0);
+            while (newFile.hasRemaining())
+            {
+                fc.write(newFile);
+            }
+            fc.truncate(fc.position());
+            if (this.modificationListener != null)
+            {
+                this.modificationListener.fileModified(af, af.getFile());
+            }
+        }
+        catch (Exception e)
+        {
+            logger.log(Level.SEVERE, ErrorMessage.GENERAL_WRITE_FAILED_BECAUSE.getMsg(af.getFile(), e.getMessage()), e);
+            throw new CannotWriteException(ErrorMessage.GENERAL_WRITE_FAILED_BECAUSE.getMsg(af.getFile(), e.getMessage()));
+        }
+
+        if (this.modificationListener != null)
+        {
+            this.modificationListener.fileOperationFinished(af.getFile());
+        }
+        return true;
+    }
+
+    /**
+     * Create the complete new file in memory rather than writing it to a temporary file.
+     *
+     * Only called for files no larger than {@link TagOptionSingleton#getInMemoryWriteMaximumFileSize()}, the default
+     * implementation returns null so that the temporary file is used, formats whose
+     * {@link #writeTag(AudioFile, Tag, RandomAccessFile, RandomAccessFile)} always create a complete new file should
+     * override it. Must not modify raf.
+     *
+     * @param audioFile
+     * @param tag
+     * @param raf the original file
+     * @return the new file contents ready to be read, or null if not supported
+     * @throws CannotReadException
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    protected ByteBuffer writeTagToMemory(AudioFile audioFile, Tag tag, RandomAccessFile raf) throws CannotReadException, CannotWriteException, IOException
+    {
+        return null;
+    }
+
+    /**
+     * Write the tag present in the AudioFile to a new file, leaving the original file untouched, the AudioFile
+     * is then associated with the new file.
+     *
+     * Where the format supports it the new file is created in a single pass by writing the new metadata and then
+     * copying the audio from the original file, otherwise the original file is copied and the tag then written to the copy.
+     *
+     * @param af The file we want to process
+     * @param destination the new file
+     * @throws CannotWriteException if anything went wrong
+     */
+    public void writeAs(AudioFile af, File destination) throws CannotWriteException
+    {
+        logger.config("Started writing tag data for file:" + af.getFile().getName() + " to:" + destination);
+        if (af.getTag() != null && !af.getTag().isEmpty() && af.getFile().length() > MINIMUM_FILESIZE)
+        {
+            boolean written;
+            try
+            {
+                if (this.modificationListener != null)
+                {
+                    this.modificationListener.fileWillBeModified(af, false);
+                }
+                written = writeTagToNewFile(af, af.getTag(), af.getFile().toPath(), destination.toPath());
+                if (written && this.modificationListener != null)
+                {
+                    this.modificationListener.fileModified(af, destination);
+                }
+            }
+            catch (Exception e)
+            {
+                logger.log(Level.SEVERE, ErrorMessage.GENERAL_WRITE_FAILED_BECAUSE.getMsg(destination, e.getMessage()), e);
+                if (destination.exists() && !destination.delete())
+                {
+                    logger.warning(ErrorMessage.GENERAL_WRITE_FAILED_TO_DELETE_TEMPORARY_FILE.getMsg(destination.getAbsolutePath()));
+                }
+                throw new CannotWriteException(ErrorMessage.GENERAL_WRITE_FAILED_BECAUSE.getMsg(destination, e.getMessage()));
+            }
+
+            if (written)
+            {
+                af.setFile(destination);
+                if (this.modificationListener != null)
+                {
+                    this.modificationListener.fileOperationFinished(destination);
+                }
+                return;
+            }
+        }
+
+        try
+        {
+            Utils.copyThrowsOnException(af.getFile(), destination);
+        }
+        catch (IOException e)
+        {
+            throw new CannotWriteException("Error While Copying" + e.getMessage());
+        }
+        af.setFile(destination);
+        write(af);
+    }
+
+    /**
+     * Write the tag to destination, copying everything else required from source, without modifying source.
+     *
+     * The default implementation does nothing so that the caller falls back to copying the file and then
+     * writing to the copy, formats that can create the new file in a single pass should override it.
+     *
+     * @param audioFile
+     * @param tag
+     * @param source
+     * @param destination
+     * @return true if destination was written, false if not supported by this format
+     * @throws CannotReadException
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    protected boolean writeTagToNewFile(AudioFile audioFile, Tag tag, Path source, Path destination) throws CannotReadException, CannotWriteException, IOException
+    {
+        return false;
+    }
+
+    /**
+     * For formats whose {@link #writeTag(AudioFile, Tag, RandomAccessFile, RandomAccessFile)} always writes the
+     * complete file to the temporary file, that temporary file can simply be the destination.
+     *
+     * @param audioFile
+     * @param tag
+     * @param source
+     * @param destination
+     * @throws CannotReadException
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    protected void writeTagUsingDestinationAsTempFile(AudioFile audioFile, Tag tag, Path source, Path destination) throws CannotReadException, CannotWriteException, IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(source.toFile(), "r");
+             RandomAccessFile rafDestination = new RandomAccessFile(destination.toFile(), WRITE_MODE))
+        {
+            rafDestination.setLength(0);
+            writeTag(audioFile, tag, raf, rafDestination);
+        }
+    }
+
     /**
      * <p>
      * Transfers the content from {@code newFile} to a file named {@code originalFile}.
@@ -22,9 +22,11 @@ import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.utils.FileTypeUtil;
 
 import java.io.*;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -232,6 +234,123 @@ public class Utils
         return b;
     }
 
+    /**
+     * Number of bytes needed to encode a string as UTF-8, the same as {@code s.getBytes(UTF_8).length} but without
+     * encoding it.
+     *
+     * @param s
+     * @return length in bytes of the UTF-8 encoding of s
+     */
+    public static int getUtf8Length(final String s)
+    {
+        final int length = s.length();
+        int i = 0;
+        while (i < length && s.charAt(i) < 0x80)
+        {
+            i++;
+        }
+        if (i == length)
+        {
+            return length;
+        }
+
+        int utf8Length = i;
+        for (; i < length; i++)
+        {
+            final char c = s.charAt(i);
+            if (c < 0x80)
+            {
+                utf8Length += 1;
+            }
+            else if (c < 0x800)
+            {
+                utf8Length += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1)))
+            {
+                utf8Length += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c))
+            {
+                //Unpaired surrogate is replaced by '?'
+                utf8Length += 1;
+            }
+            else
+            {
+                utf8Length += 3;
+            }
+        }
+        return utf8Length;
+    }
+
+    /**
+     * Write a string to the buffer encoded as UTF-8, giving the same bytes as {@code s.getBytes(UTF_8)}.
+     *
+     * Pure ASCII strings are copied a char at a time without going through a CharsetEncoder, the buffer must have
+     * {@link #getUtf8Length(String)} bytes remaining.
+     *
+     * @param buffer
+     * @param s
+     */
+    public static void putUtf8(final ByteBuffer buffer, final String s)
+    {
+        final int length = s.length();
+        int i = 0;
+        if (buffer.hasArray())
+        {
+            final byte[] array = buffer.array();
+            final int start = buffer.arrayOffset() + buffer.position();
+            if (length > buffer.remaining())
+            {
+                throw new BufferOverflowException();
+            }
+            while (i < length)
+            {
+                final char c = s.charAt(i);
+                if (c >= 0x80)
+                {
+                    break;
+                }
+                array[start + i] = (byte) c;
+                i++;
+            }
+            buffer.position(buffer.position() + i);
+        }
+
+        for (; i < length; i++)
+        {
+            final char c = s.charAt(i);
+            if (c < 0x80)
+            {
+                buffer.put((byte) c);
+            }
+            else if (c < 0x800)
+            {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1)))
+            {
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            }
+            else if (Character.isSurrogate(c))
+            {
+                buffer.put((byte) '?');
+            }
+            else
+            {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
     /**
      * Convert a byte array to a Pascal string. The first byte is the byte count,
      * followed by that many active characters.
@@ -440,6 +559,33 @@ public class Utils
         return new String(b, ISO_8859_1);
     }
 
+    /**
+     * Pack a four character id into an int, first character in the most significant byte. This is how ids of
+     * various kinds are stored in chunk and box headers so they can be matched without decoding them into a String
+     *
+     * @param id
+     * @return
+     */
+    public static int toFourCC(final String id)
+    {
+        return toFourCC(id, 0);
+    }
+
+    /**
+     * Pack the four characters of s starting at start into an int, first character in the most significant byte
+     *
+     * @param s
+     * @param start
+     * @return
+     */
+    public static int toFourCC(final String s, final int start)
+    {
+        return ((s.charAt(start) & 0xff) << 24)
+                | ((s.charAt(start + 1) & 0xff) << 16)
+                | ((s.charAt(start + 2) & 0xff) << 8)
+                | (s.charAt(start + 3) & 0xff);
+    }
+
     /**
      * Reads 3 bytes and concatenates them into a String.
      * This pattern is used for ID's of various kinds.
@@ -546,6 +692,30 @@ public class Utils
         } //Closeables closed exiting try block in all circumstances
     }
 
+    /**
+     * Copy count bytes starting at position in the source channel to the destination channel, if the destination is
+     * a file channel bytes are written at and advance its current position.
+     *
+     * @param source
+     * @param position
+     * @param count
+     * @param destination
+     * @throws IOException if source ends before count bytes could be copied
+     */
+    public static void transferFully(final FileChannel source, final long position, final long count, final WritableByteChannel destination) throws IOException
+    {
+        long transferred = 0;
+        while (transferred < count)
+        {
+            long result = source.transferTo(position + transferred, Math.min(1024L * 1024L, count - transferred), destination);
+            if (result <= 0)
+            {
+                throw new IOException("Unable to copy " + count + " bytes from position " + position + ", only copied " + transferred);
+            }
+            transferred += result;
+        }
+    }
+
     /**
      *
      * @param length
@@ -0,0 +1,114 @@
+package org.jaudiotagger.audio.iff;
+
+import org.jaudiotagger.audio.generic.Utils;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Immutable lookup of values by their four character id, such as the chunk types of IFF based formats.
+ *
+ * The id is packed into an int and found by binary search, so once constructed (typically in a static initializer)
+ * lookups can be made from any number of threads without locking or allocating.
+ *
+ * @param <E> type of value
+ */
+public class ChunkIdIndex<E>
+{
+    private static final int ID_LENGTH = 4;
+
+    private final int[]    ids;
+    private final Object[] values;
+    private final E[]      allValues;
+    private final Function<E, String> idFunction;
+
+    /**
+     * @param allValues values to index, if more than one value has the same id the last one is used
+     * @param idFunction gets the id of a value
+     */
+    public ChunkIdIndex(E[] allValues, Function<E, String> idFunction)
+    {
+        this.allValues  = allValues.clone();
+        this.idFunction = idFunction;
+
+        long[] sortable = new long[allValues.length];
+        int count = 0;
+        for (int i = 0; i < allValues.length; i++)
+        {
+            String id = idFunction.apply(allValues[i]);
+            if (id.length() == ID_LENGTH)
+            {
+                //Packed id in the upper half, index in lower half so equal ids sort in declaration order
+                sortable[count++] = ((long) Utils.toFourCC(id) << 32) | i;
+            }
+        }
+        Arrays.sort(sortable, 0, count);
+
+        int[]    sortedIds    = new int[count];
+        Object[] sortedValues = new Object[count];
+        int size = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int id = (int) (sortable[i] >> 32);
+            if (size > 0 && sortedIds[size - 1] == id)
+            {
+                size--;
+            }
+            sortedIds[size]    = id;
+            sortedValues[size] = allValues[(int) sortable[i]];
+            size++;
+        }
+        this.ids    = Arrays.copyOf(sortedIds, size);
+        this.values = Arrays.copyOf(sortedValues, size);
+    }
+
+    /**
+     * @param id packed four character id
+     * @return value or {@code null} if not registered
+     */
+    @SuppressWarnings("unchecked")
+    public E get(final int id)
+    {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0)
+        {
+            return null;
+        }
+        return (E) values[index];
+    }
+
+    /**
+     * @param id four character id
+     * @return value or {@code null} if not registered
+     */
+    public E get(final String id)
+    {
+        if (id == null)
+        {
+            return null;
+        }
+
+        if (id.length() == ID_LENGTH)
+        {
+            for (int i = 0; i < ID_LENGTH; i++)
+            {
+                if (id.charAt(i) > 0xff)
+                {
+                    return null;
+                }
+            }
+            return get(Utils.toFourCC(id));
+        }
+
+        //Ids that are not four characters long cannot be packed, there are very few so just search
+        E found = null;
+        for (E next : allValues)
+        {
+            if (idFunction.apply(next).equals(id))
+            {
+                found = next;
+            }
+        }
+        return found;
+    }
+}
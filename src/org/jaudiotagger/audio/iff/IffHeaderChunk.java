@@ -4,6 +4,7 @@ import org.jaudiotagger.audio.generic.Utils;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.logging.Logger;
 
@@ -19,6 +20,9 @@ public class IffHeaderChunk
     public static int TYPE_LENGTH = 4;
     public static int FORM_HEADER_LENGTH = SIGNATURE_LENGTH + SIZE_LENGTH + TYPE_LENGTH;
 
+    //Size of buffer used when scanning over null padding, so memory use does not depend on file size
+    public static final int NULL_PADDING_SCAN_BUFFER_SIZE = 8192;
+
     /**
      * If Size is not even then we skip a byte, because chunks have to be aligned
      *
@@ -51,4 +55,38 @@ public class IffHeaderChunk
             }
         }
     }
+
+    /**
+     * Skip over null padding starting at the current position, reading through a small fixed size buffer so that
+     * we never hold more than {@link #NULL_PADDING_SCAN_BUFFER_SIZE} bytes regardless of how much of the file follows.
+     *
+     * On return the channel is positioned at the first non null byte, or at the end of the file if there are none.
+     *
+     * @param fc
+     * @return number of null bytes skipped
+     * @throws IOException
+     */
+    public static long skipNullPadding(FileChannel fc) throws IOException
+    {
+        final long start = fc.position();
+        final ByteBuffer buffer = ByteBuffer.allocate(NULL_PADDING_SCAN_BUFFER_SIZE);
+        long position = start;
+        while (fc.read(buffer, position) > 0)
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                if (buffer.get() != 0)
+                {
+                    position += buffer.position() - 1;
+                    fc.position(position);
+                    return position - start;
+                }
+            }
+            position += buffer.limit();
+            buffer.clear();
+        }
+        fc.position(position);
+        return position - start;
+    }
 }
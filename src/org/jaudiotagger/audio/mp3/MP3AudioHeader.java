@@ -418,6 +418,7 @@ public class MP3AudioHeader implements AudioHeader
     protected void setMp3StartByte(final long startByte)
     {
         this.startByte = startByte;
+        this.audioDataStartPosition = startByte;
     }
 
 
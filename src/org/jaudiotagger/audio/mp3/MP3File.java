@@ -24,6 +24,7 @@ package org.jaudiotagger.audio.mp3;
 
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.*;
+import org.jaudiotagger.audio.generic.AudioDataDigest;
 import org.jaudiotagger.audio.generic.Permissions;
 import org.jaudiotagger.logging.*;
 import org.jaudiotagger.tag.Tag;
@@ -39,8 +40,6 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.logging.Level;
 
@@ -162,6 +161,30 @@ public class MP3File extends AudioFile
         }
     }
 
+    /**
+     * The audio continues to the end of the file unless there is an ID3v1 tag, this is checked for even if
+     * the tag itself is not being loaded
+     *
+     * @param raf
+     * @return location in file after the last byte of audio
+     * @throws IOException
+     */
+    private long getAudioDataEndPosition(RandomAccessFile raf) throws IOException
+    {
+        long length = raf.length();
+        if (length >= AbstractID3v1Tag.TAG_LENGTH)
+        {
+            ByteBuffer tagId = ByteBuffer.allocate(AbstractID3v1Tag.TAG.length());
+            raf.getChannel().read(tagId, length - AbstractID3v1Tag.TAG_LENGTH);
+            tagId.flip();
+            if (tagId.remaining() == AbstractID3v1Tag.TAG.length() && AbstractID3v1Tag.seekForV1OrV11Tag(tagId))
+            {
+                return length - AbstractID3v1Tag.TAG_LENGTH;
+            }
+        }
+        return length;
+    }
+
     /**
      * Read V2tag, if exists.
      *
@@ -395,6 +418,7 @@ public class MP3File extends AudioFile
 
             //Read v1 tags (if any)
             readV1Tag(file, newFile, loadOptions);
+            ((MP3AudioHeader) audioHeader).setAudioDataEndPosition(getAudioDataEndPosition(newFile));
 
             //Read v2 tags (if any)
             readV2Tag(file, loadOptions, (int)((MP3AudioHeader) audioHeader).getMp3StartByte());
@@ -648,42 +672,8 @@ public class MP3File extends AudioFile
     
     public byte[] getHash(String algorithm, int bufferSize) throws InvalidAudioFrameException, IOException, NoSuchAlgorithmException
     {
-    	File mp3File = getFile();
-    	long startByte = getMP3StartByte(mp3File);
-    	
-    	int id3v1TagSize = 0;
-		if (hasID3v1Tag()){
-		ID3v1Tag id1tag= getID3v1Tag();
-		id3v1TagSize  = id1tag.getSize();
-		}
-		
-		InputStream inStream = Files
-				.newInputStream(Paths.get(mp3File.getAbsolutePath()));
-		
-		byte[] buffer = new byte[bufferSize];
-
-		MessageDigest digest = MessageDigest.getInstance(algorithm);
-
-		inStream.skip(startByte);
-		
-		int read;
-		long totalSize = mp3File.length() - startByte - id3v1TagSize;
-		int pointer  = buffer.length;
-		
-		while (pointer <= totalSize ) {
-			
-			read = inStream.read(buffer);
-			
-			digest.update(buffer, 0, read);
-			pointer += buffer.length;
-			}
-		read = inStream.read(buffer,0,(int)totalSize - pointer + buffer.length);
-		digest.update(buffer, 0, read);
-		
-		byte[] hash = digest.digest();
-
-		
-        return hash;
+        MP3AudioHeader mp3AudioHeader = (MP3AudioHeader) getAudioHeader();
+        return AudioDataDigest.digest(getFile().toPath(), mp3AudioHeader.getMp3StartByte(), mp3AudioHeader.getAudioDataEndPosition(), algorithm, bufferSize);
     }
 
     /**
@@ -951,6 +941,7 @@ public class MP3File extends AudioFile
                     id3v1tag.write(rfile);
                 }
             }
+            ((MP3AudioHeader) this.getAudioHeader()).setAudioDataEndPosition(getAudioDataEndPosition(rfile));
         }
         catch (FileNotFoundException ex)
         {
@@ -4,10 +4,16 @@ import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
+import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagOptionSingleton;
+import org.jaudiotagger.tag.id3.AbstractID3v2Tag;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Write Mp3 Info (retrofitted to entagged ,done differently to entagged which is why some methods throw RuntimeException)
@@ -43,6 +49,59 @@ public class MP3FileWriter extends AudioFileWriter
         af.commit();
     }
 
+    /**
+     * Create the new file in a single pass, the new ID3v2 tag is written followed by the audio transferred from the
+     * original file and then the ID3v1 tag. This avoids copying the file and then having to shift all the audio
+     * again if the new ID3v2 tag does not fit in the space used by the existing tag.
+     */
+    @Override
+    protected boolean writeTagToNewFile(AudioFile audioFile, Tag tag, Path source, Path destination) throws CannotReadException, CannotWriteException, IOException
+    {
+        MP3File mp3File = (MP3File) audioFile;
+        MP3AudioHeader header = (MP3AudioHeader) mp3File.getAudioHeader();
+        TagOptionSingleton options = TagOptionSingleton.getInstance();
+        if (header.getAudioDataEndPosition() == null)
+        {
+            return false;
+        }
+
+        long audioStart = header.getMp3StartByte();
+        long audioEnd = header.getAudioDataEndPosition();
+        long newAudioStart;
+        try (FileChannel fc = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel fcOut = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            //Unless saving ID3v2 the existing tag is kept as it is
+            long copyStart = 0;
+            if (options.isId3v2Save())
+            {
+                AbstractID3v2Tag id3v2Tag = mp3File.getID3v2Tag();
+                if (id3v2Tag != null)
+                {
+                    id3v2Tag.write(fcOut, (int) audioStart);
+                }
+                copyStart = audioStart;
+            }
+            newAudioStart = fcOut.position() + (audioStart - copyStart);
+
+            //Unless saving ID3v1 any existing tag is copied with the audio
+            long copyEnd = options.isId3v1Save() ? audioEnd : fc.size();
+            Utils.transferFully(fc, copyStart, copyEnd - copyStart, fcOut);
+        }
+
+        if (options.isId3v1Save() && mp3File.getID3v1Tag() != null)
+        {
+            try (RandomAccessFile raf = new RandomAccessFile(destination.toFile(), "rw"))
+            {
+                mp3File.getID3v1Tag().write(raf);
+            }
+        }
+
+        header.setMp3StartByte(newAudioStart);
+        header.setAudioDataEndPosition(newAudioStart + (audioEnd - audioStart));
+        return true;
+    }
+
     protected void writeTag(AudioFile audioFile, Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
     {
         throw new RuntimeException("MP3FileReaderwriteTag should not be called");
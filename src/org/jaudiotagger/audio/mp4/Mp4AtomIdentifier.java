@@ -1,5 +1,7 @@
 package org.jaudiotagger.audio.mp4;
 
+import org.jaudiotagger.audio.generic.Utils;
+
 /**
  * This a list of mp4boxes identifiers that can bwe found in a mp4 container. This list is by no means
  * exhaustive.
@@ -141,6 +143,7 @@ public enum Mp4AtomIdentifier
     SWTC("swtc", "Multiview Group Relation"),
     TAGS("tags", "Nero Encoder Tags"),
     TFAD("tfad", "Track fragment adjustment box"),
+    TFDT("tfdt", "Track fragment decode time"),
     TFHD("tfhd", "Track fragment header"),
     TFMA("tfma", "Track fragment media adjustment box"),
     TFRA("tfra", "Track fragment radom access"),
@@ -167,12 +170,14 @@ public enum Mp4AtomIdentifier
     ;
     private String fieldName;
     private String description;
+    private int fourCC;
 
     Mp4AtomIdentifier(String fieldName, String description)
     {
         this.fieldName = fieldName;
         this.description = description;
-
+        //$20 is used for the space character that is not allowed in an enum name
+        this.fourCC = Utils.toFourCC(fieldName.replace("$20", " "));
     }
 
     /**
@@ -185,6 +190,14 @@ public enum Mp4AtomIdentifier
         return fieldName;
     }
 
+    /**
+     * @return the identifier packed into an int as it is stored in the box header
+     */
+    public int getFourCC()
+    {
+        return fourCC;
+    }
+
     /**
      * @return description, human redable description of the atom
      */
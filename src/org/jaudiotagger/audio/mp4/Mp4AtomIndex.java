@@ -0,0 +1,513 @@
+package org.jaudiotagger.audio.mp4;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.exceptions.NullBoxIdException;
+import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+import org.jaudiotagger.audio.mp4.atom.Mp4MetaBox;
+import org.jaudiotagger.audio.mp4.atom.Mp4StcoBox;
+import org.jaudiotagger.logging.ErrorMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Index of the atoms in the mp4 file, used when writing.
+ *
+ * Covers the same atoms as {@link Mp4AtomTree}, the top level atoms and the subtrees of moov we are interested in, but
+ * rather than a node object per atom each atom is just an index into parallel arrays of its id (the four characters
+ * packed into an int), file position, size and the index of its parent. Atoms are added in file order so the children
+ * of an atom always follow it, and the index is built in a single pass.
+ *
+ * Atoms are looked up by their path from the top level, e.g. {@code find("moov/udta/meta/ilst")}, or relative to
+ * another atom, lookups return {@link #NONE} if there is no such atom.
+ */
+public class Mp4AtomIndex
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.mp4");
+
+    /**
+     * Returned when an atom does not exist and as the parent of top level atoms, lookups relative to it find nothing
+     * so they can be chained
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int MOOV = Mp4AtomIdentifier.MOOV.getFourCC();
+    private static final int MDAT = Mp4AtomIdentifier.MDAT.getFourCC();
+    private static final int META = Mp4AtomIdentifier.META.getFourCC();
+    private static final int STCO = Mp4AtomIdentifier.STCO.getFourCC();
+    private static final int CO64 = Mp4AtomIdentifier.CO64.getFourCC();
+
+    //Atoms whose children are indexed
+    private static final int[] CONTAINERS =
+            {
+                    Mp4AtomIdentifier.TRAK.getFourCC(),
+                    Mp4AtomIdentifier.MDIA.getFourCC(),
+                    Mp4AtomIdentifier.MINF.getFourCC(),
+                    Mp4AtomIdentifier.STBL.getFourCC(),
+                    Mp4AtomIdentifier.UDTA.getFourCC(),
+                    META,
+                    Mp4AtomIdentifier.ILST.getFourCC(),
+            };
+
+    private int[]  ids     = new int[INITIAL_CAPACITY];
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private long[] sizes   = new long[INITIAL_CAPACITY];
+    private int[]  parents = new int[INITIAL_CAPACITY];
+    private int    count;
+
+    private int moov = NONE;
+    private int mdat = NONE;
+    private ByteBuffer moovBuffer;
+    private List<Mp4StcoBox> stcos = new ArrayList<Mp4StcoBox>();
+
+    /**
+     * Index the atoms of the file, the channel is left open
+     *
+     * @param fc
+     * @throws IOException
+     * @throws CannotReadException if the file has no mdat atom or the moov atom is invalid
+     */
+    public Mp4AtomIndex(SeekableByteChannel fc) throws IOException, CannotReadException
+    {
+        this(fc, false);
+    }
+
+    /**
+     * Index the atoms of the file, the channel is left open
+     *
+     * <p>If skipSampleTables is true moov is read by {@link Mp4MoovReader} so the sample tables are not read and
+     * each stco only contains its first offset. The offsets of atoms within moov will then not match the file so the
+     * index can be used to check the structure of the file but not for writing.
+     *
+     * @param fc
+     * @param skipSampleTables
+     * @throws IOException
+     * @throws CannotReadException if the file has no mdat atom or the moov atom is invalid
+     */
+    public Mp4AtomIndex(SeekableByteChannel fc, boolean skipSampleTables) throws IOException, CannotReadException
+    {
+        try
+        {
+            fc.position(0);
+            ByteBuffer headerBuffer = ByteBuffer.allocate(Mp4BoxHeader.DATA_64BITLENGTH);
+
+            // we need to have at least enough data in the file left to read a box header
+            while (fc.position() < fc.size() - Mp4BoxHeader.HEADER_LENGTH)
+            {
+                long filePos = fc.position();
+                headerBuffer.clear();
+                headerBuffer.limit(Mp4BoxHeader.HEADER_LENGTH);
+                fc.read(headerBuffer);
+                headerBuffer.rewind();
+
+                Mp4BoxHeader boxHeader;
+                try
+                {
+                    boxHeader = new Mp4BoxHeader(headerBuffer);
+                }
+                catch (NullBoxIdException ne)
+                {
+                    //If we only get this error after all the expected data has been found we allow it
+                    if (moov != NONE && mdat != NONE)
+                    {
+                        logger.warning(ErrorMessage.NULL_PADDING_FOUND_AT_END_OF_MP4.getMsg(filePos));
+                        break;
+                    }
+                    throw ne;
+                }
+
+                int id = boxHeader.getFourCC();
+                long size = boxHeader.getLength();
+
+                //64bit data length
+                if (size == 1)
+                {
+                    headerBuffer.clear();
+                    if (fc.read(headerBuffer) != Mp4BoxHeader.DATA_64BITLENGTH)
+                    {
+                        break;
+                    }
+                    size = headerBuffer.getLong(0);
+                    if (size < Mp4BoxHeader.HEADER_LENGTH)
+                    {
+                        break;
+                    }
+                }
+
+                if (id == MOOV)
+                {
+                    //A second Moov atom, this is illegal but may just be mess at the end of the file so ignore
+                    //and finish
+                    if (moov != NONE && mdat != NONE)
+                    {
+                        logger.warning(ErrorMessage.ADDITIONAL_MOOV_ATOM_AT_END_OF_MP4.getMsg(filePos));
+                        break;
+                    }
+                    moov = add(id, filePos, size, NONE);
+                    if (skipSampleTables)
+                    {
+                        moovBuffer = Mp4MoovReader.read(fc, boxHeader);
+                    }
+                    else
+                    {
+                        moovBuffer = ByteBuffer.allocate(boxHeader.getDataLength());
+                        int bytesRead = fc.read(moovBuffer);
+
+                        //If Moov atom is incomplete we are not going to be able to read this file properly
+                        if (bytesRead < boxHeader.getDataLength())
+                        {
+                            throw new CannotReadException(ErrorMessage.ATOM_LENGTH_LARGER_THAN_DATA.getMsg(boxHeader.getId(), boxHeader.getDataLength(), bytesRead));
+                        }
+                    }
+                    moovBuffer.rewind();
+                    addChildren(moov, moovBuffer.limit());
+                }
+                else
+                {
+                    //Normally there is just one mdat but there can be multiple, we always want the last one
+                    int index = add(id, filePos, size, NONE);
+                    if (id == MDAT)
+                    {
+                        mdat = index;
+                    }
+                }
+                fc.position(filePos + size);
+            }
+
+            final long extraDataLength = fc.size() - fc.position();
+            if (extraDataLength != 0)
+            {
+                logger.warning(ErrorMessage.EXTRA_DATA_AT_END_OF_MP4.getMsg(extraDataLength));
+            }
+        }
+        finally
+        {
+            //If we cant find the audio then we cannot modify this file
+            if (mdat == NONE)
+            {
+                throw new CannotReadException(ErrorMessage.MP4_CANNOT_FIND_AUDIO.getMsg());
+            }
+        }
+    }
+
+    /**
+     * Index the children of parent, moovBuffer is positioned immediately after its header and is left there
+     *
+     * @param parent
+     * @param dataLength
+     * @throws CannotReadException
+     */
+    private void addChildren(int parent, int dataLength) throws CannotReadException
+    {
+        int justAfterHeaderPos = moovBuffer.position();
+
+        //meta normally contains 4 data bytes before its children, but doesn't when found under track or tags atom
+        if (ids[parent] == META)
+        {
+            new Mp4MetaBox(getBoxHeader(parent), moovBuffer).processData();
+            try
+            {
+                new Mp4BoxHeader(moovBuffer);
+            }
+            catch (NullBoxIdException nbe)
+            {
+                //No data bytes, children start immediately after header
+                moovBuffer.position(moovBuffer.position() - Mp4MetaBox.FLAGS_LENGTH);
+            }
+            finally
+            {
+                moovBuffer.position(moovBuffer.position() - Mp4BoxHeader.HEADER_LENGTH);
+            }
+        }
+
+        int startPos = moovBuffer.position();
+        long moovDataPos = offsets[moov] + Mp4BoxHeader.HEADER_LENGTH;
+        while (moovBuffer.position() < ((startPos + dataLength) - Mp4BoxHeader.HEADER_LENGTH))
+        {
+            long filePos = moovDataPos + moovBuffer.position();
+            Mp4BoxHeader boxHeader = new Mp4BoxHeader(moovBuffer);
+            int id = boxHeader.getFourCC();
+            int index = add(id, filePos, boxHeader.getLength(), parent);
+
+            if (id == STCO || id == CO64)
+            {
+                boxHeader.setFilePos(filePos);
+                stcos.add(new Mp4StcoBox(boxHeader, moovBuffer));
+            }
+            else if (isContainer(id))
+            {
+                addChildren(index, boxHeader.getDataLength());
+            }
+            moovBuffer.position(moovBuffer.position() + boxHeader.getDataLength());
+        }
+        moovBuffer.position(justAfterHeaderPos);
+    }
+
+    private static boolean isContainer(int id)
+    {
+        for (int next : CONTAINERS)
+        {
+            if (next == id)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int add(int id, long offset, long size, int parent)
+    {
+        if (count == ids.length)
+        {
+            int newCapacity = count * 2;
+            ids     = Arrays.copyOf(ids, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            sizes   = Arrays.copyOf(sizes, newCapacity);
+            parents = Arrays.copyOf(parents, newCapacity);
+        }
+        ids[count]     = id;
+        offsets[count] = offset;
+        sizes[count]   = size;
+        parents[count] = parent;
+        return count++;
+    }
+
+
+    /**
+     * @return number of atoms indexed
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @param index
+     * @return the packed four character id of the atom
+     */
+    public int getFourCC(int index)
+    {
+        return ids[index];
+    }
+
+    /**
+     * @param index
+     * @return file position of the start of the atom header
+     */
+    public long getOffset(int index)
+    {
+        return offsets[index];
+    }
+
+    /**
+     * @param index
+     * @return size of the atom including its header
+     */
+    public long getSize(int index)
+    {
+        return sizes[index];
+    }
+
+    /**
+     * @param index
+     * @return file position immediately after the atom
+     */
+    public long getEndOffset(int index)
+    {
+        return offsets[index] + sizes[index];
+    }
+
+    /**
+     * @param index
+     * @return index of the parent atom or {@link #NONE} for top level atoms
+     */
+    public int getParent(int index)
+    {
+        return parents[index];
+    }
+
+    /**
+     * Find the first top level atom with the given id
+     *
+     * @param fourCC packed id
+     * @return index of the atom or {@link #NONE}
+     */
+    public int findTopLevel(int fourCC)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (parents[i] == NONE && ids[i] == fourCC)
+            {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Find the first child of parent with the given id
+     *
+     * @param parent index of parent atom
+     * @param fourCC packed id
+     * @return index of the atom or {@link #NONE}
+     */
+    public int findChild(int parent, int fourCC)
+    {
+        if (parent == NONE)
+        {
+            return NONE;
+        }
+        long end = getEndOffset(parent);
+        for (int i = parent + 1; i < count && offsets[i] < end; i++)
+        {
+            if (parents[i] == parent && ids[i] == fourCC)
+            {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Find the last child of parent with the given id
+     *
+     * @param parent index of parent atom
+     * @param fourCC packed id
+     * @return index of the atom or {@link #NONE}
+     */
+    public int findLastChild(int parent, int fourCC)
+    {
+        int found = NONE;
+        if (parent == NONE)
+        {
+            return found;
+        }
+        long end = getEndOffset(parent);
+        for (int i = parent + 1; i < count && offsets[i] < end; i++)
+        {
+            if (parents[i] == parent && ids[i] == fourCC)
+            {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find atom by its path of ids from the top level separated by '/', e.g. {@code moov/udta/meta/ilst}
+     *
+     * @param path
+     * @return index of the atom or {@link #NONE}
+     */
+    public int find(String path)
+    {
+        return find(findTopLevel(Utils.toFourCC(path, 0)), path, Mp4BoxHeader.IDENTIFIER_LENGTH + 1);
+    }
+
+    /**
+     * Find atom by its path of ids relative to parent separated by '/', e.g. {@code meta/ilst}
+     *
+     * @param parent index of parent atom
+     * @param path
+     * @return index of the atom or {@link #NONE}
+     */
+    public int find(int parent, String path)
+    {
+        return find(parent, path, 0);
+    }
+
+    private int find(int parent, String path, int start)
+    {
+        int index = parent;
+        for (; start < path.length() && index != NONE; start += Mp4BoxHeader.IDENTIFIER_LENGTH + 1)
+        {
+            index = findChild(index, Utils.toFourCC(path, start));
+        }
+        return index;
+    }
+
+    /**
+     * @param index
+     * @return index of the atom immediately after it with the same parent, or {@link #NONE}
+     */
+    public int getNextSibling(int index)
+    {
+        int parent = parents[index];
+        long end = parent == NONE ? Long.MAX_VALUE : getEndOffset(parent);
+        for (int i = index + 1; i < count && offsets[i] < end; i++)
+        {
+            if (parents[i] == parent)
+            {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param index
+     * @return a new header for the atom, or null if index is {@link #NONE}
+     */
+    public Mp4BoxHeader getBoxHeader(int index)
+    {
+        if (index == NONE)
+        {
+            return null;
+        }
+        Mp4BoxHeader header = new Mp4BoxHeader(getId(index));
+        header.setLength(sizes[index] > Integer.MAX_VALUE ? 1 : (int) sizes[index]);
+        header.setFilePos(offsets[index]);
+        return header;
+    }
+
+    /**
+     * @param index
+     * @return the atom id as a string
+     */
+    public String getId(int index)
+    {
+        int id = ids[index];
+        return new String(new char[]{(char) ((id >>> 24) & 0xff), (char) ((id >>> 16) & 0xff), (char) ((id >>> 8) & 0xff), (char) (id & 0xff)});
+    }
+
+    /**
+     * @return index of the moov atom
+     */
+    public int getMoov()
+    {
+        return moov;
+    }
+
+    /**
+     * @return index of the last mdat atom
+     */
+    public int getMdat()
+    {
+        return mdat;
+    }
+
+    /**
+     * @return all the data under moov
+     */
+    public ByteBuffer getMoovBuffer()
+    {
+        return moovBuffer;
+    }
+
+    /**
+     * @return the stco and co64 atoms under moov in file order, backed by the moov buffer
+     */
+    public List<Mp4StcoBox> getStcos()
+    {
+        return stcos;
+    }
+}
@@ -20,6 +20,7 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -29,9 +30,8 @@ import java.util.logging.Logger;
  * it would be impossible to create a complete tree for any file without understanding all the nodes because
  * some atoms such as meta contain data and children and therefore need to be specially preprocessed)
  *
- * This class is currently only used when writing tags because it better handles the difficulties of mdat and free
- * atoms being optional/multiple places then the older sequential method. It is expected this class will eventually
- * be used when reading tags as well.
+ * This class is used to validate the structure of the file when reading, and for debugging. When writing tags the
+ * lighter {@link Mp4AtomIndex} is used instead, it covers the same atoms.
  *
  * Uses a TreeModel for the tree, with convenience methods holding onto references to most common nodes so they
  * can be used without having to traverse the tree again.
@@ -56,6 +56,7 @@ public class Mp4AtomTree
     private List<Mp4StcoBox> stcos = new ArrayList<Mp4StcoBox>();
     private ByteBuffer moovBuffer; //Contains all the data under moov
     private Mp4BoxHeader moovHeader;
+    private ByteBuffer existingMoovData;
 
     //Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.mp4");
@@ -97,6 +98,25 @@ public class Mp4AtomTree
         buildTree(fc, closeOnExit);
     }
 
+    /**
+     * Create Atom Tree reusing the data of the moov atom if it has already been read, rather than reading it again.
+     *
+     * <p>If the data was read by {@link Mp4MoovReader} without the sample tables the tree is only suitable for
+     * validating the structure of the file, the positions of atoms within moov will not match the file so it must not
+     * be used for writing.
+     *
+     * @param fc
+     * @param closeOnExit
+     * @param existingMoovData data of the first moov atom in the file (excluding header), not modified
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    public Mp4AtomTree(SeekableByteChannel fc, boolean closeOnExit, ByteBuffer existingMoovData) throws IOException, CannotReadException
+    {
+        this.existingMoovData = existingMoovData;
+        buildTree(fc, closeOnExit);
+    }
+
     /**
      * Build a tree of the atoms in the file
      *
@@ -151,10 +171,10 @@ public class Mp4AtomTree
                 }
                                    
                 boxHeader.setFilePos(fc.position() - Mp4BoxHeader.HEADER_LENGTH);
-                DefaultMutableTreeNode newAtom = new DefaultMutableTreeNode(boxHeader);
+                DefaultMutableTreeNode newAtom = new DefaultMutableTreeNode(getNodeHeader(boxHeader));
 
                 //Go down moov
-                if (boxHeader.getId().equals(Mp4AtomIdentifier.MOOV.getFieldName()))
+                if (boxHeader.getFourCC() == Mp4AtomIdentifier.MOOV.getFourCC())
                 {
                     //A second Moov atom, this is illegal but may just be mess at the end of the file so ignore
                     //and finish
@@ -164,28 +184,35 @@ public class Mp4AtomTree
                         break;
                     }
                     moovNode    = newAtom;
-                    moovHeader  = boxHeader;
+                    moovHeader  = getBoxHeader(newAtom);
 
                     long filePosStart = fc.position();
-                    moovBuffer = ByteBuffer.allocate(boxHeader.getDataLength());
-                    int bytesRead = fc.read(moovBuffer);
-
-                    //If Moov atom is incomplete we are not going to be able to read this file properly
-                    if(bytesRead < boxHeader.getDataLength())
+                    if(existingMoovData != null)
                     {
-                        String msg = ErrorMessage.ATOM_LENGTH_LARGER_THAN_DATA.getMsg(boxHeader.getId(), boxHeader.getDataLength(),bytesRead);
-                        throw new CannotReadException(msg);
+                        moovBuffer = existingMoovData.duplicate();
+                    }
+                    else
+                    {
+                        moovBuffer = ByteBuffer.allocate(boxHeader.getDataLength());
+                        int bytesRead = fc.read(moovBuffer);
+
+                        //If Moov atom is incomplete we are not going to be able to read this file properly
+                        if(bytesRead < boxHeader.getDataLength())
+                        {
+                            String msg = ErrorMessage.ATOM_LENGTH_LARGER_THAN_DATA.getMsg(boxHeader.getId(), boxHeader.getDataLength(),bytesRead);
+                            throw new CannotReadException(msg);
+                        }
                     }
                     moovBuffer.rewind();
                     buildChildrenOfNode(moovBuffer, newAtom);
                     fc.position(filePosStart);
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.FREE.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.FREE.getFourCC())
                 {
                     //Might be multiple in different locations
                     freeNodes.add(newAtom);
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.MDAT.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.MDAT.getFourCC())
                 {
                     //mdatNode always points to the last mDatNode, normally there is just one mdatnode but do have
                     //a valid example of multiple mdatnode
@@ -244,6 +271,29 @@ public class Mp4AtomTree
         }
     }
 
+    /**
+     * Header to store in the tree for an atom read from the file
+     *
+     * If the existing moov data was read without the sample tables it is smaller than in the file, the children are
+     * built from the buffer so the moov node has to match it.
+     *
+     * @param boxHeader
+     * @return
+     */
+    private Mp4BoxHeader getNodeHeader(Mp4BoxHeader boxHeader)
+    {
+        if (existingMoovData == null
+                || boxHeader.getFourCC() != Mp4AtomIdentifier.MOOV.getFourCC()
+                || existingMoovData.limit() == boxHeader.getDataLength())
+        {
+            return boxHeader;
+        }
+        Mp4BoxHeader header = new Mp4BoxHeader(boxHeader.getId());
+        header.setLength(existingMoovData.limit() + Mp4BoxHeader.HEADER_LENGTH);
+        header.setFilePos(boxHeader.getFilePos());
+        return header;
+    }
+
     /**
      * Display atom tree
      */
@@ -308,7 +358,7 @@ public class Mp4AtomTree
         int justAfterHeaderPos = moovBuffer.position();
 
         //Preprocessing for meta that normally contains 4 data bytes, but doesn't where found under track or tags atom
-        if (parentBoxHeader.getId().equals(Mp4AtomIdentifier.META.getFieldName()))
+        if (parentBoxHeader.getFourCC() == Mp4AtomIdentifier.META.getFourCC())
         {
             Mp4MetaBox meta = new Mp4MetaBox(parentBoxHeader, moovBuffer);
             meta.processData();
@@ -339,37 +389,41 @@ public class Mp4AtomTree
             if (boxHeader != null)
             {
                 boxHeader.setFilePos(moovHeader.getFilePos() + moovBuffer.position());
-                logger.finest("Atom " + boxHeader.getId() + " @ " + boxHeader.getFilePos() + " of size:" + boxHeader.getLength() + " ,ends @ " + (boxHeader.getFilePos() + boxHeader.getLength()));
+                if (logger.isLoggable(Level.FINEST))
+                {
+                    logger.finest("Atom " + boxHeader.getId() + " @ " + boxHeader.getFilePos() + " of size:" + boxHeader.getLength() + " ,ends @ " + (boxHeader.getFilePos() + boxHeader.getLength()));
+                }
                 DefaultMutableTreeNode newAtom = new DefaultMutableTreeNode(boxHeader);
                 parentNode.add(newAtom);
 
-                if (boxHeader.getId().equals(Mp4AtomIdentifier.UDTA.getFieldName()))
+                if (boxHeader.getFourCC() == Mp4AtomIdentifier.UDTA.getFourCC())
                 {
                     udtaNode = newAtom;
                 }
                 //only interested in metaNode that is child of udta node
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.META.getFieldName())&&parentBoxHeader.getId().equals(Mp4AtomIdentifier.UDTA.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.META.getFourCC()&&parentBoxHeader.getFourCC() == Mp4AtomIdentifier.UDTA.getFourCC())
                 {
                     metaNode = newAtom;
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.HDLR.getFieldName())&&parentBoxHeader.getId().equals(Mp4AtomIdentifier.META.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.HDLR.getFourCC()&&parentBoxHeader.getFourCC() == Mp4AtomIdentifier.META.getFourCC())
                 {
                     hdlrWithinMetaNode = newAtom;
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.HDLR.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.HDLR.getFourCC())
                 {
                     hdlrWithinMdiaNode = newAtom;
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.TAGS.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.TAGS.getFourCC())
                 {
                     tagsNode = newAtom;
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.STCO.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.STCO.getFourCC()
+                        || boxHeader.getFourCC() == Mp4AtomIdentifier.CO64.getFourCC())
                 {
                     stcos.add(new Mp4StcoBox(boxHeader, moovBuffer));
                     stcoNodes.add(newAtom);
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.ILST.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.ILST.getFourCC())
                 {
                     DefaultMutableTreeNode parent = (DefaultMutableTreeNode)parentNode.getParent();
                     if(parent!=null)
@@ -377,32 +431,32 @@ public class Mp4AtomTree
                         Mp4BoxHeader parentsParent = (Mp4BoxHeader)(parent).getUserObject();
                         if(parentsParent!=null)
                         {
-                            if(parentBoxHeader.getId().equals(Mp4AtomIdentifier.META.getFieldName())&&parentsParent.getId().equals(Mp4AtomIdentifier.UDTA.getFieldName()))
+                            if(parentBoxHeader.getFourCC() == Mp4AtomIdentifier.META.getFourCC()&&parentsParent.getFourCC() == Mp4AtomIdentifier.UDTA.getFourCC())
                             {
                                 ilstNode = newAtom;
                             }
                         }
                     }    
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.FREE.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.FREE.getFourCC())
                 {
                     //Might be multiple in different locations
                     freeNodes.add(newAtom);
                 }
-                else if (boxHeader.getId().equals(Mp4AtomIdentifier.TRAK.getFieldName()))
+                else if (boxHeader.getFourCC() == Mp4AtomIdentifier.TRAK.getFourCC())
                 {
                     //Might be multiple in different locations, although only one should be audio track
                     trakNodes.add(newAtom);
                 }
 
                 //For these atoms iterate down to build their children
-                if ((boxHeader.getId().equals(Mp4AtomIdentifier.TRAK.getFieldName())) ||
-                        (boxHeader.getId().equals(Mp4AtomIdentifier.MDIA.getFieldName())) ||
-                        (boxHeader.getId().equals(Mp4AtomIdentifier.MINF.getFieldName())) ||
-                        (boxHeader.getId().equals(Mp4AtomIdentifier.STBL.getFieldName())) ||
-                        (boxHeader.getId().equals(Mp4AtomIdentifier.UDTA.getFieldName())) ||
-                        (boxHeader.getId().equals(Mp4AtomIdentifier.META.getFieldName())) ||
-                        (boxHeader.getId().equals(Mp4AtomIdentifier.ILST.getFieldName())))
+                if ((boxHeader.getFourCC() == Mp4AtomIdentifier.TRAK.getFourCC()) ||
+                        (boxHeader.getFourCC() == Mp4AtomIdentifier.MDIA.getFourCC()) ||
+                        (boxHeader.getFourCC() == Mp4AtomIdentifier.MINF.getFourCC()) ||
+                        (boxHeader.getFourCC() == Mp4AtomIdentifier.STBL.getFourCC()) ||
+                        (boxHeader.getFourCC() == Mp4AtomIdentifier.UDTA.getFourCC()) ||
+                        (boxHeader.getFourCC() == Mp4AtomIdentifier.META.getFourCC()) ||
+                        (boxHeader.getFourCC() == Mp4AtomIdentifier.ILST.getFourCC()))
                 {                
                     buildChildrenOfNode(moovBuffer, newAtom);
                 }
@@ -475,6 +529,15 @@ public class Mp4AtomTree
         return mdatNode;
     }
 
+    /**
+     *
+     * @return all the mdat nodes, usually there is only one
+     */
+    public List<DefaultMutableTreeNode> getMdatNodes()
+    {
+        return mdatNodes;
+    }
+
     /**
      *
      * @return
@@ -18,12 +18,18 @@
  */
 package org.jaudiotagger.audio.mp4;
 
+import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.generic.AudioFileReader2;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
+import org.jaudiotagger.audio.mp4.atom.Mp4FtypBox;
 import org.jaudiotagger.tag.Tag;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
@@ -36,6 +42,22 @@ public class Mp4FileReader extends AudioFileReader2
     private Mp4InfoReader ir = new Mp4InfoReader();
     private Mp4TagReader tr = new Mp4TagReader();
 
+    /**
+     * Both the audio info and the tag are held within the moov box so open the file and read moov just once
+     */
+    @Override
+    protected AudioFile read(File f, Path path) throws CannotReadException, IOException
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(path))
+        {
+            Mp4FtypBox ftyp = Mp4InfoReader.readFtyp(fc);
+            ByteBuffer moovBuffer = Mp4InfoReader.readMoov(fc);
+            GenericAudioHeader info = ir.read(fc, ftyp, moovBuffer);
+            Tag tag = tr.read(moovBuffer);
+            return new AudioFile(f, info, tag);
+        }
+    }
+
     @Override
     protected GenericAudioHeader getEncodingInfo(Path path) throws CannotReadException, IOException
     {
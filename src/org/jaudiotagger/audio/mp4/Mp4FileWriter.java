@@ -21,6 +21,7 @@ package org.jaudiotagger.audio.mp4;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter2;
 import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagOptionSingleton;
 
 import java.nio.file.Path;
 
@@ -42,4 +43,18 @@ public class Mp4FileWriter extends AudioFileWriter2
     {
         new Mp4TagWriter(file.toString()).delete(tag, file);
     }
+
+    /**
+     * Move the moov atom (including any metadata) in front of the audio so that the file can be played before it
+     * has been completely downloaded, followed by a free atom of {@link TagOptionSingleton#getMp4PaddingSize()} so
+     * that later metadata changes do not have to move the audio again.
+     *
+     * @param file
+     * @return true if the file was changed, false if moov was already before the audio
+     * @throws CannotWriteException
+     */
+    public boolean optimizeForStreaming(Path file) throws CannotWriteException
+    {
+        return Mp4MoovRelocator.moveMoovBeforeAudio(file, TagOptionSingleton.getInstance().getMp4PaddingSize());
+    }
 }
@@ -0,0 +1,506 @@
+package org.jaudiotagger.audio.mp4;
+
+import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.util.logging.Logger;
+
+/**
+ * Calculates the duration of a fragmented mp4 file.
+ *
+ * In a fragmented file (e.g. DASH audio) the samples are described by a series of moof atoms, each followed by the
+ * mdat containing its audio, rather than by the sample tables in moov, so the duration in mvhd and mdhd is often zero.
+ * Instead the duration is found from the first of these that is available:
+ *
+ * <ol>
+ * <li>mehd within moov/mvex, the duration of the whole movie, no further reading required</li>
+ * <li>mfra at the end of the file (located via its trailing mfro), whose random access entries give the time of
+ * the last fragment, so only that last moof needs to be read</li>
+ * <li>sidx segment indexes, normally a single sidx after moov covering the whole file</li>
+ * <li>the moof atoms themselves</li>
+ * </ol>
+ *
+ * The last two require walking the top level atoms, but this only ever seeks from one header to the next, reading
+ * sidx and moof atoms (which only contain tables) and never the audio data within mdat.
+ *
+ * Only the first track fragment (traf) in each moof is used, audio files normally only have a single track.
+ */
+public class Mp4FragmentDurationReader
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.mp4");
+
+    private static final int MFRO_LENGTH = 16;
+
+    //Not expected to be anywhere near this large, but do not want to allocate buffers from corrupt sizes
+    private static final int MAX_TABLE_ATOM_LENGTH = 16 * 1024 * 1024;
+
+    private static final int TFHD_BASE_DATA_OFFSET_PRESENT           = 0x01;
+    private static final int TFHD_SAMPLE_DESCRIPTION_INDEX_PRESENT   = 0x02;
+    private static final int TFHD_DEFAULT_SAMPLE_DURATION_PRESENT    = 0x08;
+
+    private static final int TRUN_DATA_OFFSET_PRESENT                = 0x01;
+    private static final int TRUN_FIRST_SAMPLE_FLAGS_PRESENT         = 0x04;
+    private static final int TRUN_SAMPLE_DURATION_PRESENT            = 0x100;
+    private static final int TRUN_SAMPLE_SIZE_PRESENT                = 0x200;
+    private static final int TRUN_SAMPLE_FLAGS_PRESENT               = 0x400;
+    private static final int TRUN_SAMPLE_COMPOSITION_OFFSET_PRESENT  = 0x800;
+
+    private final SeekableByteChannel fc;
+    private final int movieTimeScale;
+    private final int trackTimeScale;
+    private long defaultSampleDuration;
+
+    /**
+     * Decode time and duration of a fragment in track timescale units, decodeTime is -1 if not known
+     */
+    private static class Fragment
+    {
+        long decodeTime = -1;
+        long duration;
+    }
+
+    /**
+     * Duration in seconds of the media referenced by a sidx, and the file position where the referenced data ends
+     */
+    private static class SegmentIndex
+    {
+        double duration;
+        long referencedEnd;
+    }
+
+    private Mp4FragmentDurationReader(SeekableByteChannel fc, int movieTimeScale, int trackTimeScale)
+    {
+        this.fc = fc;
+        this.movieTimeScale = movieTimeScale;
+        this.trackTimeScale = trackTimeScale;
+    }
+
+    /**
+     * @param fc position is left unchanged
+     * @param moovData data of moov (excluding header), not modified
+     * @param movieTimeScale timescale from mvhd
+     * @param trackTimeScale timescale from mdhd of the audio track
+     * @return the duration in seconds, or 0 if the file is not fragmented or duration cannot be determined
+     * @throws IOException
+     */
+    public static double read(SeekableByteChannel fc, ByteBuffer moovData, int movieTimeScale, int trackTimeScale) throws IOException
+    {
+        ByteBuffer moov = moovData.duplicate();
+        moov.order(ByteOrder.BIG_ENDIAN);
+        int mvex = findChild(moov, 0, moov.limit(), Mp4AtomIdentifier.MVEX.getFourCC());
+        if (mvex == -1)
+        {
+            return 0;
+        }
+
+        Mp4FragmentDurationReader reader = new Mp4FragmentDurationReader(fc, movieTimeScale, trackTimeScale);
+        int mvexEnd = mvex + moov.getInt(mvex);
+
+        //Whole movie duration
+        int mehd = findChild(moov, mvex + Mp4BoxHeader.HEADER_LENGTH, mvexEnd, Mp4AtomIdentifier.MEHD.getFourCC());
+        if (mehd != -1 && movieTimeScale > 0)
+        {
+            long duration = readVersionedValue(moov, mehd + Mp4BoxHeader.HEADER_LENGTH, mehd + Mp4BoxHeader.HEADER_LENGTH + 4);
+            if (duration > 0)
+            {
+                logger.config("Fragmented mp4 duration from mehd:" + duration);
+                return duration / (double) movieTimeScale;
+            }
+        }
+
+        //Default sample duration used by fragments that don't specify their own
+        int trex = findChild(moov, mvex + Mp4BoxHeader.HEADER_LENGTH, mvexEnd, Mp4AtomIdentifier.TREX.getFourCC());
+        if (trex != -1 && moov.getInt(trex) >= Mp4BoxHeader.HEADER_LENGTH + 16)
+        {
+            reader.defaultSampleDuration = Utils.u(moov.getInt(trex + Mp4BoxHeader.HEADER_LENGTH + 12));
+        }
+
+        if (trackTimeScale <= 0)
+        {
+            return 0;
+        }
+
+        long originalPosition = fc.position();
+        try
+        {
+            double duration = reader.readFromMfra();
+            if (duration > 0)
+            {
+                return duration;
+            }
+            return reader.readFromTopLevelAtoms();
+        }
+        finally
+        {
+            fc.position(originalPosition);
+        }
+    }
+
+    /**
+     * Use the last entry of the track fragment random access table to find the last fragment
+     *
+     * @return duration in seconds, or 0 if no usable mfra
+     * @throws IOException
+     */
+    private double readFromMfra() throws IOException
+    {
+        if (fc.size() < MFRO_LENGTH)
+        {
+            return 0;
+        }
+        ByteBuffer mfro = readFully(fc.size() - MFRO_LENGTH, MFRO_LENGTH);
+        if (mfro == null || !isId(mfro, 0, Mp4AtomIdentifier.MFRO.getFourCC()))
+        {
+            return 0;
+        }
+
+        long mfraLength = Utils.u(mfro.getInt(12));
+        if (mfraLength < Mp4BoxHeader.HEADER_LENGTH + MFRO_LENGTH || mfraLength > Math.min(fc.size(), MAX_TABLE_ATOM_LENGTH))
+        {
+            return 0;
+        }
+        ByteBuffer mfra = readFully(fc.size() - mfraLength, (int) mfraLength);
+        if (mfra == null || !isId(mfra, 0, Mp4AtomIdentifier.MFRA.getFourCC()))
+        {
+            return 0;
+        }
+
+        int tfra = findChild(mfra, Mp4BoxHeader.HEADER_LENGTH, mfra.limit(), Mp4AtomIdentifier.TFRA.getFourCC());
+        if (tfra == -1)
+        {
+            return 0;
+        }
+        int tfraEnd = tfra + mfra.getInt(tfra);
+        int pos = tfra + Mp4BoxHeader.HEADER_LENGTH;
+        boolean isLong = mfra.get(pos) == 1;
+        int lengthSizes = mfra.getInt(pos + 8);
+        int noOfEntries = mfra.getInt(pos + 12);
+        int entryLength = (isLong ? 16 : 8)
+                + ((lengthSizes >> 4) & 0x3) + 1
+                + ((lengthSizes >> 2) & 0x3) + 1
+                + (lengthSizes & 0x3) + 1;
+        pos += 16;
+        if (noOfEntries <= 0 || pos + (long) noOfEntries * entryLength > tfraEnd)
+        {
+            return 0;
+        }
+
+        //Entries are in time order
+        int lastEntry = pos + (noOfEntries - 1) * entryLength;
+        long time       = isLong ? mfra.getLong(lastEntry) : Utils.u(mfra.getInt(lastEntry));
+        long moofOffset = isLong ? mfra.getLong(lastEntry + 8) : Utils.u(mfra.getInt(lastEntry + 4));
+
+        ByteBuffer moofHeader = readFully(moofOffset, Mp4BoxHeader.HEADER_LENGTH);
+        if (moofHeader == null || !isId(moofHeader, 0, Mp4AtomIdentifier.MOOF.getFourCC()))
+        {
+            return 0;
+        }
+        Fragment fragment = readMoof(moofOffset, Utils.u(moofHeader.getInt(0)));
+        if (fragment == null)
+        {
+            return 0;
+        }
+        long end = (fragment.decodeTime >= 0 ? fragment.decodeTime : time) + fragment.duration;
+        logger.config("Fragmented mp4 duration from mfra:" + end);
+        return end / (double) trackTimeScale;
+    }
+
+    /**
+     * Walk the top level atoms from header to header using any sidx atoms, otherwise the moof atoms
+     *
+     * @return duration in seconds, or 0 if cannot be calculated
+     * @throws IOException
+     */
+    private double readFromTopLevelAtoms() throws IOException
+    {
+        double sidxDuration = 0;
+        boolean foundSidx = false;
+        long moofDuration = 0;
+        long lastFragmentEnd = -1;
+        boolean foundMoof = false;
+
+        long filePos = 0;
+        while (filePos <= fc.size() - Mp4BoxHeader.HEADER_LENGTH)
+        {
+            ByteBuffer header = readFully(filePos, Mp4BoxHeader.HEADER_LENGTH);
+            if (header == null)
+            {
+                break;
+            }
+            long length = Utils.u(header.getInt(0));
+            if (length == 1)
+            {
+                ByteBuffer largeSize = readFully(filePos + Mp4BoxHeader.HEADER_LENGTH, Mp4BoxHeader.DATA_64BITLENGTH);
+                if (largeSize == null)
+                {
+                    break;
+                }
+                length = largeSize.getLong(0);
+            }
+            else if (length == 0)
+            {
+                //Extends to end of file
+                length = fc.size() - filePos;
+            }
+            if (length < Mp4BoxHeader.HEADER_LENGTH)
+            {
+                break;
+            }
+
+            if (isId(header, 0, Mp4AtomIdentifier.SIDX.getFourCC()) && length <= MAX_TABLE_ATOM_LENGTH)
+            {
+                ByteBuffer sidx = readFully(filePos, (int) length);
+                if (sidx != null)
+                {
+                    foundSidx = true;
+                    SegmentIndex segmentIndex = readSidx(sidx, filePos + length);
+                    sidxDuration += segmentIndex.duration;
+
+                    //A single sidx covering the rest of the file gives the complete duration
+                    if (segmentIndex.referencedEnd >= fc.size())
+                    {
+                        logger.config("Fragmented mp4 duration from single sidx:" + sidxDuration);
+                        return sidxDuration;
+                    }
+                }
+            }
+            else if (!foundSidx && isId(header, 0, Mp4AtomIdentifier.MOOF.getFourCC()))
+            {
+                Fragment fragment = readMoof(filePos, length);
+                if (fragment != null)
+                {
+                    foundMoof = true;
+                    moofDuration += fragment.duration;
+                    lastFragmentEnd = fragment.decodeTime >= 0 ? fragment.decodeTime + fragment.duration : -1;
+                }
+            }
+            filePos += length;
+        }
+
+        if (foundSidx)
+        {
+            logger.config("Fragmented mp4 duration from sidx:" + sidxDuration);
+            return sidxDuration;
+        }
+        if (foundMoof)
+        {
+            long duration = lastFragmentEnd >= 0 ? lastFragmentEnd : moofDuration;
+            logger.config("Fragmented mp4 duration from moof:" + duration);
+            return duration / (double) trackTimeScale;
+        }
+        return 0;
+    }
+
+    /**
+     * Read segment index, summing the durations of the references to media (rather than other sidx atoms so that
+     * with hierarchical indexes each subsegment is only counted once)
+     *
+     * @param sidx complete sidx atom
+     * @param endOfSidx file position at end of sidx, references are relative to this
+     * @return
+     */
+    private static SegmentIndex readSidx(ByteBuffer sidx, long endOfSidx)
+    {
+        SegmentIndex segmentIndex = new SegmentIndex();
+        int pos = Mp4BoxHeader.HEADER_LENGTH;
+        boolean isLong = sidx.get(pos) == 1;
+        long timescale = Utils.u(sidx.getInt(pos + 8));
+        pos += 12;
+        long firstOffset;
+        if (isLong)
+        {
+            firstOffset = sidx.getLong(pos + 8);
+            pos += 16;
+        }
+        else
+        {
+            firstOffset = Utils.u(sidx.getInt(pos + 4));
+            pos += 8;
+        }
+        int referenceCount = sidx.getShort(pos + 2) & 0xFFFF;
+        pos += 4;
+
+        long referencedSize = 0;
+        long duration = 0;
+        for (int i = 0; i < referenceCount && pos + 12 <= sidx.limit(); i++, pos += 12)
+        {
+            int typeAndSize = sidx.getInt(pos);
+            referencedSize += typeAndSize & 0x7FFFFFFF;
+            if ((typeAndSize & 0x80000000) == 0)
+            {
+                duration += Utils.u(sidx.getInt(pos + 4));
+            }
+        }
+        if (timescale > 0)
+        {
+            segmentIndex.duration = duration / (double) timescale;
+        }
+        segmentIndex.referencedEnd = endOfSidx + firstOffset + referencedSize;
+        return segmentIndex;
+    }
+
+    /**
+     * Read the decode time and total sample duration of the first track fragment within moof
+     *
+     * @param moofPos
+     * @param moofLength
+     * @return null if moof cannot be read
+     * @throws IOException
+     */
+    private Fragment readMoof(long moofPos, long moofLength) throws IOException
+    {
+        if (moofLength > MAX_TABLE_ATOM_LENGTH)
+        {
+            return null;
+        }
+        ByteBuffer moof = readFully(moofPos, (int) moofLength);
+        if (moof == null)
+        {
+            return null;
+        }
+
+        int traf = findChild(moof, Mp4BoxHeader.HEADER_LENGTH, moof.limit(), Mp4AtomIdentifier.TRAF.getFourCC());
+        if (traf == -1)
+        {
+            return null;
+        }
+        int trafStart = traf + Mp4BoxHeader.HEADER_LENGTH;
+        int trafEnd = traf + moof.getInt(traf);
+
+        Fragment fragment = new Fragment();
+        long sampleDuration = defaultSampleDuration;
+        int tfhd = findChild(moof, trafStart, trafEnd, Mp4AtomIdentifier.TFHD.getFourCC());
+        if (tfhd != -1)
+        {
+            int flags = moof.getInt(tfhd + Mp4BoxHeader.HEADER_LENGTH) & 0xFFFFFF;
+            //version/flags and track id
+            int pos = tfhd + Mp4BoxHeader.HEADER_LENGTH + 8;
+            if ((flags & TFHD_BASE_DATA_OFFSET_PRESENT) != 0)
+            {
+                pos += 8;
+            }
+            if ((flags & TFHD_SAMPLE_DESCRIPTION_INDEX_PRESENT) != 0)
+            {
+                pos += 4;
+            }
+            if ((flags & TFHD_DEFAULT_SAMPLE_DURATION_PRESENT) != 0)
+            {
+                sampleDuration = Utils.u(moof.getInt(pos));
+            }
+        }
+
+        int tfdt = findChild(moof, trafStart, trafEnd, Mp4AtomIdentifier.TFDT.getFourCC());
+        if (tfdt != -1)
+        {
+            fragment.decodeTime = readVersionedValue(moof, tfdt + Mp4BoxHeader.HEADER_LENGTH, tfdt + Mp4BoxHeader.HEADER_LENGTH + 4);
+        }
+
+        //There may be more than one run of samples
+        int trun = findChild(moof, trafStart, trafEnd, Mp4AtomIdentifier.TRUN.getFourCC());
+        while (trun != -1)
+        {
+            int trunEnd = trun + moof.getInt(trun);
+            int flags = moof.getInt(trun + Mp4BoxHeader.HEADER_LENGTH) & 0xFFFFFF;
+            long sampleCount = Utils.u(moof.getInt(trun + Mp4BoxHeader.HEADER_LENGTH + 4));
+            if ((flags & TRUN_SAMPLE_DURATION_PRESENT) != 0)
+            {
+                int pos = trun + Mp4BoxHeader.HEADER_LENGTH + 8;
+                if ((flags & TRUN_DATA_OFFSET_PRESENT) != 0)
+                {
+                    pos += 4;
+                }
+                if ((flags & TRUN_FIRST_SAMPLE_FLAGS_PRESENT) != 0)
+                {
+                    pos += 4;
+                }
+                int entryLength = 4
+                        + ((flags & TRUN_SAMPLE_SIZE_PRESENT) != 0 ? 4 : 0)
+                        + ((flags & TRUN_SAMPLE_FLAGS_PRESENT) != 0 ? 4 : 0)
+                        + ((flags & TRUN_SAMPLE_COMPOSITION_OFFSET_PRESENT) != 0 ? 4 : 0);
+                for (long i = 0; i < sampleCount && pos + 4 <= trunEnd; i++, pos += entryLength)
+                {
+                    fragment.duration += Utils.u(moof.getInt(pos));
+                }
+            }
+            else
+            {
+                fragment.duration += sampleCount * sampleDuration;
+            }
+            trun = findChild(moof, trunEnd, trafEnd, Mp4AtomIdentifier.TRUN.getFourCC());
+        }
+        return fragment;
+    }
+
+    /**
+     * Find child atom with the given id between start and end
+     *
+     * @return position of the child atom header, or -1 if not found
+     */
+    private static int findChild(ByteBuffer data, int start, int end, int fourCC)
+    {
+        int pos = start;
+        while (pos + Mp4BoxHeader.HEADER_LENGTH <= end)
+        {
+            int length = data.getInt(pos);
+            if (length < Mp4BoxHeader.HEADER_LENGTH || pos + (long) length > end)
+            {
+                return -1;
+            }
+            if (isId(data, pos, fourCC))
+            {
+                return pos;
+            }
+            pos += length;
+        }
+        return -1;
+    }
+
+    private static boolean isId(ByteBuffer data, int atomPos, int fourCC)
+    {
+        return data.getInt(atomPos + Mp4BoxHeader.IDENTIFIER_POS) == fourCC;
+    }
+
+    /**
+     * Read a value that is 64 bit for version 1 atoms and 32 bit otherwise
+     *
+     * @param data
+     * @param versionPos position of version byte
+     * @param valuePos position of value
+     * @return
+     */
+    private static long readVersionedValue(ByteBuffer data, int versionPos, int valuePos)
+    {
+        if (data.get(versionPos) == 1)
+        {
+            return data.getLong(valuePos);
+        }
+        return Utils.u(data.getInt(valuePos));
+    }
+
+    /**
+     * @return buffer containing length bytes from filePos, or null if the file is too short
+     */
+    private ByteBuffer readFully(long filePos, int length) throws IOException
+    {
+        if (filePos < 0 || filePos + length > fc.size())
+        {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        fc.position(filePos);
+        while (buffer.hasRemaining())
+        {
+            if (fc.read(buffer) < 0)
+            {
+                return null;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
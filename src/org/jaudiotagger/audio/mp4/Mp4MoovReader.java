@@ -0,0 +1,227 @@
+package org.jaudiotagger.audio.mp4;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+import org.jaudiotagger.logging.ErrorMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.logging.Logger;
+
+/**
+ * Reads the moov box into memory for reading the audio info and metadata, without reading the sample tables.
+ *
+ * The sample tables within stbl (stsz, stts, stsc, stco ...) have entries for every sample or chunk of audio so for
+ * long recordings such as audiobooks they can be megabytes in size, yet none of this is required for reading. So the
+ * box hierarchy is walked directly from the file, descending into the boxes that lead to the sample tables and
+ * copying everything else, in particular mvhd, mdhd, hdlr, stsd and udta/meta/ilst, as is.
+ *
+ * <pre>
+ * |--- moov
+ * |......|----- mvhd                                     copied
+ * |......|----- trak                                     walked
+ * |...............|----- mdia                            walked
+ * |.......................|---- mdhd                     copied
+ * |.......................|---- hdlr                     copied
+ * |.......................|---- minf                     walked
+ * |..............................|---- smhd              copied
+ * |..............................|---- stbl              walked
+ * |......................................|--- stsd       copied
+ * |......................................|--- stco/co64  first entry only
+ * |......................................|--- stsz ...   skipped
+ * |......|----- udta                                     copied
+ * </pre>
+ *
+ * The result is a valid moov box (excluding its header) with the sizes of the walked boxes adjusted accordingly, so
+ * it can be parsed exactly like the complete moov. Only the first chunk offset is kept in stco/co64 which is enough
+ * to find the start of the audio, offsets within the buffer no longer correspond to offsets within the file so it
+ * must not be used for writing.
+ */
+public class Mp4MoovReader
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.mp4");
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    //version and flags, followed by number of entries
+    private static final int CHUNK_OFFSET_TABLE_HEADER_LENGTH = 8;
+    private static final int STCO_ENTRY_LENGTH = 4;
+    private static final int CO64_ENTRY_LENGTH = 8;
+
+    private final SeekableByteChannel fc;
+    private final ByteBuffer headerBuffer = ByteBuffer.allocate(Mp4BoxHeader.HEADER_LENGTH);
+    private ByteBuffer out;
+
+    private Mp4MoovReader(SeekableByteChannel fc)
+    {
+        this.fc = fc;
+    }
+
+    /**
+     * Read the moov box without its sample tables
+     *
+     * @param fc positioned immediately after the moov header
+     * @param moovHeader
+     * @return the data of the moov box (excluding its header), positioned at the start
+     * @throws CannotReadException if the moov box extends past the end of the file
+     * @throws IOException
+     */
+    public static ByteBuffer read(SeekableByteChannel fc, Mp4BoxHeader moovHeader) throws CannotReadException, IOException
+    {
+        long moovDataStart = fc.position();
+        long moovDataEnd   = moovDataStart + moovHeader.getDataLength();
+        if (moovDataEnd > fc.size())
+        {
+            throw new CannotReadException(ErrorMessage.ATOM_LENGTH_LARGER_THAN_DATA.getMsg(moovHeader.getId(), moovHeader.getDataLength(), fc.size() - moovDataStart));
+        }
+
+        Mp4MoovReader reader = new Mp4MoovReader(fc);
+        reader.out = ByteBuffer.allocate(Math.min(moovHeader.getDataLength(), INITIAL_BUFFER_SIZE));
+        reader.walkChildren(moovDataEnd, Mp4AtomIdentifier.MOOV.getFourCC());
+        fc.position(moovDataEnd);
+
+        reader.out.flip();
+        logger.config("Read moov of size:" + moovHeader.getDataLength() + " into buffer of size:" + reader.out.limit());
+        return reader.out;
+    }
+
+    /**
+     * Walk the children of a box, starting at the current position of fc
+     *
+     * @param end file position where the parent box ends
+     * @param parentId
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    private void walkChildren(long end, int parentId) throws CannotReadException, IOException
+    {
+        while (fc.position() + Mp4BoxHeader.HEADER_LENGTH <= end)
+        {
+            long boxStart = fc.position();
+            headerBuffer.clear();
+            readFully(headerBuffer);
+            headerBuffer.flip();
+            Mp4BoxHeader boxHeader = new Mp4BoxHeader(headerBuffer);
+            long boxEnd = boxStart + boxHeader.getLength();
+
+            //Not a sensible box, just copy the remaining data as is and leave it to the parser to deal with
+            if (boxHeader.getLength() < Mp4BoxHeader.HEADER_LENGTH || boxEnd > end)
+            {
+                fc.position(boxStart);
+                copy(end - boxStart);
+                return;
+            }
+
+            int id = boxHeader.getFourCC();
+            if (parentId == Mp4AtomIdentifier.STBL.getFourCC() && id != Mp4AtomIdentifier.STSD.getFourCC())
+            {
+                if (id == Mp4AtomIdentifier.STCO.getFourCC())
+                {
+                    copyFirstChunkOffset(boxHeader, STCO_ENTRY_LENGTH);
+                }
+                else if (id == Mp4AtomIdentifier.CO64.getFourCC())
+                {
+                    copyFirstChunkOffset(boxHeader, CO64_ENTRY_LENGTH);
+                }
+                //Other sample tables are not needed at all
+            }
+            else if (id == Mp4AtomIdentifier.TRAK.getFourCC()
+                    || id == Mp4AtomIdentifier.MDIA.getFourCC()
+                    || id == Mp4AtomIdentifier.MINF.getFourCC()
+                    || id == Mp4AtomIdentifier.STBL.getFourCC())
+            {
+                int headerPos = out.position();
+                put(boxHeader.getHeaderData());
+                walkChildren(boxEnd, id);
+                out.putInt(headerPos, out.position() - headerPos);
+            }
+            else
+            {
+                fc.position(boxStart);
+                copy(boxHeader.getLength());
+            }
+            fc.position(boxEnd);
+        }
+
+        //Anything left that is too small to be a box
+        if (fc.position() < end)
+        {
+            copy(end - fc.position());
+        }
+    }
+
+    /**
+     * Write a chunk offset box containing only the first offset
+     *
+     * @param boxHeader
+     * @param entryLength
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    private void copyFirstChunkOffset(Mp4BoxHeader boxHeader, int entryLength) throws CannotReadException, IOException
+    {
+        if (boxHeader.getDataLength() < CHUNK_OFFSET_TABLE_HEADER_LENGTH + entryLength)
+        {
+            fc.position(fc.position() - Mp4BoxHeader.HEADER_LENGTH);
+            copy(boxHeader.getLength());
+            return;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(CHUNK_OFFSET_TABLE_HEADER_LENGTH + entryLength);
+        readFully(data);
+        int noOfEntries = data.getInt(CHUNK_OFFSET_TABLE_HEADER_LENGTH - 4);
+        int newDataLength = noOfEntries > 0 ? data.capacity() : CHUNK_OFFSET_TABLE_HEADER_LENGTH;
+
+        ensureCapacity(Mp4BoxHeader.HEADER_LENGTH + newDataLength);
+        out.putInt(Mp4BoxHeader.HEADER_LENGTH + newDataLength);
+        out.put(boxHeader.getHeaderData().array(), Mp4BoxHeader.OFFSET_LENGTH, Mp4BoxHeader.IDENTIFIER_LENGTH);
+        out.put(data.array(), 0, CHUNK_OFFSET_TABLE_HEADER_LENGTH - 4);
+        out.putInt(Math.min(noOfEntries, 1));
+        if (noOfEntries > 0)
+        {
+            out.put(data.array(), CHUNK_OFFSET_TABLE_HEADER_LENGTH, entryLength);
+        }
+    }
+
+    private void put(ByteBuffer data)
+    {
+        ensureCapacity(data.remaining());
+        out.put(data);
+    }
+
+    /**
+     * Copy count bytes from the current position of fc
+     */
+    private void copy(long count) throws CannotReadException, IOException
+    {
+        ensureCapacity((int) count);
+        ByteBuffer slice = out.slice();
+        slice.limit((int) count);
+        readFully(slice);
+        out.position(out.position() + (int) count);
+    }
+
+    private void readFully(ByteBuffer buffer) throws CannotReadException, IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (fc.read(buffer) < 0)
+            {
+                throw new CannotReadException(ErrorMessage.ATOM_LENGTH_LARGER_THAN_DATA.getMsg(Mp4AtomIdentifier.MOOV.getFieldName(), buffer.limit(), buffer.position()));
+            }
+        }
+    }
+
+    private void ensureCapacity(int required)
+    {
+        if (out.remaining() < required)
+        {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + required));
+            out.flip();
+            larger.put(out);
+            out = larger;
+        }
+    }
+}
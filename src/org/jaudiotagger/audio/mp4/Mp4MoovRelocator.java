@@ -0,0 +1,266 @@
+package org.jaudiotagger.audio.mp4;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.exceptions.CannotWriteException;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+import org.jaudiotagger.audio.mp4.atom.Mp4FreeBox;
+import org.jaudiotagger.audio.mp4.atom.Mp4StcoBox;
+import org.jaudiotagger.logging.ErrorMessage;
+import org.jaudiotagger.tag.TagOptionSingleton;
+import org.jaudiotagger.utils.ShiftData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Moves the moov atom in front of the audio so the file can be played whilst it is still being downloaded
+ * (sometimes called fast start).
+ *
+ * <pre>
+ * |--- ftyp            |--- ftyp
+ * |--- mdat     ==>    |--- moov (including udta/meta/ilst metadata)
+ * |--- moov            |--- free (optional padding for future metadata changes)
+ * |--- (others)        |--- mdat
+ *                      |--- (others)
+ * </pre>
+ *
+ * The moov atom is held in memory (as it is when writing metadata) and its chunk offsets (stco/co64) are adjusted
+ * by the distance the audio is moved. Everything between the start of the first mdat and moov is then moved along in
+ * a single pass, working backwards from the end a chunk at a time so memory use is bounded by
+ * {@link TagOptionSingleton#getWriteChunkSize()} regardless of the length of the audio. Finally the amended moov and
+ * padding are written into the space created.
+ */
+public class Mp4MoovRelocator
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.mp4");
+
+    private static final int MDAT = Mp4AtomIdentifier.MDAT.getFourCC();
+
+    /**
+     * Move moov before the audio if it is not already
+     *
+     * @param file
+     * @param paddingSize size of the data of the free atom written after moov, 0 for none
+     * @return true if moov was moved, false if it was already before the audio
+     * @throws CannotWriteException
+     */
+    public static boolean moveMoovBeforeAudio(Path file, int paddingSize) throws CannotWriteException
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            Mp4AtomIndex atomIndex;
+            try
+            {
+                atomIndex = new Mp4AtomIndex(fc);
+            }
+            catch (CannotReadException cre)
+            {
+                throw new CannotWriteException(cre.getMessage());
+            }
+
+            //There can be more than one mdat, all of them between the first and moov are moved together
+            int moov = atomIndex.getMoov();
+            int mdat = atomIndex.findTopLevel(MDAT);
+            if (atomIndex.getOffset(moov) < atomIndex.getOffset(mdat))
+            {
+                logger.config(file + ":Moov already before audio");
+                return false;
+            }
+
+            //Audio after moov would have to be moved backwards, not a layout produced by encoders so not supported
+            for (int next = atomIndex.getNextSibling(moov); next != Mp4AtomIndex.NONE; next = atomIndex.getNextSibling(next))
+            {
+                if (atomIndex.getFourCC(next) == MDAT)
+                {
+                    throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_AUDIO_AFTER_MOOV.getMsg(file));
+                }
+            }
+
+            long startOfAudio   = atomIndex.getOffset(mdat);
+            long startOfMoov    = atomIndex.getOffset(moov);
+            long endOfMoov      = atomIndex.getEndOffset(moov);
+            long mdatLength     = atomIndex.getSize(mdat);
+            int moovLength      = (int) atomIndex.getSize(moov);
+            int paddingLength   = paddingSize > 0 ? Mp4BoxHeader.HEADER_LENGTH + paddingSize : 0;
+            int shift           = moovLength + paddingLength;
+
+            //Only the data between the first mdat and moov is moved so every chunk must be within it
+            List<Mp4StcoBox> stcos = atomIndex.getStcos();
+            for (Mp4StcoBox stco : stcos)
+            {
+                for (int i = 0; i < stco.getNoOfOffSets(); i++)
+                {
+                    long offset = stco.getOffset(i);
+                    if (offset < startOfAudio || offset >= startOfMoov)
+                    {
+                        throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_OFFSET_OUTSIDE_AUDIO.getMsg(offset));
+                    }
+                }
+            }
+
+            //Adjust chunk offsets in memory first, so nothing is changed if they cannot be adjusted
+            for (Mp4StcoBox stco : stcos)
+            {
+                stco.adjustOffsets(shift);
+            }
+            Mp4BoxHeader moovHeader = atomIndex.getBoxHeader(moov);
+            ByteBuffer moovBuffer = atomIndex.getMoovBuffer();
+
+            //Make room for padding by moving anything after moov along
+            if (paddingLength > 0 && endOfMoov < fc.size())
+            {
+                fc.position(endOfMoov);
+                ShiftData.shiftDataByOffsetToMakeSpace(fc, paddingLength);
+            }
+
+            //Move audio (and anything else between it and moov) along, overwriting the original moov
+            logger.config(file + ":Moving " + (startOfMoov - startOfAudio) + " bytes by " + shift + " to make room for moov");
+            shiftRange(fc, startOfAudio, startOfMoov, shift);
+
+            //Write moov and padding where the audio started
+            fc.position(startOfAudio);
+            fc.write(moovHeader.getHeaderData());
+            moovBuffer.rewind();
+            fc.write(moovBuffer);
+            if (paddingLength > 0)
+            {
+                Mp4FreeBox freeBox = new Mp4FreeBox(paddingSize);
+                fc.write(freeBox.getHeader().getHeaderData());
+                fc.write(freeBox.getData());
+            }
+
+            Mp4WriteVerification verification = TagOptionSingleton.getInstance().getMp4WriteVerification();
+            if (verification != Mp4WriteVerification.NONE)
+            {
+                checkFileWrittenCorrectly(fc, stcos, startOfAudio + shift, mdatLength, verification == Mp4WriteVerification.QUICK);
+            }
+            return true;
+        }
+        catch (IOException ioe)
+        {
+            throw new CannotWriteException(file + ":" + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Move the data from start to end later in the file by shift, copying from the end backwards so the data is not
+     * overwritten before it has been copied
+     *
+     * @param fc
+     * @param start
+     * @param end
+     * @param shift
+     * @throws IOException
+     */
+    private static void shiftRange(SeekableByteChannel fc, long start, long end, int shift) throws IOException
+    {
+        ByteBuffer chunkBuffer = ByteBuffer.allocate((int) Math.min(TagOptionSingleton.getInstance().getWriteChunkSize(), end - start));
+        long readPos = end;
+        while (readPos > start)
+        {
+            int chunkSize = (int) Math.min(chunkBuffer.capacity(), readPos - start);
+            readPos -= chunkSize;
+
+            chunkBuffer.clear();
+            chunkBuffer.limit(chunkSize);
+            fc.position(readPos);
+            while (chunkBuffer.hasRemaining())
+            {
+                if (fc.read(chunkBuffer) < 0)
+                {
+                    throw new IOException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_DATA_CORRUPT.getMsg());
+                }
+            }
+
+            chunkBuffer.flip();
+            fc.position(readPos + shift);
+            while (chunkBuffer.hasRemaining())
+            {
+                fc.write(chunkBuffer);
+            }
+        }
+    }
+
+    /**
+     * Check the audio is now after moov and the chunk offsets point to where it has moved to
+     *
+     * @param fc
+     * @param stcos adjusted chunk offsets that were written
+     * @param expectedMdatPos
+     * @param mdatLength
+     * @param quick
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    private static void checkFileWrittenCorrectly(SeekableByteChannel fc, List<Mp4StcoBox> stcos, long expectedMdatPos, long mdatLength, boolean quick) throws CannotWriteException, IOException
+    {
+        Mp4AtomIndex newAtomIndex;
+        try
+        {
+            newAtomIndex = new Mp4AtomIndex(fc, quick);
+        }
+        catch (CannotReadException cre)
+        {
+            throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED.getMsg() + ":" + cre.getMessage());
+        }
+
+        int newMdat = newAtomIndex.findTopLevel(MDAT);
+        if (newAtomIndex.getOffset(newMdat) != expectedMdatPos || newAtomIndex.getSize(newMdat) != mdatLength)
+        {
+            throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_DATA_CORRUPT.getMsg());
+        }
+
+        List<Mp4StcoBox> newStcos = newAtomIndex.getStcos();
+        if (newStcos.size() != stcos.size())
+        {
+            throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_INCORRECT_NUMBER_OF_TRACKS.getMsg(stcos.size(), newStcos.size()));
+        }
+        for (int i = 0; i < newStcos.size(); i++)
+        {
+            Mp4StcoBox stco = stcos.get(i);
+            if (stco.getNoOfOffSets() == 0)
+            {
+                continue;
+            }
+            long discrepancy = newStcos.get(i).getFirstOffSetAsLong() - stco.getOffset(0);
+            if (discrepancy != 0)
+            {
+                throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_INCORRECT_OFFSETS.getMsg(discrepancy));
+            }
+
+            //Every chunk must now be within one of the moved mdats
+            for (int j = 0; j < stco.getNoOfOffSets(); j++)
+            {
+                long offset = stco.getOffset(j);
+                if (!isWithinMdat(newAtomIndex, offset))
+                {
+                    throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_OFFSET_OUTSIDE_AUDIO.getMsg(offset));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param atomIndex
+     * @param offset
+     * @return true if offset is within the data of a top level mdat atom
+     */
+    private static boolean isWithinMdat(Mp4AtomIndex atomIndex, long offset)
+    {
+        for (int mdat = atomIndex.findTopLevel(MDAT); mdat != Mp4AtomIndex.NONE; mdat = atomIndex.getNextSibling(mdat))
+        {
+            if (atomIndex.getFourCC(mdat) == MDAT && offset >= atomIndex.getOffset(mdat) + Mp4BoxHeader.HEADER_LENGTH && offset < atomIndex.getEndOffset(mdat))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -87,89 +87,100 @@ public class Mp4TagReader
     public Mp4Tag read(Path file) throws CannotReadException, IOException
     {
         try(SeekableByteChannel fc = Files.newByteChannel(file)) {
-            Mp4Tag tag = new Mp4Tag();
-    
             //Get to the facts everything we are interested in is within the moov box, so just load data from file
             //once so no more file I/O needed
-            Mp4BoxHeader moovHeader = Mp4BoxHeader.seekWithinLevel(fc, Mp4AtomIdentifier.MOOV.getFieldName());
+            Mp4BoxHeader moovHeader = Mp4BoxHeader.seekWithinLevel(fc, Mp4AtomIdentifier.MOOV.getFourCC());
             if (moovHeader == null)
             {
                 throw new CannotReadException(ErrorMessage.MP4_FILE_NOT_CONTAINER.getMsg());
             }
-            ByteBuffer moovBuffer = ByteBuffer.allocate(moovHeader.getLength() - Mp4BoxHeader.HEADER_LENGTH);
-            fc.read(moovBuffer);
-            moovBuffer.rewind();
-    
-            //Level 2-Searching for "udta" within "moov"
-            Mp4BoxHeader boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.UDTA.getFieldName());
-            if (boxHeader != null)
+            return read(Mp4MoovReader.read(fc, moovHeader));
+        }
+    }
+
+    /**
+     * Read the tag from the data of the moov box that has already been read from the file
+     *
+     * @param moovData not modified
+     * @return
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    Mp4Tag read(ByteBuffer moovData) throws CannotReadException, IOException
+    {
+        Mp4Tag tag = new Mp4Tag();
+        ByteBuffer moovBuffer = moovData.duplicate();
+        moovBuffer.rewind();
+
+        //Level 2-Searching for "udta" within "moov"
+        Mp4BoxHeader boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.UDTA.getFourCC());
+        if (boxHeader != null)
+        {
+            //Level 3-Searching for "meta" within udta
+            boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.META.getFourCC());
+            if (boxHeader == null)
             {
-                //Level 3-Searching for "meta" within udta
-                boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.META.getFieldName());
-                if (boxHeader == null)
-                {
-                    logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
-                    return tag;
-                }
-                Mp4MetaBox meta = new Mp4MetaBox(boxHeader, moovBuffer);
-                meta.processData();
-    
-                //Level 4- Search for "ilst" within meta
-                boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.ILST.getFieldName());
-                 //This file does not actually contain a tag
-                if (boxHeader == null)
-                {
-                    logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
-                    return tag;
-                }
+                logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
+                return tag;
             }
-            else
+            Mp4MetaBox meta = new Mp4MetaBox(boxHeader, moovBuffer);
+            meta.processData();
+
+            //Level 4- Search for "ilst" within meta
+            boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.ILST.getFourCC());
+             //This file does not actually contain a tag
+            if (boxHeader == null)
             {
-                //Level 2-Searching for "meta" not within udta
-                boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.META.getFieldName());
-                if (boxHeader == null)
-                {
-                    logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
-                    return tag;
-                }
-                Mp4MetaBox meta = new Mp4MetaBox(boxHeader, moovBuffer);
-                meta.processData();
-    
-    
-                //Level 3- Search for "ilst" within meta
-                boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.ILST.getFieldName());
-                //This file does not actually contain a tag
-                if (boxHeader == null)
-                {
-                    logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
-                    return tag;
-                }
+                logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
+                return tag;
+            }
+        }
+        else
+        {
+            //Level 2-Searching for "meta" not within udta
+            boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.META.getFourCC());
+            if (boxHeader == null)
+            {
+                logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
+                return tag;
             }
-    
-            //Size of metadata (exclude the size of the ilst parentHeader), take a slice starting at
-            //metadata children to make things safer
-            int length = boxHeader.getLength() - Mp4BoxHeader.HEADER_LENGTH;
-            ByteBuffer metadataBuffer = moovBuffer.slice();
-            //Datalength is longer are there boxes after ilst at this level?
-            logger.config("headerlengthsays:" + length + "datalength:" + metadataBuffer.limit());
-            int read = 0;
-            logger.config("Started to read metadata fields at position is in metadata buffer:" + metadataBuffer.position());
-            while (read < length)
+            Mp4MetaBox meta = new Mp4MetaBox(boxHeader, moovBuffer);
+            meta.processData();
+
+
+            //Level 3- Search for "ilst" within meta
+            boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.ILST.getFourCC());
+            //This file does not actually contain a tag
+            if (boxHeader == null)
             {
-                //Read the boxHeader
-                boxHeader.update(metadataBuffer);
-    
-                //Create the corresponding datafield from the id, and slice the buffer so position of main buffer
-                //wont get affected
-                logger.config("Next position is at:" + metadataBuffer.position());
-                createMp4Field(tag, boxHeader, metadataBuffer.slice());
-    
-                //Move position in buffer to the start of the next parentHeader
-                metadataBuffer.position(metadataBuffer.position() + boxHeader.getDataLength());
-                read += boxHeader.getLength();
+                logger.warning(ErrorMessage.MP4_FILE_HAS_NO_METADATA.getMsg());
+                return tag;
             }
-            return tag;
         }
+
+        //Size of metadata (exclude the size of the ilst parentHeader), take a slice starting at
+        //metadata children to make things safer
+        int length = boxHeader.getLength() - Mp4BoxHeader.HEADER_LENGTH;
+        ByteBuffer metadataBuffer = moovBuffer.slice();
+        //Datalength is longer are there boxes after ilst at this level?
+        logger.config("headerlengthsays:" + length + "datalength:" + metadataBuffer.limit());
+        int read = 0;
+        logger.config("Started to read metadata fields at position is in metadata buffer:" + metadataBuffer.position());
+        while (read < length)
+        {
+            //Read the boxHeader
+            boxHeader.update(metadataBuffer);
+
+            //Create the corresponding datafield from the id, and slice the buffer so position of main buffer
+            //wont get affected
+            logger.config("Next position is at:" + metadataBuffer.position());
+            createMp4Field(tag, boxHeader, metadataBuffer.slice());
+
+            //Move position in buffer to the start of the next parentHeader
+            metadataBuffer.position(metadataBuffer.position() + boxHeader.getDataLength());
+            read += boxHeader.getLength();
+        }
+        return tag;
     }
 
     /**
@@ -27,7 +27,6 @@ import org.jaudiotagger.tag.TagOptionSingleton;
 import org.jaudiotagger.tag.mp4.Mp4Tag;
 import org.jaudiotagger.tag.mp4.Mp4TagCreator;
 import org.jaudiotagger.utils.ShiftData;
-import org.jaudiotagger.utils.tree.DefaultMutableTreeNode;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -58,6 +57,9 @@ import java.util.logging.Logger;
  * to have meta/ilst without udta but this is less common so we always try to write files according to the Apple/iTunes
  * specification. *
  * <p/>
+ * If {@code moov} comes after all the audio ({@code mdat} first) then growing it never requires moving the audio
+ * or adjusting the {@code stco} atoms, only anything after {@code moov} has to be moved along (or a top level
+ * {@code free} atom immediately after {@code moov} reduced) so the cost does not depend on the length of the audio.
  * <p/>
  * <pre>
  * |--- ftyp
@@ -109,6 +111,15 @@ public class Mp4TagWriter
     // Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.tag.mp4");
 
+    private static final int UDTA = Mp4AtomIdentifier.UDTA.getFourCC();
+    private static final int META = Mp4AtomIdentifier.META.getFourCC();
+    private static final int ILST = Mp4AtomIdentifier.ILST.getFourCC();
+    private static final int HDLR = Mp4AtomIdentifier.HDLR.getFourCC();
+    private static final int TAGS = Mp4AtomIdentifier.TAGS.getFourCC();
+    private static final int FREE = Mp4AtomIdentifier.FREE.getFourCC();
+    private static final int TRAK = Mp4AtomIdentifier.TRAK.getFourCC();
+    private static final int MDAT = Mp4AtomIdentifier.MDAT.getFourCC();
+
     private Mp4TagCreator tc = new Mp4TagCreator();
 
     //For logging
@@ -190,7 +201,7 @@ public class Mp4TagWriter
      * @throws IOException
      * @throws CannotWriteException
      */
-    private void writeOldMetadataLargerThanNewMetadata(SeekableByteChannel fc,  Mp4BoxHeader moovHeader, Mp4BoxHeader udtaHeader, Mp4BoxHeader metaHeader, Mp4BoxHeader ilstHeader, Mp4BoxHeader mdatHeader, Mp4BoxHeader neroTagsHeader, ByteBuffer moovBuffer, ByteBuffer newIlstData, List<Mp4StcoBox> stcos, int sizeOfExistingMetaLevelFreeAtom) throws IOException
+    private void writeOldMetadataLargerThanNewMetadata(SeekableByteChannel fc,  Mp4BoxHeader moovHeader, Mp4BoxHeader udtaHeader, Mp4BoxHeader metaHeader, Mp4BoxHeader ilstHeader, Mp4BoxHeader mdatHeader, Mp4BoxHeader neroTagsHeader, ByteBuffer moovBuffer, ByteBuffer newIlstData, List<Mp4StcoBox> stcos, int sizeOfExistingMetaLevelFreeAtom) throws IOException, CannotWriteException
     {
         logger.config("Writing:Option 1:Smaller Size");
 
@@ -211,6 +222,7 @@ public class Mp4TagWriter
             Mp4FreeBox newFreeBox = new Mp4FreeBox(newFreeSize - Mp4BoxHeader.HEADER_LENGTH);
             fc.write(newFreeBox.getHeader().getHeaderData());
             fc.write(newFreeBox.getData());
+            Mp4WriteStatistics.getInstance().recordInPlaceWrite();
         }
         //No free atom we need to create a new one or adjust top level free atom
         else
@@ -230,6 +242,7 @@ public class Mp4TagWriter
                 Mp4FreeBox newFreeBox = new Mp4FreeBox(newFreeSize);
                 fc.write(newFreeBox.getHeader().getHeaderData());
                 fc.write(newFreeBox.getData());
+                Mp4WriteStatistics.getInstance().recordInPlaceWrite();
             }
             //Everything in this bit of tree has to be recalculated because data is only eight or less bytes smaller
             //so cannot be accommodated by creating a free atom
@@ -274,6 +287,7 @@ public class Mp4TagWriter
 
                 //Delete the previous sizeReducedBy bytes from endOfOriginalMovAtom
                 shiftData(fc, endOfOriginalMoovAtom, Math.abs(sizeReducedBy));
+                Mp4WriteStatistics.getInstance().recordMoovRewrite(false, mdatHeader.getFilePos() < moovHeader.getFilePos());
             }
         }
     }
@@ -330,6 +344,7 @@ public class Mp4TagWriter
         Mp4FreeBox newFreeBox = new Mp4FreeBox(newFreeSize - Mp4BoxHeader.HEADER_LENGTH);
         fc.write(newFreeBox.getHeader().getHeaderData());
         fc.write(newFreeBox.getData());
+        Mp4WriteStatistics.getInstance().recordInPlaceWrite();
     }
 
     /**
@@ -355,19 +370,19 @@ public class Mp4TagWriter
             //Found top level free atom that comes after moov and before mdat, (also true if no free atom ?)
             boolean topLevelFreeAtomComesBeforeMdatAtomAndAfterMetadata;
             Mp4BoxHeader topLevelFreeHeader;
-            Mp4AtomTree atomTree;
+            Mp4AtomIndex atomIndex;
 
-            //Build AtomTree based on existing metadata
+            //Index atoms based on existing metadata
             try
             {
-                atomTree = new Mp4AtomTree(fc, false);
+                atomIndex = new Mp4AtomIndex(fc);
             }
             catch (CannotReadException cre)
             {
                 throw new CannotWriteException(cre.getMessage());
             }
 
-            Mp4BoxHeader mdatHeader = atomTree.getBoxHeader(atomTree.getMdatNode());
+            Mp4BoxHeader mdatHeader = atomIndex.getBoxHeader(atomIndex.getMdat());
             //Unable to find audio so no chance of saving any changes
             if (mdatHeader == null)
             {
@@ -380,15 +395,19 @@ public class Mp4TagWriter
             sizeRequiredByNewIlstAtom = newIlstData.limit();
 
             //Moov Box header
-            Mp4BoxHeader moovHeader = atomTree.getBoxHeader(atomTree.getMoovNode());
-            List<Mp4StcoBox> stcos = atomTree.getStcos();
-            Mp4BoxHeader ilstHeader = atomTree.getBoxHeader(atomTree.getIlstNode());
-            Mp4BoxHeader udtaHeader = atomTree.getBoxHeader(atomTree.getUdtaNode());
-            Mp4BoxHeader metaHeader = atomTree.getBoxHeader(atomTree.getMetaNode());
-            Mp4BoxHeader hdlrMetaHeader = atomTree.getBoxHeader(atomTree.getHdlrWithinMetaNode());
-            Mp4BoxHeader neroTagsHeader = atomTree.getBoxHeader(atomTree.getTagsNode());
-            Mp4BoxHeader trakHeader = atomTree.getBoxHeader(atomTree.getTrakNodes().get(atomTree.getTrakNodes().size() - 1));
-            ByteBuffer moovBuffer = atomTree.getMoovBuffer();
+            int moov = atomIndex.getMoov();
+            int udta = atomIndex.findChild(moov, UDTA);
+            int meta = atomIndex.findChild(udta, META);
+            int ilst = atomIndex.findChild(meta, ILST);
+            Mp4BoxHeader moovHeader = atomIndex.getBoxHeader(moov);
+            List<Mp4StcoBox> stcos = atomIndex.getStcos();
+            Mp4BoxHeader ilstHeader = atomIndex.getBoxHeader(ilst);
+            Mp4BoxHeader udtaHeader = atomIndex.getBoxHeader(udta);
+            Mp4BoxHeader metaHeader = atomIndex.getBoxHeader(meta);
+            Mp4BoxHeader hdlrMetaHeader = atomIndex.getBoxHeader(atomIndex.findChild(meta, HDLR));
+            Mp4BoxHeader neroTagsHeader = atomIndex.getBoxHeader(atomIndex.findChild(udta, TAGS));
+            Mp4BoxHeader trakHeader = atomIndex.getBoxHeader(atomIndex.findLastChild(moov, TRAK));
+            ByteBuffer moovBuffer = atomIndex.getMoovBuffer();
 
 
             //Work out if we/what kind of metadata hierarchy we currently have in the file
@@ -452,23 +471,18 @@ public class Mp4TagWriter
             }
 
             //Find size of Level-4 Free atom (if any) immediately after ilst atom
-            sizeOfExistingMetaLevelFreeAtom = getMetaLevelFreeAtomSize(atomTree);
+            sizeOfExistingMetaLevelFreeAtom = getMetaLevelFreeAtomSize(atomIndex, ilst);
 
 
             //Level-1 free atom
             positionOfTopLevelFreeAtom = 0;
             sizeOfExistingTopLevelFreeAtom = 0;
             topLevelFreeAtomComesBeforeMdatAtomAndAfterMetadata = true;
-            for (DefaultMutableTreeNode freeNode : atomTree.getFreeNodes())
+            topLevelFreeHeader = atomIndex.getBoxHeader(atomIndex.findTopLevel(FREE));
+            if (topLevelFreeHeader != null)
             {
-                DefaultMutableTreeNode parentNode = (DefaultMutableTreeNode) freeNode.getParent();
-                if (parentNode.isRoot())
-                {
-                    topLevelFreeHeader = ((Mp4BoxHeader) freeNode.getUserObject());
-                    sizeOfExistingTopLevelFreeAtom = topLevelFreeHeader.getLength();
-                    positionOfTopLevelFreeAtom = (int) topLevelFreeHeader.getFilePos();
-                    break;
-                }
+                sizeOfExistingTopLevelFreeAtom = topLevelFreeHeader.getLength();
+                positionOfTopLevelFreeAtom = (int) topLevelFreeHeader.getFilePos();
             }
 
             if (sizeOfExistingTopLevelFreeAtom > 0)
@@ -493,6 +507,7 @@ public class Mp4TagWriter
             if (sizeOfExistingIlstAtom == sizeRequiredByNewIlstAtom)
             {
                 writeMetadataSameSize(fc, ilstHeader, newIlstData);
+                Mp4WriteStatistics.getInstance().recordInPlaceWrite();
             }
             //.. we just need to increase the size of the free atom below the meta atom, and replace the metadata
             //no other changes necessary and total file size remains the same
@@ -528,8 +543,58 @@ public class Mp4TagWriter
                 //There is not enough padding in the metadata free atom
                 else
                 {
+                    boolean isMoovAfterAudio = isMoovAfterAudio(atomIndex, moov);
+
+                    //Moov has to be rewritten anyway so reserve padding after the new ilst, replacing any existing
+                    //meta level free atom, so that subsequent edits can be written in place
+                    int paddingSize = TagOptionSingleton.getInstance().getMp4PaddingSize();
+                    if (paddingSize > 0)
+                    {
+                        sizeOfExistingIlstAtom += sizeOfExistingMetaLevelFreeAtom;
+                        sizeOfExistingMetaLevelFreeAtom = 0;
+
+                        //If the top level free atom can provide the space required we dont want the padding to
+                        //cause the audio to be moved, so only take what padding it can spare
+                        int increaseInSizeOfMoov = getIncreaseInSizeOfMoov(udtaHeader, metaHeader, newIlstData, sizeOfExistingIlstAtom);
+                        int topLevelFreeDataSize = sizeOfExistingTopLevelFreeAtom - Mp4BoxHeader.HEADER_LENGTH;
+                        if (!isMoovAfterAudio
+                                && topLevelFreeAtomComesBeforeMdatAtomAndAfterMetadata
+                                && topLevelFreeDataSize >= increaseInSizeOfMoov)
+                        {
+                            paddingSize = Math.min(paddingSize, topLevelFreeDataSize - increaseInSizeOfMoov - Mp4BoxHeader.HEADER_LENGTH);
+                        }
+
+                        if (paddingSize > 0)
+                        {
+                            newIlstData = addPadding(newIlstData, paddingSize);
+                        }
+                        sizeRequiredByNewIlstAtom = newIlstData.limit();
+                        additionalSpaceRequiredForMetadata = sizeRequiredByNewIlstAtom - sizeOfExistingIlstAtom;
+                    }
                     int additionalMetaSizeThatWontFitWithinMetaAtom = additionalSpaceRequiredForMetadata - sizeOfExistingMetaLevelFreeAtom;
 
+                    //Moov after the audio so only need to make space after moov, the top level free atom can only be
+                    //used if immediately after moov
+                    if (isMoovAfterAudio)
+                    {
+                        int increaseInSizeOfMoov = getIncreaseInSizeOfMoov(udtaHeader, metaHeader, newIlstData, sizeOfExistingIlstAtom);
+                        int freeAfterMoov = atomIndex.getNextSibling(moov);
+                        sizeOfExistingTopLevelFreeAtom = 0;
+                        if (freeAfterMoov != Mp4AtomIndex.NONE && atomIndex.getFourCC(freeAfterMoov) == FREE && atomIndex.getSize(freeAfterMoov) <= Integer.MAX_VALUE)
+                        {
+                            sizeOfExistingTopLevelFreeAtom = (int) atomIndex.getSize(freeAfterMoov);
+                        }
+                        topLevelFreeAtomComesBeforeMdatAtomAndAfterMetadata = true;
+
+                        if (sizeOfExistingTopLevelFreeAtom - Mp4BoxHeader.HEADER_LENGTH < increaseInSizeOfMoov && sizeOfExistingTopLevelFreeAtom != increaseInSizeOfMoov)
+                        {
+                            logger.config("Writing:Moov after audio, moving data after moov by:" + increaseInSizeOfMoov);
+                            fc.position(moovHeader.getFileEndPos());
+                            ShiftData.shiftDataByOffsetToMakeSpace(fc, increaseInSizeOfMoov);
+                            sizeOfExistingTopLevelFreeAtom = 0;
+                        }
+                    }
+
                     //Go up to position of start of Moov Header
                     fc.position(moovHeader.getFilePos());
 
@@ -583,10 +648,15 @@ public class Mp4TagWriter
                                 neroTagsHeader,
                                 sizeOfExistingIlstAtom);
                     }
+                    Mp4WriteStatistics.getInstance().recordMoovRewrite(paddingSize > 0, isMoovAfterAudio);
                 }
             }
             //Ensure we have written correctly, reject if not
-            checkFileWrittenCorrectly(mdatHeader, fc, stcos);
+            Mp4WriteVerification verification = TagOptionSingleton.getInstance().getMp4WriteVerification();
+            if (verification != Mp4WriteVerification.NONE)
+            {
+                checkFileWrittenCorrectly(mdatHeader, fc, stcos, verification == Mp4WriteVerification.QUICK);
+            }
         }
         catch(IOException ioe)
         {
@@ -596,6 +666,25 @@ public class Mp4TagWriter
     }
 
 
+    /**
+     * Append a free atom to the new ilst data so the two can be written together as a single block
+     *
+     * @param newIlstData
+     * @param paddingSize size of the free atom data (excluding its header)
+     * @return ilst data followed by free atom, positioned at the start
+     */
+    private ByteBuffer addPadding(ByteBuffer newIlstData, int paddingSize)
+    {
+        Mp4FreeBox freeBox = new Mp4FreeBox(paddingSize);
+        ByteBuffer paddedIlstData = ByteBuffer.allocate(newIlstData.limit() + Mp4BoxHeader.HEADER_LENGTH + paddingSize);
+        newIlstData.rewind();
+        paddedIlstData.put(newIlstData);
+        paddedIlstData.put(freeBox.getHeader().getHeaderData());
+        paddedIlstData.put(freeBox.getData());
+        paddedIlstData.flip();
+        return paddedIlstData;
+    }
+
     /**
      * Replace tags atom (and children) by a {@code free} atom.
      *
@@ -611,40 +700,78 @@ public class Mp4TagWriter
     }
 
     /**
-     * Determine the size of the {@code free} atom immediately after {@code ilst} atom at the same level (if any),
-     * we can use this if {@code ilst} needs to grow or shrink because of more less metadata.
+     * Is moov after all the audio, i.e there are no mdat atoms after moov so making moov larger or smaller never
+     * requires moving the audio
      *
-     * @param atomTree
+     * @param atomIndex
+     * @param moov
      * @return
      */
-    private int getMetaLevelFreeAtomSize(Mp4AtomTree atomTree)
+    private boolean isMoovAfterAudio(Mp4AtomIndex atomIndex, int moov)
     {
-        int oldMetaLevelFreeAtomSize;//Level 4 - Free
-        oldMetaLevelFreeAtomSize = 0;
+        if (atomIndex.getOffset(atomIndex.getMdat()) > atomIndex.getOffset(moov))
+        {
+            return false;
+        }
 
-        for (DefaultMutableTreeNode freeNode : atomTree.getFreeNodes())
+        for (int next = atomIndex.getNextSibling(moov); next != Mp4AtomIndex.NONE; next = atomIndex.getNextSibling(next))
         {
-            DefaultMutableTreeNode parentNode = (DefaultMutableTreeNode) freeNode.getParent();
-            DefaultMutableTreeNode brotherNode = freeNode.getPreviousSibling();
-            if (!parentNode.isRoot())
+            if (atomIndex.getFourCC(next) == MDAT)
             {
-                Mp4BoxHeader parentHeader = ((Mp4BoxHeader) parentNode.getUserObject());
-                Mp4BoxHeader freeHeader = ((Mp4BoxHeader) freeNode.getUserObject());
+                return false;
+            }
+        }
+        return true;
+    }
 
-                //We are only interested in free atoms at this level if they come after the ilst node
-                if (brotherNode != null)
-                {
-                    Mp4BoxHeader brotherHeader = ((Mp4BoxHeader) brotherNode.getUserObject());
+    /**
+     * How much larger moov will be when the new metadata cannot be fitted within the existing meta atom, this must
+     * match the size of the new atoms created by writeNoExistingUdtaAtom(), writeNoExistingMetaAtom() and
+     * writeHaveExistingMetadata()
+     *
+     * @param udtaHeader
+     * @param metaHeader
+     * @param newIlstData
+     * @param sizeOfExistingIlstAtom
+     * @return
+     */
+    private int getIncreaseInSizeOfMoov(Mp4BoxHeader udtaHeader, Mp4BoxHeader metaHeader, ByteBuffer newIlstData, int sizeOfExistingIlstAtom)
+    {
+        if (udtaHeader != null && metaHeader != null)
+        {
+            return newIlstData.limit() - sizeOfExistingIlstAtom;
+        }
 
-                    if (parentHeader.getId().equals(Mp4AtomIdentifier.META.getFieldName()) && brotherHeader.getId().equals(Mp4AtomIdentifier.ILST.getFieldName()))
-                    {
-                        oldMetaLevelFreeAtomSize = freeHeader.getLength();
-                        break;
-                    }
-                }
-            }
+        Mp4HdlrBox hdlrBox = Mp4HdlrBox.createiTunesStyleHdlrBox();
+        Mp4MetaBox metaBox = Mp4MetaBox.createiTunesStyleMetaBox(hdlrBox.getHeader().getLength() + newIlstData.limit());
+        if (udtaHeader == null)
+        {
+            return Mp4BoxHeader.HEADER_LENGTH + metaBox.getHeader().getLength();
         }
-        return oldMetaLevelFreeAtomSize;
+        return metaBox.getHeader().getLength();
+    }
+
+    /**
+     * Determine the size of the {@code free} atom immediately after {@code ilst} atom at the same level (if any),
+     * we can use this if {@code ilst} needs to grow or shrink because of more less metadata.
+     *
+     * @param atomIndex
+     * @param ilst
+     * @return
+     */
+    private int getMetaLevelFreeAtomSize(Mp4AtomIndex atomIndex, int ilst)
+    {
+        if (ilst == Mp4AtomIndex.NONE)
+        {
+            return 0;
+        }
+
+        int brother = atomIndex.getNextSibling(ilst);
+        if (brother != Mp4AtomIndex.NONE && atomIndex.getFourCC(brother) == FREE)
+        {
+            return (int) atomIndex.getSize(brother);
+        }
+        return 0;
     }
 
     /**
@@ -653,22 +780,22 @@ public class Mp4TagWriter
      * @param mdatHeader
      * @param fc
      * @param stcos
+     * @param quick only read the first offset of each stco rather than the complete sample tables
      * @throws CannotWriteException
      * @throws IOException
      */
-    private void checkFileWrittenCorrectly(Mp4BoxHeader mdatHeader, SeekableByteChannel fc, List<Mp4StcoBox> stcos) throws CannotWriteException, IOException
+    private void checkFileWrittenCorrectly(Mp4BoxHeader mdatHeader, SeekableByteChannel fc, List<Mp4StcoBox> stcos, boolean quick) throws CannotWriteException, IOException
     {
 
         logger.config("Checking file has been written correctly");
 
         try
         {
-            //Create a tree from the new file
-            Mp4AtomTree newAtomTree;
-            newAtomTree = new Mp4AtomTree(fc, false);
+            //Index the new file
+            Mp4AtomIndex newAtomIndex = new Mp4AtomIndex(fc, quick);
 
             //Check we still have audio data file, and check length
-            Mp4BoxHeader newMdatHeader = newAtomTree.getBoxHeader(newAtomTree.getMdatNode());
+            Mp4BoxHeader newMdatHeader = newAtomIndex.getBoxHeader(newAtomIndex.getMdat());
             if (newMdatHeader == null)
             {
                 throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_NO_DATA.getMsg());
@@ -679,21 +806,20 @@ public class Mp4TagWriter
             }
 
             //Should always have udta atom after writing to file
-            Mp4BoxHeader newUdtaHeader = newAtomTree.getBoxHeader(newAtomTree.getUdtaNode());
-            if (newUdtaHeader == null)
+            int newUdta = newAtomIndex.findChild(newAtomIndex.getMoov(), UDTA);
+            if (newUdta == Mp4AtomIndex.NONE)
             {
                 throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_NO_TAG_DATA.getMsg());
             }
 
             //Should always have meta atom after writing to file
-            Mp4BoxHeader newMetaHeader = newAtomTree.getBoxHeader(newAtomTree.getMetaNode());
-            if (newMetaHeader == null)
+            if (newAtomIndex.findChild(newUdta, META) == Mp4AtomIndex.NONE)
             {
                 throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_NO_TAG_DATA.getMsg());
             }
 
             // Check that we at the very least have the same number of chunk offsets
-            final List<Mp4StcoBox> newStcos = newAtomTree.getStcos();
+            final List<Mp4StcoBox> newStcos = newAtomIndex.getStcos();
             if (newStcos.size() != stcos.size())
             {
                 // at the very least, we have to have the same number of 'stco' atoms
@@ -705,30 +831,30 @@ public class Mp4TagWriter
             // compare the first new stco offset with mdat,
             // and ensure that all following ones have a constant shift
 
-            int shift = 0;
+            long shift = 0;
             for (int i=0; i<newStcos.size(); i++)
             {
                 final Mp4StcoBox newStco = newStcos.get(i);
                 final Mp4StcoBox stco = stcos.get(i);
-                logger.finer("stco:Original First Offset" + stco.getFirstOffSet());
-                logger.finer("stco:Original Diff" + (int) (stco.getFirstOffSet() - mdatHeader.getFilePos()));
+                logger.finer("stco:Original First Offset" + stco.getFirstOffSetAsLong());
+                logger.finer("stco:Original Diff" + (int) (stco.getFirstOffSetAsLong() - mdatHeader.getFilePos()));
                 logger.finer("stco:Original Mdat Pos" + mdatHeader.getFilePos());
-                logger.finer("stco:New First Offset" + newStco.getFirstOffSet());
-                logger.finer("stco:New Diff" + (int) ((newStco.getFirstOffSet() - newMdatHeader.getFilePos())));
+                logger.finer("stco:New First Offset" + newStco.getFirstOffSetAsLong());
+                logger.finer("stco:New Diff" + (int) ((newStco.getFirstOffSetAsLong() - newMdatHeader.getFilePos())));
                 logger.finer("stco:New Mdat Pos" + newMdatHeader.getFilePos());
 
                 if (i == 0)
                 {
-                    final int diff = (int) (stco.getFirstOffSet() - mdatHeader.getFilePos());
-                    if ((newStco.getFirstOffSet() - newMdatHeader.getFilePos()) != diff)
+                    final int diff = (int) (stco.getFirstOffSetAsLong() - mdatHeader.getFilePos());
+                    if ((newStco.getFirstOffSetAsLong() - newMdatHeader.getFilePos()) != diff)
                     {
-                        int discrepancy = (int) ((newStco.getFirstOffSet() - newMdatHeader.getFilePos()) - diff);
+                        int discrepancy = (int) ((newStco.getFirstOffSetAsLong() - newMdatHeader.getFilePos()) - diff);
                         throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_INCORRECT_OFFSETS.getMsg(discrepancy));
                     }
-                    shift = stco.getFirstOffSet() - newStco.getFirstOffSet();
+                    shift = stco.getFirstOffSetAsLong() - newStco.getFirstOffSetAsLong();
                 }
                 else {
-                    if (shift != stco.getFirstOffSet() - newStco.getFirstOffSet())
+                    if (shift != stco.getFirstOffSetAsLong() - newStco.getFirstOffSetAsLong())
                     {
                         throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_INCORRECT_OFFSETS.getMsg(shift));
                     }
@@ -799,7 +925,7 @@ public class Mp4TagWriter
             int sizeOfExistingTopLevelFreeAtom,
             boolean topLevelFreeAtomComesBeforeMdatAtomAndAfterMetadata,
             Mp4BoxHeader neroTagsHeader)
-            throws IOException
+            throws IOException, CannotWriteException
 
     {
         long endOfOriginalMoovAtom          = moovHeader.getFileEndPos();
@@ -896,7 +1022,7 @@ public class Mp4TagWriter
                                          int positionOfStartOfIlstAtomInMoovBuffer,
                                          int existingSizeOfIlstData,
                                          int topLevelFreeSize,
-                                         int additionalMetaSizeThatWontFitWithinMetaAtom) throws IOException
+                                         int additionalMetaSizeThatWontFitWithinMetaAtom) throws IOException, CannotWriteException
 
     {
         int newIlstDataSize = newIlstData.limit();
@@ -1018,7 +1144,7 @@ public class Mp4TagWriter
                                             ByteBuffer newIlstData,
                                             Mp4BoxHeader neroTagsHeader,
                                             int existingSizeOfIlstData)
-            throws IOException
+            throws IOException, CannotWriteException
     {
         long endOfOriginalMoovAtom          = moovHeader.getFileEndPos();
         int sizeRequiredByNewIlstAtom       = newIlstData.limit();
@@ -1196,7 +1322,7 @@ public class Mp4TagWriter
                                                         int additionalSizeRequired,
                                                         List<Mp4StcoBox> stcos,
                                                         Mp4BoxHeader moovHeader,
-                                                        Mp4BoxHeader mdatHeader)
+                                                        Mp4BoxHeader mdatHeader) throws CannotWriteException
     {
         //We don't bother using the top level free atom because not big enough anyway, we need to adjust offsets
         //by the amount mdat is going to be shifted as long as mdat is after moov
@@ -0,0 +1,104 @@
+package org.jaudiotagger.audio.mp4;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how mp4 metadata has been written since the statistics were last reset.
+ *
+ * A write is in place when the new ilst atom fits within the space of the existing ilst atom plus any free atom
+ * immediately following it, so only the metadata itself is overwritten. Otherwise the moov atom has to be rewritten
+ * with a different size, which usually means moving the audio data and adjusting every chunk offset. Comparing
+ * these counts shows whether the padding reserved by {@link org.jaudiotagger.tag.TagOptionSingleton#setMp4PaddingSize(int)}
+ * is large enough for the edits being made.
+ */
+public class Mp4WriteStatistics
+{
+    private static final Mp4WriteStatistics instance = new Mp4WriteStatistics();
+
+    private final AtomicLong inPlaceWrites = new AtomicLong();
+    private final AtomicLong moovRewrites = new AtomicLong();
+    private final AtomicLong paddedRewrites = new AtomicLong();
+    private final AtomicLong moovAfterAudioRewrites = new AtomicLong();
+
+    private Mp4WriteStatistics()
+    {
+    }
+
+    public static Mp4WriteStatistics getInstance()
+    {
+        return instance;
+    }
+
+    void recordInPlaceWrite()
+    {
+        inPlaceWrites.incrementAndGet();
+    }
+
+    void recordMoovRewrite(boolean isPadded, boolean isMoovAfterAudio)
+    {
+        moovRewrites.incrementAndGet();
+        if (isPadded)
+        {
+            paddedRewrites.incrementAndGet();
+        }
+        if (isMoovAfterAudio)
+        {
+            moovAfterAudioRewrites.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of writes that only overwrote the ilst atom and its neighbouring free atom
+     */
+    public long getInPlaceWrites()
+    {
+        return inPlaceWrites.get();
+    }
+
+    /**
+     * @return number of writes that changed the size of the moov atom
+     */
+    public long getMoovRewrites()
+    {
+        return moovRewrites.get();
+    }
+
+    /**
+     * @return number of those moov rewrites that reserved a free atom after the ilst atom
+     */
+    public long getPaddedRewrites()
+    {
+        return paddedRewrites.get();
+    }
+
+    /**
+     * @return number of those moov rewrites where moov comes after the audio, so the audio was not moved
+     */
+    public long getMoovAfterAudioRewrites()
+    {
+        return moovAfterAudioRewrites.get();
+    }
+
+    /**
+     * @return proportion of writes made in place, 0 if nothing has been written
+     */
+    public double getInPlaceRatio()
+    {
+        long inPlace = inPlaceWrites.get();
+        long total = inPlace + moovRewrites.get();
+        return total == 0 ? 0 : (double) inPlace / total;
+    }
+
+    public void reset()
+    {
+        inPlaceWrites.set(0);
+        moovRewrites.set(0);
+        paddedRewrites.set(0);
+        moovAfterAudioRewrites.set(0);
+    }
+
+    public String toString()
+    {
+        return "InPlace:" + getInPlaceWrites() + ":MoovRewrites:" + getMoovRewrites() + ":PaddedRewrites:" + getPaddedRewrites() + ":MoovAfterAudioRewrites:" + getMoovAfterAudioRewrites();
+    }
+}
@@ -0,0 +1,23 @@
+package org.jaudiotagger.audio.mp4;
+
+/**
+ * After writing metadata to an mp4 the file is read back to check the audio data is still where the chunk offsets
+ * say it is, here we define how thoroughly.
+ *
+ * FULL reads all the atoms again including the complete moov atom, as it was when the file was first read.
+ *
+ * QUICK reads the top level atoms and the metadata, but for the sample tables only the first offset of each stco,
+ * so the amount read does not depend on the length of the audio. This performs the same checks because only the
+ * first offset is compared anyway.
+ *
+ * NONE does not check at all, for high volume writing where the cost matters more than detecting corruption.
+ *
+ * This option should be set using TagOptionSingleton.setMp4WriteVerification()
+ */
+public enum Mp4WriteVerification
+{
+    FULL,
+    QUICK,
+    NONE,
+    ;
+}
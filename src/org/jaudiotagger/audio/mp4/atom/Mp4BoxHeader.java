@@ -21,6 +21,7 @@ package org.jaudiotagger.audio.mp4.atom;
 import org.jaudiotagger.audio.exceptions.InvalidBoxHeaderException;
 import org.jaudiotagger.audio.exceptions.NullBoxIdException;
 import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.mp4.Mp4AtomIdentifier;
 import org.jaudiotagger.logging.ErrorMessage;
 
 import java.io.IOException;
@@ -30,6 +31,7 @@ import java.nio.ByteOrder;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -49,6 +51,10 @@ import java.util.logging.Logger;
  *
  * This class is normally used by instantiating with the empty constructor, then use the update method
  * to pass the header data which is used to read the identifier and the the size of the box
+ *
+ * The identifier is held as the four bytes packed into an int (see {@link Mp4AtomIdentifier#getFourCC()}) so that
+ * reading headers and searching for boxes does not create any objects, it is only converted to a String if
+ * {@link #getId()} is called.
  */
 public class Mp4BoxHeader
 {
@@ -65,6 +71,9 @@ public class Mp4BoxHeader
     //Box identifier
     private String id;
 
+    //Box identifier as stored in the file
+    private int fourCC;
+
     //Box length
     protected int length;
 
@@ -102,6 +111,7 @@ public class Mp4BoxHeader
         try
         {
             this.id    = id;
+            this.fourCC = Utils.toFourCC(id);
             dataBuffer.put(4, id.getBytes("ISO-8859-1")[0]);
             dataBuffer.put(5, id.getBytes("ISO-8859-1")[1]);
             dataBuffer.put(6, id.getBytes("ISO-8859-1")[2]);
@@ -137,21 +147,32 @@ public class Mp4BoxHeader
      */
     public void update(ByteBuffer headerData)
     {
-        //Read header data into byte array
-        byte[] b = new byte[HEADER_LENGTH];
-        headerData.get(b);
-        //Keep reference to copy of RawData
-        dataBuffer = ByteBuffer.wrap(b);
-        dataBuffer.order(ByteOrder.BIG_ENDIAN);
-
-        //Calculate box size and id
-        this.length = dataBuffer.getInt();
-        this.id = Utils.readFourBytesAsChars(dataBuffer);
-
-        logger.finest("Mp4BoxHeader id:"+id+":length:"+length);
-        if (id.equals("\0\0\0\0"))
+        //Calculate box size and id, always big endian whatever the order of the buffer
+        int length = headerData.getInt();
+        int fourCC = headerData.getInt();
+        if (headerData.order() == ByteOrder.LITTLE_ENDIAN)
+        {
+            length = Integer.reverseBytes(length);
+            fourCC = Integer.reverseBytes(fourCC);
+        }
+        this.length = length;
+        this.fourCC = fourCC;
+        this.id = null;
+
+        //If the header is being reused keep its buffer, otherwise created when required
+        if (dataBuffer != null)
         {
-            throw new NullBoxIdException(ErrorMessage.MP4_UNABLE_TO_FIND_NEXT_ATOM_BECAUSE_IDENTIFIER_IS_INVALID.getMsg(id));
+            dataBuffer.putInt(OFFSET_POS, length);
+            dataBuffer.putInt(IDENTIFIER_POS, fourCC);
+        }
+
+        if (logger.isLoggable(Level.FINEST))
+        {
+            logger.finest("Mp4BoxHeader id:" + getId() + ":length:" + length);
+        }
+        if (fourCC == 0)
+        {
+            throw new NullBoxIdException(ErrorMessage.MP4_UNABLE_TO_FIND_NEXT_ATOM_BECAUSE_IDENTIFIER_IS_INVALID.getMsg(getId()));
         }
 
         if(length<HEADER_LENGTH)
@@ -162,7 +183,7 @@ public class Mp4BoxHeader
             }
             else
             {
-                throw new InvalidBoxHeaderException(ErrorMessage.MP4_UNABLE_TO_FIND_NEXT_ATOM_BECAUSE_IDENTIFIER_IS_INVALID.getMsg(id, length));
+                throw new InvalidBoxHeaderException(ErrorMessage.MP4_UNABLE_TO_FIND_NEXT_ATOM_BECAUSE_IDENTIFIER_IS_INVALID.getMsg(getId(), length));
             }
         }
     }
@@ -172,9 +193,35 @@ public class Mp4BoxHeader
      */
     public String getId()
     {
+        if (id == null)
+        {
+            id = toId(fourCC);
+        }
         return id;
     }
 
+    /**
+     * @param fourCC
+     * @return the four character identifier
+     */
+    private static String toId(int fourCC)
+    {
+        char[] chars = new char[IDENTIFIER_LENGTH];
+        chars[0] = (char) ((fourCC >>> 24) & 0xff);
+        chars[1] = (char) ((fourCC >>> 16) & 0xff);
+        chars[2] = (char) ((fourCC >>> 8) & 0xff);
+        chars[3] = (char) (fourCC & 0xff);
+        return new String(chars);
+    }
+
+    /**
+     * @return the box identifier packed into an int, compare with {@link Mp4AtomIdentifier#getFourCC()}
+     */
+    public int getFourCC()
+    {
+        return fourCC;
+    }
+
     /**
      * @return the length of the boxes data (includes the header size)
      */
@@ -192,12 +239,14 @@ public class Mp4BoxHeader
      */
     public void setLength(int length)
     {
-        byte[] headerSize = Utils.getSizeBEInt32(length);
-        dataBuffer.put(0, headerSize[0]);
-        dataBuffer.put(1, headerSize[1]);
-        dataBuffer.put(2, headerSize[2]);
-        dataBuffer.put(3, headerSize[3]);
-
+        if (dataBuffer != null)
+        {
+            byte[] headerSize = Utils.getSizeBEInt32(length);
+            dataBuffer.put(0, headerSize[0]);
+            dataBuffer.put(1, headerSize[1]);
+            dataBuffer.put(2, headerSize[2]);
+            dataBuffer.put(3, headerSize[3]);
+        }
         this.length = length;
 
     }
@@ -227,6 +276,12 @@ public class Mp4BoxHeader
      */
     public ByteBuffer getHeaderData()
     {
+        if (dataBuffer == null)
+        {
+            dataBuffer = ByteBuffer.allocate(HEADER_LENGTH);
+            dataBuffer.putInt(OFFSET_POS, length);
+            dataBuffer.putInt(IDENTIFIER_POS, fourCC);
+        }
         dataBuffer.rewind();
         return dataBuffer;
     }
@@ -241,7 +296,7 @@ public class Mp4BoxHeader
 
     public String toString()
     {
-        return "Box " + id + ":length" + length + ":filepos:" + filePos;
+        return "Box " + getId() + ":length" + length + ":filepos:" + filePos;
     }
 
     /**
@@ -268,7 +323,24 @@ public class Mp4BoxHeader
      */
     public static Mp4BoxHeader seekWithinLevel(SeekableByteChannel fc, String id) throws IOException
     {
-        logger.finer("Started searching for:" + id + " in file at:" + fc.position());
+        return seekWithinLevel(fc, Utils.toFourCC(id));
+    }
+
+    /**
+     * Seek for box with the specified packed identifier starting from the current location of filepointer
+     *
+     * @param fc
+     * @param fourCC
+     * @throws java.io.IOException
+     * @return
+     * @see #seekWithinLevel(SeekableByteChannel, String)
+     */
+    public static Mp4BoxHeader seekWithinLevel(SeekableByteChannel fc, int fourCC) throws IOException
+    {
+        if (logger.isLoggable(Level.FINER))
+        {
+            logger.finer("Started searching for:" + toId(fourCC) + " in file at:" + fc.position());
+        }
 
         Mp4BoxHeader boxHeader = new Mp4BoxHeader();
         ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_LENGTH);
@@ -279,9 +351,12 @@ public class Mp4BoxHeader
         }
         headerBuffer.rewind();
         boxHeader.update(headerBuffer);
-        while (!boxHeader.getId().equals(id))
+        while (boxHeader.getFourCC() != fourCC)
         {
-            logger.finer("Found:" + boxHeader.getId() + " Still searching for:" + id + " in file at:" + fc.position());
+            if (logger.isLoggable(Level.FINER))
+            {
+                logger.finer("Found:" + boxHeader.getId() + " Still searching for:" + toId(fourCC) + " in file at:" + fc.position());
+            }
 
             //64bit data length
             if(boxHeader.getLength() == 1)
@@ -318,7 +393,6 @@ public class Mp4BoxHeader
             }
             headerBuffer.rewind();
             bytesRead = fc.read(headerBuffer);
-            logger.finer("Header Bytes Read:" + bytesRead);
             headerBuffer.rewind();
             if (bytesRead == Mp4BoxHeader.HEADER_LENGTH)
             {
@@ -348,7 +422,24 @@ public class Mp4BoxHeader
      */
     public static Mp4BoxHeader seekWithinLevel(ByteBuffer data, String id) throws IOException
     {
-        logger.finer("Started searching for:" + id + " in bytebuffer at" + data.position());
+        return seekWithinLevel(data, Utils.toFourCC(id));
+    }
+
+    /**
+     * Seek for box with the specified packed identifier starting from the current location of the buffer
+     *
+     * @param data
+     * @param fourCC
+     * @throws java.io.IOException
+     * @return
+     * @see #seekWithinLevel(ByteBuffer, String)
+     */
+    public static Mp4BoxHeader seekWithinLevel(ByteBuffer data, int fourCC) throws IOException
+    {
+        if (logger.isLoggable(Level.FINER))
+        {
+            logger.finer("Started searching for:" + toId(fourCC) + " in bytebuffer at" + data.position());
+        }
 
         Mp4BoxHeader boxHeader = new Mp4BoxHeader();
         if (data.remaining() >= Mp4BoxHeader.HEADER_LENGTH)
@@ -359,9 +450,12 @@ public class Mp4BoxHeader
         {
             return null;
         }
-        while (!boxHeader.getId().equals(id))
+        while (boxHeader.getFourCC() != fourCC)
         {
-            logger.finer("Found:" + boxHeader.getId() + " Still searching for:" + id + " in bytebuffer at" + data.position());
+            if (logger.isLoggable(Level.FINER))
+            {
+                logger.finer("Found:" + boxHeader.getId() + " Still searching for:" + toId(fourCC) + " in bytebuffer at" + data.position());
+            }
             //Something gone wrong probably not at the start of an atom so return null;
             if (boxHeader.getLength() < Mp4BoxHeader.HEADER_LENGTH)
             {
@@ -382,7 +476,10 @@ public class Mp4BoxHeader
                 return null;
             }
         }
-        logger.finer("Found:" + id + " in bytebuffer at" + data.position());
+        if (logger.isLoggable(Level.FINER))
+        {
+            logger.finer("Found:" + toId(fourCC) + " in bytebuffer at" + data.position());
+        }
 
         return boxHeader;
     }
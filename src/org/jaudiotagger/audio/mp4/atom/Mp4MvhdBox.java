@@ -90,4 +90,9 @@ public class Mp4MvhdBox extends AbstractMp4Box
     {
         return this.timeLength / (double)this.timeScale;
     }
+
+    public int getTimeScale()
+    {
+        return timeScale;
+    }
 }
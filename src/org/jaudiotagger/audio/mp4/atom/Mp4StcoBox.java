@@ -1,17 +1,23 @@
 package org.jaudiotagger.audio.mp4.atom;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.mp4.Mp4AtomIdentifier;
+import org.jaudiotagger.logging.ErrorMessage;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.nio.channels.FileChannel;
 
 /**
  * StcoBox ( media (stream) header), holds offsets into the Audio data
+ *
+ * Also used for the co64 box, which is identical except that the offsets are 64 bit so it can be used for
+ * files larger than 4GB.
  */
 public class Mp4StcoBox extends AbstractMp4Box
 {
@@ -24,8 +30,14 @@ public class Mp4StcoBox extends AbstractMp4Box
     public static final int OTHER_FLAG_LENGTH = 3;
     public static final int NO_OF_OFFSETS_LENGTH = 4;
     public static final int OFFSET_LENGTH = 4;
+    public static final int CO64_OFFSET_LENGTH = 8;
+
+    private static final int OFFSETS_POS = VERSION_FLAG_LENGTH + OTHER_FLAG_LENGTH + NO_OF_OFFSETS_LENGTH;
+    private static final long MAX_STCO_OFFSET = 0xFFFFFFFFL;
+
     private int noOfOffSets = 0;
-    private int firstOffSet;
+    private long firstOffSet;
+    private boolean is64Bit;
 
     /**
      * Construct box from data and show contents
@@ -36,31 +48,64 @@ public class Mp4StcoBox extends AbstractMp4Box
     public Mp4StcoBox(Mp4BoxHeader header, ByteBuffer buffer)
     {
         this.header = header;
+        this.is64Bit = header.getFourCC() == Mp4AtomIdentifier.CO64.getFourCC();
 
         //Make a slice of databuffer then we can work with relative or absolute methods safetly
         dataBuffer = buffer.slice();
         dataBuffer.order(ByteOrder.BIG_ENDIAN);
-        //Skip the flags
-        dataBuffer.position(dataBuffer.position() + VERSION_FLAG_LENGTH + OTHER_FLAG_LENGTH);
 
         //No of offsets
-        this.noOfOffSets = dataBuffer.getInt();
+        this.noOfOffSets = dataBuffer.getInt(NO_OF_OFFSETS_POS);
 
         //First Offset, useful for sanity checks
-        firstOffSet = dataBuffer.getInt();
+        if (dataBuffer.limit() >= OFFSETS_POS + (is64Bit ? CO64_OFFSET_LENGTH : OFFSET_LENGTH))
+        {
+            firstOffSet = getOffset(0);
+        }
+    }
+
+    /**
+     * Construct box from data and adjust offets accordingly
+     *
+     * @param header             header info
+     * @param originalDataBuffer data of box (doesnt include header data)
+     * @param adjustment
+     * @throws CannotWriteException if an adjusted offset would not fit
+     */
+    public Mp4StcoBox(Mp4BoxHeader header, ByteBuffer originalDataBuffer, int adjustment) throws CannotWriteException
+    {
+        this(header, originalDataBuffer);
+        adjustOffsets(adjustment);
+    }
+
+    /**
+     * @return true if this is a co64 box with 64 bit offsets
+     */
+    public boolean is64Bit()
+    {
+        return is64Bit;
+    }
+
+    /**
+     * @param index
+     * @return the offset as an unsigned value
+     */
+    public long getOffset(int index)
+    {
+        if (is64Bit)
+        {
+            return dataBuffer.getLong(OFFSETS_POS + index * CO64_OFFSET_LENGTH);
+        }
+        return dataBuffer.getInt(OFFSETS_POS + index * OFFSET_LENGTH) & MAX_STCO_OFFSET;
     }
 
     public void printTotalOffset()
     {
-        int offset = 0;
-        dataBuffer.rewind();
-        dataBuffer.position(VERSION_FLAG_LENGTH + OTHER_FLAG_LENGTH + NO_OF_OFFSETS_LENGTH);
-        for (int i = 0; i < noOfOffSets - 1; i++)
+        long offset = 0;
+        for (int i = 0; i < noOfOffSets; i++)
         {
-            offset += Utils.getIntBE(dataBuffer, dataBuffer.position(), (dataBuffer.position() + OFFSET_LENGTH - 1));
-            dataBuffer.position(dataBuffer.position() + OFFSET_LENGTH);
+            offset += getOffset(i);
         }
-        offset += Utils.getIntBE(dataBuffer, dataBuffer.position(), (dataBuffer.position() + OFFSET_LENGTH - 1));
         System.out.println("Print Offset Total:" + offset);
     }
 
@@ -70,63 +115,74 @@ public class Mp4StcoBox extends AbstractMp4Box
     public void printAllOffsets()
     {
         System.out.println("Print Offsets:start");
-        dataBuffer.rewind();
-        dataBuffer.position(VERSION_FLAG_LENGTH + OTHER_FLAG_LENGTH + NO_OF_OFFSETS_LENGTH);
-        for (int i = 0; i < noOfOffSets - 1; i++)
+        for (int i = 0; i < noOfOffSets; i++)
         {
-            int offset = dataBuffer.getInt();
-            System.out.println("offset into audio data is:" + offset);
+            System.out.println("offset into audio data is:" + getOffset(i));
         }
-        int offset = dataBuffer.getInt();
-        System.out.println("offset into audio data is:" + offset);
         System.out.println("Print Offsets:end");
 
     }
 
-    public void adjustOffsets(int adjustment)
+    /**
+     * Adjust every offset, used when the audio data has been moved.
+     *
+     * The offsets are updated in place through an int or long view of the underlying buffer, so the table is adjusted
+     * in a tight loop without moving the position of the buffer for each entry. Offsets in a stco box are unsigned 32
+     * bit values so the whole table is checked first and left unmodified if any offset would no longer fit.
+     *
+     * @param adjustment can be negative or positive
+     * @throws CannotWriteException if an adjusted offset would not fit in the box
+     */
+    public void adjustOffsets(long adjustment) throws CannotWriteException
     {
-        //Skip the flags
-        dataBuffer.rewind();
-        dataBuffer.position(dataBuffer.position() + VERSION_FLAG_LENGTH + OTHER_FLAG_LENGTH + NO_OF_OFFSETS_LENGTH);
-        for (int i = 0; i < noOfOffSets; i++)
+        ByteBuffer offsetsBuffer = dataBuffer.duplicate();
+        offsetsBuffer.position(OFFSETS_POS);
+        offsetsBuffer = offsetsBuffer.slice();
+        offsetsBuffer.order(ByteOrder.BIG_ENDIAN);
+        if (is64Bit)
         {
-            int offset = dataBuffer.getInt();
-
-            //Calculate new offset and update buffer
-            offset = offset + adjustment;
-            dataBuffer.position(dataBuffer.position() - OFFSET_LENGTH);
-            dataBuffer.putInt(offset);
+            LongBuffer offsets = offsetsBuffer.asLongBuffer();
+            offsets.limit(Math.min(noOfOffSets, offsets.capacity()));
+            adjustOffsets(offsets, adjustment);
+        }
+        else
+        {
+            IntBuffer offsets = offsetsBuffer.asIntBuffer();
+            offsets.limit(Math.min(noOfOffSets, offsets.capacity()));
+            adjustOffsets(offsets, adjustment);
         }
     }
 
-    /**
-     * Construct box from data and adjust offets accordingly
-     *
-     * @param header             header info
-     * @param originalDataBuffer data of box (doesnt include header data)
-     * @param adjustment
-     */
-    public Mp4StcoBox(Mp4BoxHeader header, ByteBuffer originalDataBuffer, int adjustment)
+    private static void adjustOffsets(IntBuffer offsets, long adjustment) throws CannotWriteException
     {
-        this.header = header;
-
-        //Make a slice of databuffer then we can work with relative or absolute methods safetly
-        this.dataBuffer = originalDataBuffer.slice();
-
-        //Skip the flags
-        dataBuffer.position(dataBuffer.position() + VERSION_FLAG_LENGTH + OTHER_FLAG_LENGTH);
-
-        //No of offsets
-        this.noOfOffSets = Utils.getIntBE(dataBuffer, dataBuffer.position(), (dataBuffer.position() + NO_OF_OFFSETS_LENGTH - 1));
-        dataBuffer.position(dataBuffer.position() + NO_OF_OFFSETS_LENGTH);
+        int count = offsets.limit();
+        long min = MAX_STCO_OFFSET;
+        long max = 0;
+        for (int i = 0; i < count; i++)
+        {
+            long offset = offsets.get(i) & MAX_STCO_OFFSET;
+            min = Math.min(min, offset);
+            max = Math.max(max, offset);
+        }
+        if (count > 0 && (min + adjustment < 0 || max + adjustment > MAX_STCO_OFFSET))
+        {
+            throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED_OFFSETS_TOO_LARGE.getMsg(max + adjustment));
+        }
 
-        for (int i = 0; i < noOfOffSets; i++)
+        //Adding in 32 bit arithmetic gives the correct unsigned result as we know it doesnt overflow
+        int intAdjustment = (int) adjustment;
+        for (int i = 0; i < count; i++)
         {
-            int offset = Utils.getIntBE(dataBuffer, dataBuffer.position(), (dataBuffer.position() + NO_OF_OFFSETS_LENGTH - 1));
+            offsets.put(i, offsets.get(i) + intAdjustment);
+        }
+    }
 
-            //Calculate new offset and update buffer
-            offset = offset + adjustment;
-            dataBuffer.put(Utils.getSizeBEInt32(offset));
+    private static void adjustOffsets(LongBuffer offsets, long adjustment)
+    {
+        int count = offsets.limit();
+        for (int i = 0; i < count; i++)
+        {
+            offsets.put(i, offsets.get(i) + adjustment);
         }
     }
 
@@ -141,11 +197,22 @@ public class Mp4StcoBox extends AbstractMp4Box
     }
 
     /**
-     * The value of the first offset
+     * The value of the first offset, only valid for stco offsets up to 2GB
      *
      * @return
      */
     public int getFirstOffSet()
+    {
+        return (int) firstOffSet;
+    }
+
+    /**
+     * The value of the first offset when the box was read (not affected by {@link #adjustOffsets(long)}), as an
+     * unsigned value so valid for any stco or co64 offset
+     *
+     * @return
+     */
+    public long getFirstOffSetAsLong()
     {
         return firstOffSet;
     }
@@ -153,7 +220,7 @@ public class Mp4StcoBox extends AbstractMp4Box
     public static Mp4StcoBox getStco(RandomAccessFile raf) throws IOException, CannotReadException
     {
         FileChannel fc = raf.getChannel();
-        Mp4BoxHeader moovHeader = Mp4BoxHeader.seekWithinLevel(fc, Mp4AtomIdentifier.MOOV.getFieldName());
+        Mp4BoxHeader moovHeader = Mp4BoxHeader.seekWithinLevel(fc, Mp4AtomIdentifier.MOOV.getFourCC());
         if (moovHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
@@ -164,7 +231,7 @@ public class Mp4StcoBox extends AbstractMp4Box
 
         //Level 2-Searching for "mvhd" somewhere within "moov", we make a slice after finding header
         //so all getFields() methods will be relative to mvdh positions
-        Mp4BoxHeader boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.MVHD.getFieldName());
+        Mp4BoxHeader boxHeader = Mp4BoxHeader.seekWithinLevel(moovBuffer, Mp4AtomIdentifier.MVHD.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
@@ -173,21 +240,21 @@ public class Mp4StcoBox extends AbstractMp4Box
         mvhdBuffer.position(mvhdBuffer.position() + boxHeader.getDataLength());
 
         //Level 2-Searching for "trak" within "moov"
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.TRAK.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.TRAK.getFourCC());
 
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
         }
         //Level 3-Searching for "mdia" within "trak"
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.MDIA.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.MDIA.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
         }
 
         //Level 4-Searching for "mdhd" within "mdia"
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.MDHD.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.MDHD.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
@@ -195,7 +262,7 @@ public class Mp4StcoBox extends AbstractMp4Box
 
         //Level 4-Searching for "minf" within "mdia"
         mvhdBuffer.position(mvhdBuffer.position() + boxHeader.getDataLength());
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.MINF.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.MINF.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
@@ -203,7 +270,7 @@ public class Mp4StcoBox extends AbstractMp4Box
 
         //Level 5-Searching for "smhd" within "minf"
         //Only an audio track would have a smhd frame
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.SMHD.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.SMHD.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
@@ -211,14 +278,14 @@ public class Mp4StcoBox extends AbstractMp4Box
         mvhdBuffer.position(mvhdBuffer.position() + boxHeader.getDataLength());
 
         //Level 5-Searching for "stbl within "minf"
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.STBL.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.STBL.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
         }
 
         //Level 6-Searching for "stco within "stbl"
-        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.STCO.getFieldName());
+        boxHeader = Mp4BoxHeader.seekWithinLevel(mvhdBuffer, Mp4AtomIdentifier.STCO.getFourCC());
         if (boxHeader == null)
         {
             throw new CannotReadException("This file does not appear to be an audio file");
@@ -0,0 +1,94 @@
+package org.jaudiotagger.audio.ogg;
+
+import org.jaudiotagger.audio.generic.GenericAudioHeader;
+import org.jaudiotagger.audio.ogg.util.OggPageIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class OggAudioHeader extends GenericAudioHeader
+{
+    private OggPageIndex pageIndex;
+
+    //Layout of the header packets recorded when the file was read, and the state of the file at that time
+    private OggVorbisTagReader.OggVorbisHeaderSizes vorbisHeaderSizes;
+    private long fileLength;
+    private FileTime lastModified;
+
+    /**
+     * @return index of the audio pages, or null if one has not been built
+     *
+     * @see org.jaudiotagger.tag.TagOptionSingleton#setOggPageIndexInterval(int)
+     */
+    public OggPageIndex getPageIndex()
+    {
+        return pageIndex;
+    }
+
+    /**
+     * Set the page index, such as one that was previously built for this file and cached
+     *
+     * @param pageIndex
+     */
+    public void setPageIndex(OggPageIndex pageIndex)
+    {
+        this.pageIndex = pageIndex;
+    }
+
+    /**
+     * @param granulePosition for Vorbis the sample number
+     * @return position in file of the page to start reading from in order to reach granulePosition, this is the
+     * start of the audio if there is no page index
+     */
+    public long getSeekPosition(long granulePosition)
+    {
+        long offset = pageIndex != null ? pageIndex.getPageOffsetForGranule(granulePosition) : 0;
+        return getAudioDataStartPosition() + offset;
+    }
+
+    void setVorbisHeaderSizes(OggVorbisTagReader.OggVorbisHeaderSizes vorbisHeaderSizes)
+    {
+        this.vorbisHeaderSizes = vorbisHeaderSizes;
+    }
+
+    /**
+     * Record the state of the file the header sizes were read from
+     *
+     * @param fileLength
+     * @param lastModified
+     */
+    void setFileState(long fileLength, FileTime lastModified)
+    {
+        this.fileLength = fileLength;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Clear the header sizes once the file has been written, as they may no longer be correct
+     */
+    void clearVorbisHeaderSizes()
+    {
+        this.vorbisHeaderSizes = null;
+    }
+
+    /**
+     * @param file the file that is about to be written
+     * @return the sizes of the header packets recorded when the file was read, or null if they were not recorded or
+     * the file has changed since
+     * @throws IOException
+     */
+    OggVorbisTagReader.OggVorbisHeaderSizes getVorbisHeaderSizes(Path file) throws IOException
+    {
+        if (vorbisHeaderSizes == null || lastModified == null)
+        {
+            return null;
+        }
+        if (Files.size(file) != fileLength || !Files.getLastModifiedTime(file).equals(lastModified))
+        {
+            return null;
+        }
+        return vorbisHeaderSizes;
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.jaudiotagger.audio.ogg;
 
+import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
@@ -28,6 +29,8 @@ import org.jaudiotagger.tag.Tag;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
 import java.util.logging.Logger;
 
 /**
@@ -59,6 +62,21 @@ public class OggFileReader extends AudioFileReader
         return vtr.read(raf);
     }
 
+    /**
+     * Records the sizes of the header packets found whilst reading the tag in the audio header so that they do not
+     * have to be read again when the tag is written
+     */
+    @Override
+    protected AudioFile read(File f, RandomAccessFile raf) throws CannotReadException, IOException
+    {
+        FileTime lastModified = Files.getLastModifiedTime(f.toPath());
+        OggAudioHeader info = ir.read(raf);
+        raf.seek(0);
+        Tag tag = vtr.read(raf, info);
+        info.setFileState(raf.length(), lastModified);
+        return new AudioFile(f, info, tag);
+    }
+
     /**
      * Return count Ogg Page header, count starts from zero
      *
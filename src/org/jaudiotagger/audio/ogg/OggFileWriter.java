@@ -24,8 +24,12 @@ import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
 import org.jaudiotagger.tag.Tag;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
 import java.util.logging.Logger;
 
 /**
@@ -42,11 +46,53 @@ public class OggFileWriter extends AudioFileWriter
 
     protected void writeTag(AudioFile audioFile, Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotReadException, CannotWriteException, IOException
     {
-        vtw.write(tag, raf, rafTemp);
+        vtw.write(tag, raf, rafTemp.getChannel(), getHeaderSizes(audioFile));
+        clearHeaderSizes(audioFile);
+    }
+
+    @Override
+    protected ByteBuffer writeTagToMemory(AudioFile audioFile, Tag tag, RandomAccessFile raf) throws CannotReadException, CannotWriteException, IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) raf.length());
+        vtw.write(tag, raf, Channels.newChannel(out), getHeaderSizes(audioFile));
+        clearHeaderSizes(audioFile);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * @param audioFile
+     * @return sizes of the header packets recorded when the file was read, if the file has not changed since
+     * @throws IOException
+     */
+    private OggVorbisTagReader.OggVorbisHeaderSizes getHeaderSizes(AudioFile audioFile) throws IOException
+    {
+        if (audioFile != null && audioFile.getAudioHeader() instanceof OggAudioHeader)
+        {
+            return ((OggAudioHeader) audioFile.getAudioHeader()).getVorbisHeaderSizes(audioFile.getFile().toPath());
+        }
+        return null;
+    }
+
+    private void clearHeaderSizes(AudioFile audioFile)
+    {
+        if (audioFile != null && audioFile.getAudioHeader() instanceof OggAudioHeader)
+        {
+            ((OggAudioHeader) audioFile.getAudioHeader()).clearVorbisHeaderSizes();
+        }
     }
 
     protected void deleteTag(Tag tag, RandomAccessFile raf, RandomAccessFile tempRaf) throws CannotReadException, CannotWriteException, IOException
     {
         vtw.delete(raf, tempRaf);
     }
+
+    /**
+     * The complete file is always written to the temporary file so we can write straight to the destination
+     */
+    @Override
+    protected boolean writeTagToNewFile(AudioFile audioFile, Tag tag, Path source, Path destination) throws CannotReadException, CannotWriteException, IOException
+    {
+        writeTagUsingDestinationAsTempFile(audioFile, tag, source, destination);
+        return true;
+    }
 }
@@ -22,6 +22,7 @@ import org.jaudiotagger.audio.ogg.util.VorbisHeader;
 import org.jaudiotagger.audio.ogg.util.VorbisPacketType;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.vorbiscomment.VorbisCommentCreator;
+import org.jaudiotagger.tag.vorbiscomment.VorbisCommentTag;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
@@ -45,8 +46,8 @@ public class OggVorbisCommentTagCreator
     //Creates the ByteBuffer for the ogg tag
     public ByteBuffer convert(Tag tag) throws UnsupportedEncodingException
     {
-        ByteBuffer ogg = creator.convertMetadata(tag);
-        int tagLength = ogg.capacity() + VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH + OggVorbisCommentTagCreator.FIELD_FRAMING_BIT_LENGTH;
+        VorbisCommentTag vorbisTag = (VorbisCommentTag) tag;
+        int tagLength = creator.getLength(vorbisTag) + VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH + OggVorbisCommentTagCreator.FIELD_FRAMING_BIT_LENGTH;
 
         ByteBuffer buf = ByteBuffer.allocate(tagLength);
 
@@ -54,8 +55,8 @@ public class OggVorbisCommentTagCreator
         buf.put((byte) VorbisPacketType.COMMENT_HEADER.getType());
         buf.put(VorbisHeader.CAPTURE_PATTERN_AS_BYTES);
 
-        //The actual tag
-        buf.put(ogg);
+        //The actual tag, written directly rather than copied from a separate buffer
+        creator.write(vorbisTag, buf);
 
         //Framing bit = 1
         buf.put(FRAMING_BIT_VALID_VALUE);
@@ -21,6 +21,7 @@ package org.jaudiotagger.audio.ogg;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.ogg.util.OggPageHeader;
+import org.jaudiotagger.audio.ogg.util.OggPageReader;
 import org.jaudiotagger.audio.ogg.util.VorbisHeader;
 import org.jaudiotagger.audio.ogg.util.VorbisPacketType;
 import org.jaudiotagger.logging.ErrorMessage;
@@ -31,8 +32,10 @@ import org.jaudiotagger.tag.vorbiscomment.VorbisCommentTag;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -68,7 +71,7 @@ public class OggVorbisTagReader
     public Tag read(RandomAccessFile raf) throws CannotReadException, IOException
     {
         logger.config("Starting to read ogg vorbis tag from file:");
-        byte[] rawVorbisCommentData = readRawPacketData(raf);
+        ByteBuffer rawVorbisCommentData = readRawPacket(raf);
 
         //Begin tag reading
         VorbisCommentTag tag = vorbisCommentReader.read(rawVorbisCommentData, true, null);
@@ -86,8 +89,7 @@ public class OggVorbisTagReader
      */
     public int readOggVorbisRawSize(RandomAccessFile raf) throws CannotReadException, IOException
     {
-        byte[] rawVorbisCommentData = readRawPacketData(raf);
-        return rawVorbisCommentData.length + VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH;
+        return readRawPacket(raf).limit();
     }
 
     /**
@@ -99,28 +101,121 @@ public class OggVorbisTagReader
      * @throws IOException
      */
     public byte[] readRawPacketData(RandomAccessFile raf) throws CannotReadException, IOException
+    {
+        ByteBuffer packet = readRawPacket(raf);
+        return Arrays.copyOfRange(packet.array(), packet.position(), packet.limit());
+    }
+
+    /**
+     * Read the VorbisComment packet, which may be spread over many pages, in one go
+     *
+     * @param raf
+     * @return buffer containing the whole packet positioned after the OggVorbis header
+     * @throws CannotReadException if unable to find vorbiscomment header
+     * @throws IOException
+     */
+    private ByteBuffer readRawPacket(RandomAccessFile raf) throws CannotReadException, IOException
+    {
+        OggPageReader pageReader = new OggPageReader(raf.getChannel());
+        readToCommentPage(pageReader);
+        return readRawPacket(pageReader);
+    }
+
+    private void readToCommentPage(OggPageReader pageReader) throws CannotReadException, IOException
     {
         logger.fine("Read 1st page");
         //1st page = codec infos
-        OggPageHeader pageHeader = OggPageHeader.read(raf);
-        //Skip over data to end of page header 1
-        raf.seek(raf.getFilePointer() + pageHeader.getPageLength());
+        pageReader.readFirstPage();
 
         logger.fine("Read 2nd page");
         //2nd page = comment, may extend to additional pages or not , may also have setup header
-        pageHeader = OggPageHeader.read(raf);
+        pageReader.nextPage();
+    }
 
-        //Now at start of packets on page 2 , check this is the vorbis comment header 
-        byte[] b = new byte[VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH];
-        raf.read(b);
-        if (!isVorbisCommentHeader(b))
+    private ByteBuffer readRawPacket(OggPageReader pageReader) throws CannotReadException, IOException
+    {
+        ByteBuffer packet = pageReader.readPacket();
+
+        //Check this is the vorbis comment header
+        if (!isVorbisCommentHeader(packet))
         {
             throw new CannotReadException("Cannot find comment block (no vorbiscomment header)");
         }
+        packet.position(VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH);
+        return packet;
+    }
+
+    /**
+     * Read the Logical VorbisComment Tag from the file, then carry on over the setup header so that the sizes of the
+     * header packets can be recorded in the audio header, a later write can then use them rather than having to
+     * read all the header pages again.
+     *
+     * @param raf
+     * @param header audio header of the file
+     * @return
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    public Tag read(RandomAccessFile raf, OggAudioHeader header) throws CannotReadException, IOException
+    {
+        logger.config("Starting to read ogg vorbis tag and header sizes from file:");
+        OggPageReader pageReader = new OggPageReader(raf.getChannel());
+        readToCommentPage(pageReader);
+        long commentHeaderStartPosition = pageReader.getPageStart();
+        ByteBuffer rawVorbisCommentData = readRawPacket(pageReader);
+        VorbisCommentTag tag = vorbisCommentReader.read(rawVorbisCommentData, true, null);
+        logger.fine("CompletedReadCommentTag");
+
+        //Sizes are only needed by a later write which can read them itself, so a missing or invalid setup header
+        //does not stop the tag being read
+        try
+        {
+            recordHeaderSizes(raf, pageReader, header, commentHeaderStartPosition, rawVorbisCommentData.limit());
+        }
+        catch (CannotReadException cre)
+        {
+            logger.warning("Unable to record ogg vorbis header sizes:" + cre.getMessage());
+        }
+        return tag;
+    }
+
+    /**
+     * Carry on from the end of the comment header over the setup header, recording the sizes of the header packets
+     *
+     * @param raf
+     * @param pageReader positioned at the end of the comment header
+     * @param header
+     * @param commentHeaderStartPosition
+     * @param commentHeaderSize
+     * @throws CannotReadException if the setup header is missing or invalid
+     * @throws IOException
+     */
+    private void recordHeaderSizes(RandomAccessFile raf, OggPageReader pageReader, OggAudioHeader header, long commentHeaderStartPosition, int commentHeaderSize) throws CannotReadException, IOException
+    {
+        //Setup header starts on the next page if the comment finished at the end of the page
+        if (pageReader.isEndOfPage())
+        {
+            pageReader.nextPage();
+        }
+        long setupHeaderStartPosition = pageReader.getPageStart();
 
-        //Convert the comment raw data which maybe over many pages back into raw packet
-        byte[] rawVorbisCommentData = convertToVorbisCommentPacket(pageHeader, raf);
-        return rawVorbisCommentData;
+        byte[] b = new byte[VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH];
+        raf.getChannel().read(ByteBuffer.wrap(b), pageReader.getPacketPosition());
+        if (!isVorbisSetupHeader(b))
+        {
+            throw new CannotReadException(ErrorMessage.OGG_VORBIS_NO_VORBIS_HEADER_FOUND.getMsg());
+        }
+        int setupHeaderSize = pageReader.skipPacket();
+        header.setVorbisHeaderSizes(new OggVorbisHeaderSizes(commentHeaderStartPosition, setupHeaderStartPosition, commentHeaderSize, setupHeaderSize, pageReader.getRemainingPacketList()));
+    }
+
+    /**
+     * @param packet
+     * @return true if the packet starts with a VorbisComment header
+     */
+    private boolean isVorbisCommentHeader(ByteBuffer packet)
+    {
+        return packet.limit() >= VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH && isVorbisCommentHeader(packet.array());
     }
 
 
@@ -150,64 +245,6 @@ public class OggVorbisTagReader
         return !(headerData[VorbisHeader.FIELD_PACKET_TYPE_POS] != VorbisPacketType.SETUP_HEADER.getType() || !vorbis.equals(VorbisHeader.CAPTURE_PATTERN));
     }
 
-    /**
-     * The Vorbis Comment may span multiple pages so we we need to identify the pages they contain and then
-     * extract the packet data from the pages
-     * @param startVorbisCommentPage
-     * @param raf
-     * @throws org.jaudiotagger.audio.exceptions.CannotReadException
-     * @throws java.io.IOException
-     * @return
-     */
-    private byte[] convertToVorbisCommentPacket(OggPageHeader startVorbisCommentPage, RandomAccessFile raf) throws IOException, CannotReadException
-    {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] b = new byte[startVorbisCommentPage.getPacketList().get(0).getLength() - (VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH)];
-        raf.read(b);
-        baos.write(b);
-
-        //Because there is at least one other packet (SetupHeaderPacket) this means the Comment Packet has finished
-        //on this page so thats all we need and we can return
-        if (startVorbisCommentPage.getPacketList().size() > 1)
-        {
-            logger.config("Comments finish on 2nd Page because there is another packet on this page");
-            return baos.toByteArray();
-        }
-
-        //There is only the VorbisComment packet on page if it has completed on this page we can return
-        if (!startVorbisCommentPage.isLastPacketIncomplete())
-        {
-            logger.config("Comments finish on 2nd Page because this packet is complete");
-            return baos.toByteArray();
-        }
-
-        //The VorbisComment extends to the next page, so should be at end of page already
-        //so carry on reading pages until we get to the end of comment
-        while (true)
-        {
-            logger.config("Reading next page");
-            OggPageHeader nextPageHeader = OggPageHeader.read(raf);
-            b = new byte[nextPageHeader.getPacketList().get(0).getLength()];
-            raf.read(b);
-            baos.write(b);
-
-            //Because there is at least one other packet (SetupHeaderPacket) this means the Comment Packet has finished
-            //on this page so thats all we need and we can return
-            if (nextPageHeader.getPacketList().size() > 1)
-            {
-                logger.config("Comments finish on Page because there is another packet on this page");
-                return baos.toByteArray();
-            }
-
-            //There is only the VorbisComment packet on page if it has completed on this page we can return
-            if (!nextPageHeader.isLastPacketIncomplete())
-            {
-                logger.config("Comments finish on Page because this packet is complete");
-                return baos.toByteArray();
-            }
-        }
-    }
-
     /**
      * The Vorbis Setup Header may span multiple(2) pages, athough it doesnt normally. We pass the start of the
      * file offset of the OggPage it belongs on, it probably won't be first packet.
@@ -219,78 +256,23 @@ public class OggVorbisTagReader
      */
     public byte[] convertToVorbisSetupHeaderPacket(long fileOffsetOfStartingOggPage, RandomAccessFile raf) throws IOException, CannotReadException
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        //Seek to specified offset
-        raf.seek(fileOffsetOfStartingOggPage);
-
-        //Read Page
-        OggPageHeader setupPageHeader = OggPageHeader.read(raf);
+        OggPageReader pageReader = new OggPageReader(raf.getChannel());
+        pageReader.readPage(fileOffsetOfStartingOggPage);
 
         //Assume that if multiple packets first packet is VorbisComment and second packet
         //is setupheader
-        if (setupPageHeader.getPacketList().size() > 1)
+        if (pageReader.getPacketCount() > 1)
         {
-            raf.skipBytes(setupPageHeader.getPacketList().get(0).getLength());
+            pageReader.skipPacket();
         }
 
         //Now should be at start of next packet, check this is the vorbis setup header
-        byte[] b = new byte[VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH];
-        raf.read(b);
-        if (!isVorbisSetupHeader(b))
+        byte[] setupHeader = pageReader.readPacket().array();
+        if (setupHeader.length < VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH || !isVorbisSetupHeader(setupHeader))
         {
             throw new CannotReadException("Unable to find setup header(2), unable to write ogg file");
         }
-
-        //Go back to start of setupheader data
-        raf.seek(raf.getFilePointer() - (VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH));
-
-        //Read data
-        if (setupPageHeader.getPacketList().size() > 1)
-        {
-            b = new byte[setupPageHeader.getPacketList().get(1).getLength()];
-            raf.read(b);
-            baos.write(b);
-        }
-        else
-        {
-            b = new byte[setupPageHeader.getPacketList().get(0).getLength()];
-            raf.read(b);
-            baos.write(b);
-        }
-
-        //Return Data
-        if (!setupPageHeader.isLastPacketIncomplete() || setupPageHeader.getPacketList().size() > 2)
-        {
-            logger.config("Setupheader finishes on this page");
-            return baos.toByteArray();
-        }
-
-        //The Setupheader extends to the next page, so should be at end of page already
-        //so carry on reading pages until we get to the end of comment
-        while (true)
-        {
-            logger.config("Reading another page");
-            OggPageHeader nextPageHeader = OggPageHeader.read(raf);
-            b = new byte[nextPageHeader.getPacketList().get(0).getLength()];
-            raf.read(b);
-            baos.write(b);
-
-            //Because there is at least one other packet this means the Setupheader Packet has finished
-            //on this page so thats all we need and we can return
-            if (nextPageHeader.getPacketList().size() > 1)
-            {
-                logger.config("Setupheader finishes on this page");
-                return baos.toByteArray();
-            }
-
-            //There is only the Setupheader packet on page if it has completed on this page we can return
-            if (!nextPageHeader.isLastPacketIncomplete())
-            {
-                logger.config("Setupheader finish on Page because this packet is complete");
-                return baos.toByteArray();
-            }
-        }
+        return setupHeader;
     }
 
 
@@ -33,6 +33,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -69,6 +70,38 @@ public class OggVorbisTagWriter
     }
 
     public void write(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotReadException, CannotWriteException, IOException
+    {
+        write(tag, raf, rafTemp.getChannel());
+    }
+
+    /**
+     * Write a complete copy of the file with the new tag to out, raf is only read
+     *
+     * @param tag
+     * @param raf
+     * @param out either the channel of the temporary file or a memory based channel
+     * @throws CannotReadException
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    public void write(Tag tag, RandomAccessFile raf, WritableByteChannel out) throws CannotReadException, CannotWriteException, IOException
+    {
+        write(tag, raf, out, null);
+    }
+
+    /**
+     * Write a complete copy of the file with the new tag to out, raf is only read
+     *
+     * @param tag
+     * @param raf
+     * @param out either the channel of the temporary file or a memory based channel
+     * @param knownHeaderSizes sizes of the header packets recorded when the file was read, if null they are read
+     * from the file
+     * @throws CannotReadException
+     * @throws CannotWriteException
+     * @throws IOException
+     */
+    public void write(Tag tag, RandomAccessFile raf, WritableByteChannel out, OggVorbisTagReader.OggVorbisHeaderSizes knownHeaderSizes) throws CannotReadException, CannotWriteException, IOException
     {
         logger.config("Starting to write file:");
 
@@ -78,8 +111,9 @@ public class OggVorbisTagWriter
         raf.seek(pageHeader.getStartByte());
 
         //Write 1st page (unchanged) and place writer pointer at end of data
-        rafTemp.getChannel().transferFrom(raf.getChannel(), 0, pageHeader.getPageLength() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + pageHeader.getSegmentTable().length);
-        rafTemp.skipBytes(pageHeader.getPageLength() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + pageHeader.getSegmentTable().length);
+        int firstPageLength = pageHeader.getPageLength() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + pageHeader.getSegmentTable().length;
+        Utils.transferFully(raf.getChannel(), pageHeader.getStartByte(), firstPageLength, out);
+        raf.seek(pageHeader.getStartByte() + firstPageLength);
         logger.fine("Written identificationHeader:");
 
         //2nd page:Comment and Setup if there is enough room, may also (although not normally) contain audio frames
@@ -89,9 +123,17 @@ public class OggVorbisTagWriter
         long secondPageHeaderEndPos = raf.getFilePointer();
         logger.fine("Read 2nd Page:comment and setup and possibly audio:Header finishes at file position:" + secondPageHeaderEndPos);
 
-        //Get header sizes
+        //Get header sizes, unless already known from when the file was read
         raf.seek(0);
-        OggVorbisTagReader.OggVorbisHeaderSizes vorbisHeaderSizes = reader.readOggVorbisHeaderSizes(raf);
+        OggVorbisTagReader.OggVorbisHeaderSizes vorbisHeaderSizes = knownHeaderSizes;
+        if (vorbisHeaderSizes == null)
+        {
+            vorbisHeaderSizes = reader.readOggVorbisHeaderSizes(raf);
+        }
+        else
+        {
+            logger.fine("Using header sizes recorded when file was read");
+        }
 
         //Convert the OggVorbisComment header to raw packet data
         ByteBuffer newComment = tc.convert(tag);
@@ -125,20 +167,20 @@ public class OggVorbisTagWriter
             if ((secondPageHeader.getPageLength() < OggPageHeader.MAXIMUM_PAGE_DATA_SIZE) && (((secondPageHeader.getPacketList().size() == 2) && (!secondPageHeader.isLastPacketIncomplete())) || (secondPageHeader.getPacketList().size() > 2)))
             {
                 logger.fine("Header and Setup remain on single page:");
-                replaceSecondPageOnly(vorbisHeaderSizes, newCommentLength, newSecondPageDataLength, secondPageHeader, newComment, secondPageHeaderEndPos, raf, rafTemp);
+                replaceSecondPageOnly(vorbisHeaderSizes, newCommentLength, newSecondPageDataLength, secondPageHeader, newComment, secondPageHeaderEndPos, raf, out);
             }
             //Original 2nd page spanned multiple pages so more work to do
             else
             {
                 logger.fine("Header and Setup now on single page:");
-                replaceSecondPageAndRenumberPageSeqs(vorbisHeaderSizes, newCommentLength, newSecondPageDataLength, secondPageHeader, newComment, raf, rafTemp);
+                replaceSecondPageAndRenumberPageSeqs(vorbisHeaderSizes, newCommentLength, newSecondPageDataLength, secondPageHeader, newComment, raf, out);
             }
         }
         //Bit more complicated, have to create more than one new page and renumber subsequent audio
         else
         {
             logger.fine("Header and Setup with shift audio:");
-            replacePagesAndRenumberPageSeqs(vorbisHeaderSizes, newCommentLength, secondPageHeader, newComment, raf, rafTemp);
+            replacePagesAndRenumberPageSeqs(vorbisHeaderSizes, newCommentLength, secondPageHeader, newComment, raf, out);
         }
     }
 
@@ -220,7 +262,7 @@ public class OggVorbisTagWriter
      * @param newComment
      * @param secondPageHeaderEndPos
      * @param raf
-     * @param rafTemp
+     * @param out
      * @throws IOException
      */
     private void replaceSecondPageOnly(
@@ -231,7 +273,7 @@ public class OggVorbisTagWriter
             ByteBuffer newComment,
             long secondPageHeaderEndPos,
             RandomAccessFile raf,
-            RandomAccessFile rafTemp) throws IOException
+            WritableByteChannel out) throws IOException
     {
         logger.fine("WriteOgg Type 1");
         ByteBuffer secondPageBuffer = startCreateBasicSecondPage(vorbisHeaderSizes, newCommentLength, newSecondPageLength, secondPageHeader, newComment);
@@ -242,8 +284,8 @@ public class OggVorbisTagWriter
         //Read in setup header and extra packets
         raf.getChannel().read(secondPageBuffer);
         calculateChecksumOverPage(secondPageBuffer);
-        rafTemp.getChannel().write(secondPageBuffer);
-        rafTemp.getChannel().transferFrom(raf.getChannel(), rafTemp.getFilePointer(), raf.length() - raf.getFilePointer());
+        out.write(secondPageBuffer);
+        Utils.transferFully(raf.getChannel(), raf.getFilePointer(), raf.length() - raf.getFilePointer(), out);
     }
 
     /**
@@ -256,12 +298,12 @@ public class OggVorbisTagWriter
      * @param secondPageHeader
      * @param newComment
      * @param raf
-     * @param rafTemp
+     * @param out
      * @throws IOException
      * @throws org.jaudiotagger.audio.exceptions.CannotReadException
      * @throws org.jaudiotagger.audio.exceptions.CannotWriteException
      */
-    private void replaceSecondPageAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, int newSecondPageLength, OggPageHeader secondPageHeader, ByteBuffer newComment, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    private void replaceSecondPageAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, int newSecondPageLength, OggPageHeader secondPageHeader, ByteBuffer newComment, RandomAccessFile raf, WritableByteChannel out) throws IOException, CannotReadException, CannotWriteException
     {
         logger.fine("WriteOgg Type 2");
         ByteBuffer secondPageBuffer = startCreateBasicSecondPage(originalHeaderSizes, newCommentLength, newSecondPageLength, secondPageHeader, newComment);
@@ -273,8 +315,8 @@ public class OggVorbisTagWriter
         secondPageBuffer.put(setupHeaderData);
 
         calculateChecksumOverPage(secondPageBuffer);
-        rafTemp.getChannel().write(secondPageBuffer);
-        writeRemainingPages(pageSequence, raf, rafTemp);
+        out.write(secondPageBuffer);
+        writeRemainingPages(pageSequence, raf, out);
     }
 
     /**
@@ -286,12 +328,12 @@ public class OggVorbisTagWriter
      * @param secondPageHeader
      * @param newComment
      * @param raf
-     * @param rafTemp
+     * @param out
      * @throws IOException
      * @throws CannotReadException
      * @throws CannotWriteException
      */
-    private void replacePagesAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, OggPageHeader secondPageHeader, ByteBuffer newComment, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    private void replacePagesAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, OggPageHeader secondPageHeader, ByteBuffer newComment, RandomAccessFile raf, WritableByteChannel out) throws IOException, CannotReadException, CannotWriteException
     {
         int pageSequence = secondPageHeader.getPageSequence();
 
@@ -335,7 +377,7 @@ public class OggVorbisTagWriter
                     pageBuffer.put(OggPageHeader.FIELD_HEADER_TYPE_FLAG_POS, OggPageHeader.HeaderTypeFlag.CONTINUED_PACKET.getFileValue());
                 }
                 calculateChecksumOverPage(pageBuffer);
-                rafTemp.getChannel().write(pageBuffer);
+                out.write(pageBuffer);
                 newCommentOffset += OggPageHeader.MAXIMUM_PAGE_DATA_SIZE;
                 newComment.position(newCommentOffset);
             }
@@ -372,7 +414,7 @@ public class OggVorbisTagWriter
                 logger.fine("Writing Last Comment Page "+pageSequence +" to file");
                 pageSequence++;
                 calculateChecksumOverPage(pageBuffer);
-                rafTemp.getChannel().write(pageBuffer);
+                out.write(pageBuffer);
             }
 
             //Now write header and extra packets onto next page
@@ -394,7 +436,7 @@ public class OggVorbisTagWriter
                 logger.fine("Writing Setup Header and packets Page "+pageSequence +" to file");
 
                 calculateChecksumOverPage(pageBuffer);
-                rafTemp.getChannel().write(pageBuffer);
+                out.write(pageBuffer);
             }
         }
         else
@@ -426,11 +468,11 @@ public class OggVorbisTagWriter
             //Set Header Flag to indicate continuous (contains end of comment)
             lastHeaderBuffer.put(OggPageHeader.FIELD_HEADER_TYPE_FLAG_POS, OggPageHeader.HeaderTypeFlag.CONTINUED_PACKET.getFileValue());
             calculateChecksumOverPage(lastHeaderBuffer);
-            rafTemp.getChannel().write(lastHeaderBuffer);
+            out.write(lastHeaderBuffer);
         }
 
         //Write the rest of the original file
-        writeRemainingPages(pageSequence, raf, rafTemp);
+        writeRemainingPages(pageSequence, raf, out);
     }
 
     /**
@@ -444,9 +486,23 @@ public class OggVorbisTagWriter
      * @throws CannotWriteException
      */
     public void writeRemainingPages(int pageSequence, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    {
+        writeRemainingPages(pageSequence, raf, rafTemp.getChannel());
+    }
+
+    /**
+     * Write all the remaining pages as they are except that the page sequence needs to be modified.
+     *
+     * @param pageSequence
+     * @param raf
+     * @param out
+     * @throws IOException
+     * @throws CannotReadException
+     * @throws CannotWriteException
+     */
+    public void writeRemainingPages(int pageSequence, RandomAccessFile raf, WritableByteChannel out) throws IOException, CannotReadException, CannotWriteException
     {
         long startAudio = raf.getFilePointer();
-        long startAudioWritten = rafTemp.getFilePointer();
 
         //TODO there is a risk we wont have enough memory to create these buffers
         ByteBuffer bb       = ByteBuffer.allocate((int) (raf.length() - raf.getFilePointer()));
@@ -495,13 +551,17 @@ public class OggVorbisTagWriter
         }
         //Now just write as a single IO operation
         bbTemp.flip();
-        rafTemp.getChannel().write(bbTemp);
+        long newAudioLength = bbTemp.limit();
+        while (bbTemp.hasRemaining())
+        {
+            out.write(bbTemp);
+        }
         //Check we have written all the data (minus any invalid Tag at end)
-        if ((raf.length() - startAudio) != ((rafTemp.length() + bytesToDiscard) - startAudioWritten))
+        if ((raf.length() - startAudio) != (newAudioLength + bytesToDiscard))
         {
             throw new CannotWriteException("File written counts don't match, file not written:"
                     +"origAudioLength:"+(raf.length() - startAudio)
-                    +":newAudioLength:"+((rafTemp.length() + bytesToDiscard) - startAudioWritten)
+                    +":newAudioLength:"+(newAudioLength + bytesToDiscard)
                     +":bytesDiscarded:"+bytesToDiscard);
         }
     }
@@ -0,0 +1,68 @@
+package org.jaudiotagger.audio.ogg.util;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioDataDigest;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Logger;
+
+/**
+ * Calculate a digest of the audio of an Ogg file that does not change when the tag is changed
+ *
+ * Only the data of each audio page is used, not its header. When the comment header is rewritten over a different
+ * number of pages the audio pages are renumbered, changing the page sequence number and checksum in each header,
+ * but the data itself is not changed.
+ */
+public class OggAudioDataDigest
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg");
+
+    /**
+     * @param file
+     * @param start position of the first audio page
+     * @param end position after the last audio page
+     * @param algorithm such as MD5, SHA-1 or SHA-256
+     * @return the digest of the data of the audio pages
+     * @throws NoSuchAlgorithmException
+     * @throws IOException
+     * @throws CannotReadException if there is no page at start
+     */
+    public static byte[] digest(Path file, long start, long end, String algorithm) throws NoSuchAlgorithmException, IOException, CannotReadException
+    {
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            end = Math.min(end, fc.size());
+            OggPageReader pageReader = new OggPageReader(fc);
+            pageReader.readPage(start);
+            while (true)
+            {
+                AudioDataDigest.update(digest, fc, pageReader.getPageStart() + pageReader.getHeaderLength(), Math.min(pageReader.getNextPageStart(), end));
+                if (pageReader.getNextPageStart() >= end || !pageReader.hasNextPage())
+                {
+                    break;
+                }
+
+                try
+                {
+                    pageReader.nextPage();
+                }
+                catch (CannotReadException cre)
+                {
+                    //Not a page, so include the rest of the file as it is
+                    logger.warning(file + ":No Ogg page at:" + pageReader.getNextPageStart() + ":" + cre.getMessage());
+                    AudioDataDigest.update(digest, fc, pageReader.getNextPageStart(), end);
+                    break;
+                }
+            }
+        }
+        logger.finest(file + ":Calculated " + algorithm + " of audio pages from:" + start + ":to:" + end);
+        return digest.digest();
+    }
+}
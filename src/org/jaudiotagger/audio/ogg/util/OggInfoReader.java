@@ -21,9 +21,10 @@ package org.jaudiotagger.audio.ogg.util;
 
 import org.jaudiotagger.audio.SupportedFileFormat;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.ogg.OggAudioHeader;
 import org.jaudiotagger.logging.ErrorMessage;
+import org.jaudiotagger.tag.TagOptionSingleton;
 import org.jaudiotagger.tag.id3.AbstractID3v2Tag;
 
 import java.io.IOException;
@@ -39,10 +40,10 @@ public class OggInfoReader
     // Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg.atom");
 
-    public GenericAudioHeader read(RandomAccessFile raf) throws CannotReadException, IOException
+    public OggAudioHeader read(RandomAccessFile raf) throws CannotReadException, IOException
     {
         long start = raf.getFilePointer();
-        GenericAudioHeader info = new GenericAudioHeader();
+        OggAudioHeader info = new OggAudioHeader();
         logger.fine("Started");
         long oldPos;
 
@@ -117,6 +118,21 @@ public class OggInfoReader
         raf.read(vorbisData);
         VorbisIdentificationHeader vorbisIdentificationHeader = new VorbisIdentificationHeader(vorbisData);
 
+        info.setAudioDataStartPosition(findAudioDataStartPosition(raf));
+        info.setAudioDataEndPosition(raf.length());
+
+        //Optionally index the audio pages, this also gives the exact number of samples in the stream
+        int pageIndexInterval = TagOptionSingleton.getInstance().getOggPageIndexInterval();
+        if (pageIndexInterval > 0)
+        {
+            OggPageIndex pageIndex = OggPageIndexGenerator.generate(raf.getChannel(), info.getAudioDataStartPosition(), (long) pageIndexInterval * vorbisIdentificationHeader.getSamplingRate());
+            info.setPageIndex(pageIndex);
+            if (pageIndex.getLastGranulePosition() != -1)
+            {
+                pcmSamplesNumber = pageIndex.getLastGranulePosition();
+            }
+        }
+
         //Map to generic encodingInfo
         info.setPreciseLength((float) (pcmSamplesNumber / vorbisIdentificationHeader.getSamplingRate()));
         info.setChannelNumber(vorbisIdentificationHeader.getChannelNumber());
@@ -141,6 +157,12 @@ public class OggInfoReader
             info.setBitRate(vorbisIdentificationHeader.getNominalBitrate() / 1000);
             info.setVariableBitRate(true);
         }
+        else if (info.getPageIndex() != null)
+        {
+            //Have read every audio page so know the size of the audio exactly
+            info.setBitRate(computeBitrate(info.getTrackLength(), info.getAudioDataEndPosition() - info.getAudioDataStartPosition()));
+            info.setVariableBitRate(true);
+        }
         else
         {
             //TODO need to remove comment from raf.getLength()
@@ -150,6 +172,40 @@ public class OggInfoReader
         return info;
     }
 
+    /**
+     * Find the first page after the comment and setup header packets, the pages from here on only contain audio.
+     *
+     * If the setup header ends part way through a page the audio packets on that page are not included, but that
+     * page is rewritten whenever the comment changes anyway.
+     *
+     * @param raf positioned after the identification header page, position is not changed
+     * @return location of first audio page
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    private long findAudioDataStartPosition(RandomAccessFile raf) throws IOException, CannotReadException
+    {
+        long filePointer = raf.getFilePointer();
+
+        //Comment and Setup header, a packet ends with the first segment that is less than the maximum size
+        int noOfHeaderPackets = 2;
+        while (noOfHeaderPackets > 0 && raf.getFilePointer() < raf.length())
+        {
+            OggPageHeader pageHeader = OggPageHeader.read(raf);
+            for (byte segment : pageHeader.getSegmentTable())
+            {
+                if ((segment & 0xFF) < OggPageHeader.MAXIMUM_SEGMENT_SIZE)
+                {
+                    noOfHeaderPackets--;
+                }
+            }
+            raf.seek(raf.getFilePointer() + pageHeader.getPageLength());
+        }
+        long audioDataStart = raf.getFilePointer();
+        raf.seek(filePointer);
+        return audioDataStart;
+    }
+
     private int computeBitrate(int length, long size)
     {
         //Protect against audio less than 0.5 seconds that can be rounded to zero causing Arithmetic Exception
@@ -0,0 +1,165 @@
+package org.jaudiotagger.audio.ogg.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Index of the pages of an Ogg stream held in primitive arrays, ordered by granule position
+ *
+ * Each index point gives the granule position at the end of a page and the offset of the following page from the
+ * start of the audio, so decoding from that offset continues from that granule position. For Vorbis the granule
+ * position is the number of samples. Offsets are relative to the first audio page so the index remains valid when
+ * the tag is rewritten, as that only changes the header pages before it.
+ *
+ * A player wanting granule position n starts reading at {@link #getPageOffsetForGranule(long)} rather than having to
+ * bisect the file. The index is Serializable so it can be cached alongside the file.
+ */
+public class OggPageIndex implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] granulePositions = new long[INITIAL_CAPACITY];
+    private long[] pageOffsets      = new long[INITIAL_CAPACITY];
+    private int    count;
+
+    private long lastGranulePosition = -1;
+
+    /**
+     * Create an empty index, index points can then be added in granule position order
+     */
+    public OggPageIndex()
+    {
+
+    }
+
+    /**
+     * Add index point, must have a higher granule position than those already added
+     *
+     * @param granulePosition granule position at the end of a page
+     * @param pageOffset offset of the following page from the first audio page
+     */
+    public void add(long granulePosition, long pageOffset)
+    {
+        if (count > 0 && granulePosition <= granulePositions[count - 1])
+        {
+            throw new IllegalArgumentException("Index points must be added in ascending granule position order:" + granulePosition);
+        }
+        if (count == granulePositions.length)
+        {
+            int newCapacity = Math.max(INITIAL_CAPACITY, count * 2);
+            granulePositions = Arrays.copyOf(granulePositions, newCapacity);
+            pageOffsets      = Arrays.copyOf(pageOffsets, newCapacity);
+        }
+        granulePositions[count] = granulePosition;
+        pageOffsets[count]      = pageOffset;
+        count++;
+    }
+
+    /**
+     * @return number of index points
+     */
+    public int getNoOfIndexPoints()
+    {
+        return count;
+    }
+
+    public long getGranulePosition(int index)
+    {
+        return granulePositions[index];
+    }
+
+    public long getPageOffset(int index)
+    {
+        return pageOffsets[index];
+    }
+
+    /**
+     * @return the granule position of the last page of the stream, -1 if not known
+     */
+    public long getLastGranulePosition()
+    {
+        return lastGranulePosition;
+    }
+
+    public void setLastGranulePosition(long lastGranulePosition)
+    {
+        this.lastGranulePosition = lastGranulePosition;
+    }
+
+    /**
+     * @param granulePosition
+     * @return index of the index point with the highest granule position not after granulePosition, or -1 if there
+     * is none
+     */
+    public int indexOf(long granulePosition)
+    {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (granulePositions[mid] <= granulePosition)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @param granulePosition
+     * @return offset from the first audio page of the page to start reading from in order to reach granulePosition,
+     * 0 if there is no index point before it
+     */
+    public long getPageOffsetForGranule(long granulePosition)
+    {
+        int index = indexOf(granulePosition);
+        return index == -1 ? 0 : pageOffsets[index];
+    }
+
+    /**
+     * Release the unused capacity of the arrays, called when the index is complete
+     */
+    public void trimToSize()
+    {
+        granulePositions = Arrays.copyOf(granulePositions, count);
+        pageOffsets      = Arrays.copyOf(pageOffsets, count);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        trimToSize();
+        out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        if (granulePositions == null || pageOffsets == null || count < 0 || count > granulePositions.length || count > pageOffsets.length)
+        {
+            throw new InvalidObjectException("Invalid OggPageIndex:noOfIndexPoints:" + count);
+        }
+        for (int i = 1; i < count; i++)
+        {
+            if (granulePositions[i] <= granulePositions[i - 1])
+            {
+                throw new InvalidObjectException("Invalid OggPageIndex:granule positions not in ascending order at:" + i);
+            }
+        }
+    }
+
+    public String toString()
+    {
+        return "OggPageIndex:noOfIndexPoints:" + count + ":lastGranulePosition:" + lastGranulePosition;
+    }
+}
@@ -0,0 +1,77 @@
+package org.jaudiotagger.audio.ogg.util;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.logging.Logger;
+
+/**
+ * Build an {@link OggPageIndex} by scanning the audio pages of an Ogg file
+ *
+ * Only the page headers are read, the audio data of each page is skipped using the length given by its segment
+ * table, so the scan reads a small fraction of the file.
+ */
+public class OggPageIndexGenerator
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg.atom");
+
+    //Pages with no packet ending on them have this granule position
+    private static final long NO_GRANULE_POSITION = -1;
+
+    /**
+     * @param fc
+     * @param audioStart position of the first audio page
+     * @param granulesBetweenIndexPoints for Vorbis the number of samples between index points
+     * @return index of pages in the same logical stream as the first audio page
+     * @throws IOException
+     * @throws CannotReadException if there is no page at audioStart
+     */
+    public static OggPageIndex generate(FileChannel fc, long audioStart, long granulesBetweenIndexPoints) throws IOException, CannotReadException
+    {
+        if (granulesBetweenIndexPoints <= 0)
+        {
+            throw new IllegalArgumentException("Granules between index points must be positive:" + granulesBetweenIndexPoints);
+        }
+
+        OggPageIndex index = new OggPageIndex();
+        OggPageReader pageReader = new OggPageReader(fc);
+        pageReader.readPage(audioStart);
+
+        int serialNumber = pageReader.getSerialNumber();
+        long nextIndexPoint = granulesBetweenIndexPoints;
+        while (true)
+        {
+            long granulePosition = pageReader.getAbsoluteGranulePosition();
+            if (pageReader.getSerialNumber() == serialNumber && granulePosition != NO_GRANULE_POSITION)
+            {
+                if (granulePosition >= nextIndexPoint && pageReader.hasNextPage())
+                {
+                    index.add(granulePosition, pageReader.getNextPageStart() - audioStart);
+                    nextIndexPoint = granulePosition + granulesBetweenIndexPoints;
+                }
+                index.setLastGranulePosition(granulePosition);
+            }
+
+            if (!pageReader.hasNextPage())
+            {
+                break;
+            }
+
+            try
+            {
+                pageReader.nextPage();
+            }
+            catch (CannotReadException cre)
+            {
+                //Truncated or corrupt end of file, index what we have
+                logger.warning("Stopped building Ogg page index at:" + pageReader.getNextPageStart() + ":" + cre.getMessage());
+                break;
+            }
+        }
+        index.trimToSize();
+        logger.config("Built " + index);
+        return index;
+    }
+}
@@ -0,0 +1,394 @@
+package org.jaudiotagger.audio.ogg.util;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.logging.ErrorMessage;
+import org.jaudiotagger.tag.id3.AbstractID3v2Tag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cursor over the pages of an Ogg file
+ *
+ * Unlike {@link OggPageHeader} which creates a new object and copies the header for every page, only the current
+ * page header is held, in a buffer that is reused for every page. Packets are read by walking the segment tables
+ * to find the total length of the packet, which may span many pages, and then reading the packet data directly
+ * from the file into a single array of that size.
+ *
+ * reference:http://xiph.org/ogg/doc/framing.html
+ */
+public class OggPageReader
+{
+    // Logger Object
+    public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg.atom");
+
+    //"OggS" read as a little endian int
+    private static final int CAPTURE_PATTERN = ByteBuffer.wrap(OggPageHeader.CAPTURE_PATTERN).order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+    private final FileChannel fc;
+
+    private final ByteBuffer header = ByteBuffer.allocate(OggPageHeader.MAXIMUM_PAGE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long pageStart = -1;
+    private int segmentCount;
+    private int pageLength;
+
+    //Position of the packet cursor within the current page
+    private int segmentIndex;
+    private int dataOffset;
+
+    //Set by nextRun()
+    private long runPosition;
+    private boolean runCompletesPacket;
+
+    /**
+     * @param fc channel to read pages from, its position is not used or changed
+     */
+    public OggPageReader(FileChannel fc)
+    {
+        this.fc = fc;
+    }
+
+    /**
+     * Read the first page of the file, skipping over an ID3 tag if the file incorrectly starts with one
+     *
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    public void readFirstPage() throws IOException, CannotReadException
+    {
+        if (!readHeader(0))
+        {
+            fc.position(0);
+            if (!AbstractID3v2Tag.isId3Tag(fc))
+            {
+                throw new CannotReadException(ErrorMessage.OGG_HEADER_CANNOT_BE_FOUND.getMsg(getCapturePattern()));
+            }
+            logger.warning(ErrorMessage.OGG_CONTAINS_ID3TAG.getMsg(fc.position()));
+            readPage(fc.position());
+        }
+    }
+
+    /**
+     * Read the page header starting at position, the packet cursor is positioned at the start of the page data
+     *
+     * @param position
+     * @throws IOException
+     * @throws CannotReadException if there is no page at this position
+     */
+    public void readPage(long position) throws IOException, CannotReadException
+    {
+        if (!readHeader(position))
+        {
+            throw new CannotReadException(ErrorMessage.OGG_HEADER_CANNOT_BE_FOUND.getMsg(getCapturePattern()));
+        }
+    }
+
+    /**
+     * Read the page header that follows the current page
+     *
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    public void nextPage() throws IOException, CannotReadException
+    {
+        readPage(getNextPageStart());
+    }
+
+    /**
+     * @return true if there is another page header after the current page
+     * @throws IOException
+     */
+    public boolean hasNextPage() throws IOException
+    {
+        return getNextPageStart() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH <= fc.size();
+    }
+
+    /**
+     * Read the header into the reusable buffer
+     *
+     * @return false if the capture pattern was not found at position
+     */
+    private boolean readHeader(long position) throws IOException, CannotReadException
+    {
+        header.clear();
+        header.limit(OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH);
+        readFully(header, position, position);
+        if (header.getInt(OggPageHeader.FIELD_CAPTURE_PATTERN_POS) != CAPTURE_PATTERN)
+        {
+            return false;
+        }
+
+        segmentCount = header.get(OggPageHeader.FIELD_PAGE_SEGMENTS_POS) & 0xFF;
+        header.limit(OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + segmentCount);
+        readFully(header, position + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH, position);
+
+        pageStart = position;
+        pageLength = 0;
+        for (int i = 0; i < segmentCount; i++)
+        {
+            pageLength += getSegmentLength(i);
+        }
+        segmentIndex = 0;
+        dataOffset = 0;
+
+        if (logger.isLoggable(Level.FINEST))
+        {
+            logger.finest("Read OggPage at:" + position + ":segments:" + segmentCount + ":length:" + pageLength);
+        }
+        return true;
+    }
+
+    /**
+     * Fill the remainder of the buffer from the file
+     */
+    private void readFully(ByteBuffer buffer, long position, long pageStart) throws IOException, CannotReadException
+    {
+        while (buffer.hasRemaining())
+        {
+            int read = fc.read(buffer, position);
+            if (read < 0)
+            {
+                throw new CannotReadException(ErrorMessage.OGG_PAGE_TRUNCATED.getMsg(pageStart, fc.size()));
+            }
+            position += read;
+        }
+    }
+
+    private String getCapturePattern()
+    {
+        return new String(header.array(), OggPageHeader.FIELD_CAPTURE_PATTERN_POS, OggPageHeader.FIELD_CAPTURE_PATTERN_LENGTH);
+    }
+
+    private int getSegmentLength(int index)
+    {
+        return header.get(OggPageHeader.FIELD_SEGMENT_TABLE_POS + index) & 0xFF;
+    }
+
+    /**
+     * @return start of the current page in the file
+     */
+    public long getPageStart()
+    {
+        return pageStart;
+    }
+
+    /**
+     * @return length of the current page header including the segment table
+     */
+    public int getHeaderLength()
+    {
+        return OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + segmentCount;
+    }
+
+    /**
+     * @return length of the data of the current page
+     */
+    public int getPageLength()
+    {
+        return pageLength;
+    }
+
+    /**
+     * @return start of the page following the current page
+     */
+    public long getNextPageStart()
+    {
+        return pageStart + getHeaderLength() + pageLength;
+    }
+
+    public long getAbsoluteGranulePosition()
+    {
+        return header.getLong(OggPageHeader.FIELD_ABSOLUTE_GRANULE_POS);
+    }
+
+    public byte getHeaderType()
+    {
+        return header.get(OggPageHeader.FIELD_HEADER_TYPE_FLAG_POS);
+    }
+
+    public int getSerialNumber()
+    {
+        return header.getInt(OggPageHeader.FIELD_STREAM_SERIAL_NO_POS);
+    }
+
+    public int getPageSequence()
+    {
+        return header.getInt(OggPageHeader.FIELD_PAGE_SEQUENCE_NO_POS);
+    }
+
+    /**
+     * @return the number of packets on the current page, counted the same way as {@link OggPageHeader#getPacketList()}
+     * so includes the end of a packet continued from the previous page and a packet that continues onto the next page
+     */
+    public int getPacketCount()
+    {
+        int count = 0;
+        for (int i = 0; i < segmentCount; i++)
+        {
+            if (getSegmentLength(i) < OggPageHeader.MAXIMUM_SEGMENT_SIZE)
+            {
+                count++;
+            }
+        }
+        if (isLastPacketIncomplete())
+        {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the last packet on this page extends to the next page
+     */
+    public boolean isLastPacketIncomplete()
+    {
+        return segmentCount > 0 && getSegmentLength(segmentCount - 1) == OggPageHeader.MAXIMUM_SEGMENT_SIZE;
+    }
+
+    /**
+     * @return true if the cursor is at the end of the current page, so the next packet starts on a following page
+     */
+    public boolean isEndOfPage()
+    {
+        return segmentIndex == segmentCount;
+    }
+
+    /**
+     * @return start and length of the packets on the current page after the cursor, the last of which may continue
+     * onto the next page, start positions are relative to the start of the page data in the same way as
+     * {@link OggPageHeader#getPacketList()}
+     */
+    public List<OggPageHeader.PacketStartAndLength> getRemainingPacketList()
+    {
+        List<OggPageHeader.PacketStartAndLength> packetList = new ArrayList<OggPageHeader.PacketStartAndLength>();
+        int packetStart = dataOffset;
+        int packetLength = 0;
+        for (int i = segmentIndex; i < segmentCount; i++)
+        {
+            int segmentLength = getSegmentLength(i);
+            packetLength += segmentLength;
+            if (segmentLength < OggPageHeader.MAXIMUM_SEGMENT_SIZE)
+            {
+                packetList.add(new OggPageHeader.PacketStartAndLength(packetStart, packetLength));
+                packetStart += packetLength;
+                packetLength = 0;
+            }
+        }
+        if (packetLength > 0)
+        {
+            packetList.add(new OggPageHeader.PacketStartAndLength(packetStart, packetLength));
+        }
+        return packetList;
+    }
+
+    /**
+     * @return position in the file of the next byte of packet data that would be read
+     */
+    public long getPacketPosition()
+    {
+        return pageStart + getHeaderLength() + dataOffset;
+    }
+
+    /**
+     * Advance the cursor over the part of the current packet within the current page, moving to the next page first
+     * if all of this page has been read.
+     *
+     * @return the length of the part of the packet within the page
+     */
+    private int nextRun() throws IOException, CannotReadException
+    {
+        while (segmentIndex == segmentCount)
+        {
+            nextPage();
+        }
+
+        runPosition = getPacketPosition();
+        int length = 0;
+        runCompletesPacket = false;
+        while (segmentIndex < segmentCount)
+        {
+            int segmentLength = getSegmentLength(segmentIndex++);
+            length += segmentLength;
+            if (segmentLength < OggPageHeader.MAXIMUM_SEGMENT_SIZE)
+            {
+                runCompletesPacket = true;
+                break;
+            }
+        }
+        dataOffset += length;
+        return length;
+    }
+
+    /**
+     * @return the length of the packet starting at the cursor, the cursor is left at the end of the packet
+     */
+    private int skipPacketAndGetLength() throws IOException, CannotReadException
+    {
+        long length = 0;
+        do
+        {
+            length += nextRun();
+            if (length > Integer.MAX_VALUE)
+            {
+                throw new CannotReadException(ErrorMessage.OGG_PAGE_TRUNCATED.getMsg(pageStart, fc.size()));
+            }
+        }
+        while (!runCompletesPacket);
+        return (int) length;
+    }
+
+    /**
+     * Skip over the packet starting at the cursor, which may continue over a number of pages
+     *
+     * @return length of the packet
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    public int skipPacket() throws IOException, CannotReadException
+    {
+        return skipPacketAndGetLength();
+    }
+
+    /**
+     * Read the packet starting at the cursor, which may continue over a number of pages, into a single buffer
+     *
+     * @return buffer containing just the packet
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    public ByteBuffer readPacket() throws IOException, CannotReadException
+    {
+        long startPage = pageStart;
+        int startSegmentIndex = segmentIndex;
+        int startDataOffset = dataOffset;
+
+        //First pass only reads page headers to find out how big the packet is
+        byte[] packet = new byte[skipPacketAndGetLength()];
+
+        //Then go back and read the data straight into the packet
+        if (pageStart != startPage)
+        {
+            readPage(startPage);
+        }
+        segmentIndex = startSegmentIndex;
+        dataOffset = startDataOffset;
+
+        ByteBuffer packetBuffer = ByteBuffer.wrap(packet);
+        do
+        {
+            int length = nextRun();
+            packetBuffer.limit(packetBuffer.position() + length);
+            readFully(packetBuffer, runPosition, pageStart);
+        }
+        while (!runCompletesPacket);
+        packetBuffer.clear();
+        return packetBuffer;
+    }
+}
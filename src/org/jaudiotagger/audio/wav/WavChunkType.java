@@ -1,7 +1,6 @@
 package org.jaudiotagger.audio.wav;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.jaudiotagger.audio.iff.ChunkIdIndex;
 
 /**
  * Chunk types mark each {@link org.jaudiotagger.audio.iff.ChunkHeader}. They are <em>always</em> 4 ASCII chars long.
@@ -23,21 +22,19 @@ public enum WavChunkType
     ID3_UPPERCASE("ID3 ", "Stores metadata in ID3 chunk, should be lowercase id"),
     ;
 
-    private static final Map<String, WavChunkType> CODE_TYPE_MAP = new HashMap<String, WavChunkType>();
     private String code;
+
+    private static final ChunkIdIndex<WavChunkType> CODE_TYPE_INDEX = new ChunkIdIndex<WavChunkType>(values(), WavChunkType::getCode);
+
     /**
      * Get {@link WavChunkType} for code (e.g. "SSND").
      *
      * @param code chunk id
      * @return chunk type or {@code null} if not registered
      */
-    public synchronized static WavChunkType get(final String code) {
-        if (CODE_TYPE_MAP.isEmpty()) {
-            for (final WavChunkType type : values()) {
-                CODE_TYPE_MAP.put(type.getCode(), type);
-            }
-        }
-        return CODE_TYPE_MAP.get(code);
+    public static WavChunkType get(final String code)
+    {
+        return CODE_TYPE_INDEX.get(code);
     }
 
     /**
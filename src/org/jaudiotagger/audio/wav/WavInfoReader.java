@@ -210,17 +210,9 @@ public class WavInfoReader
         //Null Padding Detection (strictly invalid but seems to happen some time
         else if(id.equals("\0\0\0\0") && chunkHeader.getSize() == 0)
         {
-            //Carry on reading until not null (TODO check not long)
-            int fileRemainder = (int)((fc.size() - fc.position()));
-            ByteBuffer restOfFile = ByteBuffer.allocate(fileRemainder);
-            fc.read(restOfFile);
-            restOfFile.flip();
-            while(restOfFile.hasRemaining() && restOfFile.get()==0)
-            {
-                ;
-            }
-            logger.severe(loggingName + "Found Null Padding, starting at " + chunkHeader.getStartLocationInFile()+ ", size:" + restOfFile.position() + ChunkHeader.CHUNK_HEADER_SIZE);
-            fc.position(chunkHeader.getStartLocationInFile() + restOfFile.position() + ChunkHeader.CHUNK_HEADER_SIZE - 1);
+            //Carry on reading until not null
+            long paddingSize = IffHeaderChunk.skipNullPadding(fc);
+            logger.severe(loggingName + "Found Null Padding, starting at " + chunkHeader.getStartLocationInFile()+ ", size:" + (paddingSize + ChunkHeader.CHUNK_HEADER_SIZE));
             return true;
         }
         //Unknown chunk type just skip
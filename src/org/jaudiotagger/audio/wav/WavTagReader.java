@@ -30,7 +30,6 @@ import org.jaudiotagger.tag.wav.WavInfoTag;
 import org.jaudiotagger.tag.wav.WavTag;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
@@ -249,18 +248,10 @@ public class WavTagReader
         //Null Padding Detection (strictly invalid but seems to happen some time
         else if(id.equals("\0\0\0\0") && chunkHeader.getSize() == 0)
         {
-            //Carry on reading until not null (TODO check not long)
-            int fileRemainder = (int)((fc.size() - fc.position()));
-            ByteBuffer restOfFile = ByteBuffer.allocate(fileRemainder);
-            fc.read(restOfFile);
-            restOfFile.flip();
-            while(restOfFile.get()==0)
-            {
-                ;
-            }
-            logger.severe(loggingName + "Found Null Padding, starting at " + chunkHeader.getStartLocationInFile()+ ", size:" + restOfFile.position() + ChunkHeader.CHUNK_HEADER_SIZE);
-            fc.position(chunkHeader.getStartLocationInFile() + restOfFile.position() + ChunkHeader.CHUNK_HEADER_SIZE - 1);
-            tag.addChunkSummary(new PaddingChunkSummary(chunkHeader.getStartLocationInFile(), restOfFile.position() - 1));
+            //Carry on reading until not null
+            long paddingSize = IffHeaderChunk.skipNullPadding(fc);
+            logger.severe(loggingName + "Found Null Padding, starting at " + chunkHeader.getStartLocationInFile()+ ", size:" + (paddingSize + ChunkHeader.CHUNK_HEADER_SIZE));
+            tag.addChunkSummary(new PaddingChunkSummary(chunkHeader.getStartLocationInFile(), paddingSize));
             tag.setNonStandardPadding(true);
             return true;
         }
@@ -393,6 +393,16 @@ public class WavTagWriter
             throw new CannotWriteException("Unable to make changes to this file because contains bad chunk data");
         }
 
+        //Padding we reserved after the metadata on a previous write is treated as part of the metadata
+        if(TagOptionSingleton.getInstance().getWavPaddingSize() > 0)
+        {
+            ChunkSummary paddingChunk = WavChunkSummary.getPaddingChunkAfterMetadata(existingTag);
+            if(paddingChunk != null)
+            {
+                existingTag.addMetadataChunkSummary(paddingChunk);
+            }
+        }
+
         try(FileChannel fc = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ))
         {
             final WavTag wavTag = (WavTag) tag;
@@ -905,6 +915,11 @@ public class WavTagWriter
 
         final ByteBuffer id3TagBuffer = convertID3Chunk(wavTag, existingTag);
 
+        if(writeMetadataInPlace(fc, existingTag, infoTagBuffer, id3TagBuffer))
+        {
+            return;
+        }
+
         //Easiest just to delete all metadata (gets rid of duplicates)
         if(WavChunkSummary.isOnlyMetadataTagsAfterStartingMetadataTag(existingTag))
         {
@@ -920,6 +935,7 @@ public class WavTagWriter
                 writeId3ChunkAtFileEnd(fc, id3TagBuffer);
                 writeInfoChunkAtFileEnd(fc, infoTagBuffer, newInfoTagSize);
             }
+            writePaddingChunkAtFileEnd(fc);
         }
         //Correctly aligned so we can delete each one in turn
         else if(!existingTag.isIncorrectlyAlignedTag())
@@ -951,6 +967,7 @@ public class WavTagWriter
                 writeId3ChunkAtFileEnd(fc, id3TagBuffer);
                 writeInfoChunkAtFileEnd(fc, infoTagBuffer, newInfoTagSize);
             }
+            writePaddingChunkAtFileEnd(fc);
 
         }
         else
@@ -1086,11 +1103,17 @@ public class WavTagWriter
         final ByteBuffer infoTagBuffer = convertInfoChunk(wavTag);
         final long newInfoTagSize = infoTagBuffer.limit();
 
+        if(writeMetadataInPlace(fc, existingTag, infoTagBuffer, null))
+        {
+            return;
+        }
+
         //Easiest just to delete all metadata (gets rid of duplicates)
         if(WavChunkSummary.isOnlyMetadataTagsAfterStartingMetadataTag(existingTag))
         {
             deleteExistingMetadataTagsToEndOfFile(fc, existingTag);
             writeInfoChunkAtFileEnd(fc, infoTagBuffer, newInfoTagSize);
+            writePaddingChunkAtFileEnd(fc);
         }
         //Correctly aligned so we can delete each one in turn
         else if(!existingTag.isIncorrectlyAlignedTag())
@@ -1113,6 +1136,7 @@ public class WavTagWriter
                 }
             }
             writeInfoChunkAtFileEnd(fc, infoTagBuffer, newInfoTagSize);
+            writePaddingChunkAtFileEnd(fc);
         }
         else
         {
@@ -1149,11 +1173,17 @@ public class WavTagWriter
     {
         final ByteBuffer id3TagBuffer = convertID3Chunk(wavTag, existingTag);
 
+        if(writeMetadataInPlace(fc, existingTag, null, id3TagBuffer))
+        {
+            return;
+        }
+
         //Easiest just to delete all metadata (gets rid of duplicates)
         if(WavChunkSummary.isOnlyMetadataTagsAfterStartingMetadataTag(existingTag))
         {
             deleteExistingMetadataTagsToEndOfFile(fc, existingTag);
             writeId3ChunkAtFileEnd(fc, id3TagBuffer);
+            writePaddingChunkAtFileEnd(fc);
         }
         //Correctly aligned so we can delete each one in turn
         else if(!existingTag.isIncorrectlyAlignedTag())
@@ -1176,6 +1206,7 @@ public class WavTagWriter
                 }
             }
             writeId3ChunkAtFileEnd(fc, id3TagBuffer);
+            writePaddingChunkAtFileEnd(fc);
         }
         else
         {
@@ -1314,6 +1345,123 @@ public class WavTagWriter
         }
     }
 
+    /**
+     * Size of chunk including header and any padding byte needed to keep the next chunk on an even boundary
+     *
+     * @param bb chunk data
+     * @return
+     */
+    private long getChunkSizeOnDisk(ByteBuffer bb)
+    {
+        if(bb == null)
+        {
+            return 0;
+        }
+        return ChunkHeader.CHUNK_HEADER_SIZE + bb.limit() + (Utils.isOddLength(bb.limit()) ? 1 : 0);
+    }
+
+    /**
+     * If the existing metadata chunks are followed by a padding chunk and the new metadata fits within the space
+     * they occupy (leaving room for a smaller padding chunk) overwrite them in place, so that nothing else
+     * in the file has to move.
+     *
+     * @param fc
+     * @param existingTag
+     * @param infoTagBuffer info chunk to write or null
+     * @param id3TagBuffer id3 chunk to write or null
+     * @return true if written in place
+     * @throws IOException
+     */
+    private boolean writeMetadataInPlace(FileChannel fc, WavTag existingTag, ByteBuffer infoTagBuffer, ByteBuffer id3TagBuffer)
+            throws IOException
+    {
+        if(TagOptionSingleton.getInstance().getWavPaddingSize() <= 0 || existingTag.isIncorrectlyAlignedTag())
+        {
+            return false;
+        }
+
+        //Only set if padding directly follows contiguous metadata chunks, see write()
+        List<ChunkSummary> metadataChunks = existingTag.getMetadataChunkSummaryList();
+        if(metadataChunks.isEmpty())
+        {
+            return false;
+        }
+        ChunkSummary lastChunk = metadataChunks.get(metadataChunks.size() - 1);
+        if(!lastChunk.getChunkId().equals(WavChunkType.JUNK.getCode()) && !lastChunk.getChunkId().equals(WavChunkType.PAD.getCode()))
+        {
+            return false;
+        }
+
+        long regionStart = metadataChunks.get(0).getFileStartLocation();
+        long regionEnd   = lastChunk.getEndLocation();
+        if(Utils.isOddLength(regionEnd) && regionEnd < fc.size())
+        {
+            regionEnd++;
+        }
+
+        long paddingSize = (regionEnd - regionStart) - getChunkSizeOnDisk(infoTagBuffer) - getChunkSizeOnDisk(id3TagBuffer) - ChunkHeader.CHUNK_HEADER_SIZE;
+        if(Utils.isOddLength(regionStart) || paddingSize < 0)
+        {
+            return false;
+        }
+
+        logger.config(loggingName + " Writing metadata in place at:" + regionStart + ":remaining padding:" + paddingSize);
+        fc.position(regionStart);
+        if(infoTagBuffer != null && id3TagBuffer != null)
+        {
+            writeBothTags(fc, infoTagBuffer, id3TagBuffer);
+        }
+        else if(infoTagBuffer != null)
+        {
+            writeInfoDataToFile(fc, infoTagBuffer);
+        }
+        else
+        {
+            writeId3DataToFile(fc, id3TagBuffer);
+        }
+        writePaddingChunkToFile(fc, paddingSize);
+        return true;
+    }
+
+    /**
+     * Write padding chunk after the metadata at end of file, if configured
+     *
+     * @param fc
+     * @throws IOException
+     */
+    private void writePaddingChunkAtFileEnd(FileChannel fc) throws IOException
+    {
+        int paddingSize = TagOptionSingleton.getInstance().getWavPaddingSize();
+        if(paddingSize > 0)
+        {
+            fc.position(fc.size());
+            if(Utils.isOddLength(fc.position()))
+            {
+                writePaddingToFile(fc, 1);
+            }
+            writePaddingChunkToFile(fc, paddingSize);
+        }
+    }
+
+    /**
+     * Write JUNK chunk of specified data size to current file location
+     *
+     * @param fc
+     * @param paddingSize
+     * @throws IOException
+     */
+    private void writePaddingChunkToFile(FileChannel fc, long paddingSize) throws IOException
+    {
+        final ByteBuffer junkHeaderBuffer = ByteBuffer.allocate(ChunkHeader.CHUNK_HEADER_SIZE);
+        junkHeaderBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        junkHeaderBuffer.put(WavChunkType.JUNK.getCode().getBytes(StandardCharsets.US_ASCII));
+        junkHeaderBuffer.putInt((int) paddingSize);
+        junkHeaderBuffer.flip();
+        fc.write(junkHeaderBuffer);
+        writePaddingToFile(fc, (int) paddingSize);
+        writeExtraByteIfChunkOddSize(fc, paddingSize);
+    }
+
     /** If Info/ID3 Metadata tags are corrupted and only metadata tags later in the file then just truncate metadata tags and start again
      *
      * @param fc
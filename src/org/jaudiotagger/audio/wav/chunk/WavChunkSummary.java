@@ -55,7 +55,8 @@ public class WavChunkSummary
                         !cs.getChunkId().equals(WavChunkType.ID3.getCode()) &&
                         !cs.getChunkId().equals(WavChunkType.ID3_UPPERCASE.getCode()) &&
                         !cs.getChunkId().equals(WavChunkType.LIST.getCode()) &&
-                        !cs.getChunkId().equals(WavChunkType.INFO.getCode())
+                        !cs.getChunkId().equals(WavChunkType.INFO.getCode()) &&
+                        !tag.getMetadataChunkSummaryList().contains(cs)
                   )
                 {
                     return false;
@@ -101,4 +102,44 @@ public class WavChunkSummary
         }
         return null;
     }
+
+    /**
+     * Get the JUNK or PAD chunk immediately following the metadata chunks, only returned if the metadata
+     * chunks are themselves contiguous so that metadata and padding can be treated as one region.
+     *
+     * @param tag
+     * @return padding chunk or null if none
+     */
+    public static ChunkSummary getPaddingChunkAfterMetadata(WavTag tag)
+    {
+        if(tag.getMetadataChunkSummaryList().isEmpty())
+        {
+            return null;
+        }
+
+        int firstIndex = tag.getChunkSummaryList().indexOf(tag.getMetadataChunkSummaryList().get(0));
+        if(firstIndex == -1)
+        {
+            return null;
+        }
+
+        for(int i = 0; i < tag.getMetadataChunkSummaryList().size(); i++)
+        {
+            if(tag.getChunkSummaryList().indexOf(tag.getMetadataChunkSummaryList().get(i)) != firstIndex + i)
+            {
+                return null;
+            }
+        }
+
+        int nextIndex = firstIndex + tag.getMetadataChunkSummaryList().size();
+        if(nextIndex < tag.getChunkSummaryList().size())
+        {
+            ChunkSummary next = tag.getChunkSummaryList().get(nextIndex);
+            if(next.getChunkId().equals(WavChunkType.JUNK.getCode()) || next.getChunkId().equals(WavChunkType.PAD.getCode()))
+            {
+                return next;
+            }
+        }
+        return null;
+    }
 }
@@ -1,8 +1,9 @@
 package org.jaudiotagger.audio.wav.chunk;
 
+import org.jaudiotagger.audio.iff.ChunkIdIndex;
 import org.jaudiotagger.tag.FieldKey;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 /**
@@ -39,8 +40,20 @@ public enum WavInfoIdentifier
     ALBUM_GAIN("IAGL", null, 21), //Currently No mapping to a FieldKey for this
     TWONKY_TRACKNO("itrk", null, 1), //Uses nonstandard field
     ;
-    private static final Map<String, WavInfoIdentifier> CODE_TYPE_MAP = new HashMap<String, WavInfoIdentifier>();
-    private static final Map<FieldKey, WavInfoIdentifier> FIELDKEY_TYPE_MAP = new HashMap<FieldKey, WavInfoIdentifier>();
+    private static final ChunkIdIndex<WavInfoIdentifier> CODE_TYPE_INDEX = new ChunkIdIndex<WavInfoIdentifier>(values(), WavInfoIdentifier::getCode);
+    private static final Map<FieldKey, WavInfoIdentifier> FIELDKEY_TYPE_MAP = new EnumMap<FieldKey, WavInfoIdentifier>(FieldKey.class);
+
+    static
+    {
+        for (final WavInfoIdentifier type : values())
+        {
+            if (type.getFieldKey() != null)
+            {
+                FIELDKEY_TYPE_MAP.put(type.getFieldKey(), type);
+            }
+        }
+    }
+
     private String code;
     private FieldKey fieldKey;
     private int      preferredWriteOrder;
@@ -73,16 +86,9 @@ public enum WavInfoIdentifier
      * @param code chunk id
      * @return chunk type or {@code null} if not registered
      */
-    public synchronized static WavInfoIdentifier getByCode(final String code)
+    public static WavInfoIdentifier getByCode(final String code)
     {
-        if (CODE_TYPE_MAP.isEmpty())
-        {
-            for (final WavInfoIdentifier type : values())
-            {
-                CODE_TYPE_MAP.put(type.getCode(), type);
-            }
-        }
-        return CODE_TYPE_MAP.get(code);
+        return CODE_TYPE_INDEX.get(code);
     }
 
     /**
@@ -91,18 +97,8 @@ public enum WavInfoIdentifier
      * @param fieldKey
      * @return chunk type or {@code null} if not registered
      */
-    public synchronized static WavInfoIdentifier getByFieldKey(final FieldKey fieldKey)
+    public static WavInfoIdentifier getByFieldKey(final FieldKey fieldKey)
     {
-        if (FIELDKEY_TYPE_MAP.isEmpty())
-        {
-            for (final WavInfoIdentifier type : values())
-            {
-                if (type.getFieldKey() != null)
-                {
-                    FIELDKEY_TYPE_MAP.put(type.getFieldKey(), type);
-                }
-            }
-        }
         return FIELDKEY_TYPE_MAP.get(fieldKey);
     }
 }
@@ -20,6 +20,9 @@ public enum ErrorMessage
     MP4_CHANGES_TO_FILE_FAILED_INCORRECT_OFFSETS("Unable to make changes to Mp4 file, incorrect offsets written difference was {0}"),
     MP4_CHANGES_TO_FILE_FAILED_INCORRECT_NUMBER_OF_TRACKS("Unable to make changes to Mp4 file, incorrect number of tracks: {0} vs {1}"),
     MP4_CHANGES_TO_FILE_FAILED_CANNOT_FIND_AUDIO("Unable to make changes to Mp4 file, unable to determine start of audio"),
+    MP4_CHANGES_TO_FILE_FAILED_OFFSETS_TOO_LARGE("Unable to make changes to Mp4 file, adjusted chunk offset {0} does not fit in stco atom"),
+    MP4_CHANGES_TO_FILE_FAILED_AUDIO_AFTER_MOOV("Unable to move moov atom in Mp4 file {0}, there is audio data both before and after it"),
+    MP4_CHANGES_TO_FILE_FAILED_OFFSET_OUTSIDE_AUDIO("Unable to make changes to Mp4 file, chunk offset {0} is not within the audio data"),
     FLAC_NO_FLAC_HEADER_FOUND("Flac Header not found, not a flac file"),
     OGG_VORBIS_NO_VORBIS_HEADER_FOUND("Cannot find vorbis setup parentHeader"),
     MP4_REVERSE_DNS_FIELD_HAS_NO_DATA("Reverse dns field:{0} has no data"),
@@ -121,7 +124,10 @@ public enum ErrorMessage
     NO_AUDIO_HEADER_FOUND("No audio header found within {0}"),
     NOT_STANDARD_MP$_GENRE("This is not a standard genre value, use custom genre field instead"),
     FLAC_NO_BLOCKTYPE("Flac file has invalid block type {0}"),
-    EXTRA_DATA_AT_END_OF_MP4("{0} byte(s) of extra data found at the end of MP4 file")
+    FLAC_SEEK_POINT_OUT_OF_ORDER("Flac seek point for sample {0} is not after the previous seek point, skipping"),
+    EXTRA_DATA_AT_END_OF_MP4("{0} byte(s) of extra data found at the end of MP4 file"),
+    AUDIO_DATA_LOCATION_UNKNOWN("Unable to calculate hash because location of audio data within {0} is not known"),
+    OGG_PAGE_TRUNCATED("Ogg page starting at {0} is truncated, file length is only {1}"),
     ;
 
 
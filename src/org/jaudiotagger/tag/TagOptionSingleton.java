@@ -24,6 +24,7 @@
  */
 package org.jaudiotagger.tag;
 
+import org.jaudiotagger.audio.mp4.Mp4WriteVerification;
 import org.jaudiotagger.audio.wav.WavOptions;
 import org.jaudiotagger.audio.wav.WavSaveOptions;
 import org.jaudiotagger.audio.wav.WavSaveOrder;
@@ -87,6 +88,26 @@ public class TagOptionSingleton
         return wavSaveOrder;
     }
 
+    private int wavPaddingSize = 0;
+
+    /**
+     * Size of the JUNK chunk reserved after the Wav metadata chunks when they are written, default 0 (none)
+     *
+     * When set later edits that still fit within the metadata chunks plus this padding are written in place
+     * rather than moving the metadata to the end of the file.
+     *
+     * @param wavPaddingSize
+     */
+    public void setWavPaddingSize(int wavPaddingSize)
+    {
+        this.wavPaddingSize = wavPaddingSize;
+    }
+
+    public int getWavPaddingSize()
+    {
+        return wavPaddingSize;
+    }
+
     private VorbisAlbumArtistSaveOptions vorbisAlbumArtistSaveOptions = VorbisAlbumArtistSaveOptions.WRITE_ALBUMARTIST;
 
     public void setVorbisAlbumArtistSaveOptions(VorbisAlbumArtistSaveOptions vorbisAlbumArtistSaveOptions)
@@ -363,6 +384,20 @@ public class TagOptionSingleton
      */
     private long writeChunkSize= (4 * 1024 * 1024);
 
+    /**
+     * Files no larger than this are rewritten in memory rather than via a temporary file, 0 disables
+     */
+    private long inMemoryWriteMaximumFileSize = 0;
+
+    /**
+     * How thoroughly mp4 files are checked after writing
+     */
+    private Mp4WriteVerification mp4WriteVerification = Mp4WriteVerification.FULL;
+
+    private int mp4PaddingSize = 0;
+
+    private int oggPageIndexInterval = 0;
+
     private boolean isWriteMp4GenresAsText=false;
 
     private boolean isWriteMp3GenresAsText=false;
@@ -918,6 +953,7 @@ public class TagOptionSingleton
         isWriteWavForTwonky = false;
         wavOptions = WavOptions.READ_ID3_UNLESS_ONLY_INFO;
         wavSaveOptions = WavSaveOptions.SAVE_BOTH;
+        wavPaddingSize = 0;
         keywordMap = new HashMap<Class<? extends ID3v24FrameBody>, LinkedList<String>>();
         filenameTagSave = false;
         id3v1Save = true;
@@ -952,6 +988,10 @@ public class TagOptionSingleton
         isAndroid = false;
         isEncodeUTF16BomAsLittleEndian = true;
         writeChunkSize=5000000;
+        inMemoryWriteMaximumFileSize = 0;
+        mp4WriteVerification = Mp4WriteVerification.FULL;
+        mp4PaddingSize = 0;
+        oggPageIndexInterval = 0;
         isWriteMp4GenresAsText=false;
         padNumberTotalLength = PadNumberOption.PAD_ONE_ZERO;
         id3v2Version = ID3V2Version.ID3_V23;
@@ -1316,6 +1356,79 @@ public class TagOptionSingleton
         this.writeChunkSize = writeChunkSize;
     }
 
+    /**
+     * Formats that always create a complete new file when writing (such as Ogg and Wma) normally write it to a
+     * temporary file and then replace the original. Files no larger than this size are instead assembled in memory and
+     * written back to the original file in one go, avoiding creating, renaming and deleting the temporary file which
+     * can be slow on networked filesystems.
+     *
+     * Note the original file is truncated and overwritten so unlike the temporary file approach a failure part way
+     * through writing can leave it corrupt. Defaults to 0 meaning never write in memory.
+     */
+    public long getInMemoryWriteMaximumFileSize()
+    {
+        return inMemoryWriteMaximumFileSize;
+    }
+
+    public void setInMemoryWriteMaximumFileSize(long inMemoryWriteMaximumFileSize)
+    {
+        this.inMemoryWriteMaximumFileSize = inMemoryWriteMaximumFileSize;
+    }
+
+    /**
+     * After writing an mp4 it is read back to check the audio data can still be found, this defines how much is
+     * read back, see {@link Mp4WriteVerification}. Defaults to FULL.
+     */
+    public Mp4WriteVerification getMp4WriteVerification()
+    {
+        return mp4WriteVerification;
+    }
+
+    public void setMp4WriteVerification(Mp4WriteVerification mp4WriteVerification)
+    {
+        this.mp4WriteVerification = mp4WriteVerification;
+    }
+
+    /**
+     * Size of the free atom reserved after the ilst atom whenever the mp4 moov atom has to be rewritten because the
+     * metadata has grown, default 0 (none)
+     *
+     * When set later edits that still fit within the ilst atom plus this padding are written in place rather than
+     * moving the audio data and adjusting every chunk offset. If a top level free atom between moov and the audio can
+     * provide the extra space required, the padding is reduced to what that atom can spare so the audio is not moved.
+     * Also used for the free atom written after moov by {@link org.jaudiotagger.audio.mp4.Mp4FileWriter#optimizeForStreaming}.
+     *
+     * @param mp4PaddingSize size of the free atom data (excluding its header)
+     */
+    public void setMp4PaddingSize(int mp4PaddingSize)
+    {
+        this.mp4PaddingSize = mp4PaddingSize;
+    }
+
+    public int getMp4PaddingSize()
+    {
+        return mp4PaddingSize;
+    }
+
+    /**
+     * Seconds between the points of the page index built when reading an ogg file, default 0 (no index built)
+     *
+     * Building the index reads the header of every page in the file, but it gives the exact duration and allows
+     * {@link org.jaudiotagger.audio.ogg.OggAudioHeader#getSeekPosition(long)} to find the page for a sample without
+     * searching the file.
+     *
+     * @param oggPageIndexInterval seconds between index points
+     */
+    public void setOggPageIndexInterval(int oggPageIndexInterval)
+    {
+        this.oggPageIndexInterval = oggPageIndexInterval;
+    }
+
+    public int getOggPageIndexInterval()
+    {
+        return oggPageIndexInterval;
+    }
+
     /**
      * If enabled we always use the ©gen atom rather than the gnre atom when writing genres to mp4s
      * This is known to help some android apps
@@ -24,6 +24,7 @@ import java.util.ListIterator;
 public class Mp4DataBox extends AbstractMp4Box
 {
     public static final String IDENTIFIER = "data";
+    public static final int IDENTIFIER_FOURCC = Utils.toFourCC(IDENTIFIER);
 
     public static final int VERSION_LENGTH = 1;
     public static final int TYPE_LENGTH = 3;
@@ -55,7 +56,7 @@ public class Mp4DataBox extends AbstractMp4Box
     {
         this.header = header;
         //Double check
-        if (!header.getId().equals(IDENTIFIER))
+        if (header.getFourCC() != IDENTIFIER_FOURCC)
         {
             throw new RuntimeException("Unable to process data box because identifier is:" + header.getId());
         }
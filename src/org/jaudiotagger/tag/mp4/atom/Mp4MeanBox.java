@@ -12,6 +12,7 @@ import java.nio.ByteBuffer;
 public class Mp4MeanBox extends AbstractMp4Box
 {
     public static final String IDENTIFIER = "mean";
+    public static final int IDENTIFIER_FOURCC = Utils.toFourCC(IDENTIFIER);
 
     private String issuer;
 
@@ -29,7 +30,7 @@ public class Mp4MeanBox extends AbstractMp4Box
         this.header = header;
 
         //Double check
-        if (!header.getId().equals(IDENTIFIER))
+        if (header.getFourCC() != IDENTIFIER_FOURCC)
         {
             throw new RuntimeException("Unable to process data box because identifier is:" + header.getId());
         }
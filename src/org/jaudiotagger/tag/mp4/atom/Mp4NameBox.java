@@ -12,6 +12,7 @@ import java.nio.ByteBuffer;
 public class Mp4NameBox extends AbstractMp4Box
 {
     public static final String IDENTIFIER = "name";
+    public static final int IDENTIFIER_FOURCC = Utils.toFourCC(IDENTIFIER);
 
     private String name;
 
@@ -29,7 +30,7 @@ public class Mp4NameBox extends AbstractMp4Box
         this.header = header;
 
         //Double check
-        if (!header.getId().equals(IDENTIFIER))
+        if (header.getFourCC() != IDENTIFIER_FOURCC)
         {
             throw new RuntimeException("Unable to process name box because identifier is:" + header.getId());
         }
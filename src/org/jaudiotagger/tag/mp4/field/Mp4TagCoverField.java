@@ -157,7 +157,7 @@ public class Mp4TagCoverField extends Mp4TagBinaryField
         {
             //Is there a following name field (not the norm)
             Mp4BoxHeader nameHeader = new Mp4BoxHeader(raw);
-            if (nameHeader.getId().equals(Mp4NameBox.IDENTIFIER))
+            if (nameHeader.getFourCC() == Mp4NameBox.IDENTIFIER_FOURCC)
             {
                 dataSize += nameHeader.getDataLength();
                 dataAndHeaderSize += nameHeader.getLength();
@@ -23,16 +23,15 @@ import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagField;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 /**
  * Create the raw packet data for a Vorbis Comment Tag
+ *
+ * The length of the comment is worked out first so it can be written straight into a buffer of the exact size,
+ * rather than encoding each field separately and then copying them all together.
  */
 public class VorbisCommentCreator extends AbstractTagCreator
 {
@@ -47,48 +46,80 @@ public class VorbisCommentCreator extends AbstractTagCreator
     //TODO padding parameter currently ignored
     public ByteBuffer convertMetadata(Tag tag, boolean isLastBlock) throws UnsupportedEncodingException
     {
-        try
-        {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-            //Vendor
-            String vendorString = ((VorbisCommentTag) tag).getVendor();
-            int vendorLength = vendorString.getBytes(UTF_8).length;
-            baos.write(Utils.getSizeLEInt32(vendorLength));
-            baos.write(vendorString.getBytes(UTF_8));
+        VorbisCommentTag vorbisTag = (VorbisCommentTag) tag;
+        ByteBuffer buf = ByteBuffer.allocate(getLength(vorbisTag));
+        write(vorbisTag, buf);
+        buf.rewind();
+        return buf;
+    }
 
-            //User Comment List
-            int listLength = tag.getFieldCount();
-            if(((VorbisCommentTag) tag).hasField(VorbisCommentFieldKey.VENDOR))
+    /**
+     * @param tag
+     * @return number of bytes {@link #write(VorbisCommentTag, ByteBuffer)} will write for this tag
+     * @throws UnsupportedEncodingException
+     */
+    public int getLength(VorbisCommentTag tag) throws UnsupportedEncodingException
+    {
+        int length = VorbisCommentReader.FIELD_VENDOR_LENGTH_LENGTH + Utils.getUtf8Length(tag.getVendor()) + VorbisCommentReader.FIELD_USER_COMMENT_LIST_LENGTH;
+        Iterator<TagField> it = tag.getFields();
+        while (it.hasNext())
+        {
+            TagField frame = it.next();
+            if (frame.getId().equals(VorbisCommentFieldKey.VENDOR.getFieldName()))
             {
-                listLength = listLength - 1;
+                //this is always stored above so ignore
             }
-            baos.write(Utils.getSizeLEInt32(listLength));
-
-            //Add metadata raw content
-            Iterator<TagField> it = tag.getFields();
-            while (it.hasNext())
+            else if (frame instanceof VorbisCommentTagField)
             {
-                TagField frame = it.next();
-                if (frame.getId().equals(VorbisCommentFieldKey.VENDOR.getFieldName()))
-                {
-                    //this is always stored above so ignore                    
-                }
-                else
-                {
-                    baos.write(frame.getRawContent());
-                }
+                length += ((VorbisCommentTagField) frame).getRawContentLength();
             }
+            else
+            {
+                length += frame.getRawContent().length;
+            }
+        }
+        return length;
+    }
 
-            //Put into ByteBuffer
-            ByteBuffer buf = ByteBuffer.wrap(baos.toByteArray());
-            buf.rewind();
-            return buf;
+    /**
+     * Write the tag to the buffer
+     *
+     * @param tag
+     * @param buffer must have {@link #getLength(VorbisCommentTag)} bytes remaining
+     * @throws UnsupportedEncodingException
+     */
+    public void write(VorbisCommentTag tag, ByteBuffer buffer) throws UnsupportedEncodingException
+    {
+        //Vendor
+        String vendorString = tag.getVendor();
+        buffer.put(Utils.getSizeLEInt32(Utils.getUtf8Length(vendorString)));
+        Utils.putUtf8(buffer, vendorString);
+
+        //User Comment List
+        int listLength = tag.getFieldCount();
+        if (tag.hasField(VorbisCommentFieldKey.VENDOR))
+        {
+            listLength = listLength - 1;
         }
-        catch (IOException ioe)
+        buffer.put(Utils.getSizeLEInt32(listLength));
+
+        //Add metadata raw content
+        Iterator<TagField> it = tag.getFields();
+        while (it.hasNext())
         {
-            //Should never happen as not writing to file at this point
-            throw new RuntimeException(ioe);
+            TagField frame = it.next();
+            if (frame.getId().equals(VorbisCommentFieldKey.VENDOR.getFieldName()))
+            {
+                //this is always stored above so ignore
+            }
+            else if (frame instanceof VorbisCommentTagField)
+            {
+                ((VorbisCommentTagField) frame).writeRawContent(buffer);
+            }
+            else
+            {
+                buffer.put(frame.getRawContent());
+            }
         }
     }
 }
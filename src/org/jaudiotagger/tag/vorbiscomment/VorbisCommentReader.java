@@ -20,12 +20,14 @@
 package org.jaudiotagger.tag.vorbiscomment;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.generic.Utils;
-import org.jaudiotagger.audio.ogg.util.VorbisHeader;
 import org.jaudiotagger.logging.ErrorMessage;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -48,6 +50,10 @@ import java.util.logging.Logger;
  *  if ( [framing_bit] unset or end-of-packet ) then ERROR
  *  done.
  * </pre>
+ *
+ * The data is parsed in place, the lengths are read directly from the buffer and the keys and values are decoded
+ * straight from it. Known keys are matched against a table of the field names in {@link VorbisCommentFieldKey}
+ * ignoring case, so the same String instance is used for all fields with that key and they do not need upper casing.
  */
 public class VorbisCommentReader
 {
@@ -67,11 +73,82 @@ public class VorbisCommentReader
      */
     private static final int JAUDIOTAGGER_MAX_COMMENT_LENGTH = 10000000;
 
+    private static final byte FIELD_SEPARATOR = '=';
+
+    //Open addressing hash table of the upper case field names of VorbisCommentFieldKey
+    private static final int KEY_TABLE_SIZE = 512;
+    private static final int KEY_TABLE_MASK = KEY_TABLE_SIZE - 1;
+    private static final String[] KEY_TABLE = new String[KEY_TABLE_SIZE];
+    static
+    {
+        for (VorbisCommentFieldKey next : VorbisCommentFieldKey.values())
+        {
+            byte[] fieldName = next.getFieldName().getBytes(StandardCharsets.US_ASCII);
+            if (lookupKey(fieldName, 0, fieldName.length) == null)
+            {
+                int slot = hashKey(fieldName, 0, fieldName.length) & KEY_TABLE_MASK;
+                while (KEY_TABLE[slot] != null)
+                {
+                    slot = (slot + 1) & KEY_TABLE_MASK;
+                }
+                KEY_TABLE[slot] = next.getFieldName();
+            }
+        }
+    }
+
     public VorbisCommentReader()
     {
 
     }
 
+    private static int toUpperCase(byte b)
+    {
+        return (b >= 'a' && b <= 'z') ? b - ('a' - 'A') : b;
+    }
+
+    private static int hashKey(byte[] data, int offset, int length)
+    {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            hash = 31 * hash + toUpperCase(data[i]);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param data
+     * @param offset
+     * @param length
+     * @return the known field name matching the key ignoring case, or null if not a known field
+     */
+    static String lookupKey(byte[] data, int offset, int length)
+    {
+        int slot = hashKey(data, offset, length) & KEY_TABLE_MASK;
+        String candidate;
+        while ((candidate = KEY_TABLE[slot]) != null)
+        {
+            if (candidate.length() == length && isSameKey(candidate, data, offset))
+            {
+                return candidate;
+            }
+            slot = (slot + 1) & KEY_TABLE_MASK;
+        }
+        return null;
+    }
+
+    private static boolean isSameKey(String fieldName, byte[] data, int offset)
+    {
+        for (int i = 0; i < fieldName.length(); i++)
+        {
+            if (toUpperCase(data[offset + i]) != fieldName.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @param rawdata
      * @param isFramingBit
@@ -82,37 +159,59 @@ public class VorbisCommentReader
      */
     public VorbisCommentTag read(byte[] rawdata, boolean isFramingBit, Path path) throws IOException, CannotReadException
     {
+        return read(ByteBuffer.wrap(rawdata), isFramingBit, path);
+    }
 
-        VorbisCommentTag tag = new VorbisCommentTag();
+    /**
+     * Artwork fields keep a reference to the array backing the buffer, so its contents should not be changed
+     * whilst the tag is in use.
+     *
+     * @param data from position to limit, not modified
+     * @param isFramingBit
+     * @param path
+     * @return logical representation of VorbisCommentTag
+     * @throws IOException
+     * @throws CannotReadException
+     */
+    public VorbisCommentTag read(ByteBuffer data, boolean isFramingBit, Path path) throws IOException, CannotReadException
+    {
+        byte[] rawdata;
+        int start;
+        int end;
+        if (data.hasArray())
+        {
+            rawdata = data.array();
+            start   = data.arrayOffset() + data.position();
+            end     = data.arrayOffset() + data.limit();
+        }
+        else
+        {
+            rawdata = new byte[data.remaining()];
+            data.duplicate().get(rawdata);
+            start   = 0;
+            end     = rawdata.length;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(rawdata).order(ByteOrder.LITTLE_ENDIAN);
 
-        byte[] b = new byte[FIELD_VENDOR_LENGTH_LENGTH];
-        System.arraycopy(rawdata, FIELD_VENDOR_LENGTH_POS, b, FIELD_VENDOR_LENGTH_POS, FIELD_VENDOR_LENGTH_LENGTH);
-        int pos = FIELD_VENDOR_LENGTH_LENGTH;
-        int vendorStringLength = Utils.getIntLE(b);
+        VorbisCommentTag tag = new VorbisCommentTag();
 
-        b = new byte[vendorStringLength];
-        System.arraycopy(rawdata, pos, b, 0, vendorStringLength);
+        int pos = start + FIELD_VENDOR_LENGTH_POS;
+        int vendorStringLength = buffer.getInt(pos);
+        pos += FIELD_VENDOR_LENGTH_LENGTH;
+        tag.setVendor(new String(rawdata, pos, vendorStringLength, StandardCharsets.UTF_8));
         pos += vendorStringLength;
-        tag.setVendor(new String(b, VorbisHeader.CHARSET_UTF_8));
         logger.config("Vendor is:"+tag.getVendor());
-        
-        b = new byte[FIELD_USER_COMMENT_LIST_LENGTH];
-        System.arraycopy(rawdata, pos, b, 0, FIELD_USER_COMMENT_LIST_LENGTH);
-        pos += FIELD_USER_COMMENT_LIST_LENGTH;
 
-        int userComments = Utils.getIntLE(b);
+        int userComments = buffer.getInt(pos);
+        pos += FIELD_USER_COMMENT_LIST_LENGTH;
         logger.config("Number of user comments:" + userComments);
-        
+
         for (int i = 0; i < userComments; i++)
         {
-            b = new byte[FIELD_COMMENT_LENGTH_LENGTH];
-            System.arraycopy(rawdata, pos, b, 0, FIELD_COMMENT_LENGTH_LENGTH);
+            int commentLength = buffer.getInt(pos);
             pos += FIELD_COMMENT_LENGTH_LENGTH;
 
-            int commentLength = Utils.getIntLE(b);
-            logger.config("Next Comment Length:" + commentLength);
-
-            if(commentLength> JAUDIOTAGGER_MAX_COMMENT_LENGTH)
+            if(commentLength> JAUDIOTAGGER_MAX_COMMENT_LENGTH || commentLength < 0)
             {
                 if(path!=null)
                 {
@@ -124,39 +223,79 @@ public class VorbisCommentReader
                 }
                 break;
             }
-            else if(commentLength>rawdata.length - pos)
+            else if(commentLength > end - pos)
             {
                 if(path!=null)
                 {
-                    logger.warning(path.toString() + ":" + ErrorMessage.VORBIS_COMMENT_LENGTH_LARGE_THAN_HEADER.getMsg(commentLength, rawdata.length - pos));
+                    logger.warning(path.toString() + ":" + ErrorMessage.VORBIS_COMMENT_LENGTH_LARGE_THAN_HEADER.getMsg(commentLength, end - pos));
                 }
                 else
                 {
-                    logger.warning(ErrorMessage.VORBIS_COMMENT_LENGTH_LARGE_THAN_HEADER.getMsg(commentLength, rawdata.length));
+                    logger.warning(ErrorMessage.VORBIS_COMMENT_LENGTH_LARGE_THAN_HEADER.getMsg(commentLength, end - start));
                 }
                 break;
             }
             else
             {
-                b = new byte[commentLength];
-                System.arraycopy(rawdata, pos, b, 0, commentLength);
+                VorbisCommentTagField fieldComment = createField(rawdata, pos, commentLength);
                 pos += commentLength;
-
-                VorbisCommentTagField fieldComment = new VorbisCommentTagField(b);
-                logger.config("Adding:" + fieldComment.getId());
+                if (logger.isLoggable(Level.FINEST))
+                {
+                    logger.finest("Adding:" + fieldComment.getId() + ":length:" + commentLength);
+                }
                 tag.addField(fieldComment);
             }
         }
 
-        //Check framing bit, only exists when vorbisComment used within OggVorbis       
+        //Check framing bit, only exists when vorbisComment used within OggVorbis
         if (isFramingBit)
         {
-            if ((rawdata[pos] & 0x01) != 1)
+            if (pos >= end || (rawdata[pos] & 0x01) != 1)
             {
-                throw new CannotReadException(ErrorMessage.OGG_VORBIS_NO_FRAMING_BIT.getMsg((rawdata[pos] & 0x01)));
+                throw new CannotReadException(ErrorMessage.OGG_VORBIS_NO_FRAMING_BIT.getMsg(pos < end ? (rawdata[pos] & 0x01) : 0));
             }
         }
         return tag;
     }
-}
 
+    /**
+     * Create field from comment of the form KEY=value
+     *
+     * @param rawdata
+     * @param offset start of comment
+     * @param length length of comment
+     * @return
+     */
+    private VorbisCommentTagField createField(byte[] rawdata, int offset, int length)
+    {
+        int separator = -1;
+        for (int i = offset; i < offset + length; i++)
+        {
+            if (rawdata[i] == FIELD_SEPARATOR)
+            {
+                separator = i;
+                break;
+            }
+        }
+
+        if (separator == -1)
+        {
+            return new VorbisCommentTagField(rawdata, offset, length);
+        }
+
+        int keyLength = separator - offset;
+        String id = lookupKey(rawdata, offset, keyLength);
+        if (id == null)
+        {
+            id = new String(rawdata, offset, keyLength, StandardCharsets.UTF_8).toUpperCase();
+        }
+        int contentLength = offset + length - separator - 1;
+        if (id == VorbisCommentFieldKey.METADATA_BLOCK_PICTURE.getFieldName() || id == VorbisCommentFieldKey.COVERART.getFieldName())
+        {
+            //Artwork is only decoded if requested, so leave it as base64 bytes rather than creating a String
+            return VorbisCommentTagField.createWithRawContent(id, rawdata, separator + 1, contentLength);
+        }
+        String content = new String(rawdata, separator + 1, contentLength, StandardCharsets.UTF_8);
+        return VorbisCommentTagField.createWithUpperCaseId(id, content);
+    }
+}
@@ -27,12 +27,15 @@ import org.jaudiotagger.tag.images.Artwork;
 import org.jaudiotagger.tag.images.ArtworkFactory;
 import org.jaudiotagger.tag.vorbiscomment.util.Base64Coder;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.EnumMap;
 import java.util.List;
 
@@ -499,9 +502,60 @@ public class VorbisCommentTag extends AbstractTag
      */
     public byte[] getArtworkBinaryData()
     {
-        String base64data = this.getFirst(VorbisCommentFieldKey.COVERART);
-        byte[] rawdata = Base64Coder.decode(base64data.toCharArray());
-        return rawdata;
+        TagField field = this.getFirstField(VorbisCommentFieldKey.COVERART.getFieldName());
+        if (!(field instanceof TagTextField))
+        {
+            return new byte[0];
+        }
+
+        TagTextField coverArt = (TagTextField) field;
+        try
+        {
+            int length = getBase64ContentLength(coverArt);
+            int padding = 0;
+            if (length >= 4)
+            {
+                InputStream tail = getBase64Content(coverArt);
+                tail.skip(length - 2);
+                padding = (tail.read() == '=' ? 1 : 0) + (tail.read() == '=' ? 1 : 0);
+            }
+
+            //Decode straight into an array of the correct size
+            byte[] rawdata = new byte[Math.max(0, length / 4 * 3 - padding)];
+            DataInputStream in = new DataInputStream(Base64.getDecoder().wrap(getBase64Content(coverArt)));
+            in.readFully(rawdata);
+            return rawdata;
+        }
+        catch (IOException ioe)
+        {
+            throw new IllegalArgumentException("Invalid Base64 encoded data in " + VorbisCommentFieldKey.COVERART.getFieldName(), ioe);
+        }
+    }
+
+    /**
+     * @param field artwork field, usually read from file but may have been added by the caller
+     * @return the base64 content, for fields read from file without converting it to a String
+     */
+    private static InputStream getBase64Content(TagTextField field)
+    {
+        if (field instanceof VorbisCommentTagField)
+        {
+            return ((VorbisCommentTagField) field).getContentAsStream();
+        }
+        return new ByteArrayInputStream(field.getContent().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @param field artwork field
+     * @return length of the base64 content
+     */
+    private static int getBase64ContentLength(TagTextField field)
+    {
+        if (field instanceof VorbisCommentTagField)
+        {
+            return ((VorbisCommentTagField) field).getContentLength();
+        }
+        return field.getContent().length();
     }
 
     /**
@@ -564,11 +618,12 @@ public class VorbisCommentTag extends AbstractTag
         List<Artwork>  artworkList  = new ArrayList<Artwork>(1);
 
         //Read Old Format
-        if(getArtworkBinaryData()!=null & getArtworkBinaryData().length>0)
+        byte[] coverArtBinaryData = getArtworkBinaryData();
+        if(coverArtBinaryData.length>0)
         {
             Artwork artwork= ArtworkFactory.getNew();
             artwork.setMimeType(getArtworkMimeType());
-            artwork.setBinaryData(getArtworkBinaryData());
+            artwork.setBinaryData(coverArtBinaryData);
             artworkList.add(artwork);
         }
 
@@ -579,8 +634,10 @@ public class VorbisCommentTag extends AbstractTag
 
             try
             {
-                byte[] imageBinaryData = Base64Coder.decode(((TagTextField)tagField).getContent());
-                MetadataBlockDataPicture coverArt = new MetadataBlockDataPicture(ByteBuffer.wrap(imageBinaryData));
+                //Decode the base64 as the picture is read so the only copy of the image is the one in the picture
+                TagTextField field = (TagTextField)tagField;
+                InputStream imageBinaryData = Base64.getDecoder().wrap(getBase64Content(field));
+                MetadataBlockDataPicture coverArt = new MetadataBlockDataPicture(imageBinaryData, getBase64ContentLength(field) / 4 * 3);
                 Artwork artwork=ArtworkFactory.createArtworkFromMetadataBlockDataPicture(coverArt);
                 artworkList.add(artwork);
             }
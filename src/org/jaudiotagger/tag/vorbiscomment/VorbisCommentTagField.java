@@ -18,10 +18,14 @@
  */
 package org.jaudiotagger.tag.vorbiscomment;
 
+import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.tag.TagField;
 import org.jaudiotagger.tag.TagTextField;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -51,6 +55,14 @@ public class VorbisCommentTagField implements TagTextField
      */
     private String content;
 
+    /**
+     * For large binary values such as artwork the content is kept as the base64 encoded bytes within the comment
+     * data it was read from, and is only converted to a String if {@link #getContent()} is called. <br>
+     */
+    private byte[] rawContent;
+    private int rawContentOffset;
+    private int rawContentLength;
+
     /**
      * Stores the id (name) of the tag field. <br>
      */
@@ -69,7 +81,19 @@ public class VorbisCommentTagField implements TagTextField
      */
     public VorbisCommentTagField(byte[] raw) throws UnsupportedEncodingException
     {
-        String field = new String(raw, "UTF-8");
+        this(raw, 0, raw.length);
+    }
+
+    /**
+     * Creates an instance from part of an array.
+     *
+     * @param raw    Raw byte data containing the tagfield.
+     * @param offset start of the tagfield
+     * @param length length of the tagfield
+     */
+    VorbisCommentTagField(byte[] raw, int offset, int length)
+    {
+        String field = new String(raw, offset, length, StandardCharsets.UTF_8);
         int i = field.indexOf("=");
         if (i == -1)
         {
@@ -106,6 +130,72 @@ public class VorbisCommentTagField implements TagTextField
         checkCommon();
     }
 
+    private VorbisCommentTagField()
+    {
+    }
+
+    /**
+     * Creates an instance for an id that is already upper case, such as one of the {@link VorbisCommentFieldKey}
+     * field names, so it does not need converting.
+     *
+     * @param upperCaseId  ID (name) of the field.
+     * @param fieldContent Content of the field.
+     * @return
+     */
+    static VorbisCommentTagField createWithUpperCaseId(String upperCaseId, String fieldContent)
+    {
+        VorbisCommentTagField field = new VorbisCommentTagField();
+        field.id = upperCaseId;
+        field.content = fieldContent;
+        field.checkCommon();
+        return field;
+    }
+
+    /**
+     * Creates an instance whose content is left as bytes within the comment data until required, used for
+     * base64 encoded artwork fields so reading the tag does not create a String copy of the image.
+     *
+     * @param upperCaseId ID (name) of the field.
+     * @param raw         Raw byte data containing the content
+     * @param offset      start of the content
+     * @param length      length of the content
+     * @return
+     */
+    static VorbisCommentTagField createWithRawContent(String upperCaseId, byte[] raw, int offset, int length)
+    {
+        VorbisCommentTagField field = new VorbisCommentTagField();
+        field.id = upperCaseId;
+        field.rawContent = raw;
+        field.rawContentOffset = offset;
+        field.rawContentLength = length;
+        field.checkCommon();
+        return field;
+    }
+
+    /**
+     * @return the UTF-8 encoded content as a stream, without converting it to a String if it has not been already
+     */
+    InputStream getContentAsStream()
+    {
+        if (rawContent != null)
+        {
+            return new ByteArrayInputStream(rawContent, rawContentOffset, rawContentLength);
+        }
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return length of the UTF-8 encoded content
+     */
+    int getContentLength()
+    {
+        if (rawContent != null)
+        {
+            return rawContentLength;
+        }
+        return Utils.getUtf8Length(content);
+    }
+
     /**
      * This method examines the ID of the current field and modifies
      * {@link #common}in order to reflect if the tag id is a commonly used one.
@@ -144,13 +234,18 @@ public class VorbisCommentTagField implements TagTextField
     {
         if (field instanceof TagTextField)
         {
-            this.content = ((TagTextField) field).getContent();
+            setContent(((TagTextField) field).getContent());
         }
     }
 
     @Override
     public String getContent()
     {
+        if (rawContent != null)
+        {
+            content = new String(rawContent, rawContentOffset, rawContentLength, StandardCharsets.UTF_8);
+            rawContent = null;
+        }
         return content;
     }
 
@@ -169,27 +264,49 @@ public class VorbisCommentTagField implements TagTextField
     @Override
     public byte[] getRawContent() throws UnsupportedEncodingException
     {
-        byte[] size = new byte[VorbisCommentReader.FIELD_COMMENT_LENGTH_LENGTH];
-        byte[] idBytes = this.id.getBytes(StandardCharsets.ISO_8859_1);
-        byte[] contentBytes = this.content.getBytes(StandardCharsets.UTF_8);
-        byte[] b = new byte[4 + idBytes.length + 1 + contentBytes.length];
+        ByteBuffer b = ByteBuffer.allocate(getRawContentLength());
+        writeRawContent(b);
+        return b.array();
+    }
+
+    /**
+     * @return length of {@link #getRawContent()}, worked out without encoding the field
+     */
+    int getRawContentLength()
+    {
+        int contentLength = rawContent != null ? rawContentLength : Utils.getUtf8Length(content);
+        return VorbisCommentReader.FIELD_COMMENT_LENGTH_LENGTH + id.length() + 1 + contentLength;
+    }
 
-        int length = idBytes.length + 1 + contentBytes.length;
-        size[3] = (byte) ((length & 0xFF000000) >> 24);
-        size[2] = (byte) ((length & 0x00FF0000) >> 16);
-        size[1] = (byte) ((length & 0x0000FF00) >> 8);
-        size[0] = (byte) (length & 0x000000FF);
+    /**
+     * Write the field as it is stored in a Vorbis Comment, a little endian length followed by id=content
+     *
+     * @param buffer must have {@link #getRawContentLength()} bytes remaining
+     */
+    void writeRawContent(ByteBuffer buffer)
+    {
+        int length = getRawContentLength() - VorbisCommentReader.FIELD_COMMENT_LENGTH_LENGTH;
+        buffer.put((byte) (length & 0xFF));
+        buffer.put((byte) ((length >>> 8) & 0xFF));
+        buffer.put((byte) ((length >>> 16) & 0xFF));
+        buffer.put((byte) ((length >>> 24) & 0xFF));
 
-        int offset = 0;
-        copy(size, b, offset);
-        offset += 4;
-        copy(idBytes, b, offset);
-        offset += idBytes.length;
-        b[offset] = (byte) 0x3D;
-        offset++;// "="
-        copy(contentBytes, b, offset);
+        //Id is ISO-8859-1
+        for (int i = 0; i < id.length(); i++)
+        {
+            char c = id.charAt(i);
+            buffer.put(c <= 0xFF ? (byte) c : (byte) '?');
+        }
+        buffer.put((byte) 0x3D);// "="
 
-        return b;
+        if (rawContent != null)
+        {
+            buffer.put(rawContent, rawContentOffset, rawContentLength);
+        }
+        else
+        {
+            Utils.putUtf8(buffer, content);
+        }
     }
 
     @Override
@@ -217,6 +334,10 @@ public class VorbisCommentTagField implements TagTextField
     @Override
     public boolean isEmpty()
     {
+        if (rawContent != null)
+        {
+            return rawContentLength == 0;
+        }
         return this.content.equals("");
     }
 
@@ -224,6 +345,7 @@ public class VorbisCommentTagField implements TagTextField
     public void setContent(String s)
     {
         this.content = s;
+        this.rawContent = null;
     }
 
     @Override
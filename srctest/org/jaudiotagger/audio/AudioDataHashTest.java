@@ -0,0 +1,190 @@
+package org.jaudiotagger.audio;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.GenericAudioHeader;
+import org.jaudiotagger.audio.ogg.util.OggPageReader;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash of audio data excluding metadata
+ */
+public class AudioDataHashTest extends AbstractTestCase
+{
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Hash does not change when the tag is changed, but does when the audio is changed
+     */
+    private void checkHash(String filename) throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp(filename, new File("testAudioDataHash" + filename));
+        AudioFile af = AudioFileIO.read(testFile);
+        AudioHeader header = af.getAudioHeader();
+        assertNotNull(header.getAudioDataStartPosition());
+        assertNotNull(header.getAudioDataEndPosition());
+        assertTrue(header.getAudioDataStartPosition() > 0);
+        assertTrue(header.getAudioDataEndPosition() > header.getAudioDataStartPosition());
+        byte[] hash = af.getAudioDataHash(ALGORITHM);
+
+        //Same as digest of the whole of the audio data, except for Ogg which excludes the page headers
+        byte[] file = Files.readAllBytes(testFile.toPath());
+        byte[] audio = Arrays.copyOfRange(file, header.getAudioDataStartPosition().intValue(), header.getAudioDataEndPosition().intValue());
+        assertEquals(filename, !filename.endsWith(".ogg"), Arrays.equals(MessageDigest.getInstance(ALGORITHM).digest(audio), hash));
+
+        Tag tag = af.getTagOrCreateAndSetDefault();
+        tag.setField(FieldKey.TITLE, "a different title that is long enough to need more room for the tag to be written");
+        tag.setField(FieldKey.ALBUM, "a different album");
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        assertEquals("a different album", af.getTag().getFirst(FieldKey.ALBUM));
+        assertTrue(filename, Arrays.equals(hash, af.getAudioDataHash(ALGORITHM)));
+
+        //Change a byte of the audio
+        long pos = (af.getAudioHeader().getAudioDataStartPosition() + af.getAudioHeader().getAudioDataEndPosition()) / 2;
+        try (RandomAccessFile raf = new RandomAccessFile(testFile, "rw"))
+        {
+            raf.seek(pos);
+            int b = raf.read();
+            raf.seek(pos);
+            raf.write(b ^ 0xFF);
+        }
+        assertFalse(filename, Arrays.equals(hash, AudioFileIO.read(testFile).getAudioDataHash(ALGORITHM)));
+    }
+
+    public void testMp3() throws Exception
+    {
+        checkHash("test23.mp3");
+    }
+
+    public void testFlac() throws Exception
+    {
+        checkHash("test.flac");
+    }
+
+    public void testMp4() throws Exception
+    {
+        checkHash("test.m4a");
+    }
+
+    public void testOgg() throws Exception
+    {
+        checkHash("test.ogg");
+    }
+
+    /**
+     * Comment header growing by several pages renumbers the audio pages, this must not change the hash
+     */
+    public void testOggCommentOverManyPages() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testAudioDataHashManyPages.ogg"));
+        AudioFile af = AudioFileIO.read(testFile);
+        byte[] hash = af.getAudioDataHash(ALGORITHM);
+        int pageSequence = getFirstAudioPageSequence(testFile, af.getAudioHeader().getAudioDataStartPosition());
+
+        StringBuilder lyrics = new StringBuilder();
+        while (lyrics.length() < 140000)
+        {
+            lyrics.append("lyrics for a song that is long enough to need many ogg pages ");
+        }
+        af.getTag().setField(FieldKey.LYRICS, lyrics.toString());
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        assertTrue(pageSequence != getFirstAudioPageSequence(testFile, af.getAudioHeader().getAudioDataStartPosition()));
+        assertTrue(Arrays.equals(hash, af.getAudioDataHash(ALGORITHM)));
+    }
+
+    private static int getFirstAudioPageSequence(File file, long audioStart) throws Exception
+    {
+        try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            OggPageReader pageReader = new OggPageReader(fc);
+            pageReader.readPage(audioStart);
+            return pageReader.getPageSequence();
+        }
+    }
+
+    public void testWav() throws Exception
+    {
+        checkHash("test.wav");
+    }
+
+    public void testAiff() throws Exception
+    {
+        checkHash("test119.aif");
+    }
+
+    /**
+     * Mp3 hash excludes the ID3v1 tag at the end of the file
+     */
+    public void testMp3ExcludesId3v1() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test23.mp3", new File("testAudioDataHashV1.mp3"));
+        AudioFile af = AudioFileIO.read(testFile);
+        assertEquals(testFile.length() - 128, af.getAudioHeader().getAudioDataEndPosition().longValue());
+    }
+
+    public void testBatch() throws Exception
+    {
+        List<File> files = new ArrayList<File>();
+        files.add(AbstractTestCase.copyAudioToTmp("test.flac", new File("testAudioDataHashBatch1.flac")));
+        files.add(AbstractTestCase.copyAudioToTmp("test.flac", new File("testAudioDataHashBatch2.flac")));
+        files.add(AbstractTestCase.copyAudioToTmp("test.m4a", new File("testAudioDataHashBatch.m4a")));
+        files.add(AbstractTestCase.copyAudioToTmp("test.ogg", new File("testAudioDataHashBatch.ogg")));
+        files.add(new File("testdatatmp", "testAudioDataHashBatchMissing.flac"));
+
+        AudioFile af = AudioFileIO.read(files.get(1));
+        af.getTag().setField(FieldKey.TITLE, "batch title");
+        af.commit();
+
+        Map<File, byte[]> hashes = AudioFileIO.getAudioDataHashes(files, ALGORITHM);
+        assertEquals(4, hashes.size());
+        assertFalse(hashes.containsKey(files.get(4)));
+        assertTrue(Arrays.equals(hashes.get(files.get(0)), hashes.get(files.get(1))));
+        assertFalse(Arrays.equals(hashes.get(files.get(0)), hashes.get(files.get(2))));
+        assertTrue(Arrays.equals(AudioFileIO.read(files.get(3)).getAudioDataHash(ALGORITHM), hashes.get(files.get(3))));
+    }
+
+    public void testUnknownAlgorithm() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testAudioDataHashAlgorithm.flac"));
+        try
+        {
+            AudioFileIO.read(testFile).getAudioDataHash("NOT-AN-ALGORITHM");
+            fail("Expected NoSuchAlgorithmException");
+        }
+        catch (NoSuchAlgorithmException nsae)
+        {
+            //expected
+        }
+    }
+
+    public void testUnknownAudioLocation() throws Exception
+    {
+        AudioFile af = new AudioFile(new File("testdatatmp", "unknown.flac"), new GenericAudioHeader(), null);
+        try
+        {
+            af.getAudioDataHash(ALGORITHM);
+            fail("Expected CannotReadException");
+        }
+        catch (CannotReadException cre)
+        {
+            //expected
+        }
+    }
+}
@@ -2,8 +2,13 @@ package org.jaudiotagger.audio;
 
 import org.jaudiotagger.AbstractTestCase;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
+import org.jaudiotagger.audio.mp3.MP3AudioHeader;
+import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.id3.ID3v11Tag;
 import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 /**
  * Able to write language ensures writes it as iso code for mp3s
@@ -51,4 +56,103 @@ public class AudioFileWriteAsTest extends AbstractTestCase {
         }
         fail("Didn't get expected exception " + CannotWriteException.class);
     }
-}
\ No newline at end of file
+
+    /**
+     * Formats that create the new file in a single pass must leave the original untouched
+     */
+    private void assertWriteAsLeavesOriginalUntouched(String filename, String extension) throws Exception
+    {
+        File source = AbstractTestCase.copyAudioToTmp(filename, new File("writeAsSource" + extension));
+        byte[] originalBytes = Files.readAllBytes(source.toPath());
+        AudioFile audioFile = AudioFileIO.read(source);
+        long trackLength = audioFile.getAudioHeader().getTrackLength();
+        audioFile.getTagOrCreateAndSetDefault().setField(FieldKey.ALBUM, "writeAsAlbum");
+
+        File destinationNoExtension = new File(source.getParent(), DESTINATION_FILE_NAME + extension.replace('.', '_'));
+        AudioFileIO.writeAs(audioFile, destinationNoExtension.getPath());
+
+        File destination = new File(destinationNoExtension.getPath() + extension);
+        assertEquals(destination.getPath(), audioFile.getFile().getPath());
+        assertTrue(Arrays.equals(originalBytes, Files.readAllBytes(source.toPath())));
+
+        AudioFile written = AudioFileIO.read(destination);
+        assertEquals("writeAsAlbum", written.getTag().getFirst(FieldKey.ALBUM));
+        assertEquals(trackLength, written.getAudioHeader().getTrackLength());
+        assertFalse("writeAsAlbum".equals(AudioFileIO.read(source).getTag().getFirst(FieldKey.ALBUM)));
+    }
+
+    public void testWriteAsFlac() throws Exception
+    {
+        assertWriteAsLeavesOriginalUntouched("test.flac", ".flac");
+    }
+
+    public void testWriteAsFlacWithLargeTag() throws Exception
+    {
+        File source = AbstractTestCase.copyAudioToTmp("test.flac", new File("writeAsSourceLarge.flac"));
+        AudioFile audioFile = AudioFileIO.read(source);
+        long audioStart = audioFile.getAudioHeader().getAudioDataStartPosition();
+        long audioLength = source.length() - audioStart;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++)
+        {
+            sb.append('x');
+        }
+        audioFile.getTag().setField(FieldKey.COMMENT, sb.toString());
+
+        File destinationNoExtension = new File(source.getParent(), DESTINATION_FILE_NAME + "_large");
+        AudioFileIO.writeAs(audioFile, destinationNoExtension.getPath());
+
+        AudioFile written = AudioFileIO.read(new File(destinationNoExtension.getPath() + ".flac"));
+        assertEquals(sb.toString(), written.getTag().getFirst(FieldKey.COMMENT));
+        assertEquals(audioLength, written.getFile().length() - written.getAudioHeader().getAudioDataStartPosition());
+    }
+
+    public void testWriteAsMp3() throws Exception
+    {
+        assertWriteAsLeavesOriginalUntouched("test23.mp3", ".mp3");
+    }
+
+    /**
+     * New ID3v2 tag is larger than the existing tag and its padding, the audio is still copied unchanged
+     */
+    public void testWriteAsMp3WithLargeTag() throws Exception
+    {
+        File source = AbstractTestCase.copyAudioToTmp("test23.mp3", new File("writeAsSourceLargeTag.mp3"));
+        MP3File audioFile = (MP3File) AudioFileIO.read(source);
+        MP3AudioHeader header = (MP3AudioHeader) audioFile.getAudioHeader();
+        byte[] originalBytes = Files.readAllBytes(source.toPath());
+        byte[] audio = Arrays.copyOfRange(originalBytes, (int) header.getMp3StartByte(), header.getAudioDataEndPosition().intValue());
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+        {
+            sb.append("comment ");
+        }
+        audioFile.getTagOrCreateAndSetDefault().setField(FieldKey.COMMENT, sb.toString());
+        audioFile.setID3v1Tag(new ID3v11Tag());
+        audioFile.getID3v1Tag().setField(FieldKey.TITLE, "v1 title");
+
+        File destinationNoExtension = new File(source.getParent(), DESTINATION_FILE_NAME + "_large_mp3");
+        AudioFileIO.writeAs(audioFile, destinationNoExtension.getPath());
+        assertTrue(Arrays.equals(originalBytes, Files.readAllBytes(source.toPath())));
+
+        MP3File written = (MP3File) AudioFileIO.read(new File(destinationNoExtension.getPath() + ".mp3"));
+        assertEquals(sb.toString(), written.getID3v2Tag().getFirst(FieldKey.COMMENT));
+        assertEquals("v1 title", written.getID3v1Tag().getFirst(FieldKey.TITLE));
+        MP3AudioHeader writtenHeader = (MP3AudioHeader) written.getAudioHeader();
+        assertEquals(((MP3AudioHeader) audioFile.getAudioHeader()).getMp3StartByte(), writtenHeader.getMp3StartByte());
+        byte[] writtenBytes = Files.readAllBytes(written.getFile().toPath());
+        assertTrue(Arrays.equals(audio, Arrays.copyOfRange(writtenBytes, (int) writtenHeader.getMp3StartByte(), writtenHeader.getAudioDataEndPosition().intValue())));
+        assertEquals(writtenBytes.length - 128, writtenHeader.getAudioDataEndPosition().longValue());
+    }
+
+    public void testWriteAsOgg() throws Exception
+    {
+        assertWriteAsLeavesOriginalUntouched("test.ogg", ".ogg");
+    }
+
+    public void testWriteAsWma() throws Exception
+    {
+        assertWriteAsLeavesOriginalUntouched("test1.wma", ".wma");
+    }
+}
@@ -4,7 +4,9 @@ import junit.framework.TestCase;
 import org.jaudiotagger.AbstractTestCase;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.flac.metadatablock.BlockType;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataPicture;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
 import org.jaudiotagger.tag.FieldKey;
 import org.jaudiotagger.tag.flac.FlacTag;
 import org.jaudiotagger.tag.reference.PictureTypes;
@@ -13,6 +15,7 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * basic Flac tests
@@ -311,4 +314,36 @@ public class FlacHeaderTest extends TestCase
         }
         assertNull(exceptionCaught);
     }
+
+    /**
+     * AudioFileIO reads the audio header and tag in a single pass, should be the same as reading them separately
+     */
+    public void testSinglePassReadSameAsSeparateReads() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testSinglePassRead.flac"));
+        AudioFile f = AudioFileIO.read(testFile);
+        FlacAudioHeader header = (FlacAudioHeader) f.getAudioHeader();
+        FlacAudioHeader separateHeader = new FlacInfoReader().read(testFile.toPath());
+        FlacTag separateTag = new FlacTagReader().read(testFile.toPath());
+
+        assertEquals(separateHeader.toString(), header.toString());
+        assertEquals(separateHeader.getAudioDataStartPosition(), header.getAudioDataStartPosition());
+        assertEquals(separateHeader.getMd5(), header.getMd5());
+        assertEquals(separateTag.toString(), f.getTag().toString());
+        assertEquals(separateTag.getImages().size(), ((FlacTag) f.getTag()).getImages().size());
+
+        //Position of each block is recorded, blocks follow each other with audio after the last
+        List<MetadataBlockHeader> blocks = header.getMetadataBlockHeaders();
+        assertEquals(6, blocks.size());
+        assertEquals(BlockType.STREAMINFO, blocks.get(0).getBlockType());
+        assertEquals(FlacStreamReader.FLAC_STREAM_IDENTIFIER_LENGTH, blocks.get(0).getStartByte());
+        for (int i = 1; i < blocks.size(); i++)
+        {
+            MetadataBlockHeader previous = blocks.get(i - 1);
+            assertEquals(previous.getStartByte() + MetadataBlockHeader.HEADER_LENGTH + previous.getDataLength(), blocks.get(i).getStartByte());
+        }
+        MetadataBlockHeader last = blocks.get(blocks.size() - 1);
+        assertTrue(last.isLastBlock());
+        assertEquals(last.getStartByte() + MetadataBlockHeader.HEADER_LENGTH + last.getDataLength(), header.getAudioDataStartPosition().longValue());
+    }
 }
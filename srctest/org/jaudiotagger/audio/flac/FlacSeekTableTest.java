@@ -0,0 +1,273 @@
+package org.jaudiotagger.audio.flac;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.flac.metadatablock.BlockType;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataSeekTable;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataStreamInfo;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.flac.FlacTag;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reading and generating Flac seek tables
+ */
+public class FlacSeekTableTest extends AbstractTestCase
+{
+    private static final int SHORT_FRAME_LENGTH = 14;
+
+    private static int crc8(byte[] data, int start, int end)
+    {
+        int crc = 0;
+        for (int i = start; i < end; i++)
+        {
+            crc ^= data[i] & 0xFF;
+            for (int j = 0; j < 8; j++)
+            {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) & 0xFF : (crc << 1) & 0xFF;
+            }
+        }
+        return crc;
+    }
+
+    private static int crc16(byte[] data, int start, int end)
+    {
+        int crc = 0;
+        for (int i = start; i < end; i++)
+        {
+            crc ^= (data[i] & 0xFF) << 8;
+            for (int j = 0; j < 8; j++)
+            {
+                crc = (crc & 0x8000) != 0 ? ((crc << 1) ^ 0x8005) & 0xFFFF : (crc << 1) & 0xFFFF;
+            }
+        }
+        return crc;
+    }
+
+    /**
+     * Create stereo 16 bit 44100Hz Flac file of silent frames of 4096 samples, each frame is only 14 bytes as both
+     * subframes are constant
+     *
+     * @param file
+     * @param noOfFrames
+     * @param minFrameSize value written to StreamInfo
+     * @return position of the first frame
+     */
+    private static int createShortFrameFile(File file, int noOfFrames, int minFrameSize) throws Exception
+    {
+        ByteBuffer flac = ByteBuffer.allocate(4 + 4 + 34 + noOfFrames * SHORT_FRAME_LENGTH);
+        flac.put("fLaC".getBytes(StandardCharsets.ISO_8859_1));
+
+        //Last metadata block, StreamInfo
+        flac.putInt(0x80000000 | 34);
+        flac.putShort((short) 4096).putShort((short) 4096);
+        flac.put((byte) (minFrameSize >> 16)).put((byte) (minFrameSize >> 8)).put((byte) minFrameSize);
+        flac.put((byte) 0).put((byte) 0).put((byte) 0);
+        flac.putLong((44100L << 44) | (1L << 41) | (15L << 36) | (noOfFrames * 4096L));
+        flac.put(new byte[16]);
+        int audioStart = flac.position();
+
+        byte[] frame = new byte[SHORT_FRAME_LENGTH];
+        for (int i = 0; i < noOfFrames; i++)
+        {
+            //Sync code and fixed block size, 4096 samples at 44100Hz, stereo 16 bit, frame number, CRC-8
+            frame[0] = (byte) 0xFF;
+            frame[1] = (byte) 0xF8;
+            frame[2] = (byte) 0xC9;
+            frame[3] = (byte) 0x18;
+            frame[4] = (byte) i;
+            frame[5] = (byte) crc8(frame, 0, 5);
+
+            //Two constant subframes of silence, then CRC-16 of the frame
+            Arrays.fill(frame, 6, 12, (byte) 0);
+            int crc = crc16(frame, 0, 12);
+            frame[12] = (byte) (crc >> 8);
+            frame[13] = (byte) crc;
+            flac.put(frame);
+        }
+        Files.write(file.toPath(), flac.array());
+        return audioStart;
+    }
+
+    /**
+     * Frames may be shorter than the longest possible frame header
+     */
+    public void testGenerateSeekTableShortFrames() throws Exception
+    {
+        File testFile = new File("testdatatmp", "testGenerateSeekTableShortFrames.flac");
+        for (int minFrameSize : new int[]{SHORT_FRAME_LENGTH, 0})
+        {
+            createShortFrameFile(testFile, 20, minFrameSize);
+            FlacSeekTable seekTable = new FlacFileWriter().writeSeekTable(testFile.toPath(), 1);
+            assertEquals(2, seekTable.getNoOfSeekPoints());
+            assertEquals(0, seekTable.getSampleNumber(0));
+            assertEquals(0, seekTable.getFrameOffset(0));
+            assertEquals(45056, seekTable.getSampleNumber(1));
+            assertEquals(11 * SHORT_FRAME_LENGTH, seekTable.getFrameOffset(1));
+        }
+    }
+
+    /**
+     * If the minimum frame size is wrong frames are missed, but the scan resynchronises on later frames
+     */
+    public void testGenerateSeekTableResync() throws Exception
+    {
+        File testFile = new File("testdatatmp", "testGenerateSeekTableResync.flac");
+        int audioStart = createShortFrameFile(testFile, 20, SHORT_FRAME_LENGTH + 6);
+        try (FileChannel fc = FileChannel.open(testFile.toPath(), StandardOpenOption.READ))
+        {
+            fc.position(audioStart - 34);
+            MetadataBlockDataStreamInfo streamInfo = new MetadataBlockDataStreamInfo(new MetadataBlockHeader(true, BlockType.STREAMINFO, 34), fc);
+            FlacSeekTable seekTable = FlacSeekTableGenerator.generate(fc, audioStart, streamInfo, 44100);
+            assertEquals(2, seekTable.getNoOfSeekPoints());
+            assertEquals(0, seekTable.getSampleNumber(0));
+            assertTrue(seekTable.getSampleNumber(1) >= 44100);
+            assertEquals(seekTable.getSampleNumber(1) / 4096 * SHORT_FRAME_LENGTH, seekTable.getFrameOffset(1));
+        }
+    }
+
+    public void testLookup()
+    {
+        FlacSeekTable seekTable = new FlacSeekTable();
+        assertEquals(-1, seekTable.indexOf(100));
+        assertEquals(0, seekTable.getFrameOffsetForSample(100));
+
+        for (int i = 0; i < 100; i++)
+        {
+            seekTable.add(i * 4096L, i * 1000L, 4096);
+        }
+        assertEquals(100, seekTable.getNoOfSeekPoints());
+        assertEquals(0, seekTable.indexOf(0));
+        assertEquals(0, seekTable.indexOf(4095));
+        assertEquals(1, seekTable.indexOf(4096));
+        assertEquals(99, seekTable.indexOf(Long.MAX_VALUE));
+        assertEquals(50000, seekTable.getFrameOffsetForSample(50 * 4096 + 1));
+
+        //Round trip through SEEKTABLE block data
+        FlacSeekTable copy = FlacSeekTable.read(seekTable.toMetadataBlockData().getBytes());
+        assertEquals(100, copy.getNoOfSeekPoints());
+        assertEquals(99 * 4096L, copy.getSampleNumber(99));
+        assertEquals(99000, copy.getFrameOffset(99));
+        assertEquals(4096, copy.getNoOfSamples(99));
+
+        try
+        {
+            seekTable.add(0, 0, 4096);
+            fail("Expected seek points out of order to be rejected");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            //expected
+        }
+    }
+
+    public void testReadSeekTable() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test3.flac", new File("testReadSeekTable.flac"));
+        AudioFile af = AudioFileIO.read(testFile);
+        FlacAudioHeader header = (FlacAudioHeader) af.getAudioHeader();
+        FlacSeekTable seekTable = header.getSeekTable();
+        assertNotNull(seekTable);
+        assertEquals(17, seekTable.getNoOfSeekPoints());
+        assertEquals(0, seekTable.getSampleNumber(0));
+        assertEquals(4096, seekTable.getNoOfSamples(0));
+        assertEquals(header.getAudioDataStartPosition().longValue(), header.getSeekPosition(100));
+
+        //Same when read separately
+        assertEquals(17, new FlacInfoReader().read(testFile.toPath()).getSeekTable().getNoOfSeekPoints());
+    }
+
+    /**
+     * Seek points in the file that are not in ascending order are skipped rather than failing the read
+     */
+    public void testReadSeekTableOutOfOrder() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test3.flac", new File("testReadSeekTableOutOfOrder.flac"));
+        long secondSampleNumber;
+        try (FileChannel fc = FileChannel.open(testFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            //Find the SEEKTABLE block
+            ByteBuffer header = ByteBuffer.allocate(MetadataBlockHeader.HEADER_LENGTH);
+            long pos = 4;
+            while (true)
+            {
+                header.clear();
+                fc.read(header, pos);
+                if ((header.get(0) & 0x7F) == BlockType.SEEKTABLE.getId())
+                {
+                    break;
+                }
+                pos += MetadataBlockHeader.HEADER_LENGTH + (header.getInt(0) & 0xFFFFFF);
+            }
+
+            //Make the third seek point a duplicate of the second and the fourth go back to the start
+            ByteBuffer seekPoints = ByteBuffer.allocate(4 * MetadataBlockDataSeekTable.SEEK_POINT_LENGTH);
+            long seekPointsStart = pos + MetadataBlockHeader.HEADER_LENGTH;
+            fc.read(seekPoints, seekPointsStart);
+            secondSampleNumber = seekPoints.getLong(MetadataBlockDataSeekTable.SEEK_POINT_LENGTH);
+            seekPoints.putLong(2 * MetadataBlockDataSeekTable.SEEK_POINT_LENGTH, secondSampleNumber);
+            seekPoints.putLong(3 * MetadataBlockDataSeekTable.SEEK_POINT_LENGTH, 0);
+            seekPoints.rewind();
+            fc.write(seekPoints, seekPointsStart);
+        }
+
+        AudioFile af = AudioFileIO.read(testFile);
+        FlacSeekTable seekTable = ((FlacAudioHeader) af.getAudioHeader()).getSeekTable();
+        assertEquals(15, seekTable.getNoOfSeekPoints());
+        for (int i = 1; i < seekTable.getNoOfSeekPoints(); i++)
+        {
+            assertTrue(seekTable.getSampleNumber(i) > seekTable.getSampleNumber(i - 1));
+        }
+        assertEquals(secondSampleNumber, seekTable.getSampleNumber(1));
+    }
+
+    public void testGenerateSeekTable() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testGenerateSeekTable.flac"));
+        AudioFile af = AudioFileIO.read(testFile);
+        FlacAudioHeader header = (FlacAudioHeader) af.getAudioHeader();
+        long audioStart = header.getAudioDataStartPosition();
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        assertEquals(1, header.getSeekTable().getNoOfSeekPoints());
+
+        FlacSeekTable seekTable = new FlacFileWriter().writeSeekTable(testFile.toPath(), 1);
+
+        //Five seconds so a seek point for 0 and each of the following 4 seconds
+        assertEquals(5, seekTable.getNoOfSeekPoints());
+        for (int i = 0; i < seekTable.getNoOfSeekPoints(); i++)
+        {
+            assertTrue(seekTable.getSampleNumber(i) >= i * 44100L);
+            assertTrue(seekTable.getSampleNumber(i) < i * 44100L + 4096);
+            assertEquals(0, seekTable.getSampleNumber(i) % 4096);
+            assertEquals(4096, seekTable.getNoOfSamples(i));
+
+            //Offset is the start of a frame
+            int framePos = (int) (audioStart + seekTable.getFrameOffset(i));
+            assertEquals((byte) 0xFF, original[framePos]);
+            assertEquals((byte) 0xF8, original[framePos + 1]);
+        }
+        assertTrue(seekTable.getFrameOffset(4) > seekTable.getFrameOffset(3));
+
+        //Written to file, the audio has not moved as there was enough padding
+        af = AudioFileIO.read(testFile);
+        header = (FlacAudioHeader) af.getAudioHeader();
+        assertEquals(audioStart, header.getAudioDataStartPosition().longValue());
+        assertEquals(5, header.getSeekTable().getNoOfSeekPoints());
+        assertEquals(seekTable.getFrameOffset(2), header.getSeekTable().getFrameOffset(2));
+        assertEquals(audioStart + seekTable.getFrameOffset(2), header.getSeekPosition(2 * 44100L + 10000));
+        assertEquals("Artist", af.getTag().getFirst(FieldKey.ARTIST));
+        assertEquals(2, ((FlacTag) af.getTag()).getImages().size());
+
+        byte[] modified = Files.readAllBytes(testFile.toPath());
+        assertTrue(Arrays.equals(Arrays.copyOfRange(original, (int) audioStart, original.length), Arrays.copyOfRange(modified, (int) audioStart, modified.length)));
+    }
+}
@@ -12,6 +12,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -62,9 +63,45 @@ public class AudioFileWriterTest extends TestCase {
         sizeHasChanged(-200);
     }
 
+    public void testSizeHasIncreasedInMemory() throws CannotWriteException, IOException, InterruptedException {
+        TagOptionSingleton.getInstance().setInMemoryWriteMaximumFileSize(audioFile.getFile().length());
+        sizeHasChanged(new MockInMemoryAudioFileWriter(200), 200);
+    }
+
+    public void testSizeHasDecreasedInMemory() throws CannotWriteException, IOException, InterruptedException {
+        TagOptionSingleton.getInstance().setInMemoryWriteMaximumFileSize(audioFile.getFile().length());
+        sizeHasChanged(new MockInMemoryAudioFileWriter(-200), -200);
+    }
+
+    public void testFileTooLargeForInMemory() throws CannotWriteException, IOException, InterruptedException {
+        TagOptionSingleton.getInstance().setInMemoryWriteMaximumFileSize(audioFile.getFile().length() - 1);
+        final MockInMemoryAudioFileWriter audioFileWriter = new MockInMemoryAudioFileWriter(200);
+        sizeHasChanged(audioFileWriter, 200);
+        assertFalse(audioFileWriter.writtenInMemory);
+    }
+
+    public void testInMemoryKeepsFileAndCreatesNoTempFile() throws Exception {
+        TagOptionSingleton.getInstance().setInMemoryWriteMaximumFileSize(audioFile.getFile().length());
+        TagOptionSingleton.getInstance().setPreserveFileIdentity(false);
+        final Path path = audioFile.getFile().toPath();
+        final Object originalKey = Files.readAttributes(path, java.nio.file.attribute.BasicFileAttributes.class).fileKey();
+        final int filesInFolder = audioFile.getFile().getParentFile().list().length;
+
+        final MockInMemoryAudioFileWriter audioFileWriter = new MockInMemoryAudioFileWriter(100);
+        audioFileWriter.write(this.audioFile);
+        assertTrue(audioFileWriter.writtenInMemory);
+        assertEquals(filesInFolder, audioFile.getFile().getParentFile().list().length);
+        if (originalKey != null) {
+            assertEquals(originalKey, Files.readAttributes(path, java.nio.file.attribute.BasicFileAttributes.class).fileKey());
+        }
+    }
+
     private void sizeHasChanged(final int fileSizeDelta) throws CannotWriteException {
+        sizeHasChanged(new MockAudioFileWriter(fileSizeDelta), fileSizeDelta);
+    }
+
+    private void sizeHasChanged(final AudioFileWriter audioFileWriter, final int fileSizeDelta) throws CannotWriteException {
         final long originalFileSize = audioFile.getFile().length();
-        final AudioFileWriter audioFileWriter = new MockAudioFileWriter(fileSizeDelta);
         audioFileWriter.write(this.audioFile);
         final long fileSize = audioFile.getFile().length();
         assertEquals("File size is not correct", originalFileSize + fileSizeDelta, fileSize);
@@ -137,6 +174,10 @@ public class AudioFileWriterTest extends TestCase {
             this.fileSizeDelta = fileSizeDelta;
         }
 
+        protected int getFileSizeDelta() {
+            return fileSizeDelta;
+        }
+
         @Override
         protected void deleteTag(final Tag tag, final RandomAccessFile raf, final RandomAccessFile tempRaf) throws CannotReadException, CannotWriteException, IOException {
             // not implemented
@@ -160,4 +201,23 @@ public class AudioFileWriterTest extends TestCase {
             }
         }
     }
+
+    private static class MockInMemoryAudioFileWriter extends MockAudioFileWriter {
+
+        private boolean writtenInMemory;
+
+        public MockInMemoryAudioFileWriter(final int fileSizeDelta) {
+            super(fileSizeDelta);
+        }
+
+        @Override
+        protected ByteBuffer writeTagToMemory(final AudioFile audioFile, final Tag tag, final RandomAccessFile raf) throws CannotReadException, CannotWriteException, IOException {
+            final int length = (int) raf.length();
+            final byte[] newFile = new byte[length + getFileSizeDelta()];
+            Arrays.fill(newFile, (byte) 6);
+            raf.readFully(newFile, 0, Math.min(length, newFile.length));
+            writtenInMemory = true;
+            return ByteBuffer.wrap(newFile);
+        }
+    }
 }
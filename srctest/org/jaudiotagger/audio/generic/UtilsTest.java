@@ -7,6 +7,8 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 
 public class UtilsTest  extends TestCase {
@@ -145,4 +147,26 @@ public class UtilsTest  extends TestCase {
         System.out.println(val);
     }
 
+    public void testUtf8() {
+        String[] values = {"", "ascii", "Tïtle", "\u4e2d\u6587", "emoji \ud83c\udfb5", "unpaired \ud800 surrogate", "\udc00", "end \ud800"};
+        for (String value : values) {
+            byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length, Utils.getUtf8Length(value));
+
+            ByteBuffer heap = ByteBuffer.allocate(expected.length + 2);
+            heap.put((byte) 0);
+            Utils.putUtf8(heap.slice(), value);
+            ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+            Utils.putUtf8(direct, value);
+            assertEquals(0, direct.remaining());
+
+            heap.position(1);
+            Utils.putUtf8(heap, value);
+            assertEquals(expected.length + 1, heap.position());
+            byte[] actual = new byte[expected.length];
+            System.arraycopy(heap.array(), 1, actual, 0, expected.length);
+            assertTrue(Arrays.equals(expected, actual));
+        }
+    }
+
 }
@@ -0,0 +1,54 @@
+package org.jaudiotagger.audio.iff;
+
+import junit.framework.TestCase;
+import org.jaudiotagger.audio.aiff.chunk.AiffChunkType;
+import org.jaudiotagger.audio.dff.DffChunkType;
+import org.jaudiotagger.audio.dsf.DsfChunkType;
+import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.wav.WavChunkType;
+import org.jaudiotagger.audio.wav.chunk.WavInfoIdentifier;
+import org.jaudiotagger.tag.FieldKey;
+
+public class ChunkIdIndexTest extends TestCase
+{
+    public void testLookupByCode()
+    {
+        for (WavChunkType next : WavChunkType.values())
+        {
+            assertEquals(next, WavChunkType.get(next.getCode()));
+        }
+        for (AiffChunkType next : AiffChunkType.values())
+        {
+            assertEquals(next, AiffChunkType.get(next.getCode()));
+        }
+        assertEquals(DsfChunkType.ID3, DsfChunkType.get("ID3"));
+        assertEquals(WavInfoIdentifier.ARTIST, WavInfoIdentifier.getByCode("IART"));
+        assertEquals(WavInfoIdentifier.TWONKY_TRACKNO, WavInfoIdentifier.getByCode("itrk"));
+        assertEquals(WavInfoIdentifier.TRACKNO, WavInfoIdentifier.getByFieldKey(FieldKey.TRACK));
+        assertNull(WavInfoIdentifier.getByFieldKey(FieldKey.MOOD));
+    }
+
+    public void testUnknownCodes()
+    {
+        assertNull(WavChunkType.get("abcd"));
+        assertNull(WavChunkType.get("LIS"));
+        assertNull(WavChunkType.get(null));
+        assertNull(WavChunkType.get("\u0100IST"));
+        assertNull(AiffChunkType.get("ID3"));
+        assertNull(WavInfoIdentifier.getByCode("\0\0\0\0"));
+    }
+
+    /**
+     * If two values share an id the last one wins, as it did with the previous map based lookup
+     */
+    public void testDuplicateCodeUsesLast()
+    {
+        assertEquals(DffChunkType.END, DffChunkType.get("DSD "));
+    }
+
+    public void testToInt()
+    {
+        assertEquals(0x52494646, Utils.toFourCC("RIFF"));
+        assertEquals(0xFF000000 | 0x00494433, Utils.toFourCC("\u00ffID3"));
+    }
+}
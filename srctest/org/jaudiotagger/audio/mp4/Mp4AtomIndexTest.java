@@ -0,0 +1,58 @@
+package org.jaudiotagger.audio.mp4;
+
+import junit.framework.TestCase;
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+
+import java.io.File;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+
+/**
+ * Compare the atom index with the atom tree
+ */
+public class Mp4AtomIndexTest extends TestCase
+{
+    private static void assertSameAtom(Mp4BoxHeader expected, Mp4BoxHeader actual)
+    {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getFilePos(), actual.getFilePos());
+        assertEquals(expected.getLength(), actual.getLength());
+    }
+
+    public void testIndexMatchesTree() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testAtomIndex.m4a"));
+        try(SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            Mp4AtomTree tree = new Mp4AtomTree(fc, false);
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+
+            assertSameAtom(tree.getBoxHeader(tree.getMoovNode()), index.getBoxHeader(index.getMoov()));
+            assertSameAtom(tree.getBoxHeader(tree.getMdatNode()), index.getBoxHeader(index.getMdat()));
+            assertSameAtom(tree.getBoxHeader(tree.getUdtaNode()), index.getBoxHeader(index.find("moov/udta")));
+            assertSameAtom(tree.getBoxHeader(tree.getMetaNode()), index.getBoxHeader(index.find("moov/udta/meta")));
+            assertSameAtom(tree.getBoxHeader(tree.getIlstNode()), index.getBoxHeader(index.find("moov/udta/meta/ilst")));
+            assertSameAtom(tree.getBoxHeader(tree.getHdlrWithinMetaNode()), index.getBoxHeader(index.find("moov/udta/meta/hdlr")));
+            assertSameAtom(tree.getBoxHeader(tree.getHdlrWithinMdiaNode()), index.getBoxHeader(index.find("moov/trak/mdia/hdlr")));
+            assertEquals(tree.getMoovBuffer(), index.getMoovBuffer());
+
+            assertEquals(tree.getStcos().size(), index.getStcos().size());
+            for (int i = 0; i < tree.getStcos().size(); i++)
+            {
+                assertEquals(tree.getStcos().get(i).getFirstOffSet(), index.getStcos().get(i).getFirstOffSet());
+                assertEquals(tree.getStcos().get(i).getNoOfOffSets(), index.getStcos().get(i).getNoOfOffSets());
+            }
+
+            //Relative lookups
+            int meta = index.find("moov/udta/meta");
+            assertEquals(index.find("moov/udta/meta/ilst"), index.find(meta, "ilst"));
+            assertEquals(meta, index.getParent(index.find(meta, "ilst")));
+            assertEquals(Mp4AtomIndex.NONE, index.find("moov/udta/xxxx/ilst"));
+            assertEquals(Mp4AtomIndex.NONE, index.find(Mp4AtomIndex.NONE, "ilst"));
+            assertEquals(Mp4AtomIndex.NONE, index.getParent(index.getMoov()));
+            assertEquals("ilst", index.getId(index.find(meta, "ilst")));
+        }
+    }
+}
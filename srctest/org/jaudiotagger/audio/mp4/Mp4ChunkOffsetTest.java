@@ -0,0 +1,190 @@
+package org.jaudiotagger.audio.mp4;
+
+import junit.framework.TestCase;
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.exceptions.CannotWriteException;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+import org.jaudiotagger.audio.mp4.atom.Mp4StcoBox;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.TagOptionSingleton;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+
+/**
+ * Adjusting the chunk offsets of stco and co64 atoms when the audio data is moved
+ */
+public class Mp4ChunkOffsetTest extends TestCase
+{
+    private static final int MILLIONS_OF_ENTRIES = 3000000;
+
+    @Override
+    public void setUp()
+    {
+        TagOptionSingleton.getInstance().setToDefault();
+    }
+
+    /**
+     * Create chunk offset box data (excluding header) with offsets starting at firstOffset each chunkSize apart
+     */
+    private static ByteBuffer createChunkOffsetData(boolean is64Bit, int noOfOffsets, long firstOffset, long chunkSize)
+    {
+        ByteBuffer data = ByteBuffer.allocate(8 + noOfOffsets * (is64Bit ? 8 : 4));
+        data.putInt(0);
+        data.putInt(noOfOffsets);
+        for (int i = 0; i < noOfOffsets; i++)
+        {
+            if (is64Bit)
+            {
+                data.putLong(firstOffset + i * chunkSize);
+            }
+            else
+            {
+                data.putInt((int) (firstOffset + i * chunkSize));
+            }
+        }
+        data.rewind();
+        return data;
+    }
+
+    private static Mp4StcoBox createChunkOffsetBox(boolean is64Bit, ByteBuffer data)
+    {
+        Mp4BoxHeader header = new Mp4BoxHeader(is64Bit ? Mp4AtomIdentifier.CO64.getFieldName() : Mp4AtomIdentifier.STCO.getFieldName());
+        header.setLength(Mp4BoxHeader.HEADER_LENGTH + data.limit());
+        return new Mp4StcoBox(header, data);
+    }
+
+    public void testAdjustMillionsOfStcoOffsets() throws Exception
+    {
+        ByteBuffer data = createChunkOffsetData(false, MILLIONS_OF_ENTRIES, 1000, 100);
+        Mp4StcoBox stco = createChunkOffsetBox(false, data);
+        assertFalse(stco.is64Bit());
+        assertEquals(MILLIONS_OF_ENTRIES, stco.getNoOfOffSets());
+
+        stco.adjustOffsets(-500);
+        for (int i = 0; i < MILLIONS_OF_ENTRIES; i++)
+        {
+            assertEquals(500 + i * 100L, stco.getOffset(i));
+        }
+
+        //Offsets are unsigned so can go above 2GB
+        stco.adjustOffsets(Integer.MAX_VALUE);
+        assertEquals(500L + Integer.MAX_VALUE, stco.getOffset(0));
+        assertEquals(500L + Integer.MAX_VALUE + (MILLIONS_OF_ENTRIES - 1) * 100L, stco.getOffset(MILLIONS_OF_ENTRIES - 1));
+        assertTrue(data.getInt(8) < 0);
+    }
+
+    public void testAdjustMillionsOfCo64Offsets() throws Exception
+    {
+        long fiveGB = 5L * 1024 * 1024 * 1024;
+        ByteBuffer data = createChunkOffsetData(true, MILLIONS_OF_ENTRIES, fiveGB, 1000);
+        Mp4StcoBox co64 = createChunkOffsetBox(true, data);
+        assertTrue(co64.is64Bit());
+        assertEquals(fiveGB, co64.getFirstOffSetAsLong());
+
+        co64.adjustOffsets(12345);
+        for (int i = 0; i < MILLIONS_OF_ENTRIES; i++)
+        {
+            assertEquals(fiveGB + 12345 + i * 1000L, co64.getOffset(i));
+        }
+        assertEquals(fiveGB + 12345, data.getLong(8));
+    }
+
+    public void testStcoOffsetThatWouldNotFitIsRejected() throws Exception
+    {
+        ByteBuffer data = createChunkOffsetData(false, 1000, 0xFFFFFFFFL - 100000, 100);
+        Mp4StcoBox stco = createChunkOffsetBox(false, data);
+        try
+        {
+            stco.adjustOffsets(1000);
+            fail("Expected offsets too large");
+        }
+        catch (CannotWriteException cwe)
+        {
+            //Table must be left unmodified
+            assertEquals(0xFFFFFFFFL - 100000, stco.getOffset(0));
+            assertEquals(0xFFFFFFFFL - 100000 + 999 * 100, stco.getOffset(999));
+        }
+    }
+
+    /**
+     * Replace the stco of test.m4a with a co64 containing millions of entries, then write metadata that moves the
+     * audio and check the offsets were all moved with it
+     */
+    public void testWriteFileWithMillionsOfCo64Offsets() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testWriteMillionsOfCo64Offsets.m4a"));
+        byte[] original = Files.readAllBytes(testFile.toPath());
+
+        int stco;
+        Mp4AtomIndex index;
+        try(SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            index = new Mp4AtomIndex(fc);
+            stco = index.find("moov/trak/mdia/minf/stbl/stco");
+            assertTrue(stco != Mp4AtomIndex.NONE);
+        }
+        ByteBuffer originalFile = ByteBuffer.wrap(original);
+        long stcoPos = index.getOffset(stco);
+        int noOfOffsets = originalFile.getInt((int) stcoPos + 12);
+        long firstOffset = originalFile.getInt((int) stcoPos + 16);
+
+        //Co64 atom with all the original offsets, then repeats the last one to make it up to millions
+        int co64Size = Mp4BoxHeader.HEADER_LENGTH + 8 + MILLIONS_OF_ENTRIES * 8;
+        int sizeIncrease = co64Size - (int) index.getSize(stco);
+        ByteBuffer co64 = ByteBuffer.allocate(co64Size);
+        co64.putInt(co64Size);
+        co64.put(Mp4AtomIdentifier.CO64.getFieldName().getBytes("ISO-8859-1"));
+        co64.putInt(0);
+        co64.putInt(MILLIONS_OF_ENTRIES);
+        long lastOffset = 0;
+        for (int i = 0; i < MILLIONS_OF_ENTRIES; i++)
+        {
+            if (i < noOfOffsets)
+            {
+                lastOffset = (originalFile.getInt((int) stcoPos + 16 + i * 4) & 0xFFFFFFFFL) + sizeIncrease;
+            }
+            co64.putLong(lastOffset);
+        }
+
+        ByteBuffer newFile = ByteBuffer.allocate(original.length + sizeIncrease);
+        newFile.put(original, 0, (int) stcoPos);
+        newFile.put(co64.array());
+        newFile.put(original, (int) index.getEndOffset(stco), original.length - (int) index.getEndOffset(stco));
+        for (int parent = index.getParent(stco); parent != Mp4AtomIndex.NONE; parent = index.getParent(parent))
+        {
+            newFile.putInt((int) index.getOffset(parent), (int) index.getSize(parent) + sizeIncrease);
+        }
+        Files.write(testFile.toPath(), newFile.array());
+
+        AudioFile af = AudioFileIO.read(testFile);
+        assertEquals(firstOffset + sizeIncrease, af.getAudioHeader().getAudioDataStartPosition().longValue());
+        StringBuilder lyrics = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+        {
+            lyrics.append("lyrics");
+        }
+        af.getTag().setField(FieldKey.LYRICS, lyrics.toString());
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(lyrics.toString(), af.getTag().getFirst(FieldKey.LYRICS));
+        try(SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            index = new Mp4AtomIndex(fc);
+            assertEquals(1, index.getStcos().size());
+            Mp4StcoBox newCo64 = index.getStcos().get(0);
+            assertTrue(newCo64.is64Bit());
+            assertEquals(MILLIONS_OF_ENTRIES, newCo64.getNoOfOffSets());
+
+            long shift = newCo64.getFirstOffSetAsLong() - (firstOffset + sizeIncrease);
+            assertTrue(shift > 0);
+            assertEquals(af.getAudioHeader().getAudioDataStartPosition().longValue(), newCo64.getFirstOffSetAsLong());
+            assertEquals(lastOffset + shift, newCo64.getOffset(MILLIONS_OF_ENTRIES - 1));
+        }
+    }
+}
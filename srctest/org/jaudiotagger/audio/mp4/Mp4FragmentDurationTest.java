@@ -0,0 +1,282 @@
+package org.jaudiotagger.audio.mp4;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.generic.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+
+/**
+ * Duration of fragmented mp4 files, the files are created from the moov of test.m4a with its duration removed
+ */
+public class Mp4FragmentDurationTest extends AbstractTestCase
+{
+    private static final int NO_OF_FRAGMENTS = 10;
+    private static final int SAMPLES_PER_FRAGMENT = 43;
+    private static final int SAMPLE_DURATION = 1024;
+
+    private byte[] ftyp;
+    private byte[] moov;
+    private int movieTimeScale;
+    private int trackTimeScale;
+
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        try
+        {
+            File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testFragmentSource.m4a"));
+            byte[] original = Files.readAllBytes(testFile.toPath());
+            try (SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+            {
+                Mp4AtomIndex index = new Mp4AtomIndex(fc);
+                ftyp = copyAtom(original, index, index.findTopLevel(Utils.toFourCC("ftyp")));
+                moov = copyAtom(original, index, index.getMoov());
+
+                //Remove duration from mvhd
+                int mvhd = (int) (index.getOffset(index.find("moov/mvhd")) - index.getOffset(index.getMoov()));
+                ByteBuffer moovBuffer = ByteBuffer.wrap(moov);
+                assertEquals(0, moovBuffer.get(mvhd + 8));
+                movieTimeScale = moovBuffer.getInt(mvhd + 8 + 12);
+                moovBuffer.putInt(mvhd + 8 + 16, 0);
+
+                int mdhd = (int) index.getOffset(index.find("moov/trak/mdia/mdhd"));
+                trackTimeScale = ByteBuffer.wrap(original).getInt(mdhd + 8 + 12);
+            }
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] copyAtom(byte[] file, Mp4AtomIndex index, int atom)
+    {
+        byte[] data = new byte[(int) index.getSize(atom)];
+        System.arraycopy(file, (int) index.getOffset(atom), data, 0, data.length);
+        return data;
+    }
+
+    private static byte[] atom(String id, byte[]... children)
+    {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (byte[] child : children)
+        {
+            data.write(child, 0, child.length);
+        }
+        ByteBuffer atom = ByteBuffer.allocate(8 + data.size());
+        atom.putInt(8 + data.size());
+        for (int i = 0; i < 4; i++)
+        {
+            atom.put((byte) id.charAt(i));
+        }
+        atom.put(data.toByteArray());
+        return atom.array();
+    }
+
+    private static byte[] ints(long... values)
+    {
+        ByteBuffer data = ByteBuffer.allocate(values.length * 4);
+        for (long value : values)
+        {
+            data.putInt((int) value);
+        }
+        return data.array();
+    }
+
+    /**
+     * @return moov with mvex added
+     */
+    private byte[] createMoov(boolean withMehd, long mehdDuration)
+    {
+        byte[] trex = atom("trex", ints(0, 1, 1, SAMPLE_DURATION, 0, 0));
+        byte[] mvex = withMehd ? atom("mvex", atom("mehd", ints(0, mehdDuration)), trex) : atom("mvex", trex);
+        byte[] moovData = new byte[moov.length - 8];
+        System.arraycopy(moov, 8, moovData, 0, moovData.length);
+        return atom("moov", moovData, mvex);
+    }
+
+    /**
+     * @param i fragment number
+     * @param withTfdt include decode time
+     * @param perSampleDurations use per sample durations in trun rather than defaults
+     */
+    private static byte[] createMoof(int i, boolean withTfdt, boolean perSampleDurations)
+    {
+        byte[] tfhd = atom("tfhd", ints(0, 1));
+        byte[] trun;
+        if (perSampleDurations)
+        {
+            long[] values = new long[2 + SAMPLES_PER_FRAGMENT];
+            values[0] = 0x100;
+            values[1] = SAMPLES_PER_FRAGMENT;
+            for (int j = 0; j < SAMPLES_PER_FRAGMENT; j++)
+            {
+                values[2 + j] = SAMPLE_DURATION;
+            }
+            trun = atom("trun", ints(values));
+        }
+        else
+        {
+            trun = atom("trun", ints(0, SAMPLES_PER_FRAGMENT));
+        }
+        byte[] traf = withTfdt
+                ? atom("traf", tfhd, atom("tfdt", ints(0, (long) i * SAMPLES_PER_FRAGMENT * SAMPLE_DURATION)), trun)
+                : atom("traf", tfhd, trun);
+        return atom("moof", atom("mfhd", ints(0, i + 1)), traf);
+    }
+
+    private static byte[] createMdat()
+    {
+        return atom("mdat", new byte[64]);
+    }
+
+    private File writeFile(String filename, byte[]... atoms) throws Exception
+    {
+        File file = new File("testdatatmp", filename);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (byte[] atom : atoms)
+        {
+            data.write(atom, 0, atom.length);
+        }
+        Files.write(file.toPath(), data.toByteArray());
+        return file;
+    }
+
+    private double expectedDuration()
+    {
+        return NO_OF_FRAGMENTS * SAMPLES_PER_FRAGMENT * SAMPLE_DURATION / (double) trackTimeScale;
+    }
+
+    /**
+     * @return ftyp, moov and then all fragments
+     */
+    private ByteArrayOutputStream createFragmentedFile(byte[] moov, boolean withTfdt, boolean perSampleDurations, long[] moofOffsets)
+    {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(ftyp, 0, ftyp.length);
+        file.write(moov, 0, moov.length);
+        for (int i = 0; i < NO_OF_FRAGMENTS; i++)
+        {
+            if (moofOffsets != null)
+            {
+                moofOffsets[i] = file.size();
+            }
+            byte[] moof = createMoof(i, withTfdt, perSampleDurations);
+            byte[] mdat = createMdat();
+            file.write(moof, 0, moof.length);
+            file.write(mdat, 0, mdat.length);
+        }
+        return file;
+    }
+
+    public void testDurationFromMehd() throws Exception
+    {
+        ByteArrayOutputStream data = createFragmentedFile(createMoov(true, movieTimeScale * 12L), true, false, null);
+        File file = writeFile("testFragmentedMehd.m4a", data.toByteArray());
+
+        AudioFile af = AudioFileIO.read(file);
+        assertEquals(12.0, af.getAudioHeader().getPreciseTrackLength(), 0.001);
+    }
+
+    public void testDurationFromMfra() throws Exception
+    {
+        long[] moofOffsets = new long[NO_OF_FRAGMENTS];
+        ByteArrayOutputStream data = createFragmentedFile(createMoov(false, 0), true, false, moofOffsets);
+
+        long[] tfraValues = new long[5 + NO_OF_FRAGMENTS * 3];
+        tfraValues[0] = 0;
+        tfraValues[1] = 1;
+        tfraValues[2] = 0;
+        tfraValues[3] = NO_OF_FRAGMENTS;
+        int pos = 4;
+        for (int i = 0; i < NO_OF_FRAGMENTS; i++)
+        {
+            tfraValues[pos++] = (long) i * SAMPLES_PER_FRAGMENT * SAMPLE_DURATION;
+            tfraValues[pos++] = moofOffsets[i];
+            //traf, trun and sample numbers, each a single byte so packed together with padding
+            tfraValues[pos++] = 0x01010100;
+        }
+        byte[] tfraData = ints(tfraValues);
+        //Entries are 11 bytes (4 + 4 + 1 + 1 + 1) so strip the padding byte from each
+        ByteArrayOutputStream tfraEntries = new ByteArrayOutputStream();
+        tfraEntries.write(tfraData, 0, 16);
+        for (int i = 0; i < NO_OF_FRAGMENTS; i++)
+        {
+            tfraEntries.write(tfraData, 16 + i * 12, 11);
+        }
+        byte[] tfra = atom("tfra", tfraEntries.toByteArray());
+        int mfraLength = 8 + tfra.length + 16;
+        byte[] mfra = atom("mfra", tfra, atom("mfro", ints(0, mfraLength)));
+        data.write(mfra, 0, mfra.length);
+        File file = writeFile("testFragmentedMfra.m4a", data.toByteArray());
+
+        AudioFile af = AudioFileIO.read(file);
+        assertEquals(expectedDuration(), af.getAudioHeader().getPreciseTrackLength(), 0.001);
+    }
+
+    public void testDurationFromSidx() throws Exception
+    {
+        ByteArrayOutputStream fragments = createFragmentedFile(new byte[0], false, false, null);
+        int fragmentsLength = fragments.size() - ftyp.length;
+        int fragmentLength = fragmentsLength / NO_OF_FRAGMENTS;
+
+        //version 0, reference id, timescale, earliest presentation time, first offset, reserved and reference count
+        long[] sidxValues = new long[6 + NO_OF_FRAGMENTS * 3];
+        sidxValues[0] = 0;
+        sidxValues[1] = 1;
+        sidxValues[2] = 1000;
+        sidxValues[3] = 0;
+        sidxValues[4] = 0;
+        sidxValues[5] = NO_OF_FRAGMENTS;
+        for (int i = 0; i < NO_OF_FRAGMENTS; i++)
+        {
+            sidxValues[6 + i * 3] = fragmentLength;
+            sidxValues[7 + i * 3] = 1500;
+            sidxValues[8 + i * 3] = 0x90000000L;
+        }
+        byte[] sidx = atom("sidx", ints(sidxValues));
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] moov = createMoov(false, 0);
+        data.write(ftyp, 0, ftyp.length);
+        data.write(moov, 0, moov.length);
+        data.write(sidx, 0, sidx.length);
+        data.write(fragments.toByteArray(), ftyp.length, fragmentsLength);
+        File file = writeFile("testFragmentedSidx.m4a", data.toByteArray());
+
+        AudioFile af = AudioFileIO.read(file);
+        assertEquals(NO_OF_FRAGMENTS * 1.5, af.getAudioHeader().getPreciseTrackLength(), 0.001);
+    }
+
+    public void testDurationFromMoofWithDecodeTime() throws Exception
+    {
+        ByteArrayOutputStream data = createFragmentedFile(createMoov(false, 0), true, false, null);
+        File file = writeFile("testFragmentedMoofTfdt.m4a", data.toByteArray());
+
+        AudioFile af = AudioFileIO.read(file);
+        assertEquals(expectedDuration(), af.getAudioHeader().getPreciseTrackLength(), 0.001);
+    }
+
+    public void testDurationFromMoofSampleDurations() throws Exception
+    {
+        ByteArrayOutputStream data = createFragmentedFile(createMoov(false, 0), false, true, null);
+        File file = writeFile("testFragmentedMoofTrun.m4a", data.toByteArray());
+
+        AudioFile af = AudioFileIO.read(file);
+        assertEquals(expectedDuration(), af.getAudioHeader().getPreciseTrackLength(), 0.001);
+    }
+
+    public void testNotFragmented() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testNotFragmented.m4a"));
+        AudioFile af = AudioFileIO.read(testFile);
+        assertEquals(241.5, af.getAudioHeader().getPreciseTrackLength(), 1.0);
+    }
+}
@@ -4,8 +4,16 @@ import junit.framework.TestCase;
 import org.jaudiotagger.AbstractTestCase;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.exceptions.NullBoxIdException;
+import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.audio.mp4.atom.Mp4BoxHeader;
+import org.jaudiotagger.audio.mp4.atom.Mp4FtypBox;
+import org.jaudiotagger.tag.FieldKey;
 import org.jaudiotagger.tag.mp4.Mp4Tag;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 
 /**
  * basic Flac tests
@@ -79,4 +87,108 @@ public class Mp4HeaderTest extends TestCase
         assertNull(exceptionCaught);
     }
 
+    /**
+     * Reading info and tag from a single read of moov must give the same results as reading them separately
+     */
+    public void testSingleMoovReadSameAsSeparateReads() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testSingleMoovRead.m4a"));
+        AudioFile f = AudioFileIO.read(testFile);
+
+        Mp4AudioHeader info = (Mp4AudioHeader)new Mp4InfoReader().read(testFile.toPath());
+        Mp4Tag tag = new Mp4TagReader().read(testFile.toPath());
+        assertEquals(info.toString(), f.getAudioHeader().toString());
+        assertEquals(info.getAudioDataStartPosition(), f.getAudioHeader().getAudioDataStartPosition());
+        assertEquals(tag.getFieldCount(), f.getTag().getFieldCount());
+        assertEquals(tag.getFirst(FieldKey.ARTIST), f.getTag().getFirst(FieldKey.ARTIST));
+        assertEquals(tag.getFirst(FieldKey.ALBUM), f.getTag().getFirst(FieldKey.ALBUM));
+        assertEquals(tag.getArtworkList().size(), f.getTag().getArtworkList().size());
+    }
+
+    /**
+     * Reading moov without the sample tables must give the same results as reading all of it
+     */
+    public void testBoxHeaderFourCC() throws Exception
+    {
+        ByteBuffer data = ByteBuffer.allocate(Mp4BoxHeader.HEADER_LENGTH * 3);
+        data.putInt(Mp4BoxHeader.HEADER_LENGTH).put("free".getBytes("ISO-8859-1"));
+        data.putInt(Mp4BoxHeader.HEADER_LENGTH).put("url ".getBytes("ISO-8859-1"));
+        data.putInt(Mp4BoxHeader.HEADER_LENGTH).put("ilst".getBytes("ISO-8859-1"));
+        data.flip();
+
+        Mp4BoxHeader header = Mp4BoxHeader.seekWithinLevel(data, Mp4AtomIdentifier.ILST.getFourCC());
+        assertEquals(Mp4AtomIdentifier.ILST.getFourCC(), header.getFourCC());
+        assertEquals("ilst", header.getId());
+        assertEquals(Mp4AtomIdentifier.URL$20.getFourCC(), Utils.toFourCC("url "));
+
+        //Reusing a header updates its id and raw data
+        data.position(0);
+        header.update(data);
+        assertEquals("free", header.getId());
+        assertEquals(Mp4AtomIdentifier.FREE.getFourCC(), header.getHeaderData().getInt(Mp4BoxHeader.IDENTIFIER_POS));
+        header.setLength(20);
+        assertEquals(20, header.getHeaderData().getInt(Mp4BoxHeader.OFFSET_POS));
+
+        data.position(0);
+        data.putInt(4, 0);
+        try
+        {
+            header.update(data);
+            fail("Expected null box id");
+        }
+        catch (NullBoxIdException nbe)
+        {
+            //expected
+        }
+    }
+
+    public void testReadMoovWithoutSampleTables() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testReadMoovWithoutSampleTables.m4a"));
+        try(SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            Mp4FtypBox ftyp = Mp4InfoReader.readFtyp(fc);
+            long afterFtyp = fc.position();
+            Mp4BoxHeader moovHeader = Mp4BoxHeader.seekWithinLevel(fc, Mp4AtomIdentifier.MOOV.getFieldName());
+            ByteBuffer fullMoov = ByteBuffer.allocate(moovHeader.getDataLength());
+            fc.read(fullMoov);
+            fullMoov.rewind();
+
+            fc.position(afterFtyp);
+            ByteBuffer moov = Mp4InfoReader.readMoov(fc);
+            assertTrue(moov.limit() < fullMoov.limit());
+            assertEquals(0, moov.position());
+
+            //Sample tables other than the first chunk offset are gone
+            assertNull(Mp4BoxHeader.seekWithinLevel(stbl(moov), Mp4AtomIdentifier.STSZ.getFieldName()));
+            assertNotNull(Mp4BoxHeader.seekWithinLevel(stbl(moov), Mp4AtomIdentifier.STSD.getFieldName()));
+            Mp4BoxHeader stco = Mp4BoxHeader.seekWithinLevel(stbl(moov), Mp4AtomIdentifier.STCO.getFieldName());
+            assertEquals(Mp4BoxHeader.HEADER_LENGTH + 12, stco.getLength());
+
+            Mp4AudioHeader fullInfo = new Mp4InfoReader().read(fc, ftyp, fullMoov);
+            Mp4AudioHeader info = new Mp4InfoReader().read(fc, ftyp, moov);
+            assertEquals(fullInfo.toString(), info.toString());
+            assertEquals(fullInfo.getAudioDataStartPosition(), info.getAudioDataStartPosition());
+
+            Mp4Tag fullTag = new Mp4TagReader().read(fullMoov);
+            Mp4Tag tag = new Mp4TagReader().read(moov);
+            assertEquals(fullTag.getFieldCount(), tag.getFieldCount());
+            assertEquals(fullTag.getFirst(FieldKey.TITLE), tag.getFirst(FieldKey.TITLE));
+            assertEquals(fullTag.getFirst(FieldKey.ARTIST), tag.getFirst(FieldKey.ARTIST));
+        }
+    }
+
+    private static ByteBuffer stbl(ByteBuffer moovData) throws Exception
+    {
+        ByteBuffer data = moovData.duplicate();
+        String[] path = {"trak", "mdia", "minf", "stbl"};
+        for(String id : path)
+        {
+            Mp4BoxHeader header = Mp4BoxHeader.seekWithinLevel(data, id);
+            assertNotNull(header);
+            data = data.slice();
+            data.limit(header.getDataLength());
+        }
+        return data;
+    }
 }
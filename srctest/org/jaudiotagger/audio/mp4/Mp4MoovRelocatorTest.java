@@ -0,0 +1,170 @@
+package org.jaudiotagger.audio.mp4;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.TagOptionSingleton;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Moving moov in front of the audio for streaming
+ */
+public class Mp4MoovRelocatorTest extends AbstractTestCase
+{
+    private static byte[] readMdat(File file) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            int mdat = index.getMdat();
+            ByteBuffer data = ByteBuffer.allocate((int) index.getSize(mdat));
+            fc.position(index.getOffset(mdat));
+            while (data.hasRemaining() && fc.read(data) >= 0)
+            {
+            }
+            return data.array();
+        }
+    }
+
+    private static String getTopLevelAtoms(File file) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < index.getCount(); i++)
+            {
+                if (index.getParent(i) == Mp4AtomIndex.NONE)
+                {
+                    sb.append(index.getId(i)).append(' ');
+                }
+            }
+            return sb.toString().trim();
+        }
+    }
+
+    private static long getMdatPos(File file) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            return index.getOffset(index.getMdat());
+        }
+    }
+
+    public void testOptimizeWithPadding() throws Exception
+    {
+        TagOptionSingleton.getInstance().setMp4PaddingSize(2000);
+        File testFile = AbstractTestCase.copyAudioToTmp("test15.m4a", new File("testOptimizeForStreaming.m4a"));
+        assertEquals("ftyp mdat moov", getTopLevelAtoms(testFile));
+        byte[] originalMdat = readMdat(testFile);
+        long originalLength = testFile.length();
+        AudioFile af = AudioFileIO.read(testFile);
+        int trackLength = af.getAudioHeader().getTrackLength();
+        String title = af.getTag().getFirst(FieldKey.TITLE);
+        long audioStartWithinMdat = af.getAudioHeader().getAudioDataStartPosition() - getMdatPos(testFile);
+
+        assertTrue(new Mp4FileWriter().optimizeForStreaming(testFile.toPath()));
+        assertEquals("ftyp moov free mdat", getTopLevelAtoms(testFile));
+        assertEquals(originalLength + 2008, testFile.length());
+        assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(trackLength, af.getAudioHeader().getTrackLength());
+        assertEquals(title, af.getTag().getFirst(FieldKey.TITLE));
+        long audioStart = af.getAudioHeader().getAudioDataStartPosition();
+        assertEquals(getMdatPos(testFile) + audioStartWithinMdat, audioStart);
+
+        //Metadata grows into the padding after moov so the audio does not move
+        af.getTag().setField(FieldKey.LYRICS, "lyrics lyrics lyrics lyrics lyrics lyrics lyrics lyrics");
+        af.commit();
+        af = AudioFileIO.read(testFile);
+        assertEquals("ftyp moov free mdat", getTopLevelAtoms(testFile));
+        assertEquals(audioStart, af.getAudioHeader().getAudioDataStartPosition().longValue());
+        assertEquals(originalLength + 2008, testFile.length());
+
+        //Nothing more to do
+        assertFalse(new Mp4FileWriter().optimizeForStreaming(testFile.toPath()));
+    }
+
+    public void testOptimizeInSmallChunksWithoutPadding() throws Exception
+    {
+        TagOptionSingleton.getInstance().setWriteChunkSize(1000);
+        File testFile = AbstractTestCase.copyAudioToTmp("test19.m4a", new File("testOptimizeForStreamingSmallChunks.m4a"));
+        assertEquals("ftyp mdat moov free", getTopLevelAtoms(testFile));
+        byte[] originalMdat = readMdat(testFile);
+        long originalLength = testFile.length();
+
+        assertTrue(new Mp4FileWriter().optimizeForStreaming(testFile.toPath()));
+        assertEquals("ftyp moov mdat free", getTopLevelAtoms(testFile));
+        assertEquals(originalLength, testFile.length());
+        assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.ARTIST, "artist");
+        af.commit();
+        af = AudioFileIO.read(testFile);
+        assertEquals("artist", af.getTag().getFirst(FieldKey.ARTIST));
+        assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+    }
+
+    /**
+     * All the mdats before moov are moved, not just the last one
+     */
+    public void testOptimizeWithMultipleMdats() throws Exception
+    {
+        TagOptionSingleton.getInstance().setMp4PaddingSize(2000);
+        File testFile = AbstractTestCase.copyAudioToTmp("test15.m4a", new File("testOptimizeForStreamingMultipleMdats.m4a"));
+        byte[] originalMdat = readMdat(testFile);
+        AudioFile af = AudioFileIO.read(testFile);
+        int trackLength = af.getAudioHeader().getTrackLength();
+        long audioStartWithinMdat = af.getAudioHeader().getAudioDataStartPosition() - getMdatPos(testFile);
+
+        //Insert a second small mdat between the audio and moov
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        long moovPos;
+        try (SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            moovPos = new Mp4AtomIndex(fc).getOffset(new Mp4AtomIndex(fc).getMoov());
+        }
+        ByteBuffer withSecondMdat = ByteBuffer.allocate(original.length + 16);
+        withSecondMdat.put(original, 0, (int) moovPos);
+        withSecondMdat.putInt(16).put("mdat".getBytes(StandardCharsets.ISO_8859_1)).putLong(0);
+        withSecondMdat.put(original, (int) moovPos, original.length - (int) moovPos);
+        Files.write(testFile.toPath(), withSecondMdat.array());
+        assertEquals("ftyp mdat mdat moov", getTopLevelAtoms(testFile));
+
+        assertTrue(new Mp4FileWriter().optimizeForStreaming(testFile.toPath()));
+        assertEquals("ftyp moov free mdat mdat", getTopLevelAtoms(testFile));
+        try (SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            int firstMdat = index.findTopLevel(Mp4AtomIdentifier.MDAT.getFourCC());
+            assertEquals(originalMdat.length, index.getSize(firstMdat));
+            byte[] data = new byte[originalMdat.length];
+            System.arraycopy(Files.readAllBytes(testFile.toPath()), (int) index.getOffset(firstMdat), data, 0, data.length);
+            assertTrue(Arrays.equals(originalMdat, data));
+
+            //First chunk is where the audio has moved to
+            assertEquals(index.getOffset(firstMdat) + audioStartWithinMdat, index.getStcos().get(0).getOffset(0));
+        }
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(trackLength, af.getAudioHeader().getTrackLength());
+    }
+
+    public void testAlreadyOptimized() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testAlreadyOptimizedForStreaming.m4a"));
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        assertFalse(new Mp4FileWriter().optimizeForStreaming(testFile.toPath()));
+        assertTrue(Arrays.equals(original, Files.readAllBytes(testFile.toPath())));
+    }
+}
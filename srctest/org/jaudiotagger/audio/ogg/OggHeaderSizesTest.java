@@ -0,0 +1,133 @@
+package org.jaudiotagger.audio.ogg;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.ogg.util.OggPageHeader;
+import org.jaudiotagger.audio.ogg.util.VorbisPacketType;
+import org.jaudiotagger.tag.FieldKey;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Header sizes recorded when reading an Ogg file are reused when writing it
+ */
+public class OggHeaderSizesTest extends AbstractTestCase
+{
+    private static int indexOf(byte[] data, byte[] pattern)
+    {
+        for (int i = 0; i <= data.length - pattern.length; i++)
+        {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j])
+            {
+                j++;
+            }
+            if (j == pattern.length)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertSameSizes(OggVorbisTagReader.OggVorbisHeaderSizes expected, OggVorbisTagReader.OggVorbisHeaderSizes actual)
+    {
+        assertEquals(expected.getCommentHeaderStartPosition(), actual.getCommentHeaderStartPosition());
+        assertEquals(expected.getCommentHeaderSize(), actual.getCommentHeaderSize());
+        assertEquals(expected.getSetupHeaderStartPosition(), actual.getSetupHeaderStartPosition());
+        assertEquals(expected.getSetupHeaderSize(), actual.getSetupHeaderSize());
+        List<OggPageHeader.PacketStartAndLength> expectedPackets = expected.getExtraPacketList();
+        List<OggPageHeader.PacketStartAndLength> actualPackets = actual.getExtraPacketList();
+        assertEquals(expectedPackets.size(), actualPackets.size());
+        for (int i = 0; i < expectedPackets.size(); i++)
+        {
+            assertEquals(expectedPackets.get(i).getStartPosition(), actualPackets.get(i).getStartPosition());
+            assertEquals(expectedPackets.get(i).getLength(), actualPackets.get(i).getLength());
+        }
+    }
+
+    private static OggVorbisTagReader.OggVorbisHeaderSizes readHeaderSizes(File file) throws Exception
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            return new OggVorbisTagReader().readOggVorbisHeaderSizes(raf);
+        }
+    }
+
+    /**
+     * Sizes recorded during the read match those found by reading the header pages again
+     */
+    private void checkSizes(String filename) throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp(filename, new File("testOggHeaderSizes" + filename));
+        AudioFile af = AudioFileIO.read(testFile);
+        OggAudioHeader header = (OggAudioHeader) af.getAudioHeader();
+        OggVorbisTagReader.OggVorbisHeaderSizes recorded = header.getVorbisHeaderSizes(testFile.toPath());
+        assertNotNull(recorded);
+        assertSameSizes(readHeaderSizes(testFile), recorded);
+
+        af.getTag().setField(FieldKey.TITLE, "recorded sizes title");
+        af.commit();
+        assertNull(header.getVorbisHeaderSizes(testFile.toPath()));
+        assertEquals("recorded sizes title", AudioFileIO.read(testFile).getTag().getFirst(FieldKey.TITLE));
+
+        //Second commit has to read sizes from the file
+        af.getTag().setField(FieldKey.ALBUM, "recorded sizes album");
+        af.commit();
+        af = AudioFileIO.read(testFile);
+        assertEquals("recorded sizes title", af.getTag().getFirst(FieldKey.TITLE));
+        assertEquals("recorded sizes album", af.getTag().getFirst(FieldKey.ALBUM));
+    }
+
+    public void testRecordedSizes() throws Exception
+    {
+        checkSizes("test.ogg");
+        checkSizes("testlargeimage.ogg");
+        checkSizes("test76.ogg");
+    }
+
+    /**
+     * If the file has been changed since it was read the recorded sizes are not used
+     */
+    public void testFileChangedSinceRead() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testOggHeaderSizesChanged.ogg"));
+        AudioFile af = AudioFileIO.read(testFile);
+        OggAudioHeader header = (OggAudioHeader) af.getAudioHeader();
+
+        AudioFile other = AudioFileIO.read(testFile);
+        other.getTag().setField(FieldKey.COMMENT, "a comment long enough to change the size of the comment header");
+        other.commit();
+        assertNull(header.getVorbisHeaderSizes(testFile.toPath()));
+
+        af.getTag().setField(FieldKey.TITLE, "changed since read");
+        af.commit();
+        af = AudioFileIO.read(testFile);
+        assertEquals("changed since read", af.getTag().getFirst(FieldKey.TITLE));
+    }
+
+    /**
+     * Tag can still be read if the setup header is invalid, the sizes are just not recorded
+     */
+    public void testInvalidSetupHeader() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testOggHeaderSizesInvalidSetup.ogg"));
+        String title = AudioFileIO.read(testFile).getTag().getFirst(FieldKey.TITLE);
+
+        //Damage the capture pattern of the setup header
+        byte[] data = Files.readAllBytes(testFile.toPath());
+        byte[] setupHeaderStart = {(byte) VorbisPacketType.SETUP_HEADER.getType(), 'v', 'o', 'r', 'b', 'i', 's'};
+        int setupHeaderPos = indexOf(data, setupHeaderStart);
+        assertTrue(setupHeaderPos > 0);
+        data[setupHeaderPos + 1] = 'V';
+        Files.write(testFile.toPath(), data);
+
+        AudioFile af = AudioFileIO.read(testFile);
+        assertEquals(title, af.getTag().getFirst(FieldKey.TITLE));
+        assertNull(((OggAudioHeader) af.getAudioHeader()).getVorbisHeaderSizes(testFile.toPath()));
+    }
+}
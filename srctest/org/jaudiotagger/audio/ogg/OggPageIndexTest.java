@@ -0,0 +1,134 @@
+package org.jaudiotagger.audio.ogg;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.ogg.util.OggPageHeader;
+import org.jaudiotagger.audio.ogg.util.OggPageIndex;
+import org.jaudiotagger.audio.ogg.util.OggPageReader;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.TagOptionSingleton;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Index of Ogg pages by granule position
+ */
+public class OggPageIndexTest extends AbstractTestCase
+{
+    /**
+     * Each index point gives the start of a page, and the page before it ends at the index point granule position
+     */
+    private void checkIndex(File testFile, OggAudioHeader header) throws Exception
+    {
+        OggPageIndex pageIndex = header.getPageIndex();
+        try (RandomAccessFile raf = new RandomAccessFile(testFile, "r"))
+        {
+            OggPageReader pageReader = new OggPageReader(raf.getChannel());
+            pageReader.readPage(header.getAudioDataStartPosition());
+            for (int i = 0; i < pageIndex.getNoOfIndexPoints(); i++)
+            {
+                long seekPosition = header.getSeekPosition(pageIndex.getGranulePosition(i));
+                assertEquals(header.getAudioDataStartPosition() + pageIndex.getPageOffset(i), seekPosition);
+                while (pageReader.getNextPageStart() < seekPosition)
+                {
+                    pageReader.nextPage();
+                }
+                assertEquals(seekPosition, pageReader.getNextPageStart());
+                assertEquals(pageIndex.getGranulePosition(i), pageReader.getAbsoluteGranulePosition());
+            }
+        }
+    }
+
+    public void testBuildIndex() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testOggPageIndex.ogg"));
+        AudioFile withoutIndex = AudioFileIO.read(testFile);
+        assertNull(((OggAudioHeader) withoutIndex.getAudioHeader()).getPageIndex());
+
+        TagOptionSingleton.getInstance().setOggPageIndexInterval(1);
+        AudioFile af = AudioFileIO.read(testFile);
+        OggAudioHeader header = (OggAudioHeader) af.getAudioHeader();
+        OggPageIndex pageIndex = header.getPageIndex();
+        assertNotNull(pageIndex);
+        assertTrue(pageIndex.getNoOfIndexPoints() > 0);
+        assertEquals(withoutIndex.getAudioHeader().getPreciseTrackLength(), header.getPreciseTrackLength());
+
+        int samplingRate = header.getSampleRateAsNumber();
+        for (int i = 1; i < pageIndex.getNoOfIndexPoints(); i++)
+        {
+            assertTrue(pageIndex.getGranulePosition(i) - pageIndex.getGranulePosition(i - 1) >= samplingRate);
+        }
+        assertTrue(pageIndex.getLastGranulePosition() >= pageIndex.getGranulePosition(pageIndex.getNoOfIndexPoints() - 1));
+        checkIndex(testFile, header);
+
+        //Before the first index point read from the start of the audio
+        assertEquals(header.getAudioDataStartPosition().longValue(), header.getSeekPosition(0));
+    }
+
+    /**
+     * Index can be cached and still used after the tag has been changed
+     */
+    public void testSerialiseIndex() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testOggPageIndexSerialise.ogg"));
+        TagOptionSingleton.getInstance().setOggPageIndexInterval(1);
+        AudioFile af = AudioFileIO.read(testFile);
+        OggPageIndex pageIndex = ((OggAudioHeader) af.getAudioHeader()).getPageIndex();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(pageIndex);
+        }
+
+        TagOptionSingleton.getInstance().setOggPageIndexInterval(0);
+        af.getTag().setField(FieldKey.ALBUM, "a much longer album name so that the comment header is a different size");
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        OggAudioHeader header = (OggAudioHeader) af.getAudioHeader();
+        assertNull(header.getPageIndex());
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+        {
+            header.setPageIndex((OggPageIndex) in.readObject());
+        }
+        assertEquals(pageIndex.getNoOfIndexPoints(), header.getPageIndex().getNoOfIndexPoints());
+        assertEquals(pageIndex.getLastGranulePosition(), header.getPageIndex().getLastGranulePosition());
+        checkIndex(testFile, header);
+
+        //Can still add to deserialised index
+        OggPageIndex copy = header.getPageIndex();
+        copy.add(copy.getLastGranulePosition() + 1, 0);
+        assertEquals(pageIndex.getNoOfIndexPoints() + 1, copy.getNoOfIndexPoints());
+    }
+
+    public void testIndexOf()
+    {
+        OggPageIndex pageIndex = new OggPageIndex();
+        for (int i = 1; i <= 40; i++)
+        {
+            pageIndex.add(i * 1000, i * OggPageHeader.MAXIMUM_PAGE_SIZE);
+        }
+        assertEquals(-1, pageIndex.indexOf(999));
+        assertEquals(0, pageIndex.getPageOffsetForGranule(999));
+        assertEquals(0, pageIndex.indexOf(1000));
+        assertEquals(19, pageIndex.indexOf(20999));
+        assertEquals(39, pageIndex.indexOf(Long.MAX_VALUE));
+        assertEquals(40L * OggPageHeader.MAXIMUM_PAGE_SIZE, pageIndex.getPageOffsetForGranule(50000));
+        try
+        {
+            pageIndex.add(40000, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae)
+        {
+            //expected
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.jaudiotagger.audio.ogg;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.ogg.util.OggPageHeader;
+import org.jaudiotagger.audio.ogg.util.OggPageReader;
+import org.jaudiotagger.audio.ogg.util.VorbisPacketType;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Reading Ogg pages and packets with a reusable buffer
+ */
+public class OggPageReaderTest extends AbstractTestCase
+{
+    /**
+     * Every page read by the cursor matches the page read by OggPageHeader
+     */
+    private void checkPages(String filename) throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp(filename, new File("testOggPageReader" + filename));
+        try (RandomAccessFile raf = new RandomAccessFile(testFile, "r"))
+        {
+            OggPageReader pageReader = new OggPageReader(raf.getChannel());
+            pageReader.readFirstPage();
+            int count = 0;
+            while (true)
+            {
+                OggPageHeader pageHeader = OggPageHeader.read(raf);
+                assertEquals(pageHeader.getStartByte(), pageReader.getPageStart());
+                assertEquals(pageHeader.getRawHeaderData().length, pageReader.getHeaderLength());
+                assertEquals(pageHeader.getPageLength(), pageReader.getPageLength());
+                assertEquals(pageHeader.getPageSequence(), pageReader.getPageSequence());
+                assertEquals(pageHeader.getSerialNumber(), pageReader.getSerialNumber());
+                assertEquals(pageHeader.getHeaderType(), pageReader.getHeaderType());
+                assertEquals((long) pageHeader.getAbsoluteGranulePosition(), pageReader.getAbsoluteGranulePosition());
+                assertEquals(pageHeader.getPacketList().size(), pageReader.getPacketCount());
+                assertEquals(pageHeader.isLastPacketIncomplete(), pageReader.isLastPacketIncomplete());
+                count++;
+
+                raf.seek(raf.getFilePointer() + pageHeader.getPageLength());
+                if (!pageReader.hasNextPage())
+                {
+                    break;
+                }
+                pageReader.nextPage();
+            }
+            assertEquals(raf.length(), raf.getFilePointer());
+            assertTrue(count > 2);
+        }
+    }
+
+    public void testReadPages() throws Exception
+    {
+        checkPages("test.ogg");
+        checkPages("testlargeimage.ogg");
+    }
+
+    /**
+     * The header packets are read in one go even though the comment spans many pages
+     */
+    public void testReadPackets() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("testlargeimage.ogg", new File("testOggPageReaderPackets.ogg"));
+        try (RandomAccessFile raf = new RandomAccessFile(testFile, "r"))
+        {
+            OggPageReader pageReader = new OggPageReader(raf.getChannel());
+            pageReader.readFirstPage();
+            ByteBuffer identification = pageReader.readPacket();
+            assertEquals(VorbisPacketType.IDENTIFICATION_HEADER.getType(), identification.get(0));
+
+            ByteBuffer comment = pageReader.readPacket();
+            assertEquals(VorbisPacketType.COMMENT_HEADER.getType(), comment.get(0));
+            assertEquals(0, comment.position());
+            assertTrue(comment.limit() > OggPageHeader.MAXIMUM_PAGE_DATA_SIZE);
+            //Framing bit
+            assertEquals(1, comment.get(comment.limit() - 1) & 0x01);
+            long commentEndPage = pageReader.getPageStart();
+
+            ByteBuffer setup = pageReader.readPacket();
+            assertEquals(VorbisPacketType.SETUP_HEADER.getType(), setup.get(0));
+
+            OggVorbisTagReader tagReader = new OggVorbisTagReader();
+            assertEquals(comment.limit(), tagReader.readOggVorbisRawSize(raf));
+            byte[] setupHeader = tagReader.convertToVorbisSetupHeaderPacket(commentEndPage, raf);
+            assertEquals(ByteBuffer.wrap(setupHeader), setup);
+        }
+        assertEquals(1, AudioFileIO.read(testFile).getTag().getArtworkList().size());
+    }
+
+    public void testNotOgg() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testOggPageReaderNotOgg.flac"));
+        try (RandomAccessFile raf = new RandomAccessFile(testFile, "r"))
+        {
+            new OggPageReader(raf.getChannel()).readFirstPage();
+            fail("Expected CannotReadException");
+        }
+        catch (CannotReadException cre)
+        {
+            //expected
+        }
+    }
+}
@@ -3,10 +3,13 @@ package org.jaudiotagger.audio.wav;
 import org.jaudiotagger.AbstractTestCase;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.iff.ChunkSummary;
+import org.jaudiotagger.audio.iff.PaddingChunkSummary;
 import org.jaudiotagger.logging.Hex;
 import org.jaudiotagger.tag.wav.WavTag;
 
 import java.io.File;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -248,5 +251,96 @@ public class WavSimpleTest extends AbstractTestCase
         assertNull(exceptionCaught);
     }
 
+    /**
+     * Null padding followed by a real chunk, check we stop scanning at the first non null byte
+     */
+    public void testReadFileWithNullPadding()
+    {
+        Exception exceptionCaught = null;
+        try
+        {
+            File testFile = AbstractTestCase.copyAudioToTmp("test.wav", new File("testNullPadding.wav"));
+            long originalLength = testFile.length();
+            try(RandomAccessFile raf = new RandomAccessFile(testFile, "rw"))
+            {
+                //Header of null chunk followed by 20000 more nulls, more than one scan buffer
+                raf.setLength(originalLength + 8 + 20000);
+                raf.seek(raf.length());
+                raf.write(new byte[]{'J', 'U', 'N', 'K', 4, 0, 0, 0, 1, 2, 3, 4});
+            }
+
+            AudioFile f = AudioFileIO.read(testFile);
+            assertEquals(14, f.getAudioHeader().getTrackLength());
+
+            WavTag tag = (WavTag)f.getTag();
+            assertTrue(tag.isNonStandardPadding());
+            PaddingChunkSummary padding = null;
+            ChunkSummary junk = null;
+            for(ChunkSummary cs:tag.getChunkSummaryList())
+            {
+                if(cs instanceof PaddingChunkSummary)
+                {
+                    padding = (PaddingChunkSummary)cs;
+                }
+                else if(cs.getChunkId().equals("JUNK"))
+                {
+                    junk = cs;
+                }
+            }
+            assertNotNull(padding);
+            assertEquals(originalLength, padding.getFileStartLocation());
+            assertEquals(20000, padding.getChunkSize());
+            assertNotNull(junk);
+            assertEquals(originalLength + 8 + 20000, junk.getFileStartLocation());
+            assertEquals(4, junk.getChunkSize());
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            exceptionCaught = e;
+        }
+        assertNull(exceptionCaught);
+    }
+
+    /**
+     * Null padding running to the end of a file larger than 2GB, previously we tried to load the whole
+     * remainder into memory, the padding is created as a sparse region so the fixture costs no disk space
+     */
+    public void testReadFileWithMultiGigabyteNullPadding()
+    {
+        Exception exceptionCaught = null;
+        File testFile = null;
+        try
+        {
+            testFile = AbstractTestCase.copyAudioToTmp("test.wav", new File("testLargeNullPadding.wav"));
+            long originalLength = testFile.length();
+            long paddingLength = Integer.MAX_VALUE + 100000L;
+            try(RandomAccessFile raf = new RandomAccessFile(testFile, "rw"))
+            {
+                raf.setLength(originalLength + 8 + paddingLength);
+            }
 
+            AudioFile f = AudioFileIO.read(testFile);
+            assertEquals(14, f.getAudioHeader().getTrackLength());
+
+            WavTag tag = (WavTag)f.getTag();
+            assertTrue(tag.isNonStandardPadding());
+            ChunkSummary last = tag.getChunkSummaryList().get(tag.getChunkSummaryList().size() - 1);
+            assertTrue(last instanceof PaddingChunkSummary);
+            assertEquals(paddingLength, last.getChunkSize());
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+            exceptionCaught = e;
+        }
+        finally
+        {
+            if(testFile!=null)
+            {
+                testFile.delete();
+            }
+        }
+        assertNull(exceptionCaught);
+    }
 }
@@ -0,0 +1,134 @@
+package org.jaudiotagger.tag.flac;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.flac.FlacAudioHeader;
+import org.jaudiotagger.audio.flac.metadatablock.BlockType;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
+import org.jaudiotagger.tag.FieldKey;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writing just the VorbisComment block when nothing else has changed
+ */
+public class FlacWriteInPlaceTest extends AbstractTestCase
+{
+    private static List<MetadataBlockHeader> getBlocks(File file) throws Exception
+    {
+        return ((FlacAudioHeader) AudioFileIO.read(file).getAudioHeader()).getMetadataBlockHeaders();
+    }
+
+    private static String getBlockTypes(List<MetadataBlockHeader> blocks)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (MetadataBlockHeader next : blocks)
+        {
+            sb.append(next.getBlockType()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    private static byte[] getBytes(byte[] file, MetadataBlockHeader block)
+    {
+        int start = (int) block.getStartByte();
+        return Arrays.copyOfRange(file, start, start + MetadataBlockHeader.HEADER_LENGTH + block.getDataLength());
+    }
+
+    public void testWriteIntoFollowingPadding() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test2.flac", new File("testWriteInPlacePadding.flac"));
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        List<MetadataBlockHeader> blocks = getBlocks(testFile);
+        assertEquals("STREAMINFO SEEKTABLE VORBIS_COMMENT PADDING", getBlockTypes(blocks));
+
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.TITLE, "a title that makes the comment larger");
+        af.getTag().setField(FieldKey.ARTIST, "artist");
+        af.commit();
+
+        byte[] modified = Files.readAllBytes(testFile.toPath());
+        assertEquals(original.length, modified.length);
+        List<MetadataBlockHeader> newBlocks = getBlocks(testFile);
+        assertEquals("STREAMINFO SEEKTABLE VORBIS_COMMENT PADDING", getBlockTypes(newBlocks));
+        assertTrue(newBlocks.get(2).getDataLength() > blocks.get(2).getDataLength());
+        assertTrue(newBlocks.get(3).isLastBlock());
+        assertTrue(Arrays.equals(getBytes(original, blocks.get(1)), getBytes(modified, newBlocks.get(1))));
+
+        //Audio untouched
+        long audioStart = ((FlacAudioHeader) AudioFileIO.read(testFile).getAudioHeader()).getAudioDataStartPosition();
+        assertTrue(Arrays.equals(Arrays.copyOfRange(original, (int) audioStart, original.length), Arrays.copyOfRange(modified, (int) audioStart, modified.length)));
+
+        af = AudioFileIO.read(testFile);
+        assertEquals("a title that makes the comment larger", af.getTag().getFirst(FieldKey.TITLE));
+        assertEquals("artist", af.getTag().getFirst(FieldKey.ARTIST));
+    }
+
+    /**
+     * Pictures between the comment and the padding are left where they are when the comment gets smaller
+     */
+    public void testWriteSmallerLeavesPicturesInPlace() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testWriteInPlacePictures.flac"));
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        List<MetadataBlockHeader> blocks = getBlocks(testFile);
+        assertEquals("STREAMINFO SEEKTABLE VORBIS_COMMENT PICTURE PICTURE PADDING", getBlockTypes(blocks));
+
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().deleteField(FieldKey.COMMENT);
+        af.commit();
+
+        byte[] modified = Files.readAllBytes(testFile.toPath());
+        assertEquals(original.length, modified.length);
+        List<MetadataBlockHeader> newBlocks = getBlocks(testFile);
+        assertEquals("STREAMINFO SEEKTABLE VORBIS_COMMENT PADDING PICTURE PICTURE PADDING", getBlockTypes(newBlocks));
+        assertEquals(blocks.get(3).getStartByte(), newBlocks.get(4).getStartByte());
+        assertTrue(Arrays.equals(getBytes(original, blocks.get(3)), getBytes(modified, newBlocks.get(4))));
+
+        af = AudioFileIO.read(testFile);
+        assertEquals("", af.getTag().getFirst(FieldKey.COMMENT));
+        assertEquals("Artist", af.getTag().getFirst(FieldKey.ARTIST));
+        assertEquals(2, ((FlacTag) af.getTag()).getImages().size());
+    }
+
+    /**
+     * Comment can not grow without moving the pictures so everything is rewritten
+     */
+    public void testWriteLargerWithPicturesRewritesAll() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testWriteInPlacePicturesLarger.flac"));
+        long originalLength = testFile.length();
+
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, "lyrics");
+        af.commit();
+
+        assertEquals(originalLength, testFile.length());
+        assertEquals("STREAMINFO VORBIS_COMMENT PICTURE PICTURE SEEKTABLE PADDING", getBlockTypes(getBlocks(testFile)));
+        af = AudioFileIO.read(testFile);
+        assertEquals("lyrics", af.getTag().getFirst(FieldKey.LYRICS));
+        assertEquals(2, ((FlacTag) af.getTag()).getImages().size());
+    }
+
+    /**
+     * A changed picture means all the metadata is rewritten
+     */
+    public void testChangedPictureRewritesAll() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.flac", new File("testWriteInPlaceChangedPicture.flac"));
+
+        AudioFile af = AudioFileIO.read(testFile);
+        FlacTag tag = (FlacTag) af.getTag();
+        tag.deleteField(FieldKey.COVER_ART);
+        af.commit();
+
+        assertEquals("STREAMINFO VORBIS_COMMENT SEEKTABLE PADDING", getBlockTypes(getBlocks(testFile)));
+        af = AudioFileIO.read(testFile);
+        assertEquals(0, ((FlacTag) af.getTag()).getImages().size());
+        assertEquals("Artist", af.getTag().getFirst(FieldKey.ARTIST));
+    }
+}
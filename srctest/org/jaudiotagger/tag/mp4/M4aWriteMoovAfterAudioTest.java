@@ -0,0 +1,239 @@
+package org.jaudiotagger.tag.mp4;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.mp4.Mp4AtomIndex;
+import org.jaudiotagger.audio.mp4.Mp4WriteStatistics;
+import org.jaudiotagger.tag.FieldKey;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writing to files where moov comes after the audio (mdat) so only moov and anything after it is rewritten
+ */
+public class M4aWriteMoovAfterAudioTest extends AbstractTestCase
+{
+    private static String createValue(int length)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++)
+        {
+            sb.append((char) ('a' + (i % 26)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the complete mdat atom
+     */
+    private static byte[] readMdat(File file) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            int mdat = index.getMdat();
+            ByteBuffer data = ByteBuffer.allocate((int) index.getSize(mdat));
+            fc.position(index.getOffset(mdat));
+            while (data.hasRemaining() && fc.read(data) >= 0)
+            {
+            }
+            return data.array();
+        }
+    }
+
+    /**
+     * @return offset of the mdat atom
+     */
+    private static long getMdatOffset(File file) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            return index.getOffset(index.getMdat());
+        }
+    }
+
+    /**
+     * @return ids of the top level atoms
+     */
+    private static String getTopLevelAtoms(File file) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < index.getCount(); i++)
+            {
+                if (index.getParent(i) == Mp4AtomIndex.NONE)
+                {
+                    sb.append(index.getId(i)).append(' ');
+                }
+            }
+            return sb.toString().trim();
+        }
+    }
+
+    /**
+     * Enlarge the audio of a file with moov after mdat by appending silence to the end of mdat, the chunk offsets
+     * still point to the start of mdat so do not need adjusting
+     */
+    private static File createFileWithLongerAudio(String filename, File outputFile, int extraAudioSize) throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp(filename, outputFile);
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        int mdatPos;
+        int mdatEnd;
+        try (SeekableByteChannel fc = Files.newByteChannel(testFile.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            mdatPos = (int) index.getOffset(index.getMdat());
+            mdatEnd = (int) index.getEndOffset(index.getMdat());
+        }
+
+        try (SeekableByteChannel fc = Files.newByteChannel(testFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer start = ByteBuffer.wrap(original, 0, mdatEnd);
+            start.putInt(mdatPos, mdatEnd - mdatPos + extraAudioSize);
+            fc.write(start);
+            ByteBuffer silence = ByteBuffer.allocate(1024 * 1024);
+            for (int remaining = extraAudioSize; remaining > 0; remaining -= silence.limit())
+            {
+                silence.clear();
+                silence.limit(Math.min(remaining, silence.capacity()));
+                fc.write(silence);
+            }
+            fc.write(ByteBuffer.wrap(original, mdatEnd, original.length - mdatEnd));
+        }
+        return testFile;
+    }
+
+    public void testWriteLargerMoovAtEndOfFile() throws Exception
+    {
+        Mp4WriteStatistics.getInstance().reset();
+        File testFile = AbstractTestCase.copyAudioToTmp("test15.m4a", new File("testMoovAfterAudioAtEnd.m4a"));
+        assertEquals("ftyp mdat moov", getTopLevelAtoms(testFile));
+        byte[] originalMdat = readMdat(testFile);
+        long originalLength = testFile.length();
+
+        AudioFile af = AudioFileIO.read(testFile);
+        int trackLength = af.getAudioHeader().getTrackLength();
+        long audioStart = af.getAudioHeader().getAudioDataStartPosition();
+        af.getTag().setField(FieldKey.LYRICS, createValue(10000));
+        af.commit();
+        assertEquals(1, Mp4WriteStatistics.getInstance().getMoovAfterAudioRewrites());
+        assertTrue(testFile.length() > originalLength + 10000);
+        assertEquals("ftyp mdat moov", getTopLevelAtoms(testFile));
+        assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(10000), af.getTag().getFirst(FieldKey.LYRICS));
+        assertEquals(trackLength, af.getAudioHeader().getTrackLength());
+        assertEquals(audioStart, af.getAudioHeader().getAudioDataStartPosition().longValue());
+
+        //Now smaller again, written in place with the space left as a free atom
+        long lengthAfterGrowing = testFile.length();
+        af.getTag().setField(FieldKey.LYRICS, "short");
+        af.commit();
+        af = AudioFileIO.read(testFile);
+        assertEquals("short", af.getTag().getFirst(FieldKey.LYRICS));
+        assertEquals(lengthAfterGrowing, testFile.length());
+        assertEquals("ftyp mdat moov", getTopLevelAtoms(testFile));
+        assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+    }
+
+    public void testWriteUsingFreeAtomAfterMoov() throws Exception
+    {
+        Mp4WriteStatistics.getInstance().reset();
+        File testFile = AbstractTestCase.copyAudioToTmp("test19.m4a", new File("testMoovAfterAudioWithFree.m4a"));
+        assertEquals("ftyp mdat moov free", getTopLevelAtoms(testFile));
+        byte[] originalMdat = readMdat(testFile);
+        long originalLength = testFile.length();
+
+        //Fits within the free atom after moov
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, createValue(1000));
+        af.commit();
+        assertEquals(originalLength, testFile.length());
+        assertEquals("ftyp mdat moov free", getTopLevelAtoms(testFile));
+
+        //Too large for the free atom, so it is moved along after moov
+        af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, createValue(10000));
+        af.commit();
+        assertEquals(2, Mp4WriteStatistics.getInstance().getMoovAfterAudioRewrites());
+        assertEquals("ftyp mdat moov free", getTopLevelAtoms(testFile));
+        assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(10000), af.getTag().getFirst(FieldKey.LYRICS));
+    }
+
+    /**
+     * Atoms after moov (other than free) must be preserved when moov grows
+     */
+    public void testWritePreservesAtomAfterMoov() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test15.m4a", new File("testMoovAfterAudioWithUuid.m4a"));
+        ByteBuffer uuid = ByteBuffer.allocate(40);
+        uuid.putInt(40);
+        uuid.put("uuid".getBytes("ISO-8859-1"));
+        for (int i = 8; i < 40; i++)
+        {
+            uuid.put((byte) i);
+        }
+        uuid.flip();
+        try (SeekableByteChannel fc = Files.newByteChannel(testFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            fc.write(uuid);
+        }
+        assertEquals("ftyp mdat moov uuid", getTopLevelAtoms(testFile));
+
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, createValue(10000));
+        af.commit();
+        assertEquals("ftyp mdat moov uuid", getTopLevelAtoms(testFile));
+
+        byte[] newFile = Files.readAllBytes(testFile.toPath());
+        assertTrue(Arrays.equals(uuid.array(), Arrays.copyOfRange(newFile, newFile.length - 40, newFile.length)));
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(10000), af.getTag().getFirst(FieldKey.LYRICS));
+    }
+
+    /**
+     * However long the audio the cost of writing is independent of it, because every write of a larger moov only
+     * rewrites moov and leaves mdat where it is
+     */
+    public void testWriteDoesNotMoveLongAudio() throws Exception
+    {
+        File testFile = createFileWithLongerAudio("test15.m4a", new File("testMoovAfterAudioLong.m4a"), 4 * 1024 * 1024);
+        try
+        {
+            Mp4WriteStatistics.getInstance().reset();
+            byte[] originalMdat = readMdat(testFile);
+            long originalMdatOffset = getMdatOffset(testFile);
+            for (int i = 0; i < 5; i++)
+            {
+                AudioFile af = AudioFileIO.read(testFile);
+                af.getTag().setField(FieldKey.LYRICS, createValue(10000 * (i + 1)));
+                af.commit();
+                assertEquals(i + 1, Mp4WriteStatistics.getInstance().getMoovAfterAudioRewrites());
+                assertEquals(originalMdatOffset, getMdatOffset(testFile));
+                assertTrue(Arrays.equals(originalMdat, readMdat(testFile)));
+            }
+
+            AudioFile af = AudioFileIO.read(testFile);
+            assertEquals(createValue(50000), af.getTag().getFirst(FieldKey.LYRICS));
+            assertEquals("ftyp mdat moov", getTopLevelAtoms(testFile));
+        }
+        finally
+        {
+            testFile.delete();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.jaudiotagger.AbstractTestCase;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.audio.mp4.Mp4AtomTree;
+import org.jaudiotagger.audio.mp4.Mp4WriteVerification;
 import org.jaudiotagger.tag.*;
 import org.jaudiotagger.tag.mp4.atom.Mp4ContentTypeValue;
 import org.jaudiotagger.tag.mp4.atom.Mp4RatingValue;
@@ -2503,5 +2504,32 @@ public class M4aWriteTagTest extends TestCase
         }
         assertNull(exceptionCaught);
     }
-}
 
+    /**
+     * Metadata too large for the existing padding so mdat is shifted and stco offsets adjusted, check with each level of
+     * verification after writing
+     */
+    public void testWriteFileLargerSizeWithEachVerification() throws Exception
+    {
+        StringBuilder lyrics = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+        {
+            lyrics.append("lyrics");
+        }
+
+        for (Mp4WriteVerification verification : Mp4WriteVerification.values())
+        {
+            TagOptionSingleton.getInstance().setMp4WriteVerification(verification);
+            File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testWriteWithVerification" + verification + ".m4a"));
+            AudioFile f = AudioFileIO.read(testFile);
+            long originalAudioStart = f.getAudioHeader().getAudioDataStartPosition();
+            f.getTag().setField(FieldKey.LYRICS, lyrics.toString());
+            f.commit();
+
+            f = AudioFileIO.read(testFile);
+            assertEquals(lyrics.toString(), f.getTag().getFirst(FieldKey.LYRICS));
+            assertEquals(242, f.getAudioHeader().getTrackLength());
+            assertTrue(f.getAudioHeader().getAudioDataStartPosition() > originalAudioStart);
+        }
+    }
+}
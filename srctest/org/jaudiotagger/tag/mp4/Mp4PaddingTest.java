@@ -0,0 +1,130 @@
+package org.jaudiotagger.tag.mp4;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.mp4.Mp4AtomIndex;
+import org.jaudiotagger.audio.mp4.Mp4WriteStatistics;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.TagOptionSingleton;
+
+import java.io.File;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+
+/**
+ * Test reserving a free atom after ilst when the moov atom is rewritten so later edits can be written in place
+ */
+public class Mp4PaddingTest extends AbstractTestCase
+{
+    private static String createValue(int length)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++)
+        {
+            sb.append((char) ('a' + (i % 26)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the size of the free atom immediately after ilst, or 0 if none
+     */
+    private static long getFreeAfterIlstSize(File file, int[] noOfFreeAtomsInMeta) throws Exception
+    {
+        try (SeekableByteChannel fc = Files.newByteChannel(file.toPath()))
+        {
+            Mp4AtomIndex index = new Mp4AtomIndex(fc);
+            int meta = index.find("moov/udta/meta");
+            int ilst = index.find(meta, "ilst");
+            assertTrue(ilst != Mp4AtomIndex.NONE);
+
+            noOfFreeAtomsInMeta[0] = 0;
+            for (int i = 0; i < index.getCount(); i++)
+            {
+                if (index.getParent(i) == meta && index.getId(i).equals("free"))
+                {
+                    noOfFreeAtomsInMeta[0]++;
+                }
+            }
+
+            int next = index.getNextSibling(ilst);
+            if (next != Mp4AtomIndex.NONE && index.getId(next).equals("free"))
+            {
+                return index.getSize(next);
+            }
+            return 0;
+        }
+    }
+
+    public void testWritePaddingAndReuse() throws Exception
+    {
+        TagOptionSingleton.getInstance().setMp4PaddingSize(4000);
+        Mp4WriteStatistics.getInstance().reset();
+
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testMp4Padding.m4a"));
+        int[] noOfFreeAtoms = new int[1];
+
+        //Grows beyond any existing padding so moov is rewritten, with padding reserved after ilst
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, createValue(5000));
+        af.commit();
+        assertEquals(1, Mp4WriteStatistics.getInstance().getMoovRewrites());
+        assertEquals(1, Mp4WriteStatistics.getInstance().getPaddedRewrites());
+        assertEquals(4008, getFreeAfterIlstSize(testFile, noOfFreeAtoms));
+        assertEquals(1, noOfFreeAtoms[0]);
+
+        long lengthAfterFirstWrite = testFile.length();
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(5000), af.getTag().getFirst(FieldKey.LYRICS));
+        long audioStartAfterFirstWrite = af.getAudioHeader().getAudioDataStartPosition();
+
+        //Grows but fits within padding, so written in place
+        af.getTag().setField(FieldKey.LYRICS, createValue(6000));
+        af.getTag().setField(FieldKey.ARTIST, "artist");
+        af.commit();
+        assertEquals(1, Mp4WriteStatistics.getInstance().getMoovRewrites());
+        assertEquals(1, Mp4WriteStatistics.getInstance().getInPlaceWrites());
+        assertEquals(lengthAfterFirstWrite, testFile.length());
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(6000), af.getTag().getFirst(FieldKey.LYRICS));
+        assertEquals("artist", af.getTag().getFirst(FieldKey.ARTIST));
+        assertEquals(audioStartAfterFirstWrite, af.getAudioHeader().getAudioDataStartPosition().longValue());
+        assertEquals(242, af.getAudioHeader().getTrackLength());
+
+        //Shrinks, padding grows to fill the gap
+        af.getTag().setField(FieldKey.LYRICS, createValue(10));
+        af.commit();
+        assertEquals(2, Mp4WriteStatistics.getInstance().getInPlaceWrites());
+        assertEquals(lengthAfterFirstWrite, testFile.length());
+
+        //Exceeds padding so moov is rewritten again, the old padding is replaced rather than accumulated
+        af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, createValue(20000));
+        af.commit();
+        assertEquals(2, Mp4WriteStatistics.getInstance().getMoovRewrites());
+        assertEquals(4008, getFreeAfterIlstSize(testFile, noOfFreeAtoms));
+        assertEquals(1, noOfFreeAtoms[0]);
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(20000), af.getTag().getFirst(FieldKey.LYRICS));
+        assertEquals("artist", af.getTag().getFirst(FieldKey.ARTIST));
+        assertEquals(242, af.getAudioHeader().getTrackLength());
+        assertEquals(0.5, Mp4WriteStatistics.getInstance().getInPlaceRatio(), 0.001);
+    }
+
+    public void testNoPaddingByDefault() throws Exception
+    {
+        Mp4WriteStatistics.getInstance().reset();
+        File testFile = AbstractTestCase.copyAudioToTmp("test.m4a", new File("testMp4NoPadding.m4a"));
+        long originalFreeSize = getFreeAfterIlstSize(testFile, new int[1]);
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.LYRICS, createValue(5000));
+        af.commit();
+        assertEquals(1, Mp4WriteStatistics.getInstance().getMoovRewrites());
+        assertEquals(0, Mp4WriteStatistics.getInstance().getPaddedRewrites());
+        //Existing free atom is left as it was
+        assertEquals(originalFreeSize, getFreeAfterIlstSize(testFile, new int[1]));
+    }
+}
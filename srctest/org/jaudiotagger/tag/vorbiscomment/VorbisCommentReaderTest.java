@@ -0,0 +1,222 @@
+package org.jaudiotagger.tag.vorbiscomment;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataPicture;
+import org.jaudiotagger.tag.TagField;
+import org.jaudiotagger.tag.images.Artwork;
+import org.jaudiotagger.tag.mp4.field.Mp4TagTextField;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Parsing raw VorbisComment data
+ */
+public class VorbisCommentReaderTest extends AbstractTestCase
+{
+    private static void writeString(ByteArrayOutputStream out, String value)
+    {
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        length.putInt(data.length);
+        out.write(length.array(), 0, 4);
+        out.write(data, 0, data.length);
+    }
+
+    private static byte[] createComment(boolean framingBit, String... comments)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeString(out, "vendor é");
+        ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        count.putInt(comments.length);
+        out.write(count.array(), 0, 4);
+        for (String next : comments)
+        {
+            writeString(out, next);
+        }
+        if (framingBit)
+        {
+            out.write(1);
+        }
+        return out.toByteArray();
+    }
+
+    private static void checkTag(VorbisCommentTag tag)
+    {
+        assertEquals("vendor é", tag.getVendor());
+
+        List<TagField> artists = tag.getFields(VorbisCommentFieldKey.ARTIST.getFieldName());
+        assertEquals(2, artists.size());
+        assertSame(VorbisCommentFieldKey.ARTIST.getFieldName(), artists.get(0).getId());
+        assertEquals("Artist", artists.get(0).toString());
+        assertEquals("Second Årtist", artists.get(1).toString());
+        assertTrue(artists.get(0).isCommon());
+
+        assertEquals("My=Title", tag.getFirst(VorbisCommentFieldKey.TITLE.getFieldName()));
+        assertEquals("", tag.getFirst(VorbisCommentFieldKey.ALBUM.getFieldName()));
+        assertEquals("custom", tag.getFirst("MYCUSTOMKEY"));
+        assertEquals("no separator", tag.getFirst("ERRONEOUS"));
+    }
+
+    private static final String[] COMMENTS = {"ARTIST=Artist", "artist=Second Årtist", "Title=My=Title", "album=", "MyCustomKey=custom", "no separator"};
+
+    public void testReadFromArray() throws Exception
+    {
+        checkTag(new VorbisCommentReader().read(createComment(true, COMMENTS), true, null));
+        checkTag(new VorbisCommentReader().read(createComment(false, COMMENTS), false, null));
+    }
+
+    public void testReadFromBuffer() throws Exception
+    {
+        byte[] comment = createComment(false, COMMENTS);
+
+        //Data in the middle of a larger buffer
+        ByteBuffer buffer = ByteBuffer.allocate(comment.length + 20);
+        buffer.position(10);
+        buffer.put(comment);
+        buffer.flip();
+        buffer.position(10);
+        checkTag(new VorbisCommentReader().read(buffer.slice(), false, null));
+        checkTag(new VorbisCommentReader().read(buffer, false, null));
+        assertEquals(10, buffer.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(comment.length);
+        direct.put(comment);
+        direct.flip();
+        checkTag(new VorbisCommentReader().read(direct, false, null));
+    }
+
+    /**
+     * Comment created directly into its buffer has the same bytes as encoding each string separately
+     */
+    public void testCreate() throws Exception
+    {
+        String[] comments = {"ARTIST=Artist", "TITLE=Tïtle", "ALBUM=\u4e2d\u6587", "COMMENT=emoji \ud83c\udfb5", "GENRE=unpaired \ud800 surrogate", "COMPOSER="};
+        VorbisCommentTag tag = VorbisCommentTag.createNewTag();
+        tag.setVendor("vendor é");
+        for (String next : comments)
+        {
+            int separator = next.indexOf('=');
+            tag.addField(next.substring(0, separator), next.substring(separator + 1));
+        }
+
+        byte[] expected = createComment(false, comments);
+        VorbisCommentCreator creator = new VorbisCommentCreator();
+        assertEquals(expected.length, creator.getLength(tag));
+        ByteBuffer created = creator.convertMetadata(tag);
+        assertEquals(expected.length, created.capacity());
+        assertTrue(Arrays.equals(expected, created.array()));
+        for (TagField next : tag.getFields(VorbisCommentFieldKey.ALBUM.getFieldName()))
+        {
+            assertTrue(Arrays.equals(("ALBUM=\u4e2d\u6587").getBytes(StandardCharsets.UTF_8), Arrays.copyOfRange(next.getRawContent(), 4, next.getRawContent().length)));
+        }
+
+        //Read, then write and read again
+        VorbisCommentTag read = new VorbisCommentReader().read(createComment(false, COMMENTS), false, null);
+        checkTag(new VorbisCommentReader().read(creator.convertMetadata(read).array(), false, null));
+    }
+
+    public void testMissingFramingBit() throws Exception
+    {
+        try
+        {
+            new VorbisCommentReader().read(createComment(false, COMMENTS), true, null);
+            fail("Expected CannotReadException");
+        }
+        catch (CannotReadException cre)
+        {
+            //expected
+        }
+    }
+
+    public void testKeyLookup()
+    {
+        for (VorbisCommentFieldKey next : VorbisCommentFieldKey.values())
+        {
+            byte[] key = next.getFieldName().toLowerCase().getBytes(StandardCharsets.US_ASCII);
+            assertEquals(next.getFieldName(), VorbisCommentReader.lookupKey(key, 0, key.length));
+        }
+        byte[] key = "xARTISTx".getBytes(StandardCharsets.US_ASCII);
+        assertEquals("ARTIST", VorbisCommentReader.lookupKey(key, 1, 6));
+        assertNull(VorbisCommentReader.lookupKey(key, 0, 7));
+    }
+
+    /**
+     * Artwork is left as base64 bytes when read and only decoded when requested
+     */
+    public void testReadArtwork() throws Exception
+    {
+        byte[] image = new byte[1001];
+        for (int i = 0; i < image.length; i++)
+        {
+            image[i] = (byte) i;
+        }
+        MetadataBlockDataPicture picture = new MetadataBlockDataPicture(image, 3, "image/png", "front", 10, 20, 24, 0);
+        String pictureBase64 = Base64.getEncoder().encodeToString(picture.getRawContent());
+        String coverArtBase64 = Base64.getEncoder().encodeToString(Arrays.copyOf(image, 1000));
+
+        byte[] comment = createComment(true, "ARTIST=Artist", "metadata_block_picture=" + pictureBase64, "COVERART=" + coverArtBase64, "COVERARTMIME=image/jpeg");
+        VorbisCommentTag tag = new VorbisCommentReader().read(comment, true, null);
+
+        assertTrue(Arrays.equals(Arrays.copyOf(image, 1000), tag.getArtworkBinaryData()));
+        List<Artwork> artwork = tag.getArtworkList();
+        assertEquals(2, artwork.size());
+        assertEquals("image/jpeg", artwork.get(0).getMimeType());
+        assertEquals("image/png", artwork.get(1).getMimeType());
+        assertEquals("front", artwork.get(1).getDescription());
+        assertEquals(3, artwork.get(1).getPictureType());
+        assertTrue(Arrays.equals(image, artwork.get(1).getBinaryData()));
+
+        //Written back unchanged without being decoded
+        VorbisCommentTagField field = (VorbisCommentTagField) tag.getFirstField(VorbisCommentFieldKey.METADATA_BLOCK_PICTURE.getFieldName());
+        assertFalse(field.isEmpty());
+        byte[] expected = createComment(false, "METADATA_BLOCK_PICTURE=" + pictureBase64);
+        assertTrue(Arrays.equals(Arrays.copyOfRange(expected, expected.length - field.getRawContent().length, expected.length), field.getRawContent()));
+        assertEquals(pictureBase64, field.getContent());
+
+        field.setContent("");
+        assertTrue(field.isEmpty());
+    }
+
+    /**
+     * Artwork fields added by the caller that are not VorbisCommentTagFields are decoded from their content
+     */
+    public void testOtherArtworkField() throws Exception
+    {
+        byte[] image = new byte[100];
+        Arrays.fill(image, (byte) 7);
+        String pictureBase64 = Base64.getEncoder().encodeToString(new MetadataBlockDataPicture(image, 3, "image/png", "", 10, 20, 24, 0).getRawContent());
+
+        VorbisCommentTag tag = VorbisCommentTag.createNewTag();
+        tag.addField(new Mp4TagTextField(VorbisCommentFieldKey.METADATA_BLOCK_PICTURE.getFieldName(), pictureBase64));
+        tag.addField(new Mp4TagTextField(VorbisCommentFieldKey.COVERART.getFieldName(), Base64.getEncoder().encodeToString(Arrays.copyOf(image, 10))));
+
+        assertTrue(Arrays.equals(Arrays.copyOf(image, 10), tag.getArtworkBinaryData()));
+        List<Artwork> artwork = tag.getArtworkList();
+        assertEquals(2, artwork.size());
+        assertTrue(Arrays.equals(image, artwork.get(1).getBinaryData()));
+    }
+
+    public void testReadInvalidArtwork() throws Exception
+    {
+        byte[] picture = new MetadataBlockDataPicture(new byte[100], 3, "image/png", "", 10, 20, 24, 0).getRawContent();
+        //Truncated so image size is larger than the data available
+        String pictureBase64 = Base64.getEncoder().encodeToString(Arrays.copyOf(picture, 90));
+        VorbisCommentTag tag = new VorbisCommentReader().read(createComment(true, "METADATA_BLOCK_PICTURE=" + pictureBase64), true, null);
+        try
+        {
+            tag.getArtworkList();
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException re)
+        {
+            //expected
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -882,4 +884,35 @@ public class VorbisWriteTagTest extends AbstractTestCase
         }
         assertNull(exceptionCaught);
     }
+
+    /**
+     * Writing small files in memory must create exactly the same file as writing via a temporary file
+     */
+    public void testWriteInMemorySameAsTempFile() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 70000; i++)
+        {
+            sb.append((char)('a' + (i % 26)));
+        }
+
+        for (String value : new String[]{"artist", sb.toString()})
+        {
+            File viaTempFile = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testWriteViaTempFile.ogg"));
+            AudioFile f = AudioFileIO.read(viaTempFile);
+            f.getTag().setField(FieldKey.ARTIST, value);
+            f.commit();
+
+            TagOptionSingleton.getInstance().setInMemoryWriteMaximumFileSize(10000000);
+            File inMemory = AbstractTestCase.copyAudioToTmp("test.ogg", new File("testWriteInMemory.ogg"));
+            f = AudioFileIO.read(inMemory);
+            f.getTag().setField(FieldKey.ARTIST, value);
+            f.commit();
+            TagOptionSingleton.getInstance().setInMemoryWriteMaximumFileSize(0);
+
+            assertTrue(Arrays.equals(Files.readAllBytes(viaTempFile.toPath()), Files.readAllBytes(inMemory.toPath())));
+            f = AudioFileIO.read(inMemory);
+            assertEquals(value, f.getTag().getFirst(FieldKey.ARTIST));
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package org.jaudiotagger.tag.wav;
+
+import org.jaudiotagger.AbstractTestCase;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.iff.ChunkSummary;
+import org.jaudiotagger.audio.wav.WavChunkType;
+import org.jaudiotagger.audio.wav.WavOptions;
+import org.jaudiotagger.audio.wav.WavSaveOptions;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.TagOptionSingleton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Test reserving a JUNK chunk after the metadata so later edits can be written in place
+ */
+public class WavPaddingTest extends AbstractTestCase
+{
+    private static ChunkSummary getChunk(WavTag tag, String id)
+    {
+        for(ChunkSummary cs:tag.getChunkSummaryList())
+        {
+            if(cs.getChunkId().equals(id))
+            {
+                return cs;
+            }
+        }
+        return null;
+    }
+
+    private static int countChunks(WavTag tag, String id)
+    {
+        int count = 0;
+        for(ChunkSummary cs:tag.getChunkSummaryList())
+        {
+            if(cs.getChunkId().equals(id))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String createValue(int length)
+    {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < length; i++)
+        {
+            sb.append((char)('a' + (i % 26)));
+        }
+        return sb.toString();
+    }
+
+    public void testWritePaddingAndReuseAtEndOfFile() throws Exception
+    {
+        TagOptionSingleton.getInstance().setWavOptions(WavOptions.READ_INFO_ONLY);
+        TagOptionSingleton.getInstance().setWavSaveOptions(WavSaveOptions.SAVE_BOTH);
+        TagOptionSingleton.getInstance().setWavPaddingSize(4000);
+
+        File testFile = AbstractTestCase.copyAudioToTmp("test.wav", new File("testWavPaddingAtEnd.wav"));
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.ARTIST, "artist");
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        WavTag tag = (WavTag)af.getTag();
+        assertEquals("artist", tag.getFirst(FieldKey.ARTIST));
+        List<ChunkSummary> chunks = tag.getChunkSummaryList();
+        ChunkSummary last = chunks.get(chunks.size() - 1);
+        assertEquals(WavChunkType.JUNK.getCode(), last.getChunkId());
+        assertEquals(4000, last.getChunkSize());
+        assertEquals(testFile.length(), last.getEndLocation());
+        long lengthAfterFirstWrite = testFile.length();
+
+        //Grows but fits within padding
+        af.getTag().setField(FieldKey.ARTIST, createValue(1000));
+        af.commit();
+        assertEquals(lengthAfterFirstWrite, testFile.length());
+
+        af = AudioFileIO.read(testFile);
+        tag = (WavTag)af.getTag();
+        assertEquals(createValue(1000), tag.getFirst(FieldKey.ARTIST));
+        assertEquals(1, countChunks(tag, WavChunkType.JUNK.getCode()));
+        assertTrue(getChunk(tag, WavChunkType.JUNK.getCode()).getChunkSize() < 4000);
+        assertEquals(14, af.getAudioHeader().getTrackLength());
+
+        //Too big for padding, rewritten at end with new padding
+        af.getTag().setField(FieldKey.ARTIST, createValue(10000));
+        af.commit();
+        assertTrue(testFile.length() > lengthAfterFirstWrite);
+
+        af = AudioFileIO.read(testFile);
+        tag = (WavTag)af.getTag();
+        assertEquals(createValue(10000), tag.getFirst(FieldKey.ARTIST));
+        assertEquals(1, countChunks(tag, WavChunkType.JUNK.getCode()));
+        assertEquals(4000, getChunk(tag, WavChunkType.JUNK.getCode()).getChunkSize());
+    }
+
+    /**
+     * Metadata before the audio, as commonly found in broadcast wavs, edits within the padding must not move the audio
+     */
+    public void testReusePaddingBeforeAudio() throws Exception
+    {
+        TagOptionSingleton.getInstance().setWavOptions(WavOptions.READ_INFO_ONLY);
+        TagOptionSingleton.getInstance().setWavSaveOptions(WavSaveOptions.SAVE_BOTH);
+        TagOptionSingleton.getInstance().setWavPaddingSize(4000);
+
+        File testFile = AbstractTestCase.copyAudioToTmp("test.wav", new File("testWavPaddingBeforeAudio.wav"));
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.ARTIST, "artist");
+        af.commit();
+
+        //Move the data chunk after the metadata and padding chunks
+        af = AudioFileIO.read(testFile);
+        WavTag tag = (WavTag)af.getTag();
+        ChunkSummary data = getChunk(tag, WavChunkType.DATA.getCode());
+        byte[] original = Files.readAllBytes(testFile.toPath());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(original, 0, (int)data.getFileStartLocation());
+        baos.write(original, (int)data.getEndLocation(), original.length - (int)data.getEndLocation());
+        baos.write(original, (int)data.getFileStartLocation(), (int)(data.getEndLocation() - data.getFileStartLocation()));
+        Files.write(testFile.toPath(), baos.toByteArray());
+
+        af = AudioFileIO.read(testFile);
+        long audioStart = af.getAudioHeader().getAudioDataStartPosition();
+        long length = testFile.length();
+        assertTrue(audioStart > getChunk((WavTag)af.getTag(), WavChunkType.JUNK.getCode()).getFileStartLocation());
+
+        af.getTag().setField(FieldKey.ARTIST, createValue(1000));
+        af.getTag().setField(FieldKey.ALBUM, "album");
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        assertEquals(createValue(1000), af.getTag().getFirst(FieldKey.ARTIST));
+        assertEquals("album", af.getTag().getFirst(FieldKey.ALBUM));
+        assertEquals(audioStart, af.getAudioHeader().getAudioDataStartPosition().longValue());
+        assertEquals(length, testFile.length());
+        assertEquals(14, af.getAudioHeader().getTrackLength());
+    }
+
+    public void testNoPaddingByDefault() throws Exception
+    {
+        File testFile = AbstractTestCase.copyAudioToTmp("test.wav", new File("testWavNoPadding.wav"));
+        AudioFile af = AudioFileIO.read(testFile);
+        af.getTag().setField(FieldKey.ARTIST, "artist");
+        af.commit();
+
+        af = AudioFileIO.read(testFile);
+        assertEquals("artist", af.getTag().getFirst(FieldKey.ARTIST));
+        assertNull(getChunk((WavTag)af.getTag(), WavChunkType.JUNK.getCode()));
+    }
+}